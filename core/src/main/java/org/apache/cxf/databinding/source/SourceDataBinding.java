@@ -40,6 +40,15 @@ import org.apache.ws.commons.schema.constants.Constants;
 public class SourceDataBinding extends org.apache.cxf.databinding.AbstractDataBinding {
     
     public static final String PREFERRED_FORMAT = "source-preferred-format";
+    
+    /**
+     * If set to true, the StreamSource and DataSource payloads are not copied
+     * until they are first read, and are not copied at all if they are never read.
+     * Only the last part of a message is deferred, the parts followed by others are copied
+     * while the message is read. The payload has to be read or closed before the invocation
+     * completes.
+     */
+    public static final String LAZY_STREAM = "source-lazy-stream";
 
     final Class<?> preferred;
     
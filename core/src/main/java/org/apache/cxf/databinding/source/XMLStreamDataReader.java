@@ -52,7 +52,9 @@ import org.apache.cxf.interceptor.StaxInEndingInterceptor;
 import org.apache.cxf.io.CachedOutputStream;
 import org.apache.cxf.message.Attachment;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
+import org.apache.cxf.service.model.AbstractMessageContainer;
 import org.apache.cxf.service.model.MessagePartInfo;
 import org.apache.cxf.staxutils.DepthXMLStreamReader;
 import org.apache.cxf.staxutils.FragmentStreamReader;
@@ -71,6 +73,7 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
     private final Class<?> preferred;
     private Schema schema;
     private Message message;
+    private LazyInputStream pending;
     
     public XMLStreamDataReader() {
         preferred = null;
@@ -80,10 +83,27 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
     }
     
     public Object read(MessagePartInfo part, XMLStreamReader input) {
-        return read(null, input, part.getTypeClass());
+        return read(null, input, part.getTypeClass(), isLastPart(part));
+    }
+
+    /**
+     * The parts followed by other parts are read right away, as the caller moves the reader
+     * to the next part once this one has been read.
+     */
+    private static boolean isLastPart(MessagePartInfo part) {
+        AbstractMessageContainer mi = part.getMessageInfo();
+        if (mi == null) {
+            return true;
+        }
+        List<MessagePartInfo> parts = mi.getMessageParts();
+        return parts.isEmpty() || parts.get(parts.size() - 1) == part;
     }
 
     public Object read(final QName name, XMLStreamReader input, Class<?> type) {
+        return read(name, input, type, true);
+    }
+
+    private Object read(final QName name, XMLStreamReader input, Class<?> type, boolean deferrable) {
         if (type == null) {
             type = preferred;
         }
@@ -110,18 +130,26 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
             }
         }
         try {
+            if (pending != null) {
+                // the previous part has not been read yet, move the reader past it
+                LazyInputStream previous = pending;
+                pending = null;
+                previous.buffer();
+            }
             Element dom = null;
             if (schema != null) {
                 dom = validate(input);
                 input = StaxUtils.createXMLStreamReader(dom);
             }
             if (type != null) {
+                boolean lazy = deferrable && dom == null && message != null
+                    && MessageUtils.isTrue(message.getContextualProperty(SourceDataBinding.LAZY_STREAM));
                 Object retVal = null;
                 if (SAXSource.class.isAssignableFrom(type)
                     || StaxSource.class.isAssignableFrom(type)) {
                     retVal = new StaxSource(resetForStreaming(input));
                 } else if (StreamSource.class.isAssignableFrom(type)) {
-                    retVal = new StreamSource(getInputStream(input));
+                    retVal = new StreamSource(lazy ? getLazyInputStream(input) : getInputStream(input));
                 } else if (XMLStreamReader.class.isAssignableFrom(type)) {
                     retVal = resetForStreaming(input);
                 } else if (Element.class.isAssignableFrom(type)) {
@@ -129,7 +157,7 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
                 } else if (Document.class.isAssignableFrom(type)) {
                     retVal = dom == null ? read(input).getNode() : dom;
                 } else if (DataSource.class.isAssignableFrom(type)) {
-                    final InputStream ins = getInputStream(input);
+                    final InputStream ins = lazy ? getLazyInputStream(input) : getInputStream(input);
                     retVal = new DataSource() {
                         public String getContentType() {
                             return "text/xml";
@@ -272,10 +300,17 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
         throws XMLStreamException, IOException {
         
         try (CachedOutputStream out = new CachedOutputStream()) {
-            StaxUtils.copy(input, out);
+            // copy this part only, the reader is left on what follows it
+            StaxUtils.copy(new FragmentStreamReader(input, true), out);
             return out.getInputStream();
         }
     }
+    private InputStream getLazyInputStream(XMLStreamReader input) throws XMLStreamException {
+        XMLStreamReader part = new FragmentStreamReader(input, true);
+        pending = new LazyInputStream(part, resetForStreaming(input));
+        return pending;
+    }
+    
     public DOMSource read(XMLStreamReader reader) {
         // Use a DOMSource for now, we should really use a StaxSource/SAXSource though for 
         // performance reasons
@@ -325,4 +360,97 @@ public class XMLStreamDataReader implements DataReader<XMLStreamReader> {
         public void write(byte[] b) throws IOException {
         }
     }
+    
+    /**
+     * Copies the payload into a cached stream when it is first read, or when the next part
+     * is read. If it is closed without having been read, the reader is moved past the payload.
+     * The request stream is closed with the payload.
+     */
+    private static class LazyInputStream extends InputStream {
+        private final XMLStreamReader part;
+        private final XMLStreamReader streaming;
+        private InputStream in;
+        private boolean closed;
+        private boolean released;
+        
+        LazyInputStream(XMLStreamReader part, XMLStreamReader streaming) {
+            this.part = part;
+            this.streaming = streaming;
+        }
+        
+        void buffer() throws IOException {
+            if (in == null && !closed) {
+                try (CachedOutputStream out = new CachedOutputStream()) {
+                    StaxUtils.copy(part, out);
+                    in = out.getInputStream();
+                } catch (XMLStreamException e) {
+                    throw new IOException(e);
+                }
+            }
+        }
+        
+        private InputStream getInputStream() throws IOException {
+            if (closed) {
+                throw new IOException("Stream closed");
+            }
+            if (in == null) {
+                try {
+                    buffer();
+                } finally {
+                    // nothing follows the payload, the request stream is no longer needed
+                    release();
+                }
+            }
+            return in;
+        }
+        
+        private void skip() {
+            try {
+                while (part.hasNext()) {
+                    part.next();
+                }
+            } catch (XMLStreamException e) {
+                //ignore
+            }
+        }
+        
+        private void release() {
+            if (!released) {
+                released = true;
+                try {
+                    streaming.close();
+                } catch (XMLStreamException e) {
+                    //ignore
+                }
+            }
+        }
+        
+        public int read() throws IOException {
+            return getInputStream().read();
+        }
+        
+        public int read(byte[] b, int off, int len) throws IOException {
+            return getInputStream().read(b, off, len);
+        }
+        
+        public long skip(long n) throws IOException {
+            return getInputStream().skip(n);
+        }
+        
+        public int available() throws IOException {
+            return in == null ? 0 : in.available();
+        }
+        
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                if (in != null) {
+                    in.close();
+                } else {
+                    skip();
+                }
+                release();
+            }
+        }
+    }
 }
@@ -69,7 +69,9 @@ public class FIStaxInInterceptor extends AbstractPhaseInterceptor<Message> {
         if (ct != null && ct.indexOf("fastinfoset") != -1 
             && message.getContent(InputStream.class) != null
             && message.getContent(XMLStreamReader.class) == null) {
-            message.setContent(XMLStreamReader.class, getParser(message.getContent(InputStream.class)));
+            StAXDocumentParser parser = getParser(message.getContent(InputStream.class));
+            configureVocabulary(message, parser);
+            message.setContent(XMLStreamReader.class, parser);
             //add the StaxInEndingInterceptor which will close the reader
             message.getInterceptorChain().add(StaxInEndingInterceptor.INSTANCE);
             
@@ -89,6 +91,23 @@ public class FIStaxInInterceptor extends AbstractPhaseInterceptor<Message> {
         }
     }
     
+    private void configureVocabulary(Message message, StAXDocumentParser parser) {
+        if (!MessageUtils.isTrue(message.getContextualProperty(FIStaxOutInterceptor.FI_VOCABULARY))) {
+            return;
+        }
+        Endpoint ep = message.getExchange().getEndpoint();
+        FIVocabulary vocabulary = FIVocabulary.getVocabulary(ep);
+        if (vocabulary != null) {
+            vocabulary.configure(parser);
+            Message request = message.getExchange().getOutMessage();
+            if (isRequestor(message) && request != null
+                && vocabulary.getURI().equals(FIVocabulary.getHeader(message))) {
+                //the server has the same vocabulary, future requests to it can reference it
+                FIVocabulary.setNegotiated(request, vocabulary.getURI());
+            }
+        }
+    }
+    
     protected boolean isHttpVerbSupported(Message message) {
         if (isGET(message)) {
             return isRequestor(message) 
@@ -22,8 +22,10 @@ package org.apache.cxf.interceptor;
 
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,6 +47,13 @@ import org.apache.cxf.phase.Phase;
  */
 public class FIStaxOutInterceptor extends AbstractPhaseInterceptor<Message> {
     public static final String FI_ENABLED = "org.apache.cxf.fastinfoset.enabled";
+    /**
+     * Enables the external vocabulary primed with the names from the service schemas.
+     * The client advertises the vocabulary and starts referencing it once a response
+     * confirms that the server has the same vocabulary, the server references it in
+     * the responses to the clients which advertised it. Both sides have to enable it.
+     */
+    public static final String FI_VOCABULARY = "org.apache.cxf.fastinfoset.vocabulary";
 
     private static final Logger LOG = LogUtils.getL7dLogger(FIStaxOutInterceptor.class);
     private static final String OUTPUT_STREAM_HOLDER = FIStaxOutInterceptor.class.getName() + ".outputstream";
@@ -109,11 +118,16 @@ public class FIStaxOutInterceptor extends AbstractPhaseInterceptor<Message> {
             } else {
                 accepts.add(a);
             }
+            FIVocabulary vocabulary = getVocabulary(message);
+            if (vocabulary != null) {
+                headers.put(FIVocabulary.HEADER, Collections.singletonList(vocabulary.getURI()));
+            }
         }
             
         if (force 
             || MessageUtils.isTrue(o)) {
             StAXDocumentSerializer serializer = getOutput(message, out);
+            configureVocabulary(message, serializer, req);
             message.setContent(XMLStreamWriter.class, serializer);
             
             message.removeContent(OutputStream.class);
@@ -138,6 +152,37 @@ public class FIStaxOutInterceptor extends AbstractPhaseInterceptor<Message> {
         }
     }
     
+    private static FIVocabulary getVocabulary(Message message) {
+        if (MessageUtils.isTrue(message.getContextualProperty(FI_VOCABULARY))) {
+            return FIVocabulary.getVocabulary(message.getExchange().getEndpoint());
+        }
+        return null;
+    }
+    
+    private void configureVocabulary(Message message, StAXDocumentSerializer serializer, boolean req) {
+        FIVocabulary vocabulary = getVocabulary(message);
+        if (vocabulary == null) {
+            return;
+        }
+        if (req) {
+            if (vocabulary.getURI().equals(FIVocabulary.getNegotiated(message))) {
+                vocabulary.configure(serializer);
+            }
+        } else {
+            Message inMessage = message.getExchange().getInMessage();
+            if (inMessage != null && vocabulary.getURI().equals(FIVocabulary.getHeader(inMessage))) {
+                Map<String, List<String>> headers 
+                    = CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+                if (headers == null) {
+                    headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+                    message.put(Message.PROTOCOL_HEADERS, headers);
+                }
+                headers.put(FIVocabulary.HEADER, Collections.singletonList(vocabulary.getURI()));
+                vocabulary.configure(serializer);
+            }
+        }
+    }
+    
     private StAXDocumentSerializer getOutput(Message m, OutputStream out) {
         /*
         StAXDocumentSerializer serializer = (StAXDocumentSerializer)m.getExchange().getEndpoint()
@@ -0,0 +1,335 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.interceptor;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+import com.sun.xml.fastinfoset.vocab.ParserVocabulary;
+import com.sun.xml.fastinfoset.vocab.SerializerVocabulary;
+
+import org.apache.cxf.common.util.Base64UrlUtility;
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.SchemaInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.transport.Conduit;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.apache.ws.commons.schema.XmlSchemaAll;
+import org.apache.ws.commons.schema.XmlSchemaAttribute;
+import org.apache.ws.commons.schema.XmlSchemaAttributeOrGroupRef;
+import org.apache.ws.commons.schema.XmlSchemaChoice;
+import org.apache.ws.commons.schema.XmlSchemaComplexContentExtension;
+import org.apache.ws.commons.schema.XmlSchemaComplexType;
+import org.apache.ws.commons.schema.XmlSchemaElement;
+import org.apache.ws.commons.schema.XmlSchemaObjectBase;
+import org.apache.ws.commons.schema.XmlSchemaParticle;
+import org.apache.ws.commons.schema.XmlSchemaSequence;
+import org.apache.ws.commons.schema.XmlSchemaSequenceMember;
+import org.apache.ws.commons.schema.XmlSchemaType;
+
+/**
+ * Fast Infoset external vocabulary primed with the namespaces and the element
+ * and attribute names of the service schemas. Both the client and the server
+ * derive the same vocabulary from the same service model, the vocabulary URI
+ * includes a SHA-256 digest of its content so that the peers with different
+ * schemas never reference each other's vocabulary.
+ *
+ * The primed vocabularies are read only and shared by all the messages of
+ * the endpoint, the serializers and parsers only add the new entries to
+ * their own per-document tables.
+ */
+final class FIVocabulary {
+    static final String HEADER = "FastInfoset-Vocabulary";
+    private static final String NEGOTIATED = FIVocabulary.class.getName() + ".negotiated";
+
+    private static final String[] SOAP_NAMESPACES = {
+        "http://schemas.xmlsoap.org/soap/envelope/",
+        "http://www.w3.org/2003/05/soap-envelope"
+    };
+    private static final String[] SOAP_NAMES = {
+        "Envelope", "Header", "Body", "Fault", "mustUnderstand"
+    };
+
+    private final String uri;
+    private final SerializerVocabulary serializerVocabulary;
+    private final Map<String, ParserVocabulary> parserVocabularies;
+
+    private FIVocabulary(String uri, org.jvnet.fastinfoset.Vocabulary vocabulary) {
+        this.uri = uri;
+        this.serializerVocabulary = new SerializerVocabulary(vocabulary, false);
+        this.parserVocabularies =
+            Collections.singletonMap(uri, new ParserVocabulary(vocabulary));
+    }
+
+    String getURI() {
+        return uri;
+    }
+
+    /**
+     * Makes the serializer reference this vocabulary
+     */
+    void configure(StAXDocumentSerializer serializer) {
+        SerializerVocabulary v = new SerializerVocabulary();
+        v.setExternalVocabulary(uri, serializerVocabulary, false);
+        serializer.setVocabulary(v);
+    }
+
+    /**
+     * Lets the parser decode the documents which reference this vocabulary
+     */
+    void configure(StAXDocumentParser parser) {
+        parser.setExternalVocabularies(parserVocabularies);
+    }
+
+    /**
+     * Returns the vocabulary of the endpoint, it is built on the first call
+     * and kept on the endpoint
+     */
+    static FIVocabulary getVocabulary(Endpoint ep) {
+        if (ep == null || ep.getService() == null) {
+            return null;
+        }
+        String key = FIVocabulary.class.getName();
+        FIVocabulary vocabulary = (FIVocabulary)ep.get(key);
+        if (vocabulary == null) {
+            vocabulary = createVocabulary(ep.getService());
+            ep.put(key, vocabulary);
+        }
+        return vocabulary;
+    }
+
+    /**
+     * Returns the vocabulary URI negotiated with the target of the request, the
+     * client endpoint keeps it per target address as the requests of the same
+     * endpoint may go to different servers
+     */
+    static String getNegotiated(Message request) {
+        String address = getTargetAddress(request);
+        Map<String, String> negotiated = getNegotiatedMap(request.getExchange().getEndpoint(), false);
+        return address == null || negotiated == null ? null : negotiated.get(address);
+    }
+
+    /**
+     * Records that the target of the request has the vocabulary with the given URI
+     */
+    static void setNegotiated(Message request, String vocabularyURI) {
+        String address = getTargetAddress(request);
+        if (address != null) {
+            getNegotiatedMap(request.getExchange().getEndpoint(), true).put(address, vocabularyURI);
+        }
+    }
+
+    private static Map<String, String> getNegotiatedMap(Endpoint ep, boolean create) {
+        if (ep == null) {
+            return null;
+        }
+        Map<String, String> negotiated = CastUtils.cast((Map<?, ?>)ep.get(NEGOTIATED));
+        if (negotiated == null && create) {
+            synchronized (ep) {
+                negotiated = CastUtils.cast((Map<?, ?>)ep.get(NEGOTIATED));
+                if (negotiated == null) {
+                    negotiated = new ConcurrentHashMap<String, String>();
+                    ep.put(NEGOTIATED, negotiated);
+                }
+            }
+        }
+        return negotiated;
+    }
+
+    private static String getTargetAddress(Message request) {
+        String address = (String)request.get(Message.ENDPOINT_ADDRESS);
+        if (StringUtils.isEmpty(address)) {
+            Conduit conduit = request.getExchange().getConduit(request);
+            if (conduit != null && conduit.getTarget() != null && conduit.getTarget().getAddress() != null) {
+                address = conduit.getTarget().getAddress().getValue();
+            }
+        }
+        return address;
+    }
+
+    static String getHeader(Message message) {
+        Map<String, List<String>> headers =
+            CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+        if (headers != null) {
+            List<String> values = headers.get(HEADER);
+            if (values != null && !values.isEmpty()) {
+                return values.get(0);
+            }
+        }
+        return null;
+    }
+
+    static FIVocabulary createVocabulary(Service service) {
+        Set<String> namespaces = new TreeSet<String>();
+        Set<String> localNames = new TreeSet<String>();
+        for (String ns : SOAP_NAMESPACES) {
+            namespaces.add(ns);
+        }
+        for (String name : SOAP_NAMES) {
+            localNames.add(name);
+        }
+        Map<Object, Boolean> visited = new IdentityHashMap<Object, Boolean>();
+        for (ServiceInfo si : service.getServiceInfos()) {
+            for (SchemaInfo schemaInfo : si.getSchemas()) {
+                XmlSchema schema = schemaInfo.getSchema();
+                if (schema == null
+                    || XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(schema.getTargetNamespace())) {
+                    continue;
+                }
+                addName(schema.getTargetNamespace(), null, namespaces, localNames);
+                for (XmlSchemaElement el : schema.getElements().values()) {
+                    addElement(el, namespaces, localNames, visited);
+                }
+                for (XmlSchemaAttribute attr : schema.getAttributes().values()) {
+                    addName(null, attr.getName(), namespaces, localNames);
+                }
+                for (XmlSchemaType type : schema.getSchemaTypes().values()) {
+                    addType(type, namespaces, localNames, visited);
+                }
+            }
+        }
+
+        org.jvnet.fastinfoset.Vocabulary vocabulary = new org.jvnet.fastinfoset.Vocabulary();
+        vocabulary.namespaceNames.addAll(namespaces);
+        vocabulary.localNames.addAll(localNames);
+
+        QName serviceName = service.getName();
+        String uri = "urn:org.apache.cxf:fastinfoset:" + serviceName.getNamespaceURI()
+            + ":" + serviceName.getLocalPart() + ":" + digest(namespaces, localNames);
+        return new FIVocabulary(uri, vocabulary);
+    }
+
+    private static String digest(Set<String> namespaces, Set<String> localNames) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            // the entries are ordered, and terminated by a character which XML names can not contain
+            for (String ns : namespaces) {
+                md.update(StringUtils.toBytesUTF8(ns + '\0'));
+            }
+            md.update((byte)1);
+            for (String name : localNames) {
+                md.update(StringUtils.toBytesUTF8(name + '\0'));
+            }
+            return Base64UrlUtility.encode(md.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static void addName(String ns, String localName, Set<String> namespaces, Set<String> localNames) {
+        if (ns != null && ns.length() > 0) {
+            namespaces.add(ns);
+        }
+        if (localName != null && localName.length() > 0) {
+            localNames.add(localName);
+        }
+    }
+
+    private static void addElement(XmlSchemaElement el, Set<String> namespaces, Set<String> localNames,
+                                   Map<Object, Boolean> visited) {
+        if (visited.put(el, Boolean.TRUE) != null) {
+            return;
+        }
+        if (el.isRef()) {
+            QName ref = el.getRef().getTargetQName();
+            if (ref != null) {
+                addName(ref.getNamespaceURI(), ref.getLocalPart(), namespaces, localNames);
+            }
+            return;
+        }
+        QName name = el.getQName();
+        if (name != null) {
+            addName(name.getNamespaceURI(), name.getLocalPart(), namespaces, localNames);
+        } else {
+            addName(null, el.getName(), namespaces, localNames);
+        }
+        if (el.getSchemaTypeName() == null) {
+            addType(el.getSchemaType(), namespaces, localNames, visited);
+        }
+    }
+
+    private static void addType(XmlSchemaType type, Set<String> namespaces, Set<String> localNames,
+                                Map<Object, Boolean> visited) {
+        if (!(type instanceof XmlSchemaComplexType) || visited.put(type, Boolean.TRUE) != null) {
+            return;
+        }
+        XmlSchemaComplexType complexType = (XmlSchemaComplexType)type;
+        addAttributes(complexType.getAttributes(), namespaces, localNames);
+        addParticle(complexType.getParticle(), namespaces, localNames, visited);
+        if (complexType.getContentModel() != null
+            && complexType.getContentModel().getContent() instanceof XmlSchemaComplexContentExtension) {
+            XmlSchemaComplexContentExtension extension =
+                (XmlSchemaComplexContentExtension)complexType.getContentModel().getContent();
+            addAttributes(extension.getAttributes(), namespaces, localNames);
+            addParticle(extension.getParticle(), namespaces, localNames, visited);
+        }
+    }
+
+    private static void addAttributes(List<XmlSchemaAttributeOrGroupRef> attributes,
+                                      Set<String> namespaces, Set<String> localNames) {
+        for (XmlSchemaAttributeOrGroupRef attr : attributes) {
+            if (attr instanceof XmlSchemaAttribute) {
+                addName(null, ((XmlSchemaAttribute)attr).getName(), namespaces, localNames);
+            }
+        }
+    }
+
+    private static void addParticle(XmlSchemaParticle particle, Set<String> namespaces,
+                                    Set<String> localNames, Map<Object, Boolean> visited) {
+        if (particle instanceof XmlSchemaElement) {
+            addElement((XmlSchemaElement)particle, namespaces, localNames, visited);
+        } else if (particle instanceof XmlSchemaSequence) {
+            for (XmlSchemaSequenceMember member : ((XmlSchemaSequence)particle).getItems()) {
+                addMember(member, namespaces, localNames, visited);
+            }
+        } else if (particle instanceof XmlSchemaChoice) {
+            for (XmlSchemaObjectBase member : ((XmlSchemaChoice)particle).getItems()) {
+                addMember(member, namespaces, localNames, visited);
+            }
+        } else if (particle instanceof XmlSchemaAll) {
+            for (XmlSchemaObjectBase member : ((XmlSchemaAll)particle).getItems()) {
+                addMember(member, namespaces, localNames, visited);
+            }
+        }
+    }
+
+    private static void addMember(Object member, Set<String> namespaces, Set<String> localNames,
+                                  Map<Object, Boolean> visited) {
+        if (member instanceof XmlSchemaParticle) {
+            addParticle((XmlSchemaParticle)member, namespaces, localNames, visited);
+        }
+    }
+}
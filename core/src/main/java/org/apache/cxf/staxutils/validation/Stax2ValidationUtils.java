@@ -19,6 +19,10 @@
 
 package org.apache.cxf.staxutils.validation;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Level;
@@ -33,11 +37,13 @@ import org.w3c.dom.Element;
 
 import org.apache.cxf.common.i18n.Message;
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.Base64Utility;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.service.model.SchemaInfo;
 import org.apache.cxf.service.model.ServiceInfo;
 import org.apache.cxf.staxutils.DepthXMLStreamReader;
+import org.apache.cxf.staxutils.StaxUtils;
 import org.apache.ws.commons.schema.XmlSchema;
 import org.codehaus.stax2.XMLStreamReader2;
 import org.codehaus.stax2.XMLStreamWriter2;
@@ -52,6 +58,33 @@ import org.codehaus.stax2.validation.XMLValidationSchema;
 class Stax2ValidationUtils {
     private static final Logger LOG = LogUtils.getL7dLogger(Stax2ValidationUtils.class);
     private static final String KEY = XMLValidationSchema.class.getName();
+    private static final Object NO_SCHEMA = new Object();
+    static final int MAX_SHARED_SCHEMAS = 100;
+
+    /**
+     * Compiled grammars shared by the endpoints with the identical schemas,
+     * keyed by the digest of the serialized schemas
+     */
+    private static final Map<String, XMLValidationSchema> SHARED_SCHEMAS =
+        new LinkedHashMap<String, XMLValidationSchema>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, XMLValidationSchema> eldest) {
+                return size() > MAX_SHARED_SCHEMAS;
+            }
+        };
+
+    private static final ValidationProblemHandler READ_PROBLEM_HANDLER = new ValidationProblemHandler() {
+        public void reportProblem(XMLValidationProblem problem) throws XMLValidationException {
+            throw new Fault(new Message("READ_VALIDATION_ERROR", LOG, problem.getMessage()),
+                            Fault.FAULT_CODE_CLIENT);
+        }
+    };
+    private static final ValidationProblemHandler WRITE_PROBLEM_HANDLER = new ValidationProblemHandler() {
+        public void reportProblem(XMLValidationProblem problem) throws XMLValidationException {
+            throw new Fault(problem.getMessage(), LOG);
+        }
+    };
 
     private static final boolean HAS_WOODSTOX;
     static {
@@ -90,13 +123,7 @@ class Stax2ValidationUtils {
         if (vs == null) {
             return false;
         }
-        reader2.setValidationProblemHandler(new ValidationProblemHandler() {
-
-            public void reportProblem(XMLValidationProblem problem) throws XMLValidationException {
-                throw new Fault(new Message("READ_VALIDATION_ERROR", LOG, problem.getMessage()),
-                                Fault.FAULT_CODE_CLIENT);
-            }
-        });
+        reader2.setValidationProblemHandler(READ_PROBLEM_HANDLER);
         reader2.validateAgainst(vs);
         return true;
     }
@@ -109,60 +136,108 @@ class Stax2ValidationUtils {
         if (vs == null) {
             return false;
         }
-        writer2.setValidationProblemHandler(new ValidationProblemHandler() {
-
-            public void reportProblem(XMLValidationProblem problem) throws XMLValidationException {
-                throw new Fault(problem.getMessage(), LOG);
-            }
-        });
+        writer2.setValidationProblemHandler(WRITE_PROBLEM_HANDLER);
         writer2.validateAgainst(vs);
         return true;
     }
 
     /**
-     * Create woodstox validator for a schema set.
+     * Create woodstox validator for a schema set. The compiled schema is kept on the endpoint
+     * and is shared with other endpoints which have the identical schemas.
      * 
      * @param schemas
      * @return
      * @throws XMLStreamException
      */
-    private XMLValidationSchema getValidator(Endpoint endpoint, ServiceInfo serviceInfo) throws XMLStreamException {
-        synchronized (endpoint) {
-            XMLValidationSchema ret = (XMLValidationSchema)endpoint.get(KEY);
-            if (ret == null) {
-                if (endpoint.containsKey(KEY)) {
-                    return null;
+    XMLValidationSchema getValidator(Endpoint endpoint, ServiceInfo serviceInfo) throws XMLStreamException {
+        Object ret = endpoint.get(KEY);
+        if (ret == null) {
+            synchronized (endpoint) {
+                ret = endpoint.get(KEY);
+                if (ret == null) {
+                    ret = createValidator(serviceInfo);
+                    endpoint.put(KEY, ret == null ? NO_SCHEMA : ret);
                 }
-                Map<String, EmbeddedSchema> sources = new TreeMap<String, EmbeddedSchema>();
-        
-                for (SchemaInfo schemaInfo : serviceInfo.getSchemas()) {
-                    XmlSchema sch = schemaInfo.getSchema();
-                    String uri = sch.getTargetNamespace();
-                    if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(uri)) {
-                        continue;
-                    }
-        
-                    Element serialized = schemaInfo.getElement();
-                    String schemaSystemId = sch.getSourceURI();
-                    if (null == schemaSystemId) {
-                        schemaSystemId = sch.getTargetNamespace();
-                    }
-        
-                    EmbeddedSchema embeddedSchema = new EmbeddedSchema(schemaSystemId, serialized);
-                    sources.put(sch.getTargetNamespace(), embeddedSchema);
+            }
+        }
+        return ret instanceof XMLValidationSchema ? (XMLValidationSchema)ret : null;
+    }
+
+    private XMLValidationSchema createValidator(ServiceInfo serviceInfo) {
+        Map<String, EmbeddedSchema> sources = new TreeMap<String, EmbeddedSchema>();
+
+        for (SchemaInfo schemaInfo : serviceInfo.getSchemas()) {
+            XmlSchema sch = schemaInfo.getSchema();
+            String uri = sch.getTargetNamespace();
+            if (XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(uri)) {
+                continue;
+            }
+
+            Element serialized = schemaInfo.getElement();
+            String schemaSystemId = sch.getSourceURI();
+            if (null == schemaSystemId) {
+                schemaSystemId = sch.getTargetNamespace();
+            }
+
+            EmbeddedSchema embeddedSchema = new EmbeddedSchema(schemaSystemId, serialized);
+            sources.put(sch.getTargetNamespace(), embeddedSchema);
+        }
+
+        String digest = getDigest(sources);
+        if (digest != null) {
+            synchronized (SHARED_SCHEMAS) {
+                XMLValidationSchema shared = SHARED_SCHEMAS.get(digest);
+                if (shared != null) {
+                    return shared;
                 }
-        
-                W3CMultiSchemaFactory factory = new W3CMultiSchemaFactory();
-                // I don't think that we need the baseURI.
-                try {
-                    ret = factory.loadSchemas(null, sources);
-                    endpoint.put(KEY, ret);
-                } catch (XMLStreamException ex) {
-                    LOG.log(Level.INFO, "Problem loading schemas. Falling back to slower method.", ret);
-                    endpoint.put(KEY, null);
+            }
+        }
+
+        W3CMultiSchemaFactory factory = new W3CMultiSchemaFactory();
+        // I don't think that we need the baseURI.
+        try {
+            XMLValidationSchema ret = factory.loadSchemas(null, sources);
+            if (digest != null) {
+                synchronized (SHARED_SCHEMAS) {
+                    // keep the grammar compiled meanwhile for another endpoint
+                    XMLValidationSchema shared = SHARED_SCHEMAS.get(digest);
+                    if (shared != null) {
+                        return shared;
+                    }
+                    SHARED_SCHEMAS.put(digest, ret);
                 }
             }
             return ret;
+        } catch (XMLStreamException ex) {
+            LOG.log(Level.INFO, "Problem loading schemas. Falling back to slower method.", ex);
+            return null;
+        }
+    }
+
+    static int getSharedSchemaCount() {
+        synchronized (SHARED_SCHEMAS) {
+            return SHARED_SCHEMAS.size();
+        }
+    }
+
+    private static String getDigest(Map<String, EmbeddedSchema> sources) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            for (Map.Entry<String, EmbeddedSchema> entry : sources.entrySet()) {
+                if (entry.getValue().getSchemaElement() == null) {
+                    return null;
+                }
+                md.update(String.valueOf(entry.getKey()).getBytes(StandardCharsets.UTF_8));
+                md.update((byte)0);
+                md.update(String.valueOf(entry.getValue().getSystemId()).getBytes(StandardCharsets.UTF_8));
+                md.update((byte)0);
+                md.update(StaxUtils.toString(entry.getValue().getSchemaElement())
+                              .getBytes(StandardCharsets.UTF_8));
+                md.update((byte)0);
+            }
+            return Base64Utility.encode(md.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            return null;
         }
     }
 
@@ -25,9 +25,14 @@ import java.io.InputStream;
 
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.stream.StreamSource;
+
+import org.apache.cxf.helpers.IOUtils;
 
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.model.MessageInfo;
+import org.apache.cxf.service.model.MessagePartInfo;
 import org.apache.cxf.staxutils.StaxUtils;
 
 import org.junit.Assert;
@@ -38,6 +43,9 @@ import org.junit.Test;
  */
 public class XMLStreamDataReaderTest extends Assert {
     private static final byte[] DUMMY_DATA = "<ns:dummy xmlns:ns='http://www.apache.org/cxf'/>".getBytes();
+    private static final String NS = "http://www.apache.org/cxf";
+    private static final byte[] PARTS_DATA = 
+        ("<ns:parts xmlns:ns='" + NS + "'><ns:a><ns:x>1</ns:x></ns:a><ns:b>2</ns:b></ns:parts>").getBytes();
     
     @Test
     public void testCloseOriginalInputStream() throws Exception {
@@ -61,6 +69,116 @@ public class XMLStreamDataReaderTest extends Assert {
         assertTrue(in1.isClosed());
     }
     
+    @Test
+    public void testLazyStreamSource() throws Exception {
+        XMLStreamDataReader reader = new XMLStreamDataReader();
+        Message msg = new MessageImpl();
+        msg.put(SourceDataBinding.LAZY_STREAM, Boolean.TRUE);
+        
+        TestInputStream in1 = new TestInputStream(DUMMY_DATA);
+        msg.setContent(InputStream.class, in1);
+        reader.setProperty(Message.class.getName(), msg);
+        
+        XMLStreamReader xmlReader = StaxUtils.createXMLStreamReader(in1);
+        xmlReader.nextTag();
+        Object obj = reader.read(new QName("http://www.apache.org/cxf", "dummy"), 
+                                 xmlReader, StreamSource.class);
+        assertTrue(obj instanceof StreamSource);
+        assertFalse(in1.isClosed());
+        
+        InputStream is = ((StreamSource)obj).getInputStream();
+        String payload = IOUtils.readStringFromStream(is);
+        assertTrue(payload, payload.contains("dummy"));
+        assertTrue(in1.isClosed());
+        is.close();
+    }
+    
+    @Test
+    public void testLazyStreamSourceBufferedOnNextPart() throws Exception {
+        XMLStreamDataReader reader = new XMLStreamDataReader();
+        TestInputStream in1 = new TestInputStream(PARTS_DATA);
+        reader.setProperty(Message.class.getName(), createLazyMessage(in1));
+        
+        XMLStreamReader xmlReader = StaxUtils.createXMLStreamReader(in1);
+        xmlReader.nextTag();
+        xmlReader.nextTag();
+        StreamSource a = (StreamSource)reader.read(new QName(NS, "a"), xmlReader, StreamSource.class);
+        // the first part is moved past before the second one is read
+        StreamSource b = (StreamSource)reader.read(new QName(NS, "b"), xmlReader, StreamSource.class);
+        assertFalse(in1.isClosed());
+        
+        String payload = IOUtils.readStringFromStream(b.getInputStream());
+        assertTrue(payload, payload.contains(">2</"));
+        assertFalse(payload, payload.contains("ns:x"));
+        payload = IOUtils.readStringFromStream(a.getInputStream());
+        assertTrue(payload, payload.contains(">1</"));
+        assertFalse(payload, payload.contains("ns:b"));
+        
+        a.getInputStream().close();
+        b.getInputStream().close();
+        assertTrue(in1.isClosed());
+    }
+    
+    @Test
+    public void testMultiPartFirstPartNotRead() throws Exception {
+        XMLStreamDataReader reader = new XMLStreamDataReader();
+        TestInputStream in1 = new TestInputStream(PARTS_DATA);
+        reader.setProperty(Message.class.getName(), createLazyMessage(in1));
+        
+        MessageInfo mi = new MessageInfo(null, MessageInfo.Type.INPUT, new QName(NS, "parts"));
+        MessagePartInfo partA = mi.addMessagePart(new QName(NS, "a"));
+        partA.setTypeClass(StreamSource.class);
+        MessagePartInfo partB = mi.addMessagePart(new QName(NS, "b"));
+        partB.setTypeClass(StreamSource.class);
+        
+        XMLStreamReader xmlReader = StaxUtils.createXMLStreamReader(in1);
+        xmlReader.nextTag();
+        xmlReader.nextTag();
+        assertEquals("a", xmlReader.getLocalName());
+        StreamSource a = (StreamSource)reader.read(partA, xmlReader);
+        
+        // a part followed by another one is read right away
+        assertTrue(xmlReader.isStartElement());
+        assertEquals("b", xmlReader.getLocalName());
+        StreamSource b = (StreamSource)reader.read(partB, xmlReader);
+        assertFalse(in1.isClosed());
+        
+        String payload = IOUtils.readStringFromStream(b.getInputStream());
+        assertTrue(payload, payload.contains(">2</"));
+        assertTrue(in1.isClosed());
+        // the first part has never been read, it is still available
+        payload = IOUtils.readStringFromStream(a.getInputStream());
+        assertTrue(payload, payload.contains(">1</"));
+        assertFalse(payload, payload.contains("ns:b"));
+    }
+    
+    @Test
+    public void testLazyStreamSourceClosedUnread() throws Exception {
+        XMLStreamDataReader reader = new XMLStreamDataReader();
+        TestInputStream in1 = new TestInputStream(PARTS_DATA);
+        reader.setProperty(Message.class.getName(), createLazyMessage(in1));
+        
+        XMLStreamReader xmlReader = StaxUtils.createXMLStreamReader(in1);
+        xmlReader.nextTag();
+        xmlReader.nextTag();
+        StreamSource a = (StreamSource)reader.read(new QName(NS, "a"), xmlReader, StreamSource.class);
+        a.getInputStream().close();
+        assertTrue(in1.isClosed());
+        try {
+            a.getInputStream().read();
+            fail("The stream has been closed");
+        } catch (IOException ex) {
+            // expected
+        }
+    }
+    
+    private static Message createLazyMessage(InputStream in) {
+        Message msg = new MessageImpl();
+        msg.put(SourceDataBinding.LAZY_STREAM, Boolean.TRUE);
+        msg.setContent(InputStream.class, in);
+        return msg;
+    }
+    
     private static class TestInputStream extends ByteArrayInputStream {
         private boolean closed;
         
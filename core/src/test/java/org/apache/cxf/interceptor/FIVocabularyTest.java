@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.interceptor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.sun.xml.fastinfoset.stax.StAXDocumentParser;
+import com.sun.xml.fastinfoset.stax.StAXDocumentSerializer;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.endpoint.EndpointImpl;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.service.Service;
+import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.service.model.SchemaInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.ws.commons.schema.XmlSchemaCollection;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class FIVocabularyTest extends Assert {
+    private static final String NS = "http://cxf.apache.org/fi";
+    private static final String SCHEMA =
+        "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='" + NS + "'"
+        + " elementFormDefault='qualified'>"
+        + "<xs:element name='getCustomerResponse'><xs:complexType><xs:sequence>"
+        + "<xs:element name='customerName' type='xs:string'/>"
+        + "<xs:element name='customerAddress' type='xs:string'/>"
+        + "</xs:sequence><xs:attribute name='customerId' type='xs:int'/></xs:complexType></xs:element>"
+        + "</xs:schema>";
+
+    @Test
+    public void testSameVocabulary() throws Exception {
+        assertEquals(createVocabulary(SCHEMA).getURI(), createVocabulary(SCHEMA).getURI());
+        assertFalse(createVocabulary(SCHEMA).getURI()
+                    .equals(createVocabulary(SCHEMA.replace("customerAddress", "address")).getURI()));
+    }
+
+    @Test
+    public void testDigestOfEntries() throws Exception {
+        // "Aa" and "BB" have the same String hash code
+        assertFalse(createVocabulary(SCHEMA.replace("customerName", "Aa")).getURI()
+                    .equals(createVocabulary(SCHEMA.replace("customerName", "BB")).getURI()));
+    }
+
+    @Test
+    public void testNegotiation() throws Exception {
+        Endpoint client = createEndpoint(SCHEMA);
+        Endpoint server = createEndpoint(SCHEMA);
+        String uri = FIVocabulary.getVocabulary(client).getURI();
+
+        // the first request advertises the vocabulary without referencing it
+        Message request = createRequest(client, "http://server1/customers");
+        byte[] plain = write(request);
+        assertEquals(Collections.singletonList(uri), getHeaders(request).get(FIVocabulary.HEADER));
+        assertNull(FIVocabulary.getNegotiated(request));
+
+        // the server references it in the response and echoes the header
+        Message serverRequest = createMessage(server, false, null);
+        serverRequest.put(Message.CONTENT_TYPE, "application/fastinfoset");
+        serverRequest.put(Message.PROTOCOL_HEADERS, getHeaders(request));
+        serverRequest.setContent(InputStream.class, new ByteArrayInputStream(plain));
+        new FIStaxInInterceptor().handleMessage(serverRequest);
+        assertName(serverRequest.getContent(XMLStreamReader.class));
+        serverRequest.getExchange().setInMessage(serverRequest);
+
+        Message response = createMessage(server, false, serverRequest.getExchange());
+        byte[] primed = write(response);
+        assertEquals(Collections.singletonList(uri), getHeaders(response).get(FIVocabulary.HEADER));
+        assertTrue(primed.length < plain.length);
+
+        Message clientResponse = createMessage(client, true, request.getExchange());
+        clientResponse.put(Message.CONTENT_TYPE, "application/fastinfoset");
+        clientResponse.put(Message.PROTOCOL_HEADERS, getHeaders(response));
+        clientResponse.setContent(InputStream.class, new ByteArrayInputStream(primed));
+        new FIStaxInInterceptor().handleMessage(clientResponse);
+        assertName(clientResponse.getContent(XMLStreamReader.class));
+
+        // only the requests to the same server reference the vocabulary from now on
+        Message request2 = createRequest(client, "http://server1/customers");
+        assertEquals(uri, FIVocabulary.getNegotiated(request2));
+        assertEquals(primed.length, write(request2).length);
+
+        Message failover = createRequest(client, "http://server2/customers");
+        assertNull(FIVocabulary.getNegotiated(failover));
+        assertEquals(plain.length, write(failover).length);
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        FIVocabulary vocabulary = createVocabulary(SCHEMA);
+        byte[] plain = write(null);
+        byte[] primed = write(vocabulary);
+        assertTrue(primed.length < plain.length);
+
+        StAXDocumentParser parser = new StAXDocumentParser(new ByteArrayInputStream(primed));
+        vocabulary.configure(parser);
+        parser.nextTag();
+        assertEquals(new QName(NS, "getCustomerResponse"), parser.getName());
+        assertEquals("42", parser.getAttributeValue(null, "customerId"));
+        parser.nextTag();
+        assertEquals(new QName(NS, "customerName"), parser.getName());
+        assertEquals("Smith", parser.getElementText());
+        parser.nextTag();
+        assertEquals(new QName(NS, "customerAddress"), parser.getName());
+        assertEquals(XMLStreamReader.CHARACTERS, parser.next());
+    }
+
+    private static void assertName(XMLStreamReader reader) throws Exception {
+        reader.nextTag();
+        assertEquals(new QName(NS, "getCustomerResponse"), reader.getName());
+    }
+
+    private static Map<String, List<String>> getHeaders(Message message) {
+        return CastUtils.cast((Map<?, ?>)message.get(Message.PROTOCOL_HEADERS));
+    }
+
+    private static Message createRequest(Endpoint ep, String address) {
+        Message message = createMessage(ep, true, null);
+        message.put(Message.ENDPOINT_ADDRESS, address);
+        message.put(Message.PROTOCOL_HEADERS,
+                    new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER));
+        message.put(FIStaxOutInterceptor.FI_ENABLED, Boolean.TRUE);
+        message.getExchange().setOutMessage(message);
+        return message;
+    }
+
+    private static Message createMessage(Endpoint ep, boolean requestor, Exchange exchange) {
+        Message message = new MessageImpl();
+        if (exchange == null) {
+            exchange = new ExchangeImpl();
+            exchange.put(Endpoint.class, ep);
+        }
+        message.setExchange(exchange);
+        if (requestor) {
+            message.put(Message.REQUESTOR_ROLE, Boolean.TRUE);
+        }
+        message.put(FIStaxOutInterceptor.FI_VOCABULARY, Boolean.TRUE);
+        InterceptorChain chain = EasyMock.createNiceMock(InterceptorChain.class);
+        EasyMock.replay(chain);
+        message.setInterceptorChain(chain);
+        return message;
+    }
+
+    /**
+     * Writes the document with the serializer set up by FIStaxOutInterceptor
+     */
+    private static byte[] write(Message message) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        message.setContent(OutputStream.class, bos);
+        new FIStaxOutInterceptor(true).handleMessage(message);
+        XMLStreamWriter writer = message.getContent(XMLStreamWriter.class);
+        writer.writeStartElement("ns1", "getCustomerResponse", NS);
+        writer.writeNamespace("ns1", NS);
+        writer.writeAttribute("customerId", "42");
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.close();
+        return bos.toByteArray();
+    }
+
+    private static byte[] write(FIVocabulary vocabulary) throws Exception {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        StAXDocumentSerializer serializer = new StAXDocumentSerializer(bos);
+        if (vocabulary != null) {
+            vocabulary.configure(serializer);
+        }
+        serializer.writeStartDocument();
+        serializer.writeStartElement("ns1", "getCustomerResponse", NS);
+        serializer.writeNamespace("ns1", NS);
+        serializer.writeAttribute("customerId", "42");
+        serializer.writeStartElement("ns1", "customerName", NS);
+        serializer.writeCharacters("Smith");
+        serializer.writeEndElement();
+        serializer.writeStartElement("ns1", "customerAddress", NS);
+        serializer.writeCharacters("Main Street");
+        serializer.writeEndElement();
+        serializer.writeEndElement();
+        serializer.writeEndDocument();
+        serializer.close();
+        return bos.toByteArray();
+    }
+
+    private static FIVocabulary createVocabulary(String schema) {
+        return FIVocabulary.createVocabulary(createService(schema));
+    }
+
+    private static Endpoint createEndpoint(String schema) throws Exception {
+        Service service = createService(schema);
+        EndpointInfo ei = new EndpointInfo(service.getServiceInfos().get(0), "http://cxf.apache.org/fi");
+        Bus bus = EasyMock.createNiceMock(Bus.class);
+        EasyMock.replay(bus);
+        return new EndpointImpl(bus, service, ei);
+    }
+
+    private static Service createService(String schema) {
+        SchemaInfo schemaInfo = new SchemaInfo(NS);
+        schemaInfo.setSchema(new XmlSchemaCollection().read(new StringReader(schema)));
+        ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.addSchema(schemaInfo);
+
+        Service service = EasyMock.createMock(Service.class);
+        EasyMock.expect(service.getServiceInfos())
+            .andReturn(Collections.singletonList(serviceInfo)).anyTimes();
+        EasyMock.expect(service.getName()).andReturn(new QName(NS, "CustomerService")).anyTimes();
+        EasyMock.replay(service);
+        return service;
+    }
+}
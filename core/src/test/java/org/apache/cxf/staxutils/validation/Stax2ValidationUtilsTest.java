@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.staxutils.validation;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.w3c.dom.Document;
+
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.interceptor.Fault;
+import org.apache.cxf.service.model.SchemaInfo;
+import org.apache.cxf.service.model.ServiceInfo;
+import org.apache.cxf.staxutils.StaxUtils;
+import org.apache.ws.commons.schema.XmlSchema;
+import org.apache.ws.commons.schema.XmlSchemaCollection;
+import org.codehaus.stax2.validation.XMLValidationSchema;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class Stax2ValidationUtilsTest extends Assert {
+    private static int namespaceCount;
+
+    private final Stax2ValidationUtils utils = new Stax2ValidationUtils();
+
+    @Test
+    public void testSchemaSharedByEndpoints() throws Exception {
+        String ns = newNamespace();
+        XMLValidationSchema schema = utils.getValidator(createEndpoint(), createServiceInfo(ns));
+        assertNotNull(schema);
+        assertSame(schema, utils.getValidator(createEndpoint(), createServiceInfo(ns)));
+        assertNotSame(schema, utils.getValidator(createEndpoint(), createServiceInfo(newNamespace())));
+    }
+
+    @Test
+    public void testSchemaKeptOnEndpoint() throws Exception {
+        XMLValidationSchema schema = utils.getValidator(createEndpoint(), createServiceInfo(newNamespace()));
+        Endpoint endpoint = EasyMock.createMock(Endpoint.class);
+        EasyMock.expect(endpoint.get(XMLValidationSchema.class.getName())).andReturn(schema);
+        EasyMock.replay(endpoint);
+
+        assertSame(schema, utils.getValidator(endpoint, createServiceInfo(newNamespace())));
+        EasyMock.verify(endpoint);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedSchemaEvicted() throws Exception {
+        String first = newNamespace();
+        String second = newNamespace();
+        XMLValidationSchema firstSchema = utils.getValidator(createEndpoint(), createServiceInfo(first));
+        XMLValidationSchema secondSchema = utils.getValidator(createEndpoint(), createServiceInfo(second));
+        for (int i = 2; i < Stax2ValidationUtils.MAX_SHARED_SCHEMAS; i++) {
+            utils.getValidator(createEndpoint(), createServiceInfo(newNamespace()));
+        }
+        assertEquals(Stax2ValidationUtils.MAX_SHARED_SCHEMAS, Stax2ValidationUtils.getSharedSchemaCount());
+
+        // a hit makes the second schema the least recently used one
+        assertSame(firstSchema, utils.getValidator(createEndpoint(), createServiceInfo(first)));
+        utils.getValidator(createEndpoint(), createServiceInfo(newNamespace()));
+        assertEquals(Stax2ValidationUtils.MAX_SHARED_SCHEMAS, Stax2ValidationUtils.getSharedSchemaCount());
+
+        assertSame(firstSchema, utils.getValidator(createEndpoint(), createServiceInfo(first)));
+        XMLValidationSchema recompiled = utils.getValidator(createEndpoint(), createServiceInfo(second));
+        assertNotNull(recompiled);
+        assertNotSame(secondSchema, recompiled);
+    }
+
+    @Test
+    public void testConcurrentEndpointsShareSchema() throws Exception {
+        final String ns = newNamespace();
+        final int threads = 8;
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<XMLValidationSchema>> results = new ArrayList<Future<XMLValidationSchema>>();
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(new Callable<XMLValidationSchema>() {
+                    public XMLValidationSchema call() throws Exception {
+                        ServiceInfo serviceInfo = createServiceInfo(ns);
+                        Endpoint endpoint = createEndpoint();
+                        start.await();
+                        return utils.getValidator(endpoint, serviceInfo);
+                    }
+                }));
+            }
+            start.countDown();
+            XMLValidationSchema schema = utils.getValidator(createEndpoint(), createServiceInfo(ns));
+            for (Future<XMLValidationSchema> result : results) {
+                assertSame(schema, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testValidateRead() throws Exception {
+        String ns = newNamespace();
+        ServiceInfo serviceInfo = createServiceInfo(ns);
+
+        XMLStreamReader reader = StaxUtils.createXMLStreamReader(
+            new StringReader("<value xmlns='" + ns + "'>12</value>"));
+        assertTrue(utils.setupValidation(reader, createEndpoint(), serviceInfo));
+        StaxUtils.read(reader);
+
+        reader = StaxUtils.createXMLStreamReader(
+            new StringReader("<value xmlns='" + ns + "'>twelve</value>"));
+        assertTrue(utils.setupValidation(reader, createEndpoint(), serviceInfo));
+        try {
+            StaxUtils.read(reader);
+            fail("Invalid content has been read");
+        } catch (Fault ex) {
+            assertEquals(Fault.FAULT_CODE_CLIENT, ex.getFaultCode());
+        }
+    }
+
+    @Test
+    public void testValidateWrite() throws Exception {
+        String ns = newNamespace();
+        ServiceInfo serviceInfo = createServiceInfo(ns);
+
+        XMLStreamWriter writer = StaxUtils.createXMLStreamWriter(new StringWriter());
+        assertTrue(utils.setupValidation(writer, createEndpoint(), serviceInfo));
+        writeValue(writer, ns, "12");
+
+        writer = StaxUtils.createXMLStreamWriter(new StringWriter());
+        assertTrue(utils.setupValidation(writer, createEndpoint(), serviceInfo));
+        try {
+            writeValue(writer, ns, "twelve");
+            fail("Invalid content has been written");
+        } catch (Fault ex) {
+            // expected
+        }
+    }
+
+    private static void writeValue(XMLStreamWriter writer, String ns, String value) throws Exception {
+        writer.writeStartDocument();
+        writer.setDefaultNamespace(ns);
+        writer.writeStartElement(ns, "value");
+        writer.writeDefaultNamespace(ns);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    private static synchronized String newNamespace() {
+        return "urn:validation:" + namespaceCount++;
+    }
+
+    private static Endpoint createEndpoint() {
+        // nothing is kept on the endpoint, every lookup goes to the shared schemas
+        Endpoint endpoint = EasyMock.createNiceMock(Endpoint.class);
+        EasyMock.replay(endpoint);
+        return endpoint;
+    }
+
+    private static ServiceInfo createServiceInfo(String ns) throws Exception {
+        Document doc = StaxUtils.read(new StringReader(
+            "<xs:schema xmlns:xs='http://www.w3.org/2001/XMLSchema' targetNamespace='" + ns
+            + "' elementFormDefault='qualified'><xs:element name='value' type='xs:int'/></xs:schema>"));
+        XmlSchema schema = new XmlSchemaCollection().read(doc.getDocumentElement());
+        SchemaInfo schemaInfo = new SchemaInfo(ns);
+        schemaInfo.setSchema(schema);
+        schemaInfo.setElement(doc.getDocumentElement());
+        ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.addSchema(schemaInfo);
+        return serviceInfo;
+    }
+}
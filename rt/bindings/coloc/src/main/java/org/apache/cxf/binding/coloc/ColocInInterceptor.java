@@ -19,7 +19,6 @@
 package org.apache.cxf.binding.coloc;
 
 import java.util.SortedSet;
-import java.util.TreeSet;
 //import java.util.ResourceBundle;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -34,7 +33,6 @@ import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
-import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.MessageInfo;
 
@@ -55,10 +53,8 @@ public class ColocInInterceptor extends AbstractPhaseInterceptor<Message> {
         }
 
         Bus bus = ex.getBus();
-        SortedSet<Phase> phases = new TreeSet<Phase>(bus.getExtension(PhaseManager.class).getOutPhases());
-
         //TODO Set Coloc FaultObserver chain
-        ColocUtil.setPhases(phases, Phase.SETUP, Phase.USER_LOGICAL);
+        SortedSet<Phase> phases = ColocUtil.getPhases(bus, false, Phase.SETUP, Phase.USER_LOGICAL);
         InterceptorChain chain = ColocUtil.getOutInterceptorChain(ex, phases);
 
         if (LOG.isLoggable(Level.FINER)) {
@@ -21,7 +21,6 @@ package org.apache.cxf.binding.coloc;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,7 +41,6 @@ import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.phase.Phase;
-import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.BindingInfo;
 import org.apache.cxf.service.model.BindingOperationInfo;
@@ -95,8 +93,7 @@ public class ColocMessageObserver extends ChainInitiationObserver {
             }
     
             //Add all interceptors between USER_LOGICAL and INVOKE.
-            SortedSet<Phase> phases = new TreeSet<Phase>(bus.getExtension(PhaseManager.class).getInPhases());
-            ColocUtil.setPhases(phases, Phase.USER_LOGICAL, Phase.INVOKE);
+            SortedSet<Phase> phases = ColocUtil.getPhases(bus, true, Phase.USER_LOGICAL, Phase.INVOKE);
             InterceptorChain chain = ColocUtil.getInInterceptorChain(ex, phases);
             chain.add(addColocInterceptors());
             inMsg.setInterceptorChain(chain);
@@ -21,7 +21,6 @@ package org.apache.cxf.binding.coloc;
 import java.util.List;
 import java.util.ResourceBundle;
 import java.util.SortedSet;
-import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,7 +41,6 @@ import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 //import org.apache.cxf.phase.PhaseInterceptorChain;
-import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.Service;
 import org.apache.cxf.service.model.BindingOperationInfo;
 import org.apache.cxf.service.model.EndpointInfo;
@@ -158,9 +156,7 @@ public class ColocOutInterceptor extends AbstractPhaseInterceptor<Message> {
         } else {
             //Handle Response
             ex.setInMessage(inMsg);
-            PhaseManager pm = bus.getExtension(PhaseManager.class);
-            SortedSet<Phase> phases = new TreeSet<Phase>(pm.getInPhases());
-            ColocUtil.setPhases(phases, Phase.USER_LOGICAL, Phase.PRE_INVOKE);
+            SortedSet<Phase> phases = ColocUtil.getPhases(bus, true, Phase.USER_LOGICAL, Phase.PRE_INVOKE);
             
             InterceptorChain chain = ColocUtil.getInInterceptorChain(ex, phases);        
             inMsg.setInterceptorChain(chain);        
@@ -22,9 +22,13 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.OutputStream;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,6 +52,7 @@ import org.apache.cxf.message.MessageContentsList;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.phase.PhaseInterceptorChain;
+import org.apache.cxf.phase.PhaseManager;
 import org.apache.cxf.service.model.FaultInfo;
 import org.apache.cxf.service.model.MessageInfo;
 import org.apache.cxf.service.model.MessagePartInfo;
@@ -56,6 +61,7 @@ import org.apache.cxf.staxutils.StaxUtils;
 
 public final class ColocUtil {
     private static final Logger LOG = LogUtils.getL7dLogger(ColocUtil.class);
+    private static final String PHASES_CACHE = ColocUtil.class.getName() + ".PhasesCache";
 
     private ColocUtil() {
         //Completge
@@ -79,6 +85,33 @@ public final class ColocUtil {
         }
     }
     
+    /**
+     * Returns the in or out phases of the phase manager of the bus between the start and end
+     * phases, as set by {@link #setPhases(SortedSet, String, String)}. The returned set is
+     * cached in a property of the bus and can not be modified.
+     */
+    public static SortedSet<Phase> getPhases(Bus bus, boolean in, String start, String end) {
+        PhaseManager pm = bus.getExtension(PhaseManager.class);
+        PhasesCache cache = (PhasesCache)bus.getProperty(PHASES_CACHE);
+        if (cache == null || cache.phaseManager != pm) {
+            // threads racing here compute the same phases, so any of the caches can be kept
+            cache = new PhasesCache(pm);
+            bus.setProperty(PHASES_CACHE, cache);
+        }
+        String key = (in ? "in:" : "out:") + start + ":" + end;
+        SortedSet<Phase> phases = cache.phases.get(key);
+        if (phases == null) {
+            phases = new TreeSet<Phase>(in ? pm.getInPhases() : pm.getOutPhases());
+            setPhases(phases, start, end);
+            phases = Collections.unmodifiableSortedSet(phases);
+            SortedSet<Phase> cached = cache.phases.putIfAbsent(key, phases);
+            if (cached != null) {
+                phases = cached;
+            }
+        }
+        return phases;
+    }
+    
     public static InterceptorChain getOutInterceptorChain(Exchange ex, SortedSet<Phase> phases) {
         Bus bus = ex.getBus();
         PhaseInterceptorChain chain = new PhaseInterceptorChain(phases);
@@ -303,4 +336,14 @@ public final class ColocUtil {
             return oi.getInput();
         }
     }
+
+    private static final class PhasesCache {
+        private final PhaseManager phaseManager;
+        private final ConcurrentMap<String, SortedSet<Phase>> phases
+            = new ConcurrentHashMap<String, SortedSet<Phase>>();
+
+        PhasesCache(PhaseManager phaseManager) {
+            this.phaseManager = phaseManager;
+        }
+    }
 }
@@ -27,6 +27,7 @@ import javax.xml.namespace.QName;
 
 import org.apache.cxf.Bus;
 import org.apache.cxf.BusFactory;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
 import org.apache.cxf.bus.managers.PhaseManagerImpl;
 import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.interceptor.Interceptor;
@@ -103,6 +104,47 @@ public class ColocUtilTest extends Assert {
                      Phase.POST_LOGICAL);
 
     }
+
+    @Test
+    public void testGetCachedPhases() throws Exception {
+        PhaseManagerImpl phaseMgr = new PhaseManagerImpl();
+        Bus realBus = new ExtensionManagerBus();
+        try {
+            realBus.setExtension(phaseMgr, PhaseManager.class);
+            SortedSet<Phase> list = ColocUtil.getPhases(realBus, true, Phase.USER_LOGICAL, Phase.INVOKE);
+            assertEquals(Phase.USER_LOGICAL, list.first().getName());
+            assertEquals(Phase.INVOKE, list.last().getName());
+            assertSame(list, ColocUtil.getPhases(realBus, true, Phase.USER_LOGICAL, Phase.INVOKE));
+
+            SortedSet<Phase> outList = ColocUtil.getPhases(realBus, false, Phase.SETUP, Phase.USER_LOGICAL);
+            assertNotSame(list, outList);
+            assertEquals(Phase.SETUP, outList.first().getName());
+            assertEquals(Phase.USER_LOGICAL, outList.last().getName());
+            assertSame(outList, ColocUtil.getPhases(realBus, false, Phase.SETUP, Phase.USER_LOGICAL));
+
+            // another bus has its own cached phases
+            Bus otherBus = new ExtensionManagerBus();
+            try {
+                otherBus.setExtension(new PhaseManagerImpl(), PhaseManager.class);
+                SortedSet<Phase> otherList =
+                    ColocUtil.getPhases(otherBus, true, Phase.USER_LOGICAL, Phase.INVOKE);
+                assertNotSame(list, otherList);
+                assertEquals(list, otherList);
+                assertSame(otherList, ColocUtil.getPhases(otherBus, true, Phase.USER_LOGICAL, Phase.INVOKE));
+                assertSame(list, ColocUtil.getPhases(realBus, true, Phase.USER_LOGICAL, Phase.INVOKE));
+            } finally {
+                otherBus.shutdown(true);
+            }
+
+            // the phases are computed again for another phase manager
+            realBus.setExtension(new PhaseManagerImpl(), PhaseManager.class);
+            SortedSet<Phase> newList = ColocUtil.getPhases(realBus, true, Phase.USER_LOGICAL, Phase.INVOKE);
+            assertNotSame(list, newList);
+            assertSame(newList, ColocUtil.getPhases(realBus, true, Phase.USER_LOGICAL, Phase.INVOKE));
+        } finally {
+            realBus.shutdown(true);
+        }
+    }
     
     @Test
     public void testGetOutInterceptorChain() throws Exception {
@@ -27,11 +27,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.logging.Logger;
 
+import javax.xml.XMLConstants;
 import javax.xml.namespace.QName;
 import javax.xml.stream.XMLEventFactory;
 import javax.xml.stream.XMLStreamConstants;
 import javax.xml.stream.XMLStreamException;
 import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.events.Attribute;
+import javax.xml.stream.events.Namespace;
 import javax.xml.stream.events.XMLEvent;
 
 import org.w3c.dom.Attr;
@@ -70,6 +73,13 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
     
     public static final String ENVELOPE_EVENTS = "envelope.events";
     public static final String BODY_EVENTS = "body.events";
+    /**
+     * Contextual property enabling the reading of the SOAP headers directly from the
+     * stream, without the DOM document being created for the whole envelope.
+     * The message Node content is not set in this mode, so it should not be enabled
+     * when the interceptors depending on the DOM envelope (SAAJ, WS-Security) are used.
+     */
+    public static final String STREAM_HEADERS = "org.apache.cxf.binding.soap.streamHeaders";
     /**
      * 
      */
@@ -199,6 +209,9 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                         addCurrentNamespaceDecls(xmlReader, bodyNC);
                     }
                     HeadersProcessor processor = new HeadersProcessor(soapVersion);
+                    if (MessageUtils.getContextualBoolean(message, STREAM_HEADERS, false)) {
+                        processor.setHeadersReader(new StreamingHeadersReader(message, soapVersion));
+                    }
                     doc = processor.process(filteredReader);
                     if (doc != null) {
                         message.setContent(Node.class, doc);
@@ -306,6 +319,140 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
         }
     }
 
+    /**
+     * Reads the SOAP headers directly from the stream. The headers claimed by the registered
+     * header processors whose data bindings can read from XMLStreamReader are unmarshalled
+     * from the stream, the unknown headers and the ones which must be understood are read
+     * into the individual DOM elements.
+     */
+    private class StreamingHeadersReader {
+        private final SoapMessage message;
+        private final SoapVersion soapVersion;
+        private final HeaderManager headerManager;
+
+        StreamingHeadersReader(SoapMessage message, SoapVersion soapVersion) {
+            this.message = message;
+            this.soapVersion = soapVersion;
+            this.headerManager = bus == null ? null : bus.getExtension(HeaderManager.class);
+        }
+
+        void readHeaders(XMLStreamReader reader, List<XMLEvent> envEvents) throws XMLStreamException {
+            Map<String, String> nsDecls = new HashMap<String, String>();
+            for (XMLEvent ev : envEvents) {
+                if (ev.isNamespace()) {
+                    Namespace nsEv = (Namespace)ev;
+                    nsDecls.put(nsEv.getPrefix(), nsEv.getNamespaceURI());
+                }
+            }
+            for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                nsDecls.put(reader.getNamespacePrefix(i), reader.getNamespaceURI(i));
+            }
+            // attributes present on the Header element apply to all the headers
+            List<Attribute> headerAttrs = new ArrayList<Attribute>(reader.getAttributeCount());
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+                headerAttrs.add(HeadersProcessor.FACTORY.createAttribute(reader.getAttributePrefix(i),
+                                                        reader.getAttributeNamespace(i),
+                                                        reader.getAttributeLocalName(i),
+                                                        reader.getAttributeValue(i)));
+            }
+
+            int event = nextElementEvent(reader);
+            while (event == XMLStreamConstants.START_ELEMENT) {
+                readHeader(reader, nsDecls, headerAttrs);
+                event = nextElementEvent(reader);
+            }
+        }
+
+        private void readHeader(XMLStreamReader reader, Map<String, String> nsDecls,
+                                List<Attribute> headerAttrs) throws XMLStreamException {
+            QName name = reader.getName();
+            String mu = getAttributeValue(reader, headerAttrs, soapVersion.getAttrNameMustUnderstand());
+            String act = getAttributeValue(reader, headerAttrs, soapVersion.getAttrNameRole());
+            boolean mustUnderstand = Boolean.valueOf(mu) || "1".equals(mu);
+
+            HeaderProcessor p = headerManager == null ? null
+                : headerManager.getHeaderProcessor(name.getNamespaceURI());
+            DataBinding dataBinding = p == null ? null : p.getDataBinding();
+
+            Object obj;
+            if (dataBinding != null && !mustUnderstand && supportsStreamReader(dataBinding)) {
+                // the reader is left at the event following the end of the header element
+                obj = dataBinding.createReader(XMLStreamReader.class).read(reader);
+            } else {
+                Element hel = readElement(reader, nsDecls, headerAttrs);
+                obj = dataBinding == null ? hel : dataBinding.createReader(Node.class).read(hel);
+                reader.next();
+            }
+
+            SoapHeader shead = new SoapHeader(name, obj, dataBinding);
+            if (!StringUtils.isEmpty(act)) {
+                shead.setActor(act);
+            }
+            shead.setMustUnderstand(mustUnderstand);
+            shead.setDirection(SoapHeader.Direction.DIRECTION_IN);
+            message.getHeaders().add(shead);
+        }
+
+        private Element readElement(XMLStreamReader reader, Map<String, String> nsDecls,
+                                    List<Attribute> headerAttrs) throws XMLStreamException {
+            Document doc = DOMUtils.createDocument();
+            StaxUtils.readDocElements(doc, doc, reader, new StreamToDOMContext(true, false, false));
+            Element hel = doc.getDocumentElement();
+            // the namespaces declared on the Envelope and Header elements are still in scope
+            for (Map.Entry<String, String> entry : nsDecls.entrySet()) {
+                String prefix = StringUtils.isEmpty(entry.getKey()) ? "xmlns" : entry.getKey();
+                if (!hel.hasAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI, prefix)) {
+                    hel.setAttributeNS(XMLConstants.XMLNS_ATTRIBUTE_NS_URI,
+                                       "xmlns".equals(prefix) ? prefix : "xmlns:" + prefix,
+                                       entry.getValue());
+                }
+            }
+            for (Attribute attr : headerAttrs) {
+                QName attrName = attr.getName();
+                if (!hel.hasAttributeNS(attrName.getNamespaceURI(), attrName.getLocalPart())) {
+                    String qname = StringUtils.isEmpty(attrName.getPrefix())
+                        ? attrName.getLocalPart() : attrName.getPrefix() + ":" + attrName.getLocalPart();
+                    hel.setAttributeNS(attrName.getNamespaceURI(), qname, attr.getValue());
+                }
+            }
+            return hel;
+        }
+
+        private String getAttributeValue(XMLStreamReader reader, List<Attribute> headerAttrs,
+                                         String localName) {
+            String value = reader.getAttributeValue(soapVersion.getNamespace(), localName);
+            if (value == null) {
+                for (Attribute attr : headerAttrs) {
+                    if (localName.equals(attr.getName().getLocalPart())
+                        && soapVersion.getNamespace().equals(attr.getName().getNamespaceURI())) {
+                        return attr.getValue();
+                    }
+                }
+            }
+            return value;
+        }
+
+        private boolean supportsStreamReader(DataBinding dataBinding) {
+            Class<?>[] formats = dataBinding.getSupportedReaderFormats();
+            if (formats != null) {
+                for (Class<?> format : formats) {
+                    if (format == XMLStreamReader.class) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private int nextElementEvent(XMLStreamReader reader) throws XMLStreamException {
+            int event = reader.getEventType();
+            while (event != XMLStreamConstants.START_ELEMENT && event != XMLStreamConstants.END_ELEMENT) {
+                event = reader.next();
+            }
+            return event;
+        }
+    }
+
     /**
      * A convenient class for parsing the message header stream into a DOM document;
      * the document is created only if a SOAP Header is actually found, keeping the
@@ -326,6 +473,7 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
         private Document doc;
         private Node parent;
         private QName lastStartElementQName;
+        private StreamingHeadersReader headersReader;
 
         public HeadersProcessor(SoapVersion version) {
             this.header = version.getHeader().getLocalPart();
@@ -334,6 +482,10 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
             this.body = version.getBody().getLocalPart();
         }
 
+        public void setHeadersReader(StreamingHeadersReader headersReader) {
+            this.headersReader = headersReader;
+        }
+
         public Document process(XMLStreamReader reader) throws XMLStreamException {
             // number of elements read in
             int read = 0;
@@ -342,6 +494,13 @@ public class ReadHeadersInterceptor extends AbstractSoapInterceptor {
                 switch (event) {
                 case XMLStreamConstants.START_ELEMENT:
                     read++;
+                    if (headersReader != null && header.equals(reader.getLocalName())
+                        && ns.equals(reader.getNamespaceURI())) {
+                        // the reader is left at the end of the Header element
+                        headersReader.readHeaders(reader, getEnvAttributeAndNamespaceEvents());
+                        read--;
+                        break;
+                    }
                     addEvent(FACTORY.createStartElement(new QName(reader.getNamespaceURI(), reader
                                                             .getLocalName(), reader.getPrefix()), null, null));
                     for (int i = 0; i < reader.getNamespaceCount(); i++) {
@@ -22,6 +22,7 @@ package org.apache.cxf.binding.soap.interceptor;
 
 import java.io.EOFException;
 import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
@@ -46,6 +47,7 @@ import org.apache.cxf.databinding.DataWriter;
 import org.apache.cxf.headers.Header;
 import org.apache.cxf.headers.HeaderManager;
 import org.apache.cxf.headers.HeaderProcessor;
+import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.helpers.ServiceUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.io.WriteOnCloseOutputStream;
@@ -68,8 +70,10 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
     public static final String WROTE_ENVELOPE_START = "wrote.envelope.start";
     
     private static final ResourceBundle BUNDLE = BundleUtils.getBundle(SoapOutInterceptor.class);
+    static final String HEADER_INFOS = SoapOutInterceptor.class.getName() + ".headerInfos";
     
     private Bus bus;
+    private final SoapOutEndingInterceptor endingInterceptor = new SoapOutEndingInterceptor();
     
     public SoapOutInterceptor(Bus b) {
         super(Phase.WRITE);
@@ -95,7 +99,7 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
         }
 
         // Add a final interceptor to write end elements
-        message.getInterceptorChain().add(new SoapOutEndingInterceptor());
+        message.getInterceptorChain().add(endingInterceptor);
     }
     
     private void writeSoapEnvelopeStart(final SoapMessage message) {
@@ -212,6 +216,10 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
         if (bmi == null) {
             return endedHeader;
         }
+        List<SoapHeaderInfo> headers = getHeaderInfos(bmi);
+        if (headers.isEmpty()) {
+            return endedHeader;
+        }
         
         if (wrappedBmi.getMessageInfo().getMessagePartsNumber() > 0) {
             MessageContentsList objs = MessageContentsList.getContentsList(message);
@@ -219,10 +227,6 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
                 return endedHeader;
             }
             SoapVersion soapVersion = message.getVersion();
-            List<SoapHeaderInfo> headers = bmi.getExtensors(SoapHeaderInfo.class);
-            if (headers == null) {
-                return endedHeader;
-            }            
             
 
             for (SoapHeaderInfo header : headers) {
@@ -267,6 +271,21 @@ public class SoapOutInterceptor extends AbstractSoapInterceptor {
         return endedHeader;
     }       
     
+    /**
+     * The out of band header parts do not change once the binding is built, so the
+     * lookup through the extensors is done once per binding message
+     */
+    static List<SoapHeaderInfo> getHeaderInfos(BindingMessageInfo bmi) {
+        List<SoapHeaderInfo> headers = CastUtils.cast((List<?>)bmi.getProperty(HEADER_INFOS));
+        if (headers == null) {
+            headers = bmi.getExtensors(SoapHeaderInfo.class);
+            headers = headers == null || headers.isEmpty()
+                ? Collections.<SoapHeaderInfo>emptyList() : Collections.unmodifiableList(headers);
+            bmi.setProperty(HEADER_INFOS, headers);
+        }
+        return headers;
+    }
+    
     protected DataWriter<XMLStreamWriter> getDataWriter(Message message) {
         Service service = ServiceModelUtil.getService(message.getExchange());
         DataWriter<XMLStreamWriter> dataWriter = service.getDataBinding().createWriter(XMLStreamWriter.class);
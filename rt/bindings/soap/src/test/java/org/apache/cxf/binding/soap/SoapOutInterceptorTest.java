@@ -32,7 +32,9 @@ import org.apache.cxf.BusFactory;
 import org.apache.cxf.binding.soap.interceptor.ReadHeadersInterceptor;
 import org.apache.cxf.binding.soap.interceptor.SoapOutInterceptor;
 import org.apache.cxf.binding.soap.interceptor.StartBodyInterceptor;
+import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.interceptor.StaxInInterceptor;
+import org.apache.cxf.message.Message;
 import org.apache.cxf.staxutils.StaxUtils;
 import org.junit.Before;
 import org.junit.Test;
@@ -45,15 +47,17 @@ public class SoapOutInterceptorTest extends TestBase {
     @Before
     public void setUp() throws Exception {
         super.setUp();
+        rhi = new ReadHeadersInterceptor(BusFactory.getDefaultBus(), "phase2");
+        sbi = new StartBodyInterceptor("phase1.5");
+        soi = new SoapOutInterceptor(BusFactory.getDefaultBus(), "phase3");
+        addInterceptors();
+    }
+
+    private void addInterceptors() {
         StaxInInterceptor sii = new StaxInInterceptor("phase1");
         chain.add(sii);
-
-        rhi = new ReadHeadersInterceptor(BusFactory.getDefaultBus(), "phase2");
         chain.add(rhi);
-        sbi = new StartBodyInterceptor("phase1.5");
         chain.add(sbi);
-
-        soi = new SoapOutInterceptor(BusFactory.getDefaultBus(), "phase3");
         chain.add(soi);
     }
 
@@ -101,6 +105,44 @@ public class SoapOutInterceptorTest extends TestBase {
         assertInputStream(xmlReader, Soap12.getInstance());
     }
 
+    @Test
+    public void testEndingInterceptorShared() throws Exception {
+        Interceptor<? extends Message> ending = handleMessageAndGetEnding();
+        assertNotNull(ending);
+
+        // the same interceptor writes the envelope of the next message
+        super.setUp();
+        addInterceptors();
+        assertSame(ending, handleMessageAndGetEnding());
+    }
+
+    private Interceptor<? extends Message> handleMessageAndGetEnding() throws Exception {
+        prepareSoapMessage("test-soap-header.xml");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        soapMessage.setContent(OutputStream.class, out);
+        soapMessage.setContent(XMLStreamWriter.class, StaxUtils.createXMLStreamWriter(out));
+
+        soapMessage.getInterceptorChain().doIntercept(soapMessage);
+
+        Exception oe = soapMessage.getContent(Exception.class);
+        if (oe != null) {
+            throw oe;
+        }
+
+        InputStream bis = new ByteArrayInputStream(out.toByteArray());
+        assertInputStream(StaxUtils.createXMLStreamReader(bis), Soap11.getInstance());
+
+        Interceptor<? extends Message> ending = null;
+        for (Interceptor<? extends Message> interceptor : soapMessage.getInterceptorChain()) {
+            if (interceptor instanceof SoapOutInterceptor.SoapOutEndingInterceptor) {
+                assertNull("more than one ending interceptor", ending);
+                ending = interceptor;
+            }
+        }
+        return ending;
+    }
+
     private void assertInputStream(XMLStreamReader xmlReader, SoapVersion version) throws Exception {
         assertEquals(XMLStreamReader.START_ELEMENT, xmlReader.nextTag());
         assertEquals(version.getEnvelope(), xmlReader.getName());
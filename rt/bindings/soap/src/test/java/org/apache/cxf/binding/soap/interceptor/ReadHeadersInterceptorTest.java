@@ -20,12 +20,19 @@
 package org.apache.cxf.binding.soap.interceptor;
 
 import java.io.ByteArrayInputStream;
+import java.util.List;
 import java.util.Map;
 
+import javax.xml.namespace.QName;
 import javax.xml.stream.XMLStreamReader;
 
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
 import org.apache.cxf.binding.soap.Soap11;
+import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.headers.Header;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.staxutils.StaxUtils;
 
@@ -45,6 +52,16 @@ public class ReadHeadersInterceptorTest extends Assert {
             + "<ns2:payload xmlns:ns2='urn:tmp:foo'/>"
             + "</soap:Body>"
             + "</soap:Envelope>").getBytes();
+    private static final byte[] TEST_SOAP_HEADERS = 
+        ("<soap:Envelope xmlns:soap='http://schemas.xmlsoap.org/soap/envelope/' xmlns:bar='tmp:bar'>"
+            + "<soap:Header>"
+            + "<bar:first soap:mustUnderstand='1'>bar:value</bar:first>"
+            + " <bar:second soap:actor='tmp:actor'/>"
+            + "</soap:Header>"
+            + "<soap:Body>"
+            + "<ns2:payload xmlns:ns2='urn:tmp:foo'/>"
+            + "</soap:Body>"
+            + "</soap:Envelope>").getBytes();
     
     private ReadHeadersInterceptor interceptor;
     
@@ -74,9 +91,37 @@ public class ReadHeadersInterceptorTest extends Assert {
         
     }
 
+    @Test
+    public void testStreamHeaders() throws Exception {
+        SoapMessage message = setUpMessage(TEST_SOAP_HEADERS);
+        message.put(ReadHeadersInterceptor.STREAM_HEADERS, "true");
+        interceptor.handleMessage(message);
+        assertNull(message.getContent(Node.class));
+        
+        List<Header> headers = message.getHeaders();
+        assertEquals(2, headers.size());
+        SoapHeader first = (SoapHeader)headers.get(0);
+        assertEquals(new QName("tmp:bar", "first"), first.getName());
+        assertTrue(first.isMustUnderstand());
+        Element el = (Element)first.getObject();
+        assertEquals("tmp:bar", el.lookupNamespaceURI("bar"));
+        assertEquals("bar:value", el.getTextContent());
+        SoapHeader second = (SoapHeader)headers.get(1);
+        assertEquals(new QName("tmp:bar", "second"), second.getName());
+        assertFalse(second.isMustUnderstand());
+        assertEquals("tmp:actor", second.getActor());
+        
+        XMLStreamReader reader = message.getContent(XMLStreamReader.class);
+        assertEquals("Body", reader.getLocalName());
+    }
+
     private SoapMessage setUpMessage() throws Exception {
+        return setUpMessage(TEST_SOAP);
+    }
+
+    private SoapMessage setUpMessage(byte[] soap) throws Exception {
         SoapMessage message = new SoapMessage(Soap11.getInstance());
-        message.setContent(XMLStreamReader.class, StaxUtils.createXMLStreamReader(new ByteArrayInputStream(TEST_SOAP)));
+        message.setContent(XMLStreamReader.class, StaxUtils.createXMLStreamReader(new ByteArrayInputStream(soap)));
         return message;
     }
 
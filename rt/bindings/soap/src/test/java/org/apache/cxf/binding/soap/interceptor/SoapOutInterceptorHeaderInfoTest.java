@@ -0,0 +1,77 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.binding.soap.interceptor;
+
+import java.util.List;
+
+import org.apache.cxf.binding.soap.model.SoapHeaderInfo;
+import org.apache.cxf.service.model.BindingMessageInfo;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SoapOutInterceptorHeaderInfoTest extends Assert {
+
+    @Test
+    public void testHeaderInfosCached() {
+        BindingMessageInfo bmi = new BindingMessageInfo();
+        SoapHeaderInfo header = new SoapHeaderInfo();
+        bmi.addExtensor(header);
+
+        List<SoapHeaderInfo> headers = SoapOutInterceptor.getHeaderInfos(bmi);
+        assertEquals(1, headers.size());
+        assertSame(header, headers.get(0));
+        assertSame(headers, bmi.getProperty(SoapOutInterceptor.HEADER_INFOS));
+        assertSame(headers, SoapOutInterceptor.getHeaderInfos(bmi));
+        try {
+            headers.add(new SoapHeaderInfo());
+            fail("The cached header infos are modifiable");
+        } catch (UnsupportedOperationException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testNoHeaderInfosCached() {
+        BindingMessageInfo bmi = new BindingMessageInfo();
+        bmi.addExtensor(new Object());
+
+        List<SoapHeaderInfo> headers = SoapOutInterceptor.getHeaderInfos(bmi);
+        assertTrue(headers.isEmpty());
+        // the absence of header parts is cached as well
+        assertTrue(bmi.hasProperty(SoapOutInterceptor.HEADER_INFOS));
+        assertSame(headers, SoapOutInterceptor.getHeaderInfos(bmi));
+    }
+
+    @Test
+    public void testHeaderInfosReloadedOnceDropped() {
+        BindingMessageInfo bmi = new BindingMessageInfo();
+        assertTrue(SoapOutInterceptor.getHeaderInfos(bmi).isEmpty());
+
+        // the binding is built, later extensors are only seen once the cached value is dropped
+        SoapHeaderInfo header = new SoapHeaderInfo();
+        bmi.addExtensor(header);
+        assertTrue(SoapOutInterceptor.getHeaderInfos(bmi).isEmpty());
+
+        bmi.removeProperty(SoapOutInterceptor.HEADER_INFOS);
+        List<SoapHeaderInfo> headers = SoapOutInterceptor.getHeaderInfos(bmi);
+        assertEquals(1, headers.size());
+        assertSame(header, headers.get(0));
+    }
+}
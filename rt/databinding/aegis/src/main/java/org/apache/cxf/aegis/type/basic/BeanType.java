@@ -27,9 +27,11 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.namespace.QName;
 
@@ -70,6 +72,15 @@ import org.apache.ws.commons.schema.XmlSchemaSequence;
 public class BeanType extends AegisType {
     private BeanTypeInfo info;
 
+    /*
+     * The property accessors are resolved once per property name; the bean descriptors
+     * and the inheritance checks are not repeated for every object read or written.
+     */
+    private final ConcurrentHashMap<QName, Method> readMethods = new ConcurrentHashMap<QName, Method>();
+    private final ConcurrentHashMap<QName, PropertyWriter> propertyWriters =
+        new ConcurrentHashMap<QName, PropertyWriter>();
+    private volatile WritePlan writePlan;
+
     private boolean isInterface;
 
     private boolean isException;
@@ -274,29 +285,21 @@ public class BeanType extends AegisType {
         }
 
         try {
-            PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(name);
-
-            Method m = desc.getWriteMethod();
+            PropertyWriter writer = getPropertyWriter(name, impl, inf);
+            Method m = writer.getWriteMethod();
 
             if (m == null) {
-                if (getTypeClass().isInterface()) {
-                    m = getWriteMethodFromImplClass(impl, desc);
-                }
-                if (m == null && property instanceof List) {
-                    m = desc.getReadMethod();
-                    List<Object> l = CastUtils.cast((List<?>)m.invoke(object));
+                if (property instanceof List) {
+                    List<Object> l = CastUtils.cast((List<?>)writer.getReadMethod().invoke(object));
                     List<Object> p = CastUtils.cast((List<?>)property);
                     l.addAll(p);
                     return;
                 }
-                if (m == null) {
-                    throw new DatabindingException("No write method for property " + name + " in "
-                                                   + object.getClass());
-                }
+                throw new DatabindingException("No write method for property " + name + " in "
+                                               + object.getClass());
             }
 
-            Class<?> propertyType = desc.getPropertyType();
-            if ((property == null && !propertyType.isPrimitive()) || (property != null)) {
+            if (property != null || !writer.isPrimitive()) {
                 m.invoke(object, new Object[] {
                     property
                 });
@@ -311,6 +314,20 @@ public class BeanType extends AegisType {
         }
     }
 
+    PropertyWriter getPropertyWriter(QName name, Class<?> impl, BeanTypeInfo inf) throws Exception {
+        PropertyWriter writer = propertyWriters.get(name);
+        if (writer == null || writer.info != inf || writer.impl != impl) {
+            PropertyDescriptor desc = inf.getPropertyDescriptorFromMappedName(name);
+            Method m = desc.getWriteMethod();
+            if (m == null && getTypeClass().isInterface()) {
+                m = getWriteMethodFromImplClass(impl, desc);
+            }
+            writer = new PropertyWriter(inf, impl, desc, m);
+            propertyWriters.put(name, writer);
+        }
+        return writer;
+    }
+
     /**
      * This is a hack to get the write method from the implementation class for an interface.
      */
@@ -357,11 +374,9 @@ public class BeanType extends AegisType {
             writer.writeXsiType(getSchemaType());
         }
 
-        for (QName name : inf.getAttributes()) {
+        WritePlan plan = getWritePlan(inf);
 
-            if (isInheritedProperty(inf, name)) {
-                continue;
-            }
+        for (QName name : plan.attributes) {
 
             Object value = readProperty(object, name);
             if (value != null) {
@@ -387,11 +402,7 @@ public class BeanType extends AegisType {
             }
         }
 
-        for (QName name : inf.getElements()) {
-
-            if (isInheritedProperty(inf, name)) {
-                continue;
-            }
+        for (QName name : plan.elements) {
 
             Object value = readProperty(object, name);
 
@@ -417,6 +428,26 @@ public class BeanType extends AegisType {
         }
     }
 
+    WritePlan getWritePlan(BeanTypeInfo inf) {
+        WritePlan plan = writePlan;
+        if (plan == null || !plan.isValidFor(inf)) {
+            plan = new WritePlan(inf, getWrittenProperties(inf, inf.getAttributes()),
+                                 getWrittenProperties(inf, inf.getElements()));
+            writePlan = plan;
+        }
+        return plan;
+    }
+
+    private QName[] getWrittenProperties(BeanTypeInfo inf, List<QName> names) {
+        List<QName> written = new ArrayList<QName>(names.size());
+        for (QName name : names) {
+            if (!isInheritedProperty(inf, name)) {
+                written.add(name);
+            }
+        }
+        return written.toArray(new QName[written.size()]);
+    }
+
     /**
      * @return true if the given beanType is extended and its given property is inherited from parent classes
      */
@@ -448,9 +479,13 @@ public class BeanType extends AegisType {
 
     protected Object readProperty(Object object, QName name) {
         try {
-            PropertyDescriptor desc = getTypeInfo().getPropertyDescriptorFromMappedName(name);
-
-            Method m = desc.getReadMethod();
+            Method m = readMethods.get(name);
+            if (m == null) {
+                m = getTypeInfo().getPropertyDescriptorFromMappedName(name).getReadMethod();
+                if (m != null) {
+                    readMethods.put(name, m);
+                }
+            }
 
             if (m == null) {
                 throw new DatabindingException("No read method for property " + name + " in class "
@@ -512,6 +547,9 @@ public class BeanType extends AegisType {
         super.setTypeClass(typeClass);
 
         initTypeClass();
+        readMethods.clear();
+        propertyWriters.clear();
+        writePlan = null;
     }
 
     /**
@@ -802,4 +840,59 @@ public class BeanType extends AegisType {
         }
     }
 
+
+    static final class PropertyWriter {
+        private final BeanTypeInfo info;
+        private final Class<?> impl;
+        private final Method readMethod;
+        private final Method writeMethod;
+        private final boolean primitive;
+
+        PropertyWriter(BeanTypeInfo info, Class<?> impl, PropertyDescriptor desc, Method writeMethod) {
+            this.info = info;
+            this.impl = impl;
+            this.readMethod = desc.getReadMethod();
+            this.writeMethod = writeMethod;
+            this.primitive = desc.getPropertyType().isPrimitive();
+        }
+
+        Method getReadMethod() {
+            return readMethod;
+        }
+
+        Method getWriteMethod() {
+            return writeMethod;
+        }
+
+        boolean isPrimitive() {
+            return primitive;
+        }
+    }
+
+    /**
+     * The attributes and elements written for this type, the inherited properties excluded
+     */
+    static final class WritePlan {
+        private final BeanTypeInfo info;
+        private final boolean extension;
+        private final int attributeCount;
+        private final int elementCount;
+        private final QName[] attributes;
+        private final QName[] elements;
+
+        WritePlan(BeanTypeInfo info, QName[] attributes, QName[] elements) {
+            this.info = info;
+            this.extension = info.isExtension();
+            this.attributeCount = info.getAttributes().size();
+            this.elementCount = info.getElements().size();
+            this.attributes = attributes;
+            this.elements = elements;
+        }
+
+        boolean isValidFor(BeanTypeInfo inf) {
+            return info == inf && extension == inf.isExtension()
+                && attributeCount == inf.getAttributes().size()
+                && elementCount == inf.getElements().size();
+        }
+    }
 }
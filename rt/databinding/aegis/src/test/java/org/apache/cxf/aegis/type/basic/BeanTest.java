@@ -22,7 +22,10 @@ import java.beans.PropertyDescriptor;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.Set;
 
 import javax.xml.bind.annotation.XmlElement;
@@ -657,6 +660,151 @@ public class BeanTest extends AbstractAegisTest {
         assertTrue(type.getDependencies().isEmpty());
     }
 
+    @Test
+    public void testCachedPropertyAccessors() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(SimpleBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        BeanTypeInfo info = type.getTypeInfo();
+        QName name = new QName("urn:Bean", "bleh");
+
+        BeanType.PropertyWriter writer = type.getPropertyWriter(name, SimpleBean.class, info);
+        assertSame(writer, type.getPropertyWriter(name, SimpleBean.class, info));
+        assertNotSame(writer, type.getPropertyWriter(new QName("urn:Bean", "howdy"), SimpleBean.class, info));
+
+        SimpleBean bean1 = new SimpleBean();
+        SimpleBean bean2 = new SimpleBean();
+        type.writeProperty(name, bean1, "bleh1", SimpleBean.class, info);
+        type.writeProperty(name, bean2, "bleh2", SimpleBean.class, info);
+        assertSame(writer, type.getPropertyWriter(name, SimpleBean.class, info));
+        assertEquals("bleh1", type.readProperty(bean1, name));
+        assertEquals("bleh2", type.readProperty(bean2, name));
+
+        // resetting the type class drops the cached accessors
+        type.setTypeClass(SimpleBean.class);
+        BeanType.PropertyWriter reset = type.getPropertyWriter(name, SimpleBean.class, info);
+        assertNotSame(writer, reset);
+        assertSame(reset, type.getPropertyWriter(name, SimpleBean.class, info));
+        assertEquals("bleh1", type.readProperty(bean1, name));
+
+        // another type info for the same name is a miss
+        BeanTypeInfo otherInfo = new BeanTypeInfo(SimpleBean.class, "urn:Bean", false);
+        otherInfo.setTypeMapping(mapping);
+        otherInfo.mapElement("bleh", name);
+        BeanType.PropertyWriter otherWriter = type.getPropertyWriter(name, SimpleBean.class, otherInfo);
+        assertNotSame(reset, otherWriter);
+        assertSame(otherWriter, type.getPropertyWriter(name, SimpleBean.class, otherInfo));
+        type.writeProperty(name, bean1, "bleh3", SimpleBean.class, otherInfo);
+        assertEquals("bleh3", bean1.getBleh());
+    }
+
+    @Test
+    public void testWriteListPropertyWithoutSetter() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(ListBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        BeanTypeInfo info = type.getTypeInfo();
+        QName name = info.getElements().get(0);
+
+        ListBean bean = new ListBean();
+        type.writeProperty(name, bean, Arrays.asList("a", "b"), ListBean.class, info);
+        type.writeProperty(name, bean, Arrays.asList("c"), ListBean.class, info);
+        assertEquals(Arrays.asList("a", "b", "c"), bean.getItems());
+        assertNull(type.getPropertyWriter(name, ListBean.class, info).getWriteMethod());
+    }
+
+    @Test
+    public void testWriteNullPrimitiveProperty() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(IntBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        BeanTypeInfo info = type.getTypeInfo();
+        QName int1 = new QName(info.getDefaultNamespace(), "int1");
+        QName int2 = new QName(info.getDefaultNamespace(), "int2");
+
+        IntBean bean = new IntBean();
+        bean.setInt1(1);
+        bean.setInt2(2);
+        type.writeProperty(int1, bean, null, IntBean.class, info);
+        type.writeProperty(int2, bean, null, IntBean.class, info);
+        assertNull(bean.getInt1());
+        assertEquals(2, bean.getInt2());
+        assertTrue(type.getPropertyWriter(int2, IntBean.class, info).isPrimitive());
+        assertFalse(type.getPropertyWriter(int1, IntBean.class, info).isPrimitive());
+    }
+
+    @Test
+    public void testCachedWritePlan() throws Exception {
+        defaultContext();
+        String ns = "urn:Bean";
+        BeanTypeInfo info = new BeanTypeInfo(SimpleBean.class, ns, false);
+        info.mapElement("howdy", new QName(ns, "howdycustom"));
+        info.setTypeMapping(mapping);
+
+        BeanType type = new BeanType(info);
+        type.setTypeClass(SimpleBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName(ns, "bean"));
+
+        SimpleBean bean = new SimpleBean();
+        bean.setBleh("bleh");
+        bean.setHowdy("howdy");
+
+        BeanType.WritePlan plan = type.getWritePlan(info);
+        assertSame(plan, type.getWritePlan(info));
+        Element element = writeObjectToElement(type, bean, getContext());
+        assertValid("/b:root/b:howdycustom[text()='howdy']", element);
+        assertInvalid("/b:root/b:bleh", element);
+        assertSame(plan, type.getWritePlan(info));
+
+        // a newly mapped property invalidates the plan
+        info.mapElement("bleh", new QName(ns, "bleh"));
+        assertNotSame(plan, type.getWritePlan(info));
+        element = writeObjectToElement(type, bean, getContext());
+        assertValid("/b:root/b:howdycustom[text()='howdy']", element);
+        assertValid("/b:root/b:bleh[text()='bleh']", element);
+    }
+
+    @Test
+    public void testWritePlanSkipsInheritedProperties() throws Exception {
+        defaultContext();
+        BeanType type = new BeanType();
+        type.setTypeClass(ExtendedBean.class);
+        type.setTypeMapping(mapping);
+        type.setSchemaType(new QName("urn:Bean", "bean"));
+        BeanTypeInfo info = type.getTypeInfo();
+        assertFalse(info.isExtension());
+        BeanType.WritePlan plan = type.getWritePlan(info);
+
+        // marks the type info as an extension
+        assertNotNull(type.getSuperType());
+        assertTrue(info.isExtension());
+        assertNotSame(plan, type.getWritePlan(info));
+
+        ExtendedBean bean = new ExtendedBean();
+        bean.setHowdy("howdy");
+        bean.setBleh("bleh");
+        Element element = writeObjectToElement(type, bean, getContext());
+        assertValid("/b:root/b:howdy[text()='howdy']", element);
+        // written once by the super type
+        assertValid("/b:root/*[local-name()='bleh']", element);
+        assertInvalid("/b:root/*[local-name()='bleh'][2]", element);
+    }
+
+    public static class ListBean {
+        private List<String> items = new ArrayList<String>();
+
+        public List<String> getItems() {
+            return items;
+        }
+    }
+
     public static class DateBean {
         private Date date;
 
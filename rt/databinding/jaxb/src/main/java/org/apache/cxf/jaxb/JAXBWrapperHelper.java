@@ -19,26 +19,54 @@
 
 package org.apache.cxf.jaxb;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.xml.bind.JAXBElement;
 
+import org.apache.cxf.common.util.SystemPropertyAction;
 import org.apache.cxf.databinding.AbstractWrapperHelper;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.interceptor.Fault;
 
 /**
- * 
+ * Copies the parts in and out of the wrapper objects when the wrapper helper
+ * could not be compiled. On Java 8 and later the accessors are resolved to method
+ * handles once. The reflective calls are used on Java 7, where calling a method
+ * handle which is not a constant is no faster than reflection, or if the handles
+ * can not be created.
  */
 public class JAXBWrapperHelper extends AbstractWrapperHelper {
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE =
+        MethodType.methodType(void.class, Object.class, Object.class);
+    private static final MethodType FACTORY_TYPE =
+        MethodType.methodType(Object.class, Object.class, Object.class);
+    private static final boolean USE_METHOD_HANDLES =
+        !"1.7".equals(SystemPropertyAction.getPropertyOrNull("java.specification.version"));
+    
     protected final Method jaxbObjectMethods[];    
     protected final Object objectFactory;
+    
+    private final boolean jaxbElementGetters[];
+    private final Handles handles;
 
     protected JAXBWrapperHelper(Class<?> wt, Method[] sets, Method[] gets,
                                 Method jaxbs[], Field[] f, Object of) {
         super(wt, sets, gets, f);
         jaxbObjectMethods = jaxbs;
-        objectFactory = of;        
+        objectFactory = of;
+        jaxbElementGetters = new boolean[gets.length];
+        for (int x = 0; x < gets.length; x++) {
+            jaxbElementGetters[x] = gets[x] != null && JAXBElement.class.equals(gets[x].getReturnType());
+        }
+        handles = Handles.create(wt, sets, gets, jaxbs, f);
     }
 
     @Override
@@ -54,7 +82,7 @@ public class JAXBWrapperHelper extends AbstractWrapperHelper {
     @Override
     protected Object getValue(Method method, Object in) throws IllegalAccessException,
     InvocationTargetException {
-        if ("javax.xml.bind.JAXBElement".equals(method.getReturnType().getCanonicalName())) {
+        if (JAXBElement.class == method.getReturnType()) {
             JAXBElement<?> je = (JAXBElement<?>)method.invoke(in);
             return je == null ? je : je.getValue();
         } else {            
@@ -70,4 +98,130 @@ public class JAXBWrapperHelper extends AbstractWrapperHelper {
         }
         return result;
     }
+    
+    @Override
+    public Object createWrapperObject(List<?> lst) throws Fault {
+        if (handles == null) {
+            return super.createWrapperObject(lst);
+        }
+        try {
+            Object wrapperObject = (Object)handles.constructor.invokeExact();
+            for (int x = 0; x < handles.setters.length; x++) {
+                if (handles.getters[x] == null
+                    && handles.setters[x] == null 
+                    && handles.fieldSetters[x] == null) {
+                    //this part is a header or something
+                    //that is not part of the wrapper.
+                    continue;
+                }
+                Object part = lst.get(x);
+                Object o = part;
+                if (handles.factories[x] != null) {
+                    o = (Object)handles.factories[x].invokeExact(objectFactory, o);
+                }
+                if (o instanceof List && handles.getters[x] != null) {
+                    List<Object> col = CastUtils.cast((List<?>)(Object)handles.getters[x]
+                                                          .invokeExact(wrapperObject));
+                    if (col == null) {
+                        //broken generated java wrappers
+                        if (handles.setters[x] != null) {
+                            handles.setters[x].invokeExact(wrapperObject, o);
+                        } else {
+                            handles.fieldSetters[x].invokeExact(wrapperObject, part);
+                        }
+                    } else {
+                        List<Object> olst = CastUtils.cast((List<?>)o);
+                        col.addAll(olst);
+                    }
+                } else if (handles.setters[x] != null) {
+                    handles.setters[x].invokeExact(wrapperObject, o);
+                } else if (handles.fieldSetters[x] != null) {
+                    handles.fieldSetters[x].invokeExact(wrapperObject, part);
+                }
+            }
+            return wrapperObject;
+        } catch (Throwable ex) {
+            // the handles throw the exceptions of the accessors as they are, so this is the
+            // same fault as the one of the reflective calls unwrapping InvocationTargetException
+            throw new Fault(ex);
+        }
+    }
+    
+    @Override
+    public List<Object> getWrapperParts(Object o) throws Fault {
+        if (handles == null) {
+            return super.getWrapperParts(o);
+        }
+        try {
+            List<Object> ret = new ArrayList<Object>(handles.getters.length);
+            for (int x = 0; x < handles.getters.length; x++) {
+                if (handles.getters[x] != null) {
+                    Object value = (Object)handles.getters[x].invokeExact(o);
+                    if (jaxbElementGetters[x] && value != null) {
+                        value = ((JAXBElement<?>)value).getValue();
+                    }
+                    ret.add(value);
+                } else if (handles.fieldGetters[x] != null) {
+                    ret.add((Object)handles.fieldGetters[x].invokeExact(o));
+                } else {
+                    //placeholder
+                    ret.add(null);
+                }
+            }
+            return ret;
+        } catch (Throwable ex) {
+            throw new Fault(ex);
+        }
+    }
+    
+    /**
+     * The accessors adapted to the generic Object signatures
+     */
+    private static final class Handles {
+        final MethodHandle constructor;
+        final MethodHandle setters[];
+        final MethodHandle getters[];
+        final MethodHandle factories[];
+        final MethodHandle fieldSetters[];
+        final MethodHandle fieldGetters[];
+        
+        private Handles(int size, MethodHandle constructor) {
+            this.constructor = constructor;
+            setters = new MethodHandle[size];
+            getters = new MethodHandle[size];
+            factories = new MethodHandle[size];
+            fieldSetters = new MethodHandle[size];
+            fieldGetters = new MethodHandle[size];
+        }
+        
+        static Handles create(Class<?> wt, Method[] sets, Method[] gets, Method jaxbs[], Field[] f) {
+            if (!USE_METHOD_HANDLES) {
+                return null;
+            }
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            try {
+                MethodHandle constructor = lookup.findConstructor(wt, MethodType.methodType(void.class));
+                Handles h = new Handles(sets.length, constructor.asType(MethodType.methodType(Object.class)));
+                for (int x = 0; x < sets.length; x++) {
+                    if (sets[x] != null) {
+                        h.setters[x] = lookup.unreflect(sets[x]).asType(SETTER_TYPE);
+                    }
+                    if (gets[x] != null) {
+                        h.getters[x] = lookup.unreflect(gets[x]).asType(GETTER_TYPE);
+                    }
+                    if (jaxbs[x] != null) {
+                        h.factories[x] = lookup.unreflect(jaxbs[x]).asType(FACTORY_TYPE);
+                    }
+                    if (f[x] != null) {
+                        h.fieldSetters[x] = lookup.unreflectSetter(f[x]).asType(SETTER_TYPE);
+                        h.fieldGetters[x] = lookup.unreflectGetter(f[x]).asType(GETTER_TYPE);
+                    }
+                }
+                return h;
+            } catch (Exception ex) {
+                //not accessible, the reflective calls will be used
+                return null;
+            }
+        }
+    }
 }
@@ -18,6 +18,8 @@
  */
 package org.apache.cxf.jaxb;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -29,6 +31,7 @@ import javax.xml.bind.annotation.XmlRootElement;
 import javax.xml.bind.annotation.XmlType;
 
 import org.apache.cxf.databinding.WrapperHelper;
+import org.apache.cxf.interceptor.Fault;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -88,6 +91,64 @@ public class JAXBWrapperHelperTest extends Assert {
         assertEquals("hello", ok.getParameter4());
     }
 
+    @Test
+    public void testFallbackWrapperHelper() throws Exception {
+        Method gets[] = new Method[] {
+            SetIsOK.class.getMethod("isParameter1"),
+            SetIsOK.class.getMethod("getParameter2"),
+            SetIsOK.class.getMethod("getParameter3"),
+            SetIsOK.class.getMethod("getParameter4"),
+            SetIsOK.class.getMethod("getParameter5")
+        };
+        Method sets[] = new Method[] {
+            SetIsOK.class.getMethod("setParameter1", Boolean.TYPE),
+            SetIsOK.class.getMethod("setParameter2", Integer.TYPE),
+            SetIsOK.class.getMethod("setParameter3", boolean[].class),
+            SetIsOK.class.getMethod("setParameter4", String.class),
+            null
+        };
+        WrapperHelper wh = new JAXBWrapperHelper(SetIsOK.class, sets, gets, new Method[5], new Field[5], null);
+        
+        SetIsOK ok = new SetIsOK();
+        ok.setParameter2(3);
+        ok.setParameter4("hello");
+        ok.getParameter5().add("a");
+        List<Object> lst = wh.getWrapperParts(ok);
+        assertEquals(5, lst.size());
+        assertEquals(Boolean.FALSE, lst.get(0));
+        assertEquals(3, lst.get(1));
+        assertNull(lst.get(2));
+        assertEquals("hello", lst.get(3));
+        assertEquals(Arrays.asList("a"), lst.get(4));
+        
+        lst.set(0, Boolean.TRUE);
+        lst.set(4, Arrays.asList("b", "c"));
+        ok = (SetIsOK)wh.createWrapperObject(lst);
+        assertTrue(ok.isParameter1());
+        assertEquals(3, ok.getParameter2());
+        assertEquals("hello", ok.getParameter4());
+        assertEquals(Arrays.asList("b", "c"), ok.getParameter5());
+    }
+
+    @Test
+    public void testGetterExceptionIsUnwrapped() throws Exception {
+        assertGetterExceptionIsUnwrapped(FailingWrapper.class, new FailingWrapper());
+        // no method handles can be created without an accessible constructor
+        assertGetterExceptionIsUnwrapped(ReflectiveFailingWrapper.class, new ReflectiveFailingWrapper());
+    }
+
+    private static void assertGetterExceptionIsUnwrapped(Class<?> wrapperType, Object wrapper) 
+        throws Exception {
+        Method gets[] = new Method[] {wrapperType.getMethod("getParameter1")};
+        WrapperHelper wh = new JAXBWrapperHelper(wrapperType, new Method[1], gets,
+                                                 new Method[1], new Field[1], null);
+        try {
+            wh.getWrapperParts(wrapper);
+            fail("Fault expected");
+        } catch (Fault f) {
+            assertTrue(f.getCause() instanceof IllegalStateException);
+        }
+    }
 
     @XmlAccessorType(XmlAccessType.FIELD)
     @XmlType(name = "", propOrder = { "parameter1", "parameter2", "parameter3", "parameter4" })
@@ -166,5 +227,19 @@ public class JAXBWrapperHelperTest extends Assert {
             return parameter5;
         }
     }
-}
 
+    public static class FailingWrapper {
+        public String getParameter1() {
+            throw new IllegalStateException();
+        }
+    }
+
+    public static final class ReflectiveFailingWrapper {
+        private ReflectiveFailingWrapper() {
+        }
+
+        public String getParameter1() {
+            throw new IllegalStateException();
+        }
+    }
+}
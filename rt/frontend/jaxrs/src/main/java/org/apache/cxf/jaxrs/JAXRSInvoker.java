@@ -26,10 +26,13 @@ import java.lang.reflect.Proxy;
 import java.util.Collections;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
+import javax.ws.rs.ServiceUnavailableException;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
 import javax.ws.rs.core.Application;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -40,16 +43,20 @@ import org.apache.cxf.common.classloader.ClassLoaderUtils.ClassLoaderHolder;
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.ClassHelper;
+import org.apache.cxf.continuations.ContinuationProvider;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.interceptor.InterceptorChain.State;
+import org.apache.cxf.jaxrs.ext.EntityPublisher;
 import org.apache.cxf.jaxrs.impl.AsyncResponseImpl;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.apache.cxf.jaxrs.impl.PrefetchedEntityPublisher;
 import org.apache.cxf.jaxrs.lifecycle.ResourceProvider;
 import org.apache.cxf.jaxrs.model.ClassResourceInfo;
 import org.apache.cxf.jaxrs.model.OperationResourceInfo;
 import org.apache.cxf.jaxrs.model.ProviderInfo;
 import org.apache.cxf.jaxrs.model.URITemplate;
+import org.apache.cxf.jaxrs.provider.EntityPublisherProvider;
 import org.apache.cxf.jaxrs.provider.ServerProviderFactory;
 import org.apache.cxf.jaxrs.utils.ExceptionUtils;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
@@ -143,6 +150,38 @@ public class JAXRSInvoker extends AbstractInvoker {
         }
     }
     
+    /**
+     * Suspends the request until the publisher has produced its first entity, so that no
+     * container thread waits for it, and resumes it with the prefetched publisher.
+     */
+    private <T> AsyncResponseImpl prefetchEntityPublisher(Message inMessage, EntityPublisher<T> publisher) {
+        final AsyncResponseImpl asyncResponse = new AsyncResponseImpl(inMessage);
+        final PrefetchedEntityPublisher<T> prefetched = new PrefetchedEntityPublisher<T>(publisher);
+        prefetched.prefetch(new Runnable() {
+            public void run() {
+                Throwable error = prefetched.getError();
+                if (error != null) {
+                    asyncResponse.resume(error);
+                } else {
+                    asyncResponse.resume(prefetched);
+                }
+            }
+        });
+        long timeout = EntityPublisherProvider.getTimeout(
+            inMessage.getContextualProperty(EntityPublisherProvider.TIMEOUT_PROPERTY));
+        if (timeout > 0) {
+            // the request is not suspended for longer than the wait for the other entities
+            asyncResponse.setTimeoutHandler(new TimeoutHandler() {
+                public void handleTimeout(AsyncResponse response) {
+                    prefetched.cancel();
+                    response.resume(new ServiceUnavailableException());
+                }
+            });
+            asyncResponse.setTimeout(timeout, TimeUnit.MILLISECONDS);
+        }
+        return asyncResponse;
+    }
+    
     private void persistRoots(Exchange exchange, Object rootInstance, Object provider) {
         exchange.put(JAXRSUtils.ROOT_INSTANCE, rootInstance);
         exchange.put(JAXRSUtils.ROOT_PROVIDER, provider);
@@ -198,6 +237,10 @@ public class JAXRSInvoker extends AbstractInvoker {
                 asyncResponse = (AsyncResponseImpl)inMessage.get(AsyncResponse.class);
             }
             result = invoke(exchange, resourceObject, methodToInvoke, params);
+            if (asyncResponse == null && result instanceof EntityPublisher && !ori.isSubResourceLocator()
+                && inMessage.get(ContinuationProvider.class.getName()) != null) {
+                asyncResponse = prefetchEntityPublisher(inMessage, (EntityPublisher<?>)result);
+            }
             if (asyncResponse != null) {
                 if (!asyncResponse.suspendContinuationIfNeeded()) {
                     result = handleAsyncResponse(exchange, asyncResponse);
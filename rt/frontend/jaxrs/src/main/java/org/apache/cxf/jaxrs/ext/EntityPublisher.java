@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.ext;
+
+/**
+ * A source of response entities which are produced asynchronously and
+ * written to the client one by one as they arrive.
+ *
+ * The contract mirrors the Reactive Streams one: the publisher must not
+ * emit more entities than have been requested by the subscriber which
+ * lets a slow client throttle the producer instead of the entities being
+ * accumulated in memory.
+ */
+public interface EntityPublisher<T> {
+    interface Subscription {
+        void request(long n);
+        void cancel();
+    }
+    interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+        void onNext(T entity);
+        void onError(Throwable t);
+        void onComplete();
+    }
+    void subscribe(Subscriber<T> subscriber);
+}
@@ -51,6 +51,7 @@ import org.apache.cxf.interceptor.AttachmentOutInterceptor;
 import org.apache.cxf.io.CacheSizeExceededException;
 import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
+import org.apache.cxf.jaxrs.ext.multipart.MultipartStream;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.cxf.jaxrs.impl.ProvidersImpl;
 import org.apache.cxf.jaxrs.interceptor.AttachmentInputInterceptor;
@@ -79,6 +80,9 @@ public class MessageContextImpl implements MessageContext {
                 throw new WebApplicationException(e, 413);
             }
         }
+        if (MultipartStream.INBOUND_MESSAGE_ATTACHMENTS.equals(keyValue)) {
+            return createAttachmentStream();
+        }
         if (keyValue.equals("WRITE-" + Message.ATTACHMENTS)) {
             return m.getExchange().getOutMessage().get(Message.ATTACHMENTS);
         }
@@ -300,4 +304,18 @@ public class MessageContextImpl implements MessageContext {
         return body;
     }
        
+    private MultipartStream createAttachmentStream() {
+        Message inMessage = m.getExchange().getInMessage();
+        Object o = inMessage.get(MultipartStream.INBOUND_MESSAGE_ATTACHMENTS);
+        if (o != null) {
+            return (MultipartStream)o;
+        }
+        new AttachmentInputInterceptor().handleMessage(inMessage);
+        
+        MultipartStream stream = new MultipartStream(inMessage, 
+                                                     new ProvidersImpl(inMessage),
+                                                     getHttpHeaders().getMediaType());
+        inMessage.put(MultipartStream.INBOUND_MESSAGE_ATTACHMENTS, stream);
+        return stream;
+    }
 }
@@ -0,0 +1,231 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.ext.multipart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import javax.activation.DataSource;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.Providers;
+
+import org.apache.cxf.attachment.AttachmentDataSource;
+import org.apache.cxf.attachment.AttachmentDeserializer;
+import org.apache.cxf.attachment.AttachmentUtil;
+import org.apache.cxf.helpers.CastUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.io.CacheSizeExceededException;
+import org.apache.cxf.jaxrs.utils.ExceptionUtils;
+import org.apache.cxf.message.Message;
+
+/**
+ * Provides the access to the multipart parts in the order they arrive,
+ * without the whole payload being read and cached before the resource
+ * method is invoked.
+ *
+ * Only the current part can be read, its content is streamed directly from
+ * the request input stream. Once the iteration moves to the next part, the
+ * unread content of the previous part is discarded unless the part has been
+ * deferred with {@link #defer(Attachment)}, in which case it is cached in memory
+ * or in a temporary file, subject to the usual attachment threshold, directory
+ * and maximum size properties.
+ *
+ * The parts can be converted to the Java types with
+ * {@link Attachment#getObject(Class)} which delegates to the registered
+ * message body readers.
+ */
+public class MultipartStream implements Iterable<Attachment>, Closeable {
+    public static final String INBOUND_MESSAGE_ATTACHMENTS =
+        "org.apache.cxf.jaxrs.attachments.inbound.stream";
+
+    /**
+     * Receives the parts in the order they arrive
+     */
+    public interface PartHandler {
+        void handle(Attachment part) throws IOException;
+    }
+
+    private final Message message;
+    private final Providers providers;
+    private final MediaType mediaType;
+    private final Set<Attachment> deferred =
+        Collections.newSetFromMap(new IdentityHashMap<Attachment, Boolean>());
+    private Iterator<org.apache.cxf.message.Attachment> childParts;
+    private Attachment current;
+    private Attachment next;
+    private boolean started;
+    private boolean iteratorCreated;
+    private boolean done;
+
+    /**
+     * @param message the message processed by the attachment interceptor,
+     *        its content is the first part and its attachments are the remaining parts
+     * @param providers the providers used to read the part content
+     * @param mediaType the multipart media type
+     */
+    public MultipartStream(Message message, Providers providers, MediaType mediaType) {
+        this.message = message;
+        this.providers = providers;
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getType() {
+        return mediaType;
+    }
+
+    /**
+     * Returns the iterator over the parts, the parts can only be iterated over once
+     */
+    public Iterator<Attachment> iterator() {
+        if (iteratorCreated) {
+            throw new IllegalStateException("Multipart stream can only be iterated over once");
+        }
+        iteratorCreated = true;
+        return new Iterator<Attachment>() {
+            public boolean hasNext() {
+                return MultipartStream.this.hasNext();
+            }
+            public Attachment next() {
+                if (!MultipartStream.this.hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                current = next;
+                next = null;
+                return current;
+            }
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    /**
+     * Passes all the parts to the handler, one by one
+     */
+    public void process(PartHandler handler) throws IOException {
+        for (Attachment part : this) {
+            handler.handle(part);
+        }
+    }
+
+    /**
+     * Keeps the content of the current part available after the iteration
+     * has moved to the next part. The part content which has not been read yet
+     * is cached immediately, so this method should be called before the
+     * part content is consumed.
+     */
+    public void defer(Attachment part) throws IOException {
+        if (deferred.contains(part)) {
+            return;
+        }
+        if (part != current) {
+            throw new IllegalStateException("Only the current part can be deferred");
+        }
+        DataSource ds = part.getDataHandler().getDataSource();
+        if (ds instanceof AttachmentDataSource) {
+            ((AttachmentDataSource)ds).cache(message);
+        }
+        deferred.add(part);
+    }
+
+    /**
+     * Discards the remaining parts
+     */
+    public void close() throws IOException {
+        if (!done) {
+            release(current);
+            current = null;
+            release(next);
+            next = null;
+            if (!started) {
+                release(readNext());
+            }
+            while (childParts != null && childParts.hasNext()) {
+                discard(childParts.next().getDataHandler().getInputStream());
+            }
+            done = true;
+        }
+    }
+
+    private boolean hasNext() {
+        if (next != null) {
+            return true;
+        }
+        if (done) {
+            return false;
+        }
+        try {
+            release(current);
+            current = null;
+            next = readNext();
+            if (next == null) {
+                done = true;
+            }
+            return next != null;
+        } catch (CacheSizeExceededException ex) {
+            throw new WebApplicationException(ex, 413);
+        } catch (IOException ex) {
+            throw ExceptionUtils.toBadRequestException(ex, null);
+        }
+    }
+
+    private Attachment readNext() throws IOException {
+        if (!started) {
+            started = true;
+            Collection<org.apache.cxf.message.Attachment> atts = message.getAttachments();
+            if (atts != null) {
+                childParts = atts.iterator();
+            }
+            InputStream is = message.getContent(InputStream.class);
+            if (is == null) {
+                return null;
+            }
+            Map<String, List<String>> headers = CastUtils.cast(
+                (Map<?, ?>)message.get(AttachmentDeserializer.ATTACHMENT_PART_HEADERS));
+            return new Attachment(AttachmentUtil.createAttachment(is, headers), providers);
+        }
+        if (childParts != null && childParts.hasNext()) {
+            return new Attachment(childParts.next(), providers);
+        }
+        return null;
+    }
+
+    private void release(Attachment part) throws IOException {
+        if (part != null && !deferred.contains(part)) {
+            discard(part.getDataHandler().getInputStream());
+        }
+    }
+
+    private static void discard(InputStream is) throws IOException {
+        if (is != null) {
+            IOUtils.consume(is);
+            is.close();
+        }
+    }
+}
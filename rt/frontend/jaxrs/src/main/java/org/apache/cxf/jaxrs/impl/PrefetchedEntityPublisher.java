@@ -0,0 +1,194 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.impl;
+
+import org.apache.cxf.jaxrs.ext.EntityPublisher;
+
+/**
+ * Subscribes to the publisher returned by a resource method before the response is written
+ * and requests a single entity, so that the request can stay suspended until the publisher
+ * has produced something instead of a container thread waiting for it. The entity, or the
+ * completion, is then replayed to the subscriber writing the response, and its further
+ * demand is passed on to the publisher.
+ */
+public class PrefetchedEntityPublisher<T> implements EntityPublisher<T>,
+    EntityPublisher.Subscriber<T>, EntityPublisher.Subscription {
+
+    private final EntityPublisher<T> publisher;
+    private Runnable readyCallback;
+    private Subscription upstream;
+    private Subscriber<T> downstream;
+    private T first;
+    private boolean completed;
+    private Throwable error;
+    private boolean terminated;
+    private boolean ready;
+    private boolean cancelled;
+
+    public PrefetchedEntityPublisher(EntityPublisher<T> publisher) {
+        this.publisher = publisher;
+    }
+
+    /**
+     * Subscribes to the publisher, the callback is run once it has published the first
+     * entity, completed or failed.
+     */
+    public void prefetch(Runnable callback) {
+        this.readyCallback = callback;
+        publisher.subscribe(this);
+    }
+
+    /**
+     * Returns the error the publisher has failed with before publishing any entity.
+     */
+    public synchronized Throwable getError() {
+        return first == null ? error : null;
+    }
+
+    @Override
+    public void subscribe(Subscriber<T> subscriber) {
+        synchronized (this) {
+            if (downstream != null) {
+                throw new IllegalStateException("Only one subscriber is supported");
+            }
+            downstream = subscriber;
+        }
+        subscriber.onSubscribe(this);
+    }
+
+    @Override
+    public void onSubscribe(Subscription s) {
+        synchronized (this) {
+            if (upstream != null) {
+                s.cancel();
+                return;
+            }
+            upstream = s;
+        }
+        s.request(1);
+    }
+
+    @Override
+    public void onNext(T entity) {
+        Subscriber<T> s;
+        synchronized (this) {
+            s = downstream;
+            if (s == null) {
+                first = entity;
+            }
+        }
+        if (s != null) {
+            s.onNext(entity);
+        } else {
+            ready();
+        }
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        synchronized (this) {
+            error = t;
+        }
+        deliverTermination();
+        ready();
+    }
+
+    @Override
+    public void onComplete() {
+        synchronized (this) {
+            completed = true;
+        }
+        deliverTermination();
+        ready();
+    }
+
+    @Override
+    public void request(long n) {
+        T entity;
+        Subscription s;
+        synchronized (this) {
+            if (cancelled || n <= 0) {
+                return;
+            }
+            entity = first;
+            first = null;
+            s = upstream;
+        }
+        long demand = n;
+        if (entity != null) {
+            downstream.onNext(entity);
+            demand--;
+        }
+        if (!deliverTermination() && demand > 0 && s != null) {
+            s.request(demand);
+        }
+    }
+
+    @Override
+    public void cancel() {
+        Subscription s;
+        synchronized (this) {
+            cancelled = true;
+            s = upstream;
+        }
+        if (s != null) {
+            s.cancel();
+        }
+    }
+
+    /**
+     * Passes the completion or the error on to the subscriber once it has received
+     * the buffered entity, returns whether the publisher has terminated.
+     */
+    private boolean deliverTermination() {
+        Subscriber<T> s;
+        Throwable t;
+        synchronized (this) {
+            if (!completed && error == null) {
+                return false;
+            }
+            if (downstream == null || first != null || terminated) {
+                return true;
+            }
+            terminated = true;
+            s = downstream;
+            t = error;
+        }
+        if (t != null) {
+            s.onError(t);
+        } else {
+            s.onComplete();
+        }
+        return true;
+    }
+
+    private void ready() {
+        Runnable callback;
+        synchronized (this) {
+            if (ready) {
+                return;
+            }
+            ready = true;
+            callback = readyCallback;
+        }
+        if (callback != null) {
+            callback.run();
+        }
+    }
+}
@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+
+import org.apache.cxf.jaxrs.ext.EntityPublisher;
+import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.utils.InjectionUtils;
+
+/**
+ * Writes the entities emitted by {@link EntityPublisher} one by one using the
+ * registered entity providers, framing them as a JSON array, as
+ * newline-delimited JSON or as a sequence of XML fragments enclosed in a wrapper
+ * element, depending on the response media type.
+ *
+ * No more than a configurable number of entities is requested ahead of the ones
+ * which have already been written out, so the rate at which the client consumes
+ * the response controls the rate at which the publisher produces the entities.
+ * The entities which are available are written out as a batch and the output is
+ * only flushed once the publisher has no more entities ready.
+ *
+ * The provider is registered by default with the server. When the transport supports
+ * continuations, the request is suspended until the publisher has produced its first
+ * entity, so that no container thread waits for the publisher to start. The thread
+ * writing the response still waits for the entities which follow, at most for the
+ * timeout set with {@link #TIMEOUT_PROPERTY}, which also limits the suspension.
+ */
+public class EntityPublisherProvider<T> implements MessageBodyWriter<EntityPublisher<T>> {
+    public static final String NDJSON_MEDIA_TYPE = "application/x-ndjson";
+    public static final String STREAM_JSON_MEDIA_TYPE = "application/stream+json";
+    /**
+     * The contextual property setting the maximum time in milliseconds to wait for
+     * an entity of a publisher, 0 means wait indefinitely
+     */
+    public static final String TIMEOUT_PROPERTY = "org.apache.cxf.jaxrs.entity.publisher.timeout";
+    public static final long DEFAULT_TIMEOUT = 60000L;
+
+    private static final String JAXB_FRAGMENT = "jaxb.fragment";
+    private static final Object COMPLETE = new Object();
+
+    private MessageContext mc;
+    private int prefetch = 16;
+    private Long timeout;
+    private String xmlWrapperName = "collection";
+
+    @Context
+    public void setMessageContext(MessageContext context) {
+        this.mc = context;
+    }
+
+    /**
+     * Sets the number of entities which may be requested from the publisher
+     * ahead of being written, default is 16
+     */
+    public void setPrefetch(int prefetch) {
+        if (prefetch < 1) {
+            throw new IllegalArgumentException("Prefetch must be positive");
+        }
+        this.prefetch = prefetch;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds to wait for the next entity,
+     * the publisher subscription is cancelled once it expires. 0 means wait
+     * indefinitely. By default the value of {@link #TIMEOUT_PROPERTY} is used,
+     * or 60 seconds if it is not set.
+     */
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    /**
+     * Sets the name of the element enclosing XML entities
+     */
+    public void setXmlWrapperName(String name) {
+        this.xmlWrapperName = name;
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> cls, Type type, Annotation[] anns, MediaType mt) {
+        return EntityPublisher.class.isAssignableFrom(cls);
+    }
+
+    @Override
+    public long getSize(EntityPublisher<T> p, Class<?> cls, Type t, Annotation[] anns, MediaType mt) {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(EntityPublisher<T> p, Class<?> cls, Type t, Annotation[] anns,
+                        MediaType mt, MultivaluedMap<String, Object> headers, OutputStream os)
+        throws IOException, WebApplicationException {
+        Class<?> actualCls = InjectionUtils.getActualType(t);
+        if (cls == actualCls) {
+            actualCls = Object.class;
+        }
+        Framing framing = getFraming(mt);
+        if (framing.isXml() && mc != null) {
+            mc.put(JAXB_FRAGMENT, Boolean.TRUE);
+        }
+        long wait = timeout != null ? timeout
+            : getTimeout(mc == null ? null : mc.getContextualProperty(TIMEOUT_PROPERTY));
+        PublisherSubscriber subscriber = new PublisherSubscriber(prefetch);
+        p.subscribe(subscriber);
+
+        EntityWriter writer = new EntityWriter(actualCls, anns, mt, headers, os);
+        boolean first = true;
+        os.write(framing.getStart());
+        try {
+            while (true) {
+                Object next = subscriber.poll();
+                if (next == null) {
+                    // the batch of the available entities has been written
+                    os.flush();
+                    next = subscriber.take(wait);
+                }
+                if (next == COMPLETE) {
+                    break;
+                }
+                if (!first) {
+                    os.write(framing.getSeparator());
+                }
+                first = false;
+                @SuppressWarnings("unchecked")
+                T entity = (T)next;
+                writer.write(entity);
+                os.write(framing.getAfterEach());
+                subscriber.request(1);
+            }
+        } catch (IOException ex) {
+            subscriber.cancel();
+            throw ex;
+        } catch (RuntimeException ex) {
+            subscriber.cancel();
+            throw ex;
+        }
+        os.write(framing.getEnd());
+        os.flush();
+    }
+
+    /**
+     * Returns the timeout set with the value of {@link #TIMEOUT_PROPERTY}
+     */
+    public static long getTimeout(Object value) {
+        if (value instanceof Number) {
+            return ((Number)value).longValue();
+        } else if (value instanceof String) {
+            return Long.parseLong((String)value);
+        }
+        return DEFAULT_TIMEOUT;
+    }
+
+    protected Framing getFraming(MediaType mt) {
+        String subtype = mt.getSubtype();
+        if (mt.isCompatible(MediaType.valueOf(NDJSON_MEDIA_TYPE))
+            || mt.isCompatible(MediaType.valueOf(STREAM_JSON_MEDIA_TYPE))) {
+            return new Framing("", "", "\n", "", false);
+        } else if ("json".equals(subtype) || subtype.endsWith("+json")) {
+            return new Framing("[", ",", "", "]", false);
+        } else if ("xml".equals(subtype) || subtype.endsWith("+xml")) {
+            return xmlWrapperName == null
+                ? new Framing("", "", "", "", true)
+                : new Framing("<" + xmlWrapperName + ">", "", "", "</" + xmlWrapperName + ">", true);
+        } else {
+            return new Framing("", "", "", "", false);
+        }
+    }
+
+    protected static class Framing {
+        private final byte[] start;
+        private final byte[] separator;
+        private final byte[] afterEach;
+        private final byte[] end;
+        private final boolean xml;
+
+        public Framing(String start, String separator, String afterEach, String end, boolean xml) {
+            this.start = start.getBytes(StandardCharsets.UTF_8);
+            this.separator = separator.getBytes(StandardCharsets.UTF_8);
+            this.afterEach = afterEach.getBytes(StandardCharsets.UTF_8);
+            this.end = end.getBytes(StandardCharsets.UTF_8);
+            this.xml = xml;
+        }
+        public byte[] getStart() {
+            return start;
+        }
+        public byte[] getSeparator() {
+            return separator;
+        }
+        public byte[] getAfterEach() {
+            return afterEach;
+        }
+        public byte[] getEnd() {
+            return end;
+        }
+        public boolean isXml() {
+            return xml;
+        }
+    }
+
+    private class PublisherSubscriber implements EntityPublisher.Subscriber<T> {
+        private final BlockingQueue<Object> queue;
+        private final int window;
+        private volatile EntityPublisher.Subscription subscription;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+
+        PublisherSubscriber(int window) {
+            this.window = window;
+            // one extra slot for the completion signal
+            this.queue = new LinkedBlockingQueue<Object>(window + 1);
+        }
+
+        @Override
+        public void onSubscribe(EntityPublisher.Subscription s) {
+            if (subscription != null) {
+                s.cancel();
+                return;
+            }
+            subscription = s;
+            s.request(window);
+        }
+
+        @Override
+        public void onNext(T entity) {
+            if (cancelled) {
+                return;
+            }
+            if (entity == null || !queue.offer(entity)) {
+                error = new IllegalStateException(entity == null
+                    ? "Null entities are not allowed" : "More entities published than requested");
+                cancel();
+                queue.offer(COMPLETE);
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            error = t;
+            queue.offer(COMPLETE);
+        }
+
+        @Override
+        public void onComplete() {
+            queue.offer(COMPLETE);
+        }
+
+        Object poll() throws IOException {
+            Object next = queue.poll();
+            if (next != null) {
+                checkError();
+            }
+            return next;
+        }
+
+        Object take(long timeout) throws IOException {
+            Object next = null;
+            try {
+                if (timeout > 0) {
+                    next = queue.poll(timeout, TimeUnit.MILLISECONDS);
+                } else {
+                    next = queue.take();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+            if (next == null) {
+                cancel();
+                throw new IOException("No entity has been published in time");
+            }
+            checkError();
+            return next;
+        }
+
+        private void checkError() throws IOException {
+            if (error != null) {
+                if (error instanceof IOException) {
+                    throw (IOException)error;
+                } else if (error instanceof WebApplicationException) {
+                    throw (WebApplicationException)error;
+                }
+                throw new InternalServerErrorException(error);
+            }
+        }
+
+        void request(long n) {
+            if (subscription != null && !cancelled) {
+                subscription.request(n);
+            }
+        }
+
+        void cancel() {
+            if (!cancelled) {
+                cancelled = true;
+                if (subscription != null) {
+                    subscription.cancel();
+                }
+            }
+        }
+    }
+
+    private class EntityWriter {
+        private MessageBodyWriter<T> writer;
+        private Class<?> writerCls;
+        private Class<?> entityCls;
+        private MediaType mt;
+        private Annotation[] anns;
+        private MultivaluedMap<String, Object> headers;
+        private OutputStream os;
+
+        EntityWriter(Class<?> entityCls,
+                     Annotation[] anns,
+                     MediaType mt,
+                     MultivaluedMap<String, Object> headers,
+                     OutputStream os) {
+            this.entityCls = entityCls;
+            this.anns = anns;
+            this.mt = mt;
+            this.headers = headers;
+            this.os = os;
+        }
+
+        @SuppressWarnings("unchecked")
+        void write(T data) throws IOException {
+            Class<?> actualCls = entityCls != Object.class ? entityCls : data.getClass();
+            if (writer == null || writerCls != actualCls) {
+                writer = mc == null ? null
+                    : (MessageBodyWriter<T>)mc.getProviders().getMessageBodyWriter(actualCls, actualCls, anns, mt);
+                if (writer == null) {
+                    throw new InternalServerErrorException();
+                }
+                writerCls = actualCls;
+            }
+            writer.writeTo(data, actualCls, actualCls, anns, mt, headers, os);
+        }
+    }
+}
@@ -62,6 +62,7 @@ import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.cxf.jaxrs.ext.multipart.InputStreamDataSource;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
+import org.apache.cxf.jaxrs.ext.multipart.MultipartStream;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.cxf.jaxrs.utils.AnnotationUtils;
 import org.apache.cxf.jaxrs.utils.ExceptionUtils;
@@ -87,6 +88,7 @@ public class MultipartProvider extends AbstractConfigurableProvider
         WELL_KNOWN_MULTIPART_CLASSES = new HashSet<Class<?>>();
         WELL_KNOWN_MULTIPART_CLASSES.add(MultipartBody.class);
         WELL_KNOWN_MULTIPART_CLASSES.add(Attachment.class);
+        WELL_KNOWN_MULTIPART_CLASSES.add(MultipartStream.class);
         
         MULTIPART_SUBTYPES = new HashSet<String>();
         MULTIPART_SUBTYPES.add("form-data");
@@ -145,6 +147,10 @@ public class MultipartProvider extends AbstractConfigurableProvider
                            MultivaluedMap<String, String> headers, InputStream is) 
         throws IOException, WebApplicationException {
         checkContentLength();
+        if (MultipartStream.class.isAssignableFrom(c)) {
+            return AttachmentUtils.getMultipartStream(
+                mc, attachmentDir, attachmentThreshold, attachmentMaxSize);
+        }
         List<Attachment> infos = AttachmentUtils.getAttachments(
                 mc, attachmentDir, attachmentThreshold, attachmentMaxSize);
         
@@ -253,7 +259,7 @@ public class MultipartProvider extends AbstractConfigurableProvider
 
     public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations,
                                MediaType mt) {
-        return isSupported(type, genericType, annotations, mt);
+        return type != MultipartStream.class && isSupported(type, genericType, annotations, mt);
     }
 
     
@@ -112,7 +112,8 @@ public final class ServerProviderFactory extends ProviderFactory {
         }
         ServerProviderFactory factory = new ServerProviderFactory(bus);
         ProviderFactory.initFactory(factory);
-        factory.setProviders(false, new WebApplicationExceptionMapper());
+        factory.setProviders(false, new WebApplicationExceptionMapper(),
+                             new EntityPublisherProvider<Object>());
         factory.setBusProviders();
         return factory;
     }
@@ -38,6 +38,7 @@ import org.apache.cxf.jaxrs.ext.multipart.Attachment;
 import org.apache.cxf.jaxrs.ext.multipart.ContentDisposition;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
 import org.apache.cxf.jaxrs.ext.multipart.MultipartBody;
+import org.apache.cxf.jaxrs.ext.multipart.MultipartStream;
 import org.apache.cxf.jaxrs.impl.MetadataMap;
 import org.apache.cxf.jaxrs.utils.ExceptionUtils;
 import org.apache.cxf.jaxrs.utils.FormUtils;
@@ -96,6 +97,23 @@ public final class AttachmentUtils {
     }
     
     public static MultipartBody getMultipartBody(MessageContext mc,
+        String attachmentDir, String attachmentThreshold, String attachmentMaxSize) {
+        setAttachmentProperties(mc, attachmentDir, attachmentThreshold, attachmentMaxSize);
+        
+        boolean embeddedAttachment = mc.get("org.apache.cxf.multipart.embedded") != null;
+        String propertyName = embeddedAttachment ? MultipartBody.INBOUND_MESSAGE_ATTACHMENTS + ".embedded"
+            : MultipartBody.INBOUND_MESSAGE_ATTACHMENTS;
+                
+        return (MultipartBody)mc.get(propertyName);
+    }
+    
+    public static MultipartStream getMultipartStream(MessageContext mc,
+        String attachmentDir, String attachmentThreshold, String attachmentMaxSize) {
+        setAttachmentProperties(mc, attachmentDir, attachmentThreshold, attachmentMaxSize);
+        return (MultipartStream)mc.get(MultipartStream.INBOUND_MESSAGE_ATTACHMENTS);
+    }
+    
+    private static void setAttachmentProperties(MessageContext mc,
         String attachmentDir, String attachmentThreshold, String attachmentMaxSize) {
         if (attachmentDir != null) {
             mc.put(AttachmentDeserializer.ATTACHMENT_DIRECTORY, attachmentDir);
@@ -106,12 +124,6 @@ public final class AttachmentUtils {
         if (attachmentMaxSize != null) {
             mc.put(AttachmentDeserializer.ATTACHMENT_MAX_SIZE, attachmentMaxSize);
         }
-        
-        boolean embeddedAttachment = mc.get("org.apache.cxf.multipart.embedded") != null;
-        String propertyName = embeddedAttachment ? MultipartBody.INBOUND_MESSAGE_ATTACHMENTS + ".embedded"
-            : MultipartBody.INBOUND_MESSAGE_ATTACHMENTS;
-                
-        return (MultipartBody)mc.get(propertyName);
     }
     
     public static List<Attachment> getAttachments(MessageContext mc, 
@@ -0,0 +1,118 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.ext.multipart;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.ws.rs.core.MediaType;
+
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.jaxrs.interceptor.AttachmentInputInterceptor;
+import org.apache.cxf.message.ExchangeImpl;
+import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MultipartStreamTest extends Assert {
+
+    private static final String CONTENT_TYPE = "multipart/form-data;boundary=bqJky99mlBWa-ZuqjC53mG6EzbmlxB";
+
+    @Test
+    public void testPartsInArrivalOrder() throws Exception {
+        MultipartStream stream = createStream("a", "b", "c");
+        final List<String> parts = new ArrayList<String>();
+        stream.process(new MultipartStream.PartHandler() {
+            public void handle(Attachment part) throws IOException {
+                parts.add(part.getContentDisposition().getParameter("name") + "="
+                    + IOUtils.readStringFromStream(part.getDataHandler().getInputStream()));
+            }
+        });
+        assertEquals(3, parts.size());
+        assertEquals("a=value-a", parts.get(0));
+        assertEquals("b=value-b", parts.get(1));
+        assertEquals("c=value-c", parts.get(2));
+    }
+
+    @Test
+    public void testUnreadPartsAreSkipped() throws Exception {
+        MultipartStream stream = createStream("a", "b", "c");
+        Iterator<Attachment> it = stream.iterator();
+        assertTrue(it.hasNext());
+        it.next();
+        assertTrue(it.hasNext());
+        it.next();
+        assertTrue(it.hasNext());
+        Attachment c = it.next();
+        assertEquals("value-c", IOUtils.readStringFromStream(c.getDataHandler().getInputStream()));
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    public void testDeferredPart() throws Exception {
+        MultipartStream stream = createStream("a", "b");
+        Iterator<Attachment> it = stream.iterator();
+        Attachment a = it.next();
+        stream.defer(a);
+        Attachment b = it.next();
+        assertEquals("value-b", IOUtils.readStringFromStream(b.getDataHandler().getInputStream()));
+        assertFalse(it.hasNext());
+        assertEquals("value-a", IOUtils.readStringFromStream(a.getDataHandler().getInputStream()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testOnlyCurrentPartCanBeDeferred() throws Exception {
+        MultipartStream stream = createStream("a", "b");
+        Iterator<Attachment> it = stream.iterator();
+        Attachment a = it.next();
+        it.next();
+        stream.defer(a);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testSingleIteration() throws Exception {
+        MultipartStream stream = createStream("a");
+        stream.iterator();
+        stream.iterator();
+    }
+
+    private MultipartStream createStream(String... names) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (String name : names) {
+            sb.append("--bqJky99mlBWa-ZuqjC53mG6EzbmlxB\r\n")
+                .append("Content-Disposition: form-data; name=\"").append(name).append("\"\r\n")
+                .append("Content-Type: text/plain\r\n\r\n")
+                .append("value-").append(name).append("\r\n");
+        }
+        sb.append("--bqJky99mlBWa-ZuqjC53mG6EzbmlxB--\r\n");
+
+        Message m = new MessageImpl();
+        m.setExchange(new ExchangeImpl());
+        m.put(Message.CONTENT_TYPE, CONTENT_TYPE);
+        m.setContent(InputStream.class, new ByteArrayInputStream(sb.toString().getBytes("UTF-8")));
+        new AttachmentInputInterceptor().handleMessage(m);
+        return new MultipartStream(m, null, MediaType.valueOf(CONTENT_TYPE));
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.cxf.jaxrs.ext.EntityPublisher;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PrefetchedEntityPublisherTest extends Assert {
+
+    @Test
+    public void testReadyOnFirstEntity() {
+        ManualPublisher publisher = new ManualPublisher();
+        PrefetchedEntityPublisher<String> prefetched = new PrefetchedEntityPublisher<String>(publisher);
+        ReadyCallback callback = new ReadyCallback();
+        prefetched.prefetch(callback);
+        assertEquals(1L, publisher.requested);
+        assertEquals(0, callback.count);
+
+        publisher.subscriber.onNext("a");
+        assertEquals(1, callback.count);
+        assertNull(prefetched.getError());
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        prefetched.subscribe(subscriber);
+        subscriber.subscription.request(3);
+        assertEquals(1, subscriber.entities.size());
+        // the buffered entity has satisfied one of the requested entities
+        assertEquals(3L, publisher.requested);
+
+        publisher.subscriber.onNext("b");
+        publisher.subscriber.onComplete();
+        assertEquals(2, subscriber.entities.size());
+        assertTrue(subscriber.completed);
+        assertEquals(1, callback.count);
+    }
+
+    @Test
+    public void testReadyOnEmptyCompletion() {
+        ManualPublisher publisher = new ManualPublisher();
+        PrefetchedEntityPublisher<String> prefetched = new PrefetchedEntityPublisher<String>(publisher);
+        ReadyCallback callback = new ReadyCallback();
+        prefetched.prefetch(callback);
+        publisher.subscriber.onComplete();
+        assertEquals(1, callback.count);
+
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        prefetched.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.entities.isEmpty());
+        assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testErrorBeforeFirstEntity() {
+        ManualPublisher publisher = new ManualPublisher();
+        PrefetchedEntityPublisher<String> prefetched = new PrefetchedEntityPublisher<String>(publisher);
+        ReadyCallback callback = new ReadyCallback();
+        prefetched.prefetch(callback);
+        IllegalStateException error = new IllegalStateException();
+        publisher.subscriber.onError(error);
+        assertEquals(1, callback.count);
+        assertSame(error, prefetched.getError());
+    }
+
+    @Test
+    public void testCancel() {
+        ManualPublisher publisher = new ManualPublisher();
+        PrefetchedEntityPublisher<String> prefetched = new PrefetchedEntityPublisher<String>(publisher);
+        prefetched.prefetch(new ReadyCallback());
+        publisher.subscriber.onNext("a");
+        RecordingSubscriber subscriber = new RecordingSubscriber();
+        prefetched.subscribe(subscriber);
+        subscriber.subscription.cancel();
+        assertTrue(publisher.cancelled);
+        subscriber.subscription.request(1);
+        assertTrue(subscriber.entities.isEmpty());
+    }
+
+    private static class ManualPublisher implements EntityPublisher<String> {
+        private Subscriber<String> subscriber;
+        private long requested;
+        private boolean cancelled;
+
+        public void subscribe(Subscriber<String> s) {
+            subscriber = s;
+            s.onSubscribe(new Subscription() {
+                public void request(long n) {
+                    requested += n;
+                }
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+
+    private static class RecordingSubscriber implements EntityPublisher.Subscriber<String> {
+        private EntityPublisher.Subscription subscription;
+        private List<String> entities = new ArrayList<String>();
+        private boolean completed;
+
+        public void onSubscribe(EntityPublisher.Subscription s) {
+            subscription = s;
+        }
+        public void onNext(String entity) {
+            entities.add(entity);
+        }
+        public void onError(Throwable t) {
+        }
+        public void onComplete() {
+            completed = true;
+        }
+    }
+
+    private static class ReadyCallback implements Runnable {
+        private int count;
+
+        public void run() {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.provider;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.ws.rs.InternalServerErrorException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Providers;
+
+import org.apache.cxf.jaxrs.ext.EntityPublisher;
+import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.jaxrs.impl.MetadataMap;
+import org.easymock.EasyMock;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EntityPublisherProviderTest extends Assert {
+
+    @Test
+    public void testIsWriteable() {
+        EntityPublisherProvider<String> p = new EntityPublisherProvider<String>();
+        assertTrue(p.isWriteable(ListPublisher.class, ListPublisher.class, null, MediaType.APPLICATION_JSON_TYPE));
+        assertFalse(p.isWriteable(String.class, String.class, null, MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Test
+    public void testWriteJsonArray() throws Exception {
+        assertEquals("[a,b,c]", write(MediaType.APPLICATION_JSON_TYPE, "a", "b", "c"));
+    }
+
+    @Test
+    public void testWriteEmptyJsonArray() throws Exception {
+        assertEquals("[]", write(MediaType.APPLICATION_JSON_TYPE));
+    }
+
+    @Test
+    public void testWriteNdJson() throws Exception {
+        assertEquals("a\nb\nc\n",
+                     write(MediaType.valueOf(EntityPublisherProvider.NDJSON_MEDIA_TYPE), "a", "b", "c"));
+    }
+
+    @Test
+    public void testWriteXml() throws Exception {
+        assertEquals("<collection><a/><b/></collection>",
+                     write(MediaType.APPLICATION_XML_TYPE, "<a/>", "<b/>"));
+    }
+
+    @Test
+    public void testDemandIsBounded() throws Exception {
+        EntityPublisherProvider<String> p = createProvider();
+        p.setPrefetch(2);
+        ListPublisher publisher = new ListPublisher(Arrays.asList("a", "b", "c", "d", "e"));
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        p.writeTo(publisher, ListPublisher.class, String.class, new Annotation[]{},
+                  MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(), os);
+        assertEquals("[a,b,c,d,e]", os.toString("UTF-8"));
+        assertEquals(2, publisher.maxOutstanding);
+    }
+
+    @Test
+    public void testPublisherError() throws Exception {
+        EntityPublisherProvider<String> p = createProvider();
+        EntityPublisher<String> publisher = new EntityPublisher<String>() {
+            public void subscribe(Subscriber<String> s) {
+                s.onError(new IllegalStateException());
+            }
+        };
+        try {
+            p.writeTo(publisher, EntityPublisher.class, String.class, new Annotation[]{},
+                      MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(),
+                      new ByteArrayOutputStream());
+            fail("InternalServerErrorException expected");
+        } catch (InternalServerErrorException ex) {
+            assertTrue(ex.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testSubscriptionCancelledOnWriteFailure() throws Exception {
+        EntityPublisherProvider<String> p = createProvider();
+        ListPublisher publisher = new ListPublisher(Arrays.asList("a", "b"));
+        OutputStream os = new OutputStream() {
+            private int written;
+            @Override
+            public void write(int b) throws IOException {
+                // the client disconnects after the start of the array
+                if (written++ > 0) {
+                    throw new IOException("disconnected");
+                }
+            }
+        };
+        try {
+            p.writeTo(publisher, ListPublisher.class, String.class, new Annotation[]{},
+                      MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(), os);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertTrue(publisher.cancelled);
+        }
+    }
+
+    @Test
+    public void testFlushedPerBatch() throws Exception {
+        EntityPublisherProvider<String> p = createProvider();
+        ListPublisher publisher = new ListPublisher(Arrays.asList("a", "b", "c", "d", "e"));
+        final int[] flushes = new int[1];
+        ByteArrayOutputStream os = new ByteArrayOutputStream() {
+            @Override
+            public void flush() throws IOException {
+                flushes[0]++;
+            }
+        };
+        p.writeTo(publisher, ListPublisher.class, String.class, new Annotation[]{},
+                  MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(), os);
+        assertEquals("[a,b,c,d,e]", os.toString("UTF-8"));
+        // all of the entities were available at once
+        assertEquals(1, flushes[0]);
+    }
+
+    @Test
+    public void testPublisherStallsMidStream() throws Exception {
+        EntityPublisherProvider<String> p = createProvider("100");
+        final boolean[] cancelled = new boolean[1];
+        EntityPublisher<String> publisher = new EntityPublisher<String>() {
+            public void subscribe(final Subscriber<String> s) {
+                s.onSubscribe(new Subscription() {
+                    private boolean published;
+                    public void request(long n) {
+                        // publishes the first entity only
+                        if (!published) {
+                            published = true;
+                            s.onNext("a");
+                        }
+                    }
+                    public void cancel() {
+                        cancelled[0] = true;
+                    }
+                });
+            }
+        };
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        try {
+            p.writeTo(publisher, EntityPublisher.class, String.class, new Annotation[]{},
+                      MediaType.APPLICATION_JSON_TYPE, new MetadataMap<String, Object>(), os);
+            fail("IOException expected");
+        } catch (IOException ex) {
+            assertTrue(cancelled[0]);
+            assertEquals("[a", os.toString("UTF-8"));
+        }
+    }
+
+    @Test
+    public void testDefaultTimeout() {
+        assertEquals(EntityPublisherProvider.DEFAULT_TIMEOUT, EntityPublisherProvider.getTimeout(null));
+        assertEquals(0L, EntityPublisherProvider.getTimeout("0"));
+    }
+
+    private String write(MediaType mt, String... entities) throws Exception {
+        EntityPublisherProvider<String> p = createProvider();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        p.writeTo(new ListPublisher(Arrays.asList(entities)), ListPublisher.class, String.class,
+                  new Annotation[]{}, mt, new MetadataMap<String, Object>(), os);
+        return os.toString("UTF-8");
+    }
+
+    private EntityPublisherProvider<String> createProvider() {
+        return createProvider(null);
+    }
+
+    private EntityPublisherProvider<String> createProvider(String timeout) {
+        Providers providers = EasyMock.createMock(Providers.class);
+        providers.getMessageBodyWriter(EasyMock.<Class<String>>anyObject(), EasyMock.<Type>anyObject(),
+                                       EasyMock.<Annotation[]>anyObject(), EasyMock.<MediaType>anyObject());
+        EasyMock.expectLastCall().andReturn((MessageBodyWriter<String>)new StringTextProvider()).anyTimes();
+        MessageContext mc = EasyMock.createNiceMock(MessageContext.class);
+        mc.getProviders();
+        EasyMock.expectLastCall().andReturn(providers).anyTimes();
+        EasyMock.expect(mc.getContextualProperty(EntityPublisherProvider.TIMEOUT_PROPERTY))
+            .andReturn(timeout).anyTimes();
+        EasyMock.replay(providers, mc);
+        EntityPublisherProvider<String> p = new EntityPublisherProvider<String>();
+        p.setMessageContext(mc);
+        return p;
+    }
+
+    private static class ListPublisher implements EntityPublisher<String> {
+        private final List<String> entities;
+        private int index;
+        private long outstanding;
+        private long maxOutstanding;
+        private boolean cancelled;
+
+        ListPublisher(List<String> entities) {
+            this.entities = entities;
+        }
+
+        public void subscribe(final Subscriber<String> s) {
+            s.onSubscribe(new Subscription() {
+                public void request(long n) {
+                    outstanding += n;
+                    maxOutstanding = Math.max(maxOutstanding, outstanding);
+                    while (outstanding > 0 && index < entities.size() && !cancelled) {
+                        outstanding--;
+                        s.onNext(entities.get(index++));
+                    }
+                    if (index == entities.size()) {
+                        index++;
+                        s.onComplete();
+                    }
+                }
+                public void cancel() {
+                    cancelled = true;
+                }
+            });
+        }
+    }
+}
@@ -37,6 +37,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 import javax.ws.rs.CookieParam;
@@ -100,6 +101,9 @@ public class ClientProxyImpl extends AbstractClient implements
     private boolean isRoot;
     private Map<String, Object> valuesMap = Collections.emptyMap();
     private BodyWriter bodyWriter = new BodyWriter();
+    private Map<Method, InvocationPlan> invocationPlans = new ConcurrentHashMap<Method, InvocationPlan>();
+    private Map<Class<?>, Map<Class<? extends Annotation>, List<BeanAccessor>>> beanAccessors = 
+        new ConcurrentHashMap<Class<?>, Map<Class<? extends Annotation>, List<BeanAccessor>>>();
     public ClientProxyImpl(URI baseURI,
                            ClassLoader loader,
                            ClassResourceInfo cri, 
@@ -158,33 +162,30 @@ public class ClientProxyImpl extends AbstractClient implements
             return m.invoke(this, params);
         }
         resetResponse();
-        OperationResourceInfo ori = cri.getMethodDispatcher().getOperationResourceInfo(m);
-        if (ori == null) {
-            reportInvalidResourceMethod(m, "INVALID_RESOURCE_METHOD");
-        }
+        InvocationPlan plan = getInvocationPlan(m);
+        OperationResourceInfo ori = plan.getOperation();
         
-        MultivaluedMap<ParameterType, Parameter> types = getParametersInfo(m, params, ori);
-        List<Parameter> beanParamsList =  getParameters(types, ParameterType.BEAN);
+        MultivaluedMap<ParameterType, Parameter> types = plan.getParameterTypes();
+        List<Parameter> beanParamsList =  plan.getBeanParameters();
         
-        int bodyIndex = getBodyIndex(types, ori);
+        int bodyIndex = plan.getBodyIndex();
         
-        List<Object> pathParams = getPathParamValues(m, params, types, beanParamsList, ori, bodyIndex);
+        List<Object> pathParams = getPathParamValues(plan, params, beanParamsList, bodyIndex);
         
         UriBuilder builder = getCurrentBuilder().clone(); 
-        if (isRoot) {
-            addNonEmptyPath(builder, ori.getClassResourceInfo().getURITemplate().getValue());
+        for (String path : plan.getPaths()) {
+            builder.path(path);
         }
-        addNonEmptyPath(builder, ori.getURITemplate().getValue());
         
-        handleMatrixes(m, params, types, beanParamsList, builder);
-        handleQueries(m, params, types, beanParamsList, builder);
+        handleMatrixes(plan, params, beanParamsList, builder);
+        handleQueries(plan, params, beanParamsList, builder);
         
         URI uri = builder.buildFromEncoded(pathParams.toArray()).normalize();
         
         MultivaluedMap<String, String> headers = getHeaders();
         MultivaluedMap<String, String> paramHeaders = new MetadataMap<String, String>();
-        handleHeaders(m, params, paramHeaders, beanParamsList, types);
-        handleCookies(m, params, paramHeaders, beanParamsList, types);
+        handleHeaders(plan, params, paramHeaders, beanParamsList);
+        handleCookies(plan, params, paramHeaders, beanParamsList);
                 
         if (ori.isSubResourceLocator()) {
             ClassResourceInfo subCri = cri.getSubResource(m.getReturnType(), m.getReturnType());
@@ -206,8 +207,8 @@ public class ClientProxyImpl extends AbstractClient implements
         } 
         
         headers.putAll(paramHeaders);
-        setRequestHeaders(headers, ori, types.containsKey(ParameterType.FORM), 
-            bodyIndex == -1 || params[bodyIndex] == null ? null : params[bodyIndex].getClass(), m.getReturnType());
+        setRequestHeaders(headers, plan, types.containsKey(ParameterType.FORM), 
+            bodyIndex == -1 || params[bodyIndex] == null ? null : params[bodyIndex].getClass());
         
         getState().setTemplates(getTemplateParametersMap(ori.getURITemplate(), pathParams));
         
@@ -218,23 +219,35 @@ public class ClientProxyImpl extends AbstractClient implements
                 bodyIndex = -1;
             }
         } else if (types.containsKey(ParameterType.FORM))  {
-            body = handleForm(m, params, types, beanParamsList);
+            body = handleForm(plan, params, beanParamsList);
         } else if (types.containsKey(ParameterType.REQUEST_BODY))  {
-            body = handleMultipart(types, ori, params);
+            body = handleMultipart(plan, params);
         }
         
         return doChainedInvocation(uri, headers, ori, body, bodyIndex, null, null);
         
     }
 
-    private void addNonEmptyPath(UriBuilder builder, String pathValue) {
-        if (!SLASH.equals(pathValue)) {
-            builder.path(pathValue);
+    /**
+     * Returns the invocation plan of the given method, the plan is built on the first
+     * invocation and captures the method metadata which does not depend on the actual
+     * parameter values
+     */
+    InvocationPlan getInvocationPlan(Method m) {
+        InvocationPlan plan = invocationPlans.get(m);
+        if (plan == null) {
+            OperationResourceInfo ori = cri.getMethodDispatcher().getOperationResourceInfo(m);
+            if (ori == null) {
+                reportInvalidResourceMethod(m, "INVALID_RESOURCE_METHOD");
+            }
+            plan = new InvocationPlan(m, ori, isRoot);
+            invocationPlans.put(m, plan);
         }
+        return plan;
     }
     
     private static MultivaluedMap<ParameterType, Parameter> getParametersInfo(Method m,
-        Object[] params, OperationResourceInfo ori) {
+        OperationResourceInfo ori, Multipart[] multiparts) {
         MultivaluedMap<ParameterType, Parameter> map = 
             new MetadataMap<ParameterType, Parameter>();
         
@@ -250,7 +263,7 @@ public class ClientProxyImpl extends AbstractClient implements
             }
             if (p.getType() == ParameterType.REQUEST_BODY) {
                 requestBodyParam++;
-                if (getMultipart(ori, p.getIndex()) != null) {
+                if (multiparts[p.getIndex()] != null) {
                     multipartParam++;    
                 }
             }
@@ -334,68 +347,64 @@ public class ClientProxyImpl extends AbstractClient implements
     }
     
     private MultivaluedMap<String, String> setRequestHeaders(MultivaluedMap<String, String> headers,          
-                                                             OperationResourceInfo ori,
+                                                             InvocationPlan plan,
                                                              boolean formParams,
-                                                             Class<?> bodyClass,
-                                                             Class<?> responseClass) {
+                                                             Class<?> bodyClass) {
         if (headers.getFirst(HttpHeaders.CONTENT_TYPE) == null) {
             if (formParams || bodyClass != null && MultivaluedMap.class.isAssignableFrom(bodyClass)) {
                 headers.putSingle(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED);
             } else {
-                String cType = ori.getConsumeTypes().isEmpty() 
-                    || ori.getConsumeTypes().get(0).equals(MediaType.WILDCARD_TYPE) 
-                    ? MediaType.APPLICATION_XML : JAXRSUtils.mediaTypeToString(ori.getConsumeTypes().get(0));   
-                headers.putSingle(HttpHeaders.CONTENT_TYPE, cType);
-            }
-        }
-        
-        List<MediaType> accepts = getAccept(headers);
-        if (accepts == null) {
-            boolean produceWildcard = ori.getProduceTypes().size() == 0 
-                || ori.getProduceTypes().get(0).equals(MediaType.WILDCARD_TYPE);
-            if (produceWildcard) {
-                accepts = InjectionUtils.isPrimitive(responseClass)
-                    ? Collections.singletonList(MediaType.TEXT_PLAIN_TYPE)
-                    : Collections.singletonList(MediaType.APPLICATION_XML_TYPE);        
-            } else if (responseClass == Void.class || responseClass == Void.TYPE) {
-                accepts = Collections.singletonList(MediaType.WILDCARD_TYPE);
-            } else {
-                accepts = ori.getProduceTypes();
+                headers.putSingle(HttpHeaders.CONTENT_TYPE, plan.getDefaultContentType());
             }
-            
-            for (MediaType mt : accepts) {
-                headers.add(HttpHeaders.ACCEPT, JAXRSUtils.mediaTypeToString(mt));
+        }
+        
+        List<String> accepts = headers.get(HttpHeaders.ACCEPT);
+        if (accepts == null || accepts.size() == 0) {
+            for (String mt : plan.getDefaultAccepts()) {
+                headers.add(HttpHeaders.ACCEPT, mt);
             }
         }
             
         return headers;
     }
     
-    private List<MediaType> getAccept(MultivaluedMap<String, String> allHeaders) {
-        List<String> headers = allHeaders.get(HttpHeaders.ACCEPT);
-        if (headers == null || headers.size() == 0) {
-            return null;
-        }
-        List<MediaType> types = new ArrayList<MediaType>();
-        for (String s : headers) {
-            types.add(JAXRSUtils.toMediaType(s));
-        }
-        return types;
+    private static String getDefaultContentType(OperationResourceInfo ori) {
+        return ori.getConsumeTypes().isEmpty() 
+            || ori.getConsumeTypes().get(0).equals(MediaType.WILDCARD_TYPE) 
+            ? MediaType.APPLICATION_XML : JAXRSUtils.mediaTypeToString(ori.getConsumeTypes().get(0));
+    }
+    
+    private static List<String> getDefaultAccepts(OperationResourceInfo ori, Class<?> responseClass) {
+        List<MediaType> accepts = null;
+        boolean produceWildcard = ori.getProduceTypes().size() == 0 
+            || ori.getProduceTypes().get(0).equals(MediaType.WILDCARD_TYPE);
+        if (produceWildcard) {
+            accepts = InjectionUtils.isPrimitive(responseClass)
+                ? Collections.singletonList(MediaType.TEXT_PLAIN_TYPE)
+                : Collections.singletonList(MediaType.APPLICATION_XML_TYPE);        
+        } else if (responseClass == Void.class || responseClass == Void.TYPE) {
+            accepts = Collections.singletonList(MediaType.WILDCARD_TYPE);
+        } else {
+            accepts = ori.getProduceTypes();
+        }
+        List<String> values = new ArrayList<String>(accepts.size());
+        for (MediaType mt : accepts) {
+            values.add(JAXRSUtils.mediaTypeToString(mt));
+        }
+        return Collections.unmodifiableList(values);
     }
     
-    private List<Object> getPathParamValues(Method m,
+    private List<Object> getPathParamValues(InvocationPlan plan,
                                             Object[] params,
-                                            MultivaluedMap<ParameterType, Parameter> map,
                                             List<Parameter> beanParams,
-                                            OperationResourceInfo ori,
                                             int bodyIndex) {
         List<Object> list = new LinkedList<Object>();
         if (isRoot) {
             list.addAll(valuesMap.values());
         }
-        List<String> methodVars = ori.getURITemplate().getVariables();
+        List<String> methodVars = plan.getOperation().getURITemplate().getVariables();
         
-        List<Parameter> paramsList =  getParameters(map, ParameterType.PATH);
+        List<Parameter> paramsList =  getParameters(plan.getParameterTypes(), ParameterType.PATH);
         Map<String, Parameter> paramsMap = new LinkedHashMap<String, Parameter>();
         for (Parameter p : paramsList) {
             if (p.getName().length() == 0) {
@@ -417,7 +426,7 @@ public class ClientProxyImpl extends AbstractClient implements
         for (String varName : methodVars) {
             Parameter p = paramsMap.remove(varName);
             if (p != null) {
-                list.add(convertParamValue(params[p.getIndex()], getParamAnnotations(m, p)));
+                list.add(convertParamValue(params[p.getIndex()], plan.getParameterAnnotations(p)));
             } else if (beanParamValues.containsKey(varName)) {
                 BeanPair pair = beanParamValues.get(varName);
                 list.add(convertParamValue(pair.getValue(), pair.getAnns()));
@@ -449,26 +458,21 @@ public class ClientProxyImpl extends AbstractClient implements
         return list;
     }
     
-    private static Annotation[] getParamAnnotations(Method m, Parameter p) {
-        return m.getParameterAnnotations()[p.getIndex()];
-    }
-    
     @SuppressWarnings("unchecked")
     private static List<Parameter> getParameters(MultivaluedMap<ParameterType, Parameter> map, 
                                            ParameterType key) {
         return  map.get(key) == null ? Collections.EMPTY_LIST : map.get(key);
     }
     
-    private void handleQueries(Method m,
+    private void handleQueries(InvocationPlan plan,
                                Object[] params,
-                               MultivaluedMap<ParameterType, Parameter> map,
                                List<Parameter> beanParams,
                                UriBuilder ub) {
-        List<Parameter> qs = getParameters(map, ParameterType.QUERY);
+        List<Parameter> qs = getParameters(plan.getParameterTypes(), ParameterType.QUERY);
         for (Parameter p : qs) {
             if (params[p.getIndex()] != null) {
                 addMatrixQueryParamsToBuilder(ub, p.getName(), ParameterType.QUERY, 
-                                              getParamAnnotations(m, p), params[p.getIndex()]);
+                                              plan.getParameterAnnotations(p), params[p.getIndex()]);
             }
         }
         for (Parameter p : beanParams) {
@@ -485,31 +489,55 @@ public class ClientProxyImpl extends AbstractClient implements
     private Map<String, BeanPair> getValuesFromBeanParam(Object bean, Class<? extends Annotation> annClass) {
         Map<String, BeanPair> values = new HashMap<String, BeanPair>();
         
-        for (Method m : bean.getClass().getMethods()) {
+        for (BeanAccessor accessor : getBeanAccessors(bean.getClass(), annClass)) {
+            try {
+                Object value = accessor.getValue(bean);
+                if (value != null) {
+                    values.put(accessor.getName(), new BeanPair(value, accessor.getAnns()));
+                }
+            } catch (Throwable t) {
+                // ignore
+            }
+        }
+        return values;
+    }
+    
+    private List<BeanAccessor> getBeanAccessors(Class<?> beanClass, Class<? extends Annotation> annClass) {
+        Map<Class<? extends Annotation>, List<BeanAccessor>> classAccessors = beanAccessors.get(beanClass);
+        if (classAccessors == null) {
+            classAccessors = new ConcurrentHashMap<Class<? extends Annotation>, List<BeanAccessor>>();
+            beanAccessors.put(beanClass, classAccessors);
+        }
+        List<BeanAccessor> accessors = classAccessors.get(annClass);
+        if (accessors == null) {
+            accessors = createBeanAccessors(beanClass, annClass);
+            classAccessors.put(annClass, accessors);
+        }
+        return accessors;
+    }
+    
+    private static List<BeanAccessor> createBeanAccessors(Class<?> beanClass, 
+                                                          Class<? extends Annotation> annClass) {
+        List<BeanAccessor> accessors = new LinkedList<BeanAccessor>();
+        for (Method m : beanClass.getMethods()) {
             if (m.getName().startsWith("set")) {
                 try {
                     String propertyName = m.getName().substring(3);
                     Annotation annotation = m.getAnnotation(annClass);
                     if (annotation != null) {
-                        Method getter = bean.getClass().getMethod("get" + propertyName, new Class[]{});
-                        Object value = getter.invoke(bean, new Object[]{});
-                        if (value != null) {
-                            String annotationValue = AnnotationUtils.getAnnotationValue(annotation);
-                            values.put(annotationValue, new BeanPair(value, m.getParameterAnnotations()[0]));
-                        }
+                        Method getter = beanClass.getMethod("get" + propertyName, new Class[]{});
+                        accessors.add(new BeanAccessor(AnnotationUtils.getAnnotationValue(annotation),
+                                                       getter, null, m.getParameterAnnotations()[0]));
                     } else {
                         String fieldName = StringUtils.uncapitalize(propertyName);
-                        Field f = ReflectionUtil.getDeclaredField(bean.getClass(), fieldName);
+                        Field f = ReflectionUtil.getDeclaredField(beanClass, fieldName);
                         if (f == null) {
                             continue;
                         }
                         annotation = f.getAnnotation(annClass);
                         if (annotation != null) {
-                            Object value = ReflectionUtil.accessDeclaredField(f, bean, Object.class);
-                            if (value != null) {
-                                String annotationValue = AnnotationUtils.getAnnotationValue(annotation);
-                                values.put(annotationValue, new BeanPair(value, f.getAnnotations()));
-                            }    
+                            accessors.add(new BeanAccessor(AnnotationUtils.getAnnotationValue(annotation),
+                                                           null, f, f.getAnnotations()));
                         }
                     }
                 } catch (Throwable t) {
@@ -517,19 +545,18 @@ public class ClientProxyImpl extends AbstractClient implements
                 }    
             }
         }
-        return values;
+        return accessors;
     }
     
-    private void handleMatrixes(Method m,
+    private void handleMatrixes(InvocationPlan plan,
                                 Object[] params,
-                                MultivaluedMap<ParameterType, Parameter> map,
                                 List<Parameter> beanParams,
                                 UriBuilder ub) {
-        List<Parameter> mx = getParameters(map, ParameterType.MATRIX);
+        List<Parameter> mx = getParameters(plan.getParameterTypes(), ParameterType.MATRIX);
         for (Parameter p : mx) {
             if (params[p.getIndex()] != null) {
                 addMatrixQueryParamsToBuilder(ub, p.getName(), ParameterType.MATRIX, 
-                                              getParamAnnotations(m, p), params[p.getIndex()]);
+                                              plan.getParameterAnnotations(p), params[p.getIndex()]);
             }
         }
         for (Parameter p : beanParams) {
@@ -543,16 +570,15 @@ public class ClientProxyImpl extends AbstractClient implements
         }
     }
 
-    private MultivaluedMap<String, String> handleForm(Method m,
+    private MultivaluedMap<String, String> handleForm(InvocationPlan plan,
                                                       Object[] params,
-                                                      MultivaluedMap<ParameterType, Parameter> map, 
                                                       List<Parameter> beanParams) {
         
         MultivaluedMap<String, String> form = new MetadataMap<String, String>();
         
-        List<Parameter> fm = getParameters(map, ParameterType.FORM);
+        List<Parameter> fm = getParameters(plan.getParameterTypes(), ParameterType.FORM);
         for (Parameter p : fm) {
-            addFormValue(form, p.getName(), params[p.getIndex()], getParamAnnotations(m, p));
+            addFormValue(form, p.getName(), params[p.getIndex()], plan.getParameterAnnotations(p));
         }
         for (Parameter p : beanParams) {
             Map<String, BeanPair> values = getValuesFromBeanParam(params[p.getIndex()], FormParam.class);
@@ -582,14 +608,13 @@ public class ClientProxyImpl extends AbstractClient implements
         
     }
     
-    private List<Attachment> handleMultipart(MultivaluedMap<ParameterType, Parameter> map,
-                                             OperationResourceInfo ori,
+    private List<Attachment> handleMultipart(InvocationPlan plan,
                                              Object[] params) {
         
         List<Attachment> atts = new LinkedList<Attachment>();
-        List<Parameter> fm = getParameters(map, ParameterType.REQUEST_BODY);
+        List<Parameter> fm = getParameters(plan.getParameterTypes(), ParameterType.REQUEST_BODY);
         for (Parameter p : fm) {
-            Multipart part = getMultipart(ori, p.getIndex());
+            Multipart part = plan.getMultipart(p.getIndex());
             if (part != null) {
                 Object partObject = params[p.getIndex()];
                 if (partObject != null) {
@@ -600,15 +625,15 @@ public class ClientProxyImpl extends AbstractClient implements
         return atts;        
     }
     
-    private void handleHeaders(Method m,
+    private void handleHeaders(InvocationPlan plan,
                                Object[] params,
                                MultivaluedMap<String, String> headers,
-                               List<Parameter> beanParams,
-                               MultivaluedMap<ParameterType, Parameter> map) {
-        List<Parameter> hs = getParameters(map, ParameterType.HEADER);
+                               List<Parameter> beanParams) {
+        List<Parameter> hs = getParameters(plan.getParameterTypes(), ParameterType.HEADER);
         for (Parameter p : hs) {
             if (params[p.getIndex()] != null) {
-                headers.add(p.getName(), convertParamValue(params[p.getIndex()], getParamAnnotations(m, p)));
+                headers.add(p.getName(), 
+                            convertParamValue(params[p.getIndex()], plan.getParameterAnnotations(p)));
             }
         }
         for (Parameter p : beanParams) {
@@ -622,23 +647,17 @@ public class ClientProxyImpl extends AbstractClient implements
         }
     }
     
-    private static Multipart getMultipart(OperationResourceInfo ori, int index) {
-        Method aMethod = ori.getAnnotatedMethod();
-        return aMethod != null ? AnnotationUtils.getAnnotation(
-            aMethod.getParameterAnnotations()[index], Multipart.class) : null;
-    }
-    
-    private void handleCookies(Method m, 
+    private void handleCookies(InvocationPlan plan, 
                                Object[] params,
                                MultivaluedMap<String, String> headers,
-                               List<Parameter> beanParams,
-                               MultivaluedMap<ParameterType, Parameter> map) {
-        List<Parameter> cs = getParameters(map, ParameterType.COOKIE);
+                               List<Parameter> beanParams) {
+        List<Parameter> cs = getParameters(plan.getParameterTypes(), ParameterType.COOKIE);
         for (Parameter p : cs) {
             if (params[p.getIndex()] != null) {
                 headers.add(HttpHeaders.COOKIE, 
                             p.getName() + '=' 
-                            + convertParamValue(params[p.getIndex()].toString(), getParamAnnotations(m, p)));
+                            + convertParamValue(params[p.getIndex()].toString(), 
+                                                plan.getParameterAnnotations(p)));
             }
         }
         for (Parameter p : beanParams) {
@@ -840,6 +859,104 @@ public class ClientProxyImpl extends AbstractClient implements
         
     }
     
+    /**
+     * Captures the metadata of the proxy method which is used to build the request
+     */
+    static class InvocationPlan {
+        private final OperationResourceInfo ori;
+        private final MultivaluedMap<ParameterType, Parameter> types;
+        private final List<Parameter> beanParams;
+        private final int bodyIndex;
+        private final Annotation[][] paramAnns;
+        private final Multipart[] multiparts;
+        private final List<String> paths;
+        private final String defaultContentType;
+        private final List<String> defaultAccepts;
+        
+        InvocationPlan(Method m, OperationResourceInfo ori, boolean root) {
+            this.ori = ori;
+            this.paramAnns = m.getParameterAnnotations();
+            Method aMethod = ori.getAnnotatedMethod();
+            Annotation[][] aMethodAnns = aMethod != null ? aMethod.getParameterAnnotations() : null;
+            this.multiparts = new Multipart[paramAnns.length];
+            if (aMethodAnns != null) {
+                for (int i = 0; i < multiparts.length && i < aMethodAnns.length; i++) {
+                    multiparts[i] = AnnotationUtils.getAnnotation(aMethodAnns[i], Multipart.class);
+                }
+            }
+            this.types = getParametersInfo(m, ori, multiparts);
+            this.beanParams = getParameters(types, ParameterType.BEAN);
+            this.bodyIndex = getBodyIndex(types, ori);
+            
+            List<String> list = new ArrayList<String>(2);
+            if (root) {
+                addNonEmptyPath(list, ori.getClassResourceInfo().getURITemplate().getValue());
+            }
+            addNonEmptyPath(list, ori.getURITemplate().getValue());
+            this.paths = list;
+            
+            this.defaultContentType = ClientProxyImpl.getDefaultContentType(ori);
+            this.defaultAccepts = ClientProxyImpl.getDefaultAccepts(ori, m.getReturnType());
+        }
+        
+        private static void addNonEmptyPath(List<String> list, String pathValue) {
+            if (!SLASH.equals(pathValue)) {
+                list.add(pathValue);
+            }
+        }
+        
+        public OperationResourceInfo getOperation() {
+            return ori;
+        }
+        public MultivaluedMap<ParameterType, Parameter> getParameterTypes() {
+            return types;
+        }
+        public List<Parameter> getBeanParameters() {
+            return beanParams;
+        }
+        public int getBodyIndex() {
+            return bodyIndex;
+        }
+        public Annotation[] getParameterAnnotations(Parameter p) {
+            return paramAnns[p.getIndex()];
+        }
+        public Multipart getMultipart(int index) {
+            return multiparts[index];
+        }
+        public List<String> getPaths() {
+            return paths;
+        }
+        public String getDefaultContentType() {
+            return defaultContentType;
+        }
+        public List<String> getDefaultAccepts() {
+            return defaultAccepts;
+        }
+    }
+    
+    private static class BeanAccessor {
+        private String name;
+        private Method getter;
+        private Field field;
+        private Annotation[] anns;
+        BeanAccessor(String name, Method getter, Field field, Annotation[] anns) {
+            this.name = name;
+            this.getter = getter;
+            this.field = field;
+            this.anns = anns;
+        }
+        public Object getValue(Object bean) throws Exception {
+            return getter != null ? getter.invoke(bean, new Object[]{}) 
+                : ReflectionUtil.accessDeclaredField(field, bean, Object.class);
+        }
+        public String getName() {
+            return name;
+        }
+        public Annotation[] getAnns() {
+            return anns;
+        }
+    }
+    
     private static class BeanPair {
         private Object value;
         private Annotation[] anns;
@@ -0,0 +1,107 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.jaxrs.client;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.QueryParam;
+
+import org.apache.cxf.jaxrs.model.Parameter;
+import org.apache.cxf.jaxrs.model.ParameterType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ClientProxyImplTest extends Assert {
+
+    @Test
+    public void testInvocationPlanReusedForOverloadedMethods() throws Exception {
+        Store store = JAXRSClientFactory.create("http://bar", Store.class);
+        ClientProxyImpl proxy = (ClientProxyImpl)((InvocationHandlerAware)store).getInvocationHandler();
+        Method byPath = Store.class.getMethod("getItem", String.class);
+        Method byRevision = Store.class.getMethod("getItem", String.class, int.class);
+        Method byQuery = Store.class.getMethod("getItem", long.class);
+
+        for (int i = 1; i <= 2; i++) {
+            assertEquals("http://bar/store/items/" + i,
+                         WebClient.client(store.getItem("" + i)).getCurrentURI().toString());
+            assertEquals("http://bar/store/items/" + i + "?rev=" + (i + 1),
+                         WebClient.client(store.getItem("" + i, i + 1)).getCurrentURI().toString());
+            assertEquals("http://bar/store/items?id=" + i,
+                         WebClient.client(store.getItem((long)i)).getCurrentURI().toString());
+        }
+
+        ClientProxyImpl.InvocationPlan pathPlan = proxy.getInvocationPlan(byPath);
+        ClientProxyImpl.InvocationPlan revisionPlan = proxy.getInvocationPlan(byRevision);
+        ClientProxyImpl.InvocationPlan queryPlan = proxy.getInvocationPlan(byQuery);
+        assertSame(pathPlan, proxy.getInvocationPlan(byPath));
+        assertSame(revisionPlan, proxy.getInvocationPlan(byRevision));
+        assertSame(queryPlan, proxy.getInvocationPlan(byQuery));
+        assertNotSame(pathPlan, revisionPlan);
+        assertNotSame(pathPlan, queryPlan);
+
+        // the first parameter of each overloaded method has its own annotations
+        Parameter p = pathPlan.getParameterTypes().getFirst(ParameterType.PATH);
+        assertEquals(0, p.getIndex());
+        assertAnnotation(PathParam.class, pathPlan.getParameterAnnotations(p));
+        assertNull(pathPlan.getParameterTypes().get(ParameterType.QUERY));
+
+        p = revisionPlan.getParameterTypes().getFirst(ParameterType.QUERY);
+        assertEquals(1, p.getIndex());
+        assertEquals("rev", p.getName());
+        assertAnnotation(QueryParam.class, revisionPlan.getParameterAnnotations(p));
+
+        p = queryPlan.getParameterTypes().getFirst(ParameterType.QUERY);
+        assertEquals(0, p.getIndex());
+        assertEquals("id", p.getName());
+        assertAnnotation(QueryParam.class, queryPlan.getParameterAnnotations(p));
+        assertNull(queryPlan.getParameterTypes().get(ParameterType.PATH));
+    }
+
+    @Test
+    public void testInvocationPlanPerProxy() throws Exception {
+        Store store = JAXRSClientFactory.create("http://bar", Store.class);
+        Store store2 = JAXRSClientFactory.create("http://bar", Store.class);
+        Method m = Store.class.getMethod("getItem", String.class);
+        ClientProxyImpl proxy = (ClientProxyImpl)((InvocationHandlerAware)store).getInvocationHandler();
+        ClientProxyImpl proxy2 = (ClientProxyImpl)((InvocationHandlerAware)store2).getInvocationHandler();
+        assertNotSame(proxy.getInvocationPlan(m), proxy2.getInvocationPlan(m));
+        assertEquals(proxy.getInvocationPlan(m).getPaths(), proxy2.getInvocationPlan(m).getPaths());
+    }
+
+    private static void assertAnnotation(Class<? extends Annotation> type, Annotation[] anns) {
+        assertEquals(1, anns.length);
+        assertSame(type, anns[0].annotationType());
+    }
+
+    @Path("/store")
+    public interface Store {
+        @Path("/items/{id}")
+        Store getItem(@PathParam("id") String id);
+
+        @Path("/items/{id}")
+        Store getItem(@PathParam("id") String id, @QueryParam("rev") int rev);
+
+        @Path("/items")
+        Store getItem(@QueryParam("id") long id);
+    }
+}
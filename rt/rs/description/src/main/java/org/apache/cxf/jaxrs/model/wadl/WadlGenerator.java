@@ -30,6 +30,9 @@ import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.lang.reflect.Type;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -57,6 +60,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.container.ContainerRequestContext;
 import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
@@ -139,6 +143,7 @@ public class WadlGenerator implements ContainerRequestFilter {
     private static final String JAXB_DEFAULT_NAME = "##default";
     private static final String CLASSPATH_PREFIX = "classpath:";
     private static final String DEFAULT_NS_PREFIX = "prefix";
+    private static final int MAX_CACHED_DESCRIPTIONS = 32;
     private static final Map<ParameterType, Class<? extends Annotation>> PARAMETER_TYPE_MAP;
     static {
         PARAMETER_TYPE_MAP = new HashMap<ParameterType, Class<? extends Annotation>>();
@@ -169,6 +174,16 @@ public class WadlGenerator implements ContainerRequestFilter {
     private Map<String, List<String>> externalQnamesMap;
 
     private ConcurrentHashMap<String, String> docLocationMap = new ConcurrentHashMap<String, String>();
+    private boolean cacheDescriptions;
+    // the base URI may be derived from the request, so the least recently used documents are dropped
+    private Map<DescriptionKey, CachedDescription> descriptionCache = Collections.synchronizedMap(
+        new LinkedHashMap<DescriptionKey, CachedDescription>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<DescriptionKey, CachedDescription> eldest) {
+                return size() > MAX_CACHED_DESCRIPTIONS;
+            }
+        });
 
     private ElementQNameResolver resolver;
     private List<String> privateAddresses;
@@ -234,6 +249,11 @@ public class WadlGenerator implements ContainerRequestFilter {
 
         boolean isJson = isJson(type);
 
+        if (cacheDescriptions) {
+            context.abortWith(getCachedWadl(m, ui, headers, type, isJson));
+            return;
+        }
+        
         StringBuilder sbMain = generateWADL(getBaseURI(m, ui), getResourcesList(m, ui), isJson, m, ui);
 
         m.getExchange().put(JAXRSUtils.IGNORE_MESSAGE_WRITERS, !isJson && ignoreMessageWriters);
@@ -243,6 +263,40 @@ public class WadlGenerator implements ContainerRequestFilter {
     private boolean isJson(MediaType mt) {
         return mt == MediaType.APPLICATION_JSON_TYPE;
     }
+    
+    private Response getCachedWadl(Message m, UriInfo ui, HttpHeaders headers, MediaType type, boolean isJson) {
+        String baseURI = getBaseURI(m, ui);
+        List<ClassResourceInfo> cris = getResourcesList(m, ui);
+        
+        DescriptionKey key = new DescriptionKey(JAXRSUtils.mediaTypeToString(type), baseURI, cris);
+        CachedDescription description = descriptionCache.get(key);
+        if (description == null) {
+            description = new CachedDescription(generateWADL(baseURI, cris, isJson, m, ui).toString());
+            descriptionCache.put(key, description);
+        }
+        
+        EntityTag etag = description.getEntityTag();
+        List<String> ifNoneMatch = headers.getRequestHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            String quotedTag = "\"" + etag.getValue() + "\"";
+            for (String value : ifNoneMatch) {
+                if ("*".equals(value.trim()) || value.contains(quotedTag)) {
+                    return Response.notModified(etag).build();
+                }
+            }
+        }
+        
+        Object entity = null;
+        if (!isJson && ignoreMessageWriters && (stylesheetReference == null || !applyStylesheetLocally)) {
+            m.getExchange().put(JAXRSUtils.IGNORE_MESSAGE_WRITERS, false);
+            entity = description.getBytes();
+        } else {
+            m.getExchange().put(JAXRSUtils.IGNORE_MESSAGE_WRITERS, !isJson && ignoreMessageWriters);
+            entity = createResponseEntity(m, ui, description.getWadl(), isJson);
+        }
+        return Response.ok().type(type).tag(etag).entity(entity).build();
+    }
+    
     private String getStylesheetInstructionData(Message m, UriInfo ui) {
         String theStylesheetReference = stylesheetReference;
         if (!keepRelativeDocLinks) {
@@ -1638,6 +1692,24 @@ public class WadlGenerator implements ContainerRequestFilter {
         return new QName(namespace, name, prefix);
     }
 
+    /**
+     * Enables the caching of the generated WADL documents. The documents are generated
+     * once per the base URI, media type and the set of the described resources, 
+     * are returned with the strong ETag and the conditional requests with the matching
+     * If-None-Match header get 304 responses.
+     */
+    public void setCacheDescriptions(boolean cacheDescriptions) {
+        this.cacheDescriptions = cacheDescriptions;
+    }
+    
+    /**
+     * Drops the cached WADL documents, should be called if the resources are updated
+     * after the WADL has been requested 
+     */
+    public void clearDescriptionCache() {
+        descriptionCache.clear();
+    }
+    
     public void setIgnoreMessageWriters(boolean ignoreMessageWriters) {
         this.ignoreMessageWriters = ignoreMessageWriters;
     }
@@ -1847,6 +1919,86 @@ public class WadlGenerator implements ContainerRequestFilter {
         }
     }
 
+    /**
+     * Identifies a cached document by its media type, base URI and root resources, the
+     * resources are compared by reference.
+     */
+    private static class DescriptionKey {
+        private final String mediaType;
+        private final String baseURI;
+        private final ClassResourceInfo[] cris;
+        private final int hashCode;
+        
+        DescriptionKey(String mediaType, String baseURI, List<ClassResourceInfo> cris) {
+            this.mediaType = mediaType;
+            this.baseURI = baseURI;
+            this.cris = cris.toArray(new ClassResourceInfo[cris.size()]);
+            int h = 31 * mediaType.hashCode() + baseURI.hashCode();
+            for (ClassResourceInfo cri : this.cris) {
+                h = 31 * h + System.identityHashCode(cri);
+            }
+            this.hashCode = h;
+        }
+        
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof DescriptionKey)) {
+                return false;
+            }
+            DescriptionKey other = (DescriptionKey)o;
+            if (hashCode != other.hashCode || cris.length != other.cris.length
+                || !mediaType.equals(other.mediaType) || !baseURI.equals(other.baseURI)) {
+                return false;
+            }
+            for (int i = 0; i < cris.length; i++) {
+                if (cris[i] != other.cris[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static class CachedDescription {
+        private final String wadl;
+        private final byte[] bytes;
+        private final EntityTag etag;
+        
+        CachedDescription(String wadl) {
+            this.wadl = wadl;
+            this.bytes = wadl.getBytes(StandardCharsets.UTF_8);
+            this.etag = new EntityTag(createTag(bytes));
+        }
+        
+        private static String createTag(byte[] bytes) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+                StringBuilder sb = new StringBuilder(digest.length * 2);
+                for (byte b : digest) {
+                    sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+                }
+                return sb.toString();
+            } catch (NoSuchAlgorithmException ex) {
+                return Integer.toHexString(Arrays.hashCode(bytes)) + "-" + bytes.length;
+            }
+        }
+        
+        public String getWadl() {
+            return wadl;
+        }
+        public byte[] getBytes() {
+            return bytes;
+        }
+        public EntityTag getEntityTag() {
+            return etag;
+        }
+    }
+    
     protected interface SchemaWriter {
         void write(StringBuilder sb);
     }
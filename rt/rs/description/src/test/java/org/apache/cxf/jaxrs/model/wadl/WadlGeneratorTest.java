@@ -24,7 +24,9 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.PUT;
@@ -313,6 +315,82 @@ public class WadlGeneratorTest extends Assert {
         assertEquals("/orders", orderResource.getAttribute("path"));
     }
 
+    @Test
+    public void testCachedWadl() throws Exception {
+        WadlGenerator wg = new WadlGenerator();
+        wg.setCacheDescriptions(true);
+        ClassResourceInfo cri = 
+            ResourceUtils.createClassResourceInfo(BookStore.class, BookStore.class, true, true);
+        Message m = mockMessage("http://localhost:8080/baz", "/bookstore/1", WadlGenerator.WADL_QUERY, cri);
+        Response r = handleRequest(wg, m);
+        checkResponse(r);
+        assertTrue(r.getEntity() instanceof byte[]);
+        String wadl = new String((byte[])r.getEntity(), "UTF-8");
+        Document doc = StaxUtils.read(new StringReader(wadl));
+        checkBookStoreInfo(getWadlResourcesInfo(doc, "http://localhost:8080/baz", 1).get(0), 
+                           "prefix1:thebook", "prefix1:thebook2", "prefix1:thechapter");
+        String etag = r.getMetadata().getFirst(HttpHeaders.ETAG).toString();
+        assertNotNull(etag);
+        
+        Message m2 = mockMessage("http://localhost:8080/baz", "/bookstore/1", WadlGenerator.WADL_QUERY, cri);
+        Response r2 = handleRequest(wg, m2);
+        assertSame(r.getEntity(), r2.getEntity());
+        
+        Message m3 = mockMessage("http://localhost:8080/baz", "/bookstore/1", WadlGenerator.WADL_QUERY, cri);
+        Map<String, List<String>> headers = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+        headers.put(HttpHeaders.IF_NONE_MATCH, Collections.singletonList(etag));
+        m3.put(Message.PROTOCOL_HEADERS, headers);
+        Response r3 = handleRequest(wg, m3);
+        assertEquals(304, r3.getStatus());
+        assertNull(r3.getEntity());
+    }
+    
+    @Test
+    public void testCachedWadlPerResource() throws Exception {
+        WadlGenerator wg = new WadlGenerator();
+        wg.setCacheDescriptions(true);
+        ClassResourceInfo cri = 
+            ResourceUtils.createClassResourceInfo(BookStore.class, BookStore.class, true, true);
+        Response r = handleRequest(wg, mockMessage("http://localhost:8080/baz", "/bookstore/1",
+                                                   WadlGenerator.WADL_QUERY, cri));
+        
+        // another resource of the same class does not share the cached document
+        ClassResourceInfo cri2 = 
+            ResourceUtils.createClassResourceInfo(BookStore.class, BookStore.class, true, true);
+        Response r2 = handleRequest(wg, mockMessage("http://localhost:8080/baz", "/bookstore/1",
+                                                    WadlGenerator.WADL_QUERY, cri2));
+        assertNotSame(r.getEntity(), r2.getEntity());
+        
+        Response r3 = handleRequest(wg, mockMessage("http://localhost:8080/baz", "/bookstore/1",
+                                                    WadlGenerator.WADL_QUERY, cri));
+        assertSame(r.getEntity(), r3.getEntity());
+    }
+    
+    @Test
+    public void testCachedWadlLeastRecentlyUsedEviction() throws Exception {
+        WadlGenerator wg = new WadlGenerator();
+        wg.setCacheDescriptions(true);
+        ClassResourceInfo cri = 
+            ResourceUtils.createClassResourceInfo(BookStore.class, BookStore.class, true, true);
+        Object[] entities = new Object[32];
+        for (int i = 0; i < entities.length; i++) {
+            entities[i] = handleRequest(wg, mockMessage("http://localhost:8080/baz" + i, "/bookstore/1",
+                                                        WadlGenerator.WADL_QUERY, cri)).getEntity();
+        }
+        // the first document is used again, so the second one is dropped first
+        assertSame(entities[0], handleRequest(wg, mockMessage("http://localhost:8080/baz0", "/bookstore/1",
+                                                              WadlGenerator.WADL_QUERY, cri)).getEntity());
+        handleRequest(wg, mockMessage("http://localhost:8080/baz32", "/bookstore/1",
+                                      WadlGenerator.WADL_QUERY, cri));
+        
+        assertSame(entities[0], handleRequest(wg, mockMessage("http://localhost:8080/baz0", "/bookstore/1",
+                                                              WadlGenerator.WADL_QUERY, cri)).getEntity());
+        assertSame(entities[2], handleRequest(wg, mockMessage("http://localhost:8080/baz2", "/bookstore/1",
+                                                              WadlGenerator.WADL_QUERY, cri)).getEntity());
+        assertNotSame(entities[1], handleRequest(wg, mockMessage("http://localhost:8080/baz1", "/bookstore/1",
+                                                                 WadlGenerator.WADL_QUERY, cri)).getEntity());
+    }
+    
     private Response handleRequest(WadlGenerator wg, Message m) {
         wg.doFilter(new ContainerRequestContextImpl(m, true, false), m);
         return m.getExchange().get(Response.class);
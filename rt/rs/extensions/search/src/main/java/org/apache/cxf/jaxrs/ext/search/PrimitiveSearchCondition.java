@@ -33,7 +33,10 @@ public class PrimitiveSearchCondition<T> implements SearchCondition<T> {
     private Type propertyType;
     private T condition;
     private ConditionType cType;
-    private Beanspector<T> beanspector;
+    private boolean searchBean;
+    private Method getter;
+    private volatile Object primitiveValue;
+    private volatile boolean primitiveValueResolved;
     
     public PrimitiveSearchCondition(String propertyName, 
                                     Object propertyValue,
@@ -53,8 +56,14 @@ public class PrimitiveSearchCondition<T> implements SearchCondition<T> {
         this.condition = condition;
         this.cType = ct;
         if (propertyName != null) {
-            this.beanspector = SearchBean.class.isAssignableFrom(condition.getClass()) 
-                ? null : new Beanspector<T>(condition);
+            this.searchBean = SearchBean.class.isAssignableFrom(condition.getClass());
+            if (!searchBean) {
+                // the getter is resolved once so that isMet() can be evaluated concurrently
+                // and without the repeated lookups when large collections are filtered
+                int index = propertyName.indexOf(".");
+                String thePropertyName = index != -1 ? propertyName.substring(0, index) : propertyName;
+                this.getter = new Beanspector<T>(condition).getGetter(thePropertyName.toLowerCase());
+            }
         }
     }
     
@@ -101,28 +110,29 @@ public class PrimitiveSearchCondition<T> implements SearchCondition<T> {
             return compare(pojo, cType, propertyValue);
         } else {
             Object lValue = getValue(propertyName, pojo);
-            Object rValue = getPrimitiveValue(propertyName, propertyValue);
-            return lValue == null ? false : compare(lValue, cType, rValue);
+            return lValue == null ? false : compare(lValue, cType, getPrimitiveValue());
         }
     }
 
-    private Object getValue(String getter, T pojo) {
-        String thePropertyName;
-        int index = getter.indexOf(".");
-        if (index != -1) {
-            thePropertyName = getter.substring(0, index);
-        } else {
-            thePropertyName = getter;
+    private Object getPrimitiveValue() {
+        if (!primitiveValueResolved) {
+            primitiveValue = getPrimitiveValue(propertyName, propertyValue);
+            primitiveValueResolved = true;
         }
-        
+        return primitiveValue;
+    }
+    
+    private Object getValue(String name, T pojo) {
         Object value;
         try {
-            if (beanspector != null) {
-                value = beanspector.swap(pojo).getValue(thePropertyName.toLowerCase());
+            if (searchBean) {
+                value = ((SearchBean)pojo).get(name);
+            } else if (getter != null) {
+                value = getter.invoke(pojo);
             } else {
-                value = ((SearchBean)pojo).get(getter);
+                return null;
             }
-            return getPrimitiveValue(getter, value);
+            return getPrimitiveValue(name, value);
         } catch (Throwable e) {
             return null;
         }
@@ -0,0 +1,83 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.jaxrs.ext.search;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU cache of the parsed search conditions.
+ *
+ * The cached conditions are shared between the concurrent requests
+ * and must not be modified by the application code.
+ */
+public class SearchConditionCache {
+    public static final int DEFAULT_MAX_SIZE = 1000;
+
+    private final Map<String, SearchCondition<?>> conditions;
+
+    public SearchConditionCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public SearchConditionCache(final int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        conditions = new LinkedHashMap<String, SearchCondition<?>>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SearchCondition<?>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> SearchCondition<T> get(String key) {
+        synchronized (conditions) {
+            return (SearchCondition<T>)conditions.get(key);
+        }
+    }
+
+    public <T> void put(String key, SearchCondition<T> condition) {
+        synchronized (conditions) {
+            conditions.put(key, condition);
+        }
+    }
+
+    public int size() {
+        synchronized (conditions) {
+            return conditions.size();
+        }
+    }
+
+    public void clear() {
+        synchronized (conditions) {
+            conditions.clear();
+        }
+    }
+
+    /**
+     * Normalizes the search expression before it is used as a cache key
+     */
+    public static String normalize(String expression) {
+        return expression.trim();
+    }
+}
@@ -31,12 +31,14 @@ import javax.ws.rs.core.MultivaluedMap;
 import org.apache.cxf.common.classloader.ClassLoaderUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.PropertyUtils;
+import org.apache.cxf.endpoint.Endpoint;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.jaxrs.ext.search.client.CompleteCondition;
 import org.apache.cxf.jaxrs.ext.search.client.SearchConditionBuilder;
 import org.apache.cxf.jaxrs.ext.search.fiql.FiqlParser;
 import org.apache.cxf.jaxrs.utils.InjectionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
+import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 
@@ -47,6 +49,11 @@ public class SearchContextImpl implements SearchContext {
     public static final String CUSTOM_SEARCH_PARSER_PROPERTY = "search.parser";
     public static final String CUSTOM_SEARCH_PARSER_CLASS_PROPERTY = "search.parser.class";
     public static final String CUSTOM_SEARCH_QUERY_PARAM_NAME = "search.query.parameter.name";
+    /**
+     * Enables the caching of the parsed conditions, the value can be a {@link SearchConditionCache}
+     * instance, "true" or the maximum number of the conditions to be cached per endpoint
+     */
+    public static final String SEARCH_CONDITION_CACHE = "search.condition.cache";
     private static final String USE_PLAIN_QUERY_PARAMETERS = "search.use.plain.queries";
     private static final String USE_ALL_QUERY_COMPONENT = "search.use.all.query.component";
     private static final String BLOCK_SEARCH_EXCEPTION = "search.block.search.exception";
@@ -92,13 +99,31 @@ public class SearchContextImpl implements SearchContext {
             throw new IllegalArgumentException(errorMessage);
         }
         
-        SearchConditionParser<T> parser = getParser(cls, beanProperties, parserProperties);
+        Map<String, String> props = getParserProperties(parserProperties);
+        Map<String, String> beanProps = getBeanProperties(beanProperties);
         
         String theExpression = expression == null 
             ? getSearchExpression() : expression;
+        
+        SearchConditionCache cache = theExpression != null ? getConditionCache() : null;
+        String cacheKey = null;
+        if (cache != null) {
+            cacheKey = getCacheKey(theExpression, cls, props, beanProps);
+            SearchCondition<T> sc = cache.get(cacheKey);
+            if (sc != null) {
+                return sc;
+            }
+        }
+        
+        SearchConditionParser<T> parser = getParser(cls, props, beanProps);
+        
         if (theExpression != null) {
             try {
-                return parser.parse(theExpression);
+                SearchCondition<T> sc = parser.parse(theExpression);
+                if (cacheKey != null && sc != null) {
+                    cache.put(cacheKey, sc);
+                }
+                return sc;
             } catch (SearchParseException ex) {
                 if (PropertyUtils.isTrue(message.getContextualProperty(BLOCK_SEARCH_EXCEPTION))) {
                     return null;
@@ -178,15 +203,55 @@ public class SearchContextImpl implements SearchContext {
     
     
     
-    private <T> SearchConditionParser<T> getParser(Class<T> cls, 
-                                                   Map<String, String> beanProperties,
-                                                   Map<String, String> parserProperties) {
-        
+    private SearchConditionCache getConditionCache() {
+        Object cacheProp = message.getContextualProperty(SEARCH_CONDITION_CACHE);
+        if (cacheProp == null) {
+            return null;
+        }
+        if (cacheProp instanceof SearchConditionCache) {
+            return (SearchConditionCache)cacheProp;
+        }
+        Exchange exchange = message.getExchange();
+        Endpoint ep = exchange != null ? exchange.getEndpoint() : null;
+        if (ep == null) {
+            return null;
+        }
+        synchronized (ep) {
+            SearchConditionCache cache = (SearchConditionCache)ep.get(SearchConditionCache.class.getName());
+            if (cache == null) {
+                String value = cacheProp.toString();
+                if (PropertyUtils.isTrue(value)) {
+                    cache = new SearchConditionCache();
+                } else if (PropertyUtils.isFalse(value)) {
+                    return null;
+                } else {
+                    cache = new SearchConditionCache(Integer.parseInt(value));
+                }
+                ep.put(SearchConditionCache.class.getName(), cache);
+            }
+            return cache;
+        }
+    }
+    
+    private String getCacheKey(String expression, 
+                               Class<?> cls,
+                               Map<String, String> props,
+                               Map<String, String> beanProps) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(cls.getName()).append('|');
         Object parserProp = message.getContextualProperty(CUSTOM_SEARCH_PARSER_PROPERTY);
         if (parserProp != null) {
-            return getCustomParser(parserProp);
+            sb.append(parserProp.getClass().getName()).append('@')
+                .append(System.identityHashCode(parserProp));
+        } else {
+            sb.append(message.getContextualProperty(CUSTOM_SEARCH_PARSER_CLASS_PROPERTY));
         }
-        
+        sb.append('|').append(props).append('|').append(beanProps).append('|');
+        sb.append(SearchConditionCache.normalize(expression));
+        return sb.toString();
+    }
+    
+    private Map<String, String> getParserProperties(Map<String, String> parserProperties) {
         Map<String, String> props = null;
         if (parserProperties == null) {
             props = new LinkedHashMap<String, String>(4);
@@ -204,7 +269,10 @@ public class SearchContextImpl implements SearchContext {
         } else {
             props = parserProperties;
         }
-        
+        return props;
+    }
+    
+    private Map<String, String> getBeanProperties(Map<String, String> beanProperties) {
         Map<String, String> beanProps = null;
             
         if (beanProperties == null) {    
@@ -212,6 +280,17 @@ public class SearchContextImpl implements SearchContext {
         } else {
             beanProps = beanProperties;
         }
+        return beanProps;
+    }
+    
+    private <T> SearchConditionParser<T> getParser(Class<T> cls, 
+                                                   Map<String, String> props,
+                                                   Map<String, String> beanProps) {
+        
+        Object parserProp = message.getContextualProperty(CUSTOM_SEARCH_PARSER_PROPERTY);
+        if (parserProp != null) {
+            return getCustomParser(parserProp);
+        }
         
         String parserClassProp = (String) message.getContextualProperty(CUSTOM_SEARCH_PARSER_CLASS_PROPERTY);
         if (parserClassProp != null) {
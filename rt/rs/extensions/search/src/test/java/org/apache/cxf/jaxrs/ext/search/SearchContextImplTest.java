@@ -134,6 +134,24 @@ public class SearchContextImplTest extends Assert {
             "a=b&_s=name==CXF%20Rocks;id=gt=123&c=d");
     }
     
+    @Test
+    public void testCachedSearchCondition() {
+        SearchConditionCache cache = new SearchConditionCache(1);
+        Message m = new MessageImpl();
+        m.put(SearchContextImpl.SEARCH_CONDITION_CACHE, cache);
+        m.put(Message.QUERY_STRING, "_s=name==CXF%20Rocks;id=gt=123");
+        SearchCondition<Book> sc = new SearchContextImpl(m).getCondition(Book.class);
+        assertNotNull(sc);
+        assertEquals(1, cache.size());
+        assertSame(sc, new SearchContextImpl(m).getCondition(Book.class));
+        assertSame(sc, new SearchContextImpl(m).getCondition(" name==CXF Rocks;id=gt=123 ", Book.class));
+
+        doTestFiqlSearchCondition(m, "_s=name==CXF%20Rocks;id=gt=123");
+
+        assertNotSame(sc, new SearchContextImpl(m).getCondition("name==CXF", Book.class));
+        assertEquals(1, cache.size());
+    }
+
     private void doTestFiqlSearchCondition(String queryString) {
         doTestFiqlSearchCondition(new MessageImpl(), queryString);
     }
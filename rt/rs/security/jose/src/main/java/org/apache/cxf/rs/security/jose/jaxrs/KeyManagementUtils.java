@@ -36,8 +36,11 @@ import java.security.cert.X509CertSelector;
 import java.security.cert.X509Certificate;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.logging.Logger;
 
@@ -72,7 +75,20 @@ public final class KeyManagementUtils {
     public static final String RSSEC_REPORT_KEY_PROP = "rs.security.report.public.key";
     public static final String RSSEC_REPORT_KEY_ID_PROP = "rs.security.report.public.key.id";
     public static final String RSSEC_ACCEPT_PUBLIC_KEY_PROP = "rs.security.accept.public.key.properties";
+    public static final String RSSEC_KEY_STORE_CACHE = "rs.security.keystore.cache";
+    public static final String RSSEC_KEY_STORE_REFRESH_INTERVAL = "rs.security.keystore.refresh.interval";
     private static final Logger LOG = LogUtils.getL7dLogger(KeyManagementUtils.class);
+    private static final int MAX_VALIDATED_CHAINS = 1000;
+    private static final Map<List<X509Certificate>, ValidatedChain> VALIDATED_CHAINS = 
+        Collections.synchronizedMap(
+            new LinkedHashMap<List<X509Certificate>, ValidatedChain>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<X509Certificate>, ValidatedChain> eldest) {
+                    // the chain used least recently is dropped
+                    return size() > MAX_VALIDATED_CHAINS;
+                }
+            });
     
     private KeyManagementUtils() {
     }
@@ -224,7 +240,12 @@ public final class KeyManagementUtils {
         }
         KeyStore keyStore = (KeyStore)m.getExchange().get(props.get(RSSEC_KEY_STORE_FILE));
         if (keyStore == null) {
-            keyStore = loadKeyStore(props, m.getExchange().getBus());
+            Bus bus = m.getExchange().getBus();
+            if (KeyStoreCache.isCached(props)) {
+                keyStore = KeyStoreCache.getInstance(bus).getKeyStore(props);
+            } else {
+                keyStore = loadKeyStore(props, bus);
+            }
             m.getExchange().put((String)props.get(RSSEC_KEY_STORE_FILE), keyStore);
         }
         return keyStore;
@@ -282,6 +303,11 @@ public final class KeyManagementUtils {
         validateCertificateChain(ks, inCerts);
     }
     public static void validateCertificateChain(KeyStore ks, List<X509Certificate> inCerts) {
+        ValidatedChain validated = VALIDATED_CHAINS.get(inCerts);
+        if (validated != null && validated.keyStore == ks 
+            && validated.expires > System.currentTimeMillis()) {
+            return;
+        }
         // Initial chain validation, to be enhanced as needed
         try {
             X509CertSelector certSelect = new X509CertSelector();
@@ -298,6 +324,13 @@ public final class KeyManagementUtils {
             LOG.warning("Certificate path validation error");
             throw new JoseException(ex);
         }
+        // The revocation is not checked, so the chain stays valid for the same trust store
+        // until a certificate expires
+        long expires = Long.MAX_VALUE;
+        for (X509Certificate cert : inCerts) {
+            expires = Math.min(expires, cert.getNotAfter().getTime());
+        }
+        VALIDATED_CHAINS.put(new ArrayList<X509Certificate>(inCerts), new ValidatedChain(ks, expires));
     }
     public static X509Certificate[] toX509CertificateChainArray(List<String> base64EncodedChain) {
         List<X509Certificate> chain = toX509CertificateChain(base64EncodedChain);
@@ -386,4 +419,14 @@ public final class KeyManagementUtils {
             throw new JoseException(ex);
         }
     }
+    
+    private static class ValidatedChain {
+        private final KeyStore keyStore;
+        private final long expires;
+        
+        ValidatedChain(KeyStore keyStore, long expires) {
+            this.keyStore = keyStore;
+            this.expires = expires;
+        }
+    }
 }
@@ -0,0 +1,295 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.jose.jaxrs;
+
+import java.lang.ref.WeakReference;
+import java.security.KeyStore;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.Base64UrlUtility;
+import org.apache.cxf.common.util.PropertyUtils;
+import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.rs.security.jose.jwe.JweDecryptionProvider;
+import org.apache.cxf.rs.security.jose.jwk.JsonWebKey;
+import org.apache.cxf.rs.security.jose.jwk.JsonWebKeys;
+import org.apache.cxf.rs.security.jose.jwk.JwkReaderWriter;
+import org.apache.cxf.rs.security.jose.jwk.JwkUtils;
+import org.apache.cxf.rs.security.jose.jwk.KeyOperation;
+
+/**
+ * Bus wide cache of the key stores and JWK sets loaded from a file or URL, so that they are
+ * not loaded and parsed again on every request. The cached stores are reloaded in the background
+ * at a fixed interval, while the requests keep on using the previously loaded ones, which are
+ * also kept if the reload fails. The cached JWK sets are indexed by key id and key operation.
+ * Only the stores whose properties set "rs.security.keystore.cache" to true are cached.
+ * The reload thread of the bus is stopped when the bus is shut down.
+ */
+public final class KeyStoreCache {
+    public static final long DEFAULT_REFRESH_INTERVAL = 60L;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(KeyStoreCache.class);
+
+    private final Bus bus;
+    private final ConcurrentMap<String, Source<?>> sources = new ConcurrentHashMap<String, Source<?>>();
+    private final byte[] salt = new byte[16];
+    private volatile boolean shutdown;
+    private ScheduledExecutorService refresher;
+
+    private KeyStoreCache(Bus bus) {
+        this.bus = bus;
+        new SecureRandom().nextBytes(salt);
+        BusLifeCycleManager manager = bus.getExtension(BusLifeCycleManager.class);
+        if (manager != null) {
+            manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                public void initComplete() {
+                }
+                public void preShutdown() {
+                    shutdown();
+                }
+                public void postShutdown() {
+                }
+            });
+        }
+    }
+
+    public static KeyStoreCache getInstance(Bus bus) {
+        synchronized (bus) {
+            KeyStoreCache cache = (KeyStoreCache)bus.getProperty(KeyStoreCache.class.getName());
+            if (cache == null) {
+                cache = new KeyStoreCache(bus);
+                bus.setProperty(KeyStoreCache.class.getName(), cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * Return whether the store configured by the properties is to be cached, which is only
+     * the case if the "rs.security.keystore.cache" property is set to true.
+     */
+    public static boolean isCached(Properties props) {
+        return props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_FILE) != null
+            && PropertyUtils.isTrue(props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_CACHE));
+    }
+
+    public KeyStore getKeyStore(final Properties props) {
+        // a store loaded with a password is only returned to the callers with the same password
+        String id = "keystore:" + props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_FILE)
+            + ":" + props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_TYPE)
+            + ":" + digest(props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_PSWD));
+        return getSource(id, props, new Source<KeyStore>() {
+            KeyStore load() {
+                return KeyManagementUtils.loadKeyStore(props, bus);
+            }
+        });
+    }
+
+    public JsonWebKeys getJwkSet(final Properties props, final JwkReaderWriter reader) {
+        String id = "jwk:" + props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_FILE)
+            + ":" + reader.getClass().getName() + ":" + props.getProperty(JwkUtils.RSSEC_KEY_STORE_JWKKEY);
+        return getSource(id, props, new Source<JsonWebKeys>() {
+            JsonWebKeys load() {
+                JsonWebKeys jwkSet = JwkUtils.loadJwkSet(props, bus, (JweDecryptionProvider)null, reader);
+                return new IndexedJsonWebKeys(jwkSet.getKeys());
+            }
+        });
+    }
+
+    private <T> T getSource(String id, Properties props, Source<T> newSource) {
+        @SuppressWarnings("unchecked")
+        Source<T> source = (Source<T>)sources.get(id);
+        if (source == null) {
+            // the first load is the only one done by a request
+            newSource.location = props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_FILE);
+            newSource.value = newSource.load();
+            @SuppressWarnings("unchecked")
+            Source<T> existing = (Source<T>)sources.putIfAbsent(id, newSource);
+            if (existing != null) {
+                return existing.value;
+            }
+            source = newSource;
+            long interval = getRefreshInterval(props);
+            if (interval > 0) {
+                schedule(source, interval);
+            }
+        }
+        return source.value;
+    }
+
+    /**
+     * Reloads all of the cached stores now, unless the bus has been shut down.
+     */
+    void refresh() {
+        if (!shutdown) {
+            for (Source<?> source : sources.values()) {
+                source.reload();
+            }
+        }
+    }
+
+    /**
+     * Return whether the thread reloading the stores of this cache is running.
+     */
+    synchronized boolean isRefreshing() {
+        return refresher != null && !refresher.isShutdown();
+    }
+
+    /**
+     * Stops the reloads of the cached stores, the stores are still returned afterwards.
+     */
+    synchronized void shutdown() {
+        shutdown = true;
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    private String digest(String password) {
+        if (password == null) {
+            return null;
+        }
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            md.update(salt);
+            return Base64UrlUtility.encode(md.digest(StringUtils.toBytesUTF8(password)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static long getRefreshInterval(Properties props) {
+        String interval = props.getProperty(KeyManagementUtils.RSSEC_KEY_STORE_REFRESH_INTERVAL);
+        return interval == null ? DEFAULT_REFRESH_INTERVAL : Long.parseLong(interval);
+    }
+
+    private synchronized <T> void schedule(Source<T> source, long interval) {
+        if (shutdown) {
+            return;
+        }
+        if (refresher == null) {
+            refresher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "jose-keystore-refresh");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        // the task does not keep the source from being garbage collected with the bus
+        final WeakReference<Source<T>> ref = new WeakReference<Source<T>>(source);
+        final ScheduledFuture<?>[] future = new ScheduledFuture<?>[1];
+        Runnable task = new Runnable() {
+            public void run() {
+                Source<T> theSource = ref.get();
+                if (theSource == null) {
+                    synchronized (future) {
+                        future[0].cancel(false);
+                    }
+                    return;
+                }
+                theSource.reload();
+            }
+        };
+        synchronized (future) {
+            future[0] = refresher.scheduleWithFixedDelay(task, interval, interval, TimeUnit.SECONDS);
+        }
+    }
+
+    private abstract static class Source<T> {
+        volatile T value;
+        String location;
+
+        abstract T load();
+
+        void reload() {
+            try {
+                value = load();
+            } catch (Exception ex) {
+                LOG.log(Level.WARNING, "Key store " + location + " can not be reloaded", ex);
+            }
+        }
+    }
+
+    /**
+     * JWK set whose key id and key operation maps are only computed once.
+     */
+    private static class IndexedJsonWebKeys extends JsonWebKeys {
+        private volatile Map<String, JsonWebKey> keyIdMap;
+        private volatile Map<KeyOperation, List<JsonWebKey>> keyOperationMap;
+
+        IndexedJsonWebKeys(List<JsonWebKey> keys) {
+            setKeys(keys == null ? null : new ArrayList<JsonWebKey>(keys));
+        }
+
+        @Override
+        public void setKeys(List<JsonWebKey> keys) {
+            super.setKeys(keys);
+            keyIdMap = null;
+            keyOperationMap = null;
+        }
+
+        @Override
+        public Map<String, JsonWebKey> getKeyIdMap() {
+            Map<String, JsonWebKey> map = keyIdMap;
+            if (map == null) {
+                map = Collections.unmodifiableMap(new LinkedHashMap<String, JsonWebKey>(super.getKeyIdMap()));
+                keyIdMap = map;
+            }
+            return map;
+        }
+
+        @Override
+        public Map<KeyOperation, List<JsonWebKey>> getKeyOperationMap() {
+            Map<KeyOperation, List<JsonWebKey>> map = keyOperationMap;
+            if (map == null) {
+                map = new LinkedHashMap<KeyOperation, List<JsonWebKey>>();
+                Map<KeyOperation, List<JsonWebKey>> keyOperationLists = super.getKeyOperationMap();
+                for (Map.Entry<KeyOperation, List<JsonWebKey>> entry : keyOperationLists.entrySet()) {
+                    map.put(entry.getKey(),
+                            Collections.unmodifiableList(new LinkedList<JsonWebKey>(entry.getValue())));
+                }
+                map = Collections.unmodifiableMap(map);
+                keyOperationMap = map;
+            }
+            return map;
+        }
+    }
+}
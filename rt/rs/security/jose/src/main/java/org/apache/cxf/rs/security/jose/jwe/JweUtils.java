@@ -50,6 +50,7 @@ import org.apache.cxf.rs.security.jose.jwk.JsonWebKey;
 import org.apache.cxf.rs.security.jose.jwk.JwkUtils;
 import org.apache.cxf.rs.security.jose.jwk.KeyOperation;
 import org.apache.cxf.rs.security.jose.jwk.KeyType;
+import org.apache.cxf.rt.security.crypto.CryptoInstancePool;
 import org.apache.cxf.rt.security.crypto.MessageDigestUtils;
 
 public final class JweUtils {
@@ -504,10 +505,12 @@ public final class JweUtils {
     }
     private static byte[] generateKeyZ(ECPrivateKey privateKey, ECPublicKey publicKey) {
         try {
-            KeyAgreement ka = KeyAgreement.getInstance("ECDH");
+            KeyAgreement ka = CryptoInstancePool.getKeyAgreement("ECDH", privateKey);
             ka.init(privateKey);
             ka.doPhase(publicKey, true);
-            return ka.generateSecret();
+            byte[] secret = ka.generateSecret();
+            CryptoInstancePool.releaseKeyAgreement("ECDH", privateKey, ka);
+            return secret;
         } catch (Exception ex) {
             LOG.warning("Derived key calculation problem");
             throw new JweException(JweException.Error.KEY_ENCRYPTION_FAILURE);
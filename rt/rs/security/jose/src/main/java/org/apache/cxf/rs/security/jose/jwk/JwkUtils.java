@@ -47,6 +47,7 @@ import org.apache.cxf.rs.security.jose.JoseConstants;
 import org.apache.cxf.rs.security.jose.JoseHeaders;
 import org.apache.cxf.rs.security.jose.JoseUtils;
 import org.apache.cxf.rs.security.jose.jaxrs.KeyManagementUtils;
+import org.apache.cxf.rs.security.jose.jaxrs.KeyStoreCache;
 import org.apache.cxf.rs.security.jose.jaxrs.PrivateKeyPasswordProvider;
 import org.apache.cxf.rs.security.jose.jwa.AlgorithmUtils;
 import org.apache.cxf.rs.security.jose.jwa.ContentAlgorithm;
@@ -215,7 +216,13 @@ public final class JwkUtils {
         String key = (String)props.get(KeyManagementUtils.RSSEC_KEY_STORE_FILE);
         JsonWebKeys jwkSet = key != null ? (JsonWebKeys)m.getExchange().get(key) : null;
         if (jwkSet == null) {
-            jwkSet = loadJwkSet(props, m.getExchange().getBus(), cb, reader);
+            Bus bus = m.getExchange().getBus();
+            // the sets decrypted with a password provider may depend on the current principal
+            if (cb == null && KeyStoreCache.isCached(props)) {
+                jwkSet = KeyStoreCache.getInstance(bus).getJwkSet(props, reader);
+            } else {
+                jwkSet = loadJwkSet(props, bus, cb, reader);
+            }
             if (key != null) {
                 m.getExchange().put(key, jwkSet);
             }
@@ -18,6 +18,7 @@
  */
 package org.apache.cxf.rs.security.jose.jws;
 
+import java.security.GeneralSecurityException;
 import java.security.PrivateKey;
 import java.security.SecureRandom;
 import java.security.Signature;
@@ -27,6 +28,7 @@ import java.security.spec.AlgorithmParameterSpec;
 import org.apache.cxf.rs.security.jose.JoseHeaders;
 import org.apache.cxf.rs.security.jose.jwa.AlgorithmUtils;
 import org.apache.cxf.rs.security.jose.jwa.SignatureAlgorithm;
+import org.apache.cxf.rt.security.crypto.CryptoInstancePool;
 import org.apache.cxf.rt.security.crypto.CryptoUtils;
 
 public class PrivateKeyJwsSignatureProvider extends AbstractJwsSignatureProvider {
@@ -48,8 +50,17 @@ public class PrivateKeyJwsSignatureProvider extends AbstractJwsSignatureProvider
         this.signatureSpec = spec;
     }
     protected JwsSignature doCreateJwsSignature(JoseHeaders headers) {
+        String javaAlgo = AlgorithmUtils.toJavaName(headers.getAlgorithm());
+        if (random == null && signatureSpec == null) {
+            try {
+                Signature s = CryptoInstancePool.getSigner(javaAlgo, key);
+                return new PooledJwsSignature(doCreateJwsSignature(s), s, javaAlgo, key);
+            } catch (GeneralSecurityException ex) {
+                throw new SecurityException(ex);
+            }
+        }
         final Signature s = CryptoUtils.getSignature(key, 
-                                                     AlgorithmUtils.toJavaName(headers.getAlgorithm()),
+                                                     javaAlgo,
                                                      random,
                                                      signatureSpec);
         return doCreateJwsSignature(s);
@@ -88,4 +99,31 @@ public class PrivateKeyJwsSignatureProvider extends AbstractJwsSignatureProvider
         
     }
     
+    /**
+     * Returns the pooled Signature once the signature has been computed
+     */
+    private static class PooledJwsSignature implements JwsSignature {
+        private final JwsSignature sig;
+        private final Signature s;
+        private final String algo;
+        private final PrivateKey key;
+        PooledJwsSignature(JwsSignature sig, Signature s, String algo, PrivateKey key) {
+            this.sig = sig;
+            this.s = s;
+            this.algo = algo;
+            this.key = key;
+        }
+        @Override
+        public void update(byte[] src, int off, int len) {
+            sig.update(src, off, len);
+        }
+
+        @Override
+        public byte[] sign() {
+            byte[] signature = sig.sign();
+            CryptoInstancePool.releaseSigner(algo, key, s);
+            return signature;
+        }
+    }
+    
 }
@@ -0,0 +1,150 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.jose.jaxrs;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.security.KeyStore;
+import java.util.Properties;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.rs.security.jose.JoseException;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class KeyStoreCacheTest extends Assert {
+    private static final String PASSWORD = "password";
+
+    private Bus bus;
+    private File file;
+
+    @Before
+    public void setUp() throws Exception {
+        bus = new ExtensionManagerBus();
+        file = File.createTempFile("keystore", ".jks");
+        writeKeyStore(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        bus.shutdown(true);
+        file.delete();
+    }
+
+    @Test
+    public void testCachedKeyStore() throws Exception {
+        KeyStoreCache cache = KeyStoreCache.getInstance(bus);
+        assertSame(cache, KeyStoreCache.getInstance(bus));
+        KeyStore keyStore = cache.getKeyStore(getProperties(file, PASSWORD, "0"));
+        assertSame(keyStore, cache.getKeyStore(getProperties(file, PASSWORD, "0")));
+
+        File file2 = File.createTempFile("keystore", ".jks");
+        try {
+            writeKeyStore(file2);
+            KeyStore keyStore2 = cache.getKeyStore(getProperties(file2, PASSWORD, "0"));
+            assertNotSame(keyStore, keyStore2);
+        } finally {
+            file2.delete();
+        }
+    }
+
+    @Test
+    public void testWrongPasswordNotCached() throws Exception {
+        KeyStoreCache cache = KeyStoreCache.getInstance(bus);
+        cache.getKeyStore(getProperties(file, PASSWORD, "0"));
+        try {
+            cache.getKeyStore(getProperties(file, "wrong", "0"));
+            fail("Key store loaded with a wrong password");
+        } catch (JoseException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testCacheIsOptIn() throws Exception {
+        Properties props = getProperties(file, PASSWORD, "0");
+        assertFalse(KeyStoreCache.isCached(props));
+        props.setProperty(KeyManagementUtils.RSSEC_KEY_STORE_CACHE, "true");
+        assertTrue(KeyStoreCache.isCached(props));
+    }
+
+    @Test
+    public void testRefresh() throws Exception {
+        KeyStoreCache cache = KeyStoreCache.getInstance(bus);
+        Properties props = getProperties(file, PASSWORD, "0");
+        KeyStore keyStore = cache.getKeyStore(props);
+        writeKeyStore(file);
+        cache.refresh();
+        assertNotSame(keyStore, cache.getKeyStore(props));
+    }
+
+    @Test
+    public void testFailedRefreshKeepsKeyStore() throws Exception {
+        KeyStoreCache cache = KeyStoreCache.getInstance(bus);
+        Properties props = getProperties(file, PASSWORD, "0");
+        KeyStore keyStore = cache.getKeyStore(props);
+        OutputStream os = new FileOutputStream(file);
+        try {
+            os.write("not a key store".getBytes("UTF-8"));
+        } finally {
+            os.close();
+        }
+        cache.refresh();
+        assertSame(keyStore, cache.getKeyStore(props));
+    }
+
+    @Test
+    public void testNoRefreshAfterShutdown() throws Exception {
+        KeyStoreCache cache = KeyStoreCache.getInstance(bus);
+        Properties props = getProperties(file, PASSWORD, "60");
+        KeyStore keyStore = cache.getKeyStore(props);
+        assertTrue(cache.isRefreshing());
+        bus.shutdown(true);
+        // the reload thread is stopped with the bus
+        assertFalse(cache.isRefreshing());
+        writeKeyStore(file);
+        cache.refresh();
+        assertSame(keyStore, cache.getKeyStore(props));
+    }
+
+    private static Properties getProperties(File file, String password, String refreshInterval) {
+        Properties props = new Properties();
+        props.setProperty(KeyManagementUtils.RSSEC_KEY_STORE_FILE, file.getAbsolutePath());
+        props.setProperty(KeyManagementUtils.RSSEC_KEY_STORE_TYPE, "JKS");
+        props.setProperty(KeyManagementUtils.RSSEC_KEY_STORE_PSWD, password);
+        props.setProperty(KeyManagementUtils.RSSEC_KEY_STORE_REFRESH_INTERVAL, refreshInterval);
+        return props;
+    }
+
+    private static void writeKeyStore(File file) throws Exception {
+        KeyStore keyStore = KeyStore.getInstance("JKS");
+        keyStore.load(null, null);
+        OutputStream os = new FileOutputStream(file);
+        try {
+            keyStore.store(os, PASSWORD.toCharArray());
+        } finally {
+            os.close();
+        }
+    }
+}
@@ -21,18 +21,26 @@ package org.apache.cxf.rs.security.oauth2.provider;
 import java.util.Collections;
 import java.util.List;
 
+import org.apache.cxf.rs.security.jose.jws.JwsSignatureProvider;
+import org.apache.cxf.rs.security.jose.jws.JwsUtils;
 import org.apache.cxf.rs.security.oauth2.common.AccessTokenRegistration;
 import org.apache.cxf.rs.security.oauth2.common.Client;
 import org.apache.cxf.rs.security.oauth2.common.OAuthPermission;
 import org.apache.cxf.rs.security.oauth2.common.ServerAccessToken;
 import org.apache.cxf.rs.security.oauth2.common.UserSubject;
 import org.apache.cxf.rs.security.oauth2.tokens.bearer.BearerAccessToken;
+import org.apache.cxf.rs.security.oauth2.tokens.jwt.JwtAccessTokenUtils;
+import org.apache.cxf.rs.security.oauth2.tokens.jwt.TokenRevocationFilter;
 import org.apache.cxf.rs.security.oauth2.tokens.refresh.RefreshToken;
 import org.apache.cxf.rs.security.oauth2.utils.OAuthConstants;
 
 public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
     private long accessTokenLifetime = 3600L;
     private long refreshTokenLifetime = -1;
+    private boolean useJwtFormatForAccessTokens;
+    private JwsSignatureProvider jwsSignatureProvider;
+    private String issuer;
+    private TokenRevocationFilter revocationFilter;
     
     protected AbstractOAuthDataProvider() {
     }
@@ -43,9 +51,14 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
         return doCreateAccessToken(accessToken);
     }
     
+    /**
+     * Revoke the given access token and add it to the revocation filter, if any.
+     * The subclasses overriding this method must call it.
+     */
     @Override
     public void removeAccessToken(ServerAccessToken token) throws OAuthServiceException {
         revokeAccessToken(token.getTokenKey());
+        addRevokedAccessToken(token.getTokenKey());
     }
     
     @Override
@@ -59,6 +72,7 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
     @Override
     public void revokeToken(Client client, String tokenKey, String tokenTypeHint) throws OAuthServiceException {
         if (revokeAccessToken(tokenKey)) {
+            addRevokedAccessToken(tokenKey);
             return;
         }
         revokeRefreshAndAccessTokens(client, tokenKey);
@@ -68,6 +82,7 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
         if (oldRefreshToken != null) {
             for (String accessTokenKey : oldRefreshToken.getAccessTokens()) {
                 revokeAccessToken(accessTokenKey);
+                addRevokedAccessToken(accessTokenKey);
             }
         }
         return oldRefreshToken;
@@ -100,6 +115,9 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
             convertScopeToPermissions(accessToken.getClient(), theScopes);
         at.setScopes(thePermissions);
         at.setSubject(accessToken.getSubject());
+        if (isUseJwtFormatForAccessTokens()) {
+            at = createJwtAccessToken(at);
+        }
         saveAccessToken(at);
         if (isRefreshTokenSupported(theScopes)) {
             createNewRefreshToken(at);
@@ -115,6 +133,23 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
         return new BearerAccessToken(client, accessTokenLifetime);
     }
      
+    /**
+     * Replace the key of the given token with the signed JWT of its claims, which the 
+     * resource servers can validate with JwtAccessTokenValidator.
+     */
+    protected ServerAccessToken createJwtAccessToken(ServerAccessToken at) {
+        JwsSignatureProvider theSigProvider = jwsSignatureProvider != null 
+            ? jwsSignatureProvider : JwsUtils.loadSignatureProvider(true);
+        String jwt = JwtAccessTokenUtils.signAccessTokenClaims(at, issuer, theSigProvider);
+        return new BearerAccessToken(at, jwt);
+    }
+    
+    protected void addRevokedAccessToken(String accessTokenKey) {
+        if (revocationFilter != null) {
+            revocationFilter.add(accessTokenKey);
+        }
+    }
+     
     protected RefreshToken createNewRefreshToken(ServerAccessToken at) {
         RefreshToken rt = new RefreshToken(at.getClient(), refreshTokenLifetime);
         rt.setAudience(at.getAudience());
@@ -144,6 +179,9 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
                 throw new OAuthServiceException("Invalid scopes");
             }
         }
+        if (isUseJwtFormatForAccessTokens()) {
+            at = createJwtAccessToken(at);
+        }
         saveAccessToken(at);
         createNewRefreshToken(at);
         return at;
@@ -157,6 +195,38 @@ public abstract class AbstractOAuthDataProvider implements OAuthDataProvider {
         this.refreshTokenLifetime = refreshTokenLifetime;
     }
     
+    public boolean isUseJwtFormatForAccessTokens() {
+        return useJwtFormatForAccessTokens;
+    }
+    
+    /**
+     * Issue the access tokens as signed JWTs, with the signature properties of the
+     * current message unless a signature provider is set.
+     */
+    public void setUseJwtFormatForAccessTokens(boolean useJwtFormatForAccessTokens) {
+        this.useJwtFormatForAccessTokens = useJwtFormatForAccessTokens;
+    }
+
+    public void setJwsSignatureProvider(JwsSignatureProvider jwsSignatureProvider) {
+        this.jwsSignatureProvider = jwsSignatureProvider;
+    }
+
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    /**
+     * Set the filter the revoked access tokens are added to, which is to be shared with
+     * the resource servers validating the JWT access tokens.
+     */
+    public void setRevocationFilter(TokenRevocationFilter revocationFilter) {
+        this.revocationFilter = revocationFilter;
+    }
+
+    public TokenRevocationFilter getRevocationFilter() {
+        return revocationFilter;
+    }
+    
     protected abstract void saveAccessToken(ServerAccessToken serverToken);
     protected abstract void saveRefreshToken(ServerAccessToken at, RefreshToken refreshToken);
     protected abstract boolean revokeAccessToken(String accessTokenKey);
@@ -102,11 +102,6 @@ public class DefaultEHCacheOAuthDataProvider extends AbstractOAuthDataProvider
         return getCacheValue(accessTokenCache, accessToken, ServerAccessToken.class);
     }
 
-    @Override
-    public void removeAccessToken(ServerAccessToken accessToken) throws OAuthServiceException {
-        revokeAccessToken(accessToken.getTokenKey());
-    }
-
     protected boolean revokeAccessToken(String accessTokenKey) {
         return accessTokenCache.remove(accessTokenKey);
     }
@@ -80,9 +80,13 @@ public class DefaultEncryptingOAuthDataProvider extends AbstractOAuthDataProvide
         return ModelEncryptionSupport.decryptAccessToken(this, accessToken, key);
     }
 
+    /**
+     * The JWT access tokens are not supported, as the key of a saved token is replaced
+     * with the encrypted token, so the useJwtFormatForAccessTokens property is ignored.
+     */
     @Override
-    public void removeAccessToken(ServerAccessToken accessToken) throws OAuthServiceException {
-        revokeAccessToken(accessToken.getTokenKey());
+    public boolean isUseJwtFormatForAccessTokens() {
+        return false;
     }
 
     @Override
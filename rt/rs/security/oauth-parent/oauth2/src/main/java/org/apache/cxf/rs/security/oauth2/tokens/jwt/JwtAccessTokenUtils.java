@@ -20,6 +20,8 @@ package org.apache.cxf.rs.security.oauth2.tokens.jwt;
 
 import java.security.interfaces.RSAPrivateKey;
 import java.security.interfaces.RSAPublicKey;
+import java.util.LinkedList;
+import java.util.List;
 
 import javax.crypto.SecretKey;
 
@@ -30,6 +32,7 @@ import org.apache.cxf.rs.security.jose.jwe.JweDecryption;
 import org.apache.cxf.rs.security.jose.jwe.JweDecryptionProvider;
 import org.apache.cxf.rs.security.jose.jwe.JweEncryptionProvider;
 import org.apache.cxf.rs.security.jose.jwe.JweUtils;
+import org.apache.cxf.rs.security.jose.jws.JwsHeaders;
 import org.apache.cxf.rs.security.jose.jws.JwsJwtCompactConsumer;
 import org.apache.cxf.rs.security.jose.jws.JwsJwtCompactProducer;
 import org.apache.cxf.rs.security.jose.jws.JwsSignatureProvider;
@@ -39,11 +42,18 @@ import org.apache.cxf.rs.security.jose.jws.NoneJwsSignatureProvider;
 import org.apache.cxf.rs.security.jose.jwt.JwtClaims;
 import org.apache.cxf.rs.security.jose.jwt.JwtToken;
 import org.apache.cxf.rs.security.jose.jwt.JwtUtils;
+import org.apache.cxf.rs.security.oauth2.common.AccessTokenValidation;
 import org.apache.cxf.rs.security.oauth2.common.Client;
+import org.apache.cxf.rs.security.oauth2.common.OAuthPermission;
 import org.apache.cxf.rs.security.oauth2.common.ServerAccessToken;
+import org.apache.cxf.rs.security.oauth2.common.UserSubject;
 import org.apache.cxf.rs.security.oauth2.tokens.bearer.BearerAccessToken;
+import org.apache.cxf.rs.security.oauth2.utils.OAuthConstants;
+import org.apache.cxf.rs.security.oauth2.utils.OAuthUtils;
 
 public final class JwtAccessTokenUtils {
+    public static final String USERNAME_CLAIM = "username";
+    
     private JwtAccessTokenUtils() {
         
     }
@@ -109,6 +119,62 @@ public final class JwtAccessTokenUtils {
             throw new SecurityException();
         }
     }
+    /**
+     * Sign the claims of the given access token, so that the resulting JWT can be used
+     * as the self-contained key of the access token and validated without the data provider.
+     */
+    public static String signAccessTokenClaims(ServerAccessToken at, 
+                                               String issuer,
+                                               JwsSignatureProvider jws) {
+        JwtClaims claims = new JwtClaims();
+        claims.setTokenId(at.getTokenKey());
+        if (issuer != null) {
+            claims.setIssuer(issuer);
+        }
+        claims.setSubject(at.getClient().getClientId());
+        if (at.getAudience() != null) {
+            claims.setAudience(at.getAudience());
+        }
+        claims.setIssuedAt(at.getIssuedAt());
+        if (at.getExpiresIn() != -1) {
+            claims.setExpiryTime(at.getIssuedAt() + at.getExpiresIn());
+        }
+        if (at.getGrantType() != null) {
+            claims.setClaim(OAuthConstants.GRANT_TYPE, at.getGrantType());
+        }
+        if (!at.getScopes().isEmpty()) {
+            claims.setClaim(OAuthConstants.SCOPE, OAuthUtils.convertPermissionsToScope(at.getScopes()));
+        }
+        if (at.getSubject() != null) {
+            claims.setClaim(USERNAME_CLAIM, at.getSubject().getLogin());
+        }
+        return new JwsJwtCompactProducer(new JwsHeaders(jws.getAlgorithm()), claims).signWith(jws);
+    }
+    /**
+     * Convert the claims of a verified self-contained access token.
+     */
+    public static AccessTokenValidation toAccessTokenValidation(String tokenKey, JwtClaims claims) {
+        AccessTokenValidation atv = new AccessTokenValidation();
+        atv.setTokenKey(tokenKey);
+        atv.setTokenType(OAuthConstants.BEARER_TOKEN_TYPE);
+        atv.setClientId(claims.getSubject());
+        atv.setAudience(claims.getAudience());
+        Long issuedAt = claims.getIssuedAt();
+        Long expiryTime = claims.getExpiryTime();
+        atv.setTokenIssuedAt(issuedAt != null ? issuedAt : OAuthUtils.getIssuedAt());
+        atv.setTokenLifetime(expiryTime != null ? expiryTime - atv.getTokenIssuedAt() : -1);
+        atv.setTokenGrantType((String)claims.getClaim(OAuthConstants.GRANT_TYPE));
+        List<OAuthPermission> perms = new LinkedList<OAuthPermission>();
+        for (String scope : OAuthUtils.parseScope((String)claims.getClaim(OAuthConstants.SCOPE))) {
+            perms.add(new OAuthPermission(scope, null));
+        }
+        atv.setTokenScopes(perms);
+        String username = (String)claims.getClaim(USERNAME_CLAIM);
+        if (username != null) {
+            atv.setTokenSubject(new UserSubject(username));
+        }
+        return atv;
+    }
     public static void validateJwtClaims(JwtClaims claims, Client c) {
         validateJwtSubjectAndAudience(claims, c);
         JwtUtils.validateJwtTimeClaims(claims);
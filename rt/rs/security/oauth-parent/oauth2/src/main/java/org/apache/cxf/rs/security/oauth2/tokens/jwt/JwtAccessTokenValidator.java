@@ -0,0 +1,119 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.oauth2.tokens.jwt;
+
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.apache.cxf.jaxrs.ext.MessageContext;
+import org.apache.cxf.rs.security.jose.jwt.AbstractJoseJwtConsumer;
+import org.apache.cxf.rs.security.jose.jwt.JwtClaims;
+import org.apache.cxf.rs.security.jose.jwt.JwtToken;
+import org.apache.cxf.rs.security.jose.jwt.JwtUtils;
+import org.apache.cxf.rs.security.oauth2.common.AccessTokenValidation;
+import org.apache.cxf.rs.security.oauth2.provider.AccessTokenValidator;
+import org.apache.cxf.rs.security.oauth2.provider.OAuthDataProvider;
+import org.apache.cxf.rs.security.oauth2.provider.OAuthServiceException;
+import org.apache.cxf.rs.security.oauth2.utils.OAuthConstants;
+
+/**
+ * Validates the signed JWT access tokens issued by the data providers with the
+ * JWT format enabled, without a call to the authorization server or its store.
+ * The signature verification keys are loaded from the "rs.security.signature.properties",
+ * unless a verifier is set.
+ *
+ * The revoked tokens are detected with an optional revocation filter. Only the tokens
+ * matched by the filter are looked up with the data provider, if one is set, to rule out
+ * a false positive; otherwise they are rejected.
+ */
+public class JwtAccessTokenValidator extends AbstractJoseJwtConsumer implements AccessTokenValidator {
+    private OAuthDataProvider dataProvider;
+    private TokenRevocationFilter revocationFilter;
+    private String issuer;
+    private String audience;
+    private int clockOffset;
+
+    @Override
+    public List<String> getSupportedAuthorizationSchemes() {
+        return Collections.singletonList(OAuthConstants.BEARER_AUTHORIZATION_SCHEME);
+    }
+
+    @Override
+    public AccessTokenValidation validateAccessToken(MessageContext mc,
+                                                     String authScheme,
+                                                     String authSchemeData,
+                                                     MultivaluedMap<String, String> extraProps)
+        throws OAuthServiceException {
+        JwtClaims claims = null;
+        try {
+            JwtToken token = super.getJwtToken(authSchemeData, false);
+            claims = token.getClaims();
+            JwtUtils.validateJwtTimeClaims(claims, clockOffset, 0, false);
+        } catch (RuntimeException ex) {
+            throw new OAuthServiceException(ex);
+        }
+        if (issuer != null && !issuer.equals(claims.getIssuer())) {
+            throw new OAuthServiceException("Invalid issuer");
+        }
+        if (audience != null && !audience.equals(claims.getAudience())) {
+            throw new OAuthServiceException("Invalid audience");
+        }
+        if (isRevoked(authSchemeData)) {
+            throw new OAuthServiceException("Revoked token");
+        }
+        return JwtAccessTokenUtils.toAccessTokenValidation(authSchemeData, claims);
+    }
+
+    protected boolean isRevoked(String tokenKey) {
+        return revocationFilter != null && revocationFilter.mightContain(tokenKey)
+            && (dataProvider == null || dataProvider.getAccessToken(tokenKey) == null);
+    }
+
+    public void setDataProvider(OAuthDataProvider dataProvider) {
+        this.dataProvider = dataProvider;
+    }
+
+    public void setRevocationFilter(TokenRevocationFilter revocationFilter) {
+        this.revocationFilter = revocationFilter;
+    }
+
+    /**
+     * Set the issuer which the "iss" claim of the tokens must match.
+     */
+    public void setIssuer(String issuer) {
+        this.issuer = issuer;
+    }
+
+    /**
+     * Set the audience which the "aud" claim of the tokens must match, the tokens without
+     * an "aud" claim are rejected too.
+     */
+    public void setAudience(String audience) {
+        this.audience = audience;
+    }
+
+    /**
+     * Set the allowed clock skew in seconds for the "iat" claim.
+     */
+    public void setClockOffset(int clockOffset) {
+        this.clockOffset = clockOffset;
+    }
+}
@@ -0,0 +1,225 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.oauth2.tokens.jwt;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the revoked self-contained access tokens. A token which has been added is
+ * always reported as possibly revoked until it has expired, a token which has not been added
+ * is only reported so with the configured false positive rate, in which case the authorization
+ * store can be asked.
+ *
+ * The tokens are added to the current generation of the filter. A new generation is started
+ * once the current one is older than the maximum token lifetime, and a generation is dropped
+ * once it is older than twice the maximum token lifetime, as all of the tokens revoked while
+ * it was current have expired by then. So the filter only has to hold the tokens revoked
+ * during one token lifetime.
+ *
+ * The filter can be exported with toByteArray and loaded by the resource servers running in
+ * other processes.
+ */
+public class TokenRevocationFilter {
+    public static final int DEFAULT_EXPECTED_TOKENS = 100000;
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.001;
+    public static final long DEFAULT_MAX_TOKEN_LIFETIME = 3600L;
+
+    private final int numBits;
+    private final int numHashes;
+    private final long maxTokenLifetime;
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public TokenRevocationFilter() {
+        this(DEFAULT_EXPECTED_TOKENS, DEFAULT_FALSE_POSITIVE_RATE, DEFAULT_MAX_TOKEN_LIFETIME);
+    }
+
+    /**
+     * @param expectedTokens the number of the tokens expected to be revoked during the maximum
+     *        token lifetime
+     * @param falsePositiveRate the false positive rate of a generation with the expected tokens
+     * @param maxTokenLifetime the maximum lifetime in seconds of the access tokens
+     */
+    public TokenRevocationFilter(int expectedTokens, double falsePositiveRate, long maxTokenLifetime) {
+        if (expectedTokens <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1
+            || maxTokenLifetime <= 0) {
+            throw new IllegalArgumentException();
+        }
+        double ln2 = Math.log(2);
+        long m = (long)Math.ceil(-expectedTokens * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.numBits = (int)Math.min(Integer.MAX_VALUE - 63, Math.max(64, m));
+        this.numHashes = Math.max(1, (int)Math.round((double)numBits / expectedTokens * ln2));
+        this.maxTokenLifetime = maxTokenLifetime;
+        this.current = new Generation(getCurrentTime(), numBits);
+    }
+
+    /**
+     * Load a filter exported with toByteArray.
+     */
+    public TokenRevocationFilter(byte[] data) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        this.numHashes = buffer.getInt();
+        this.numBits = buffer.getInt();
+        this.maxTokenLifetime = buffer.getLong();
+        this.current = Generation.read(buffer, numBits);
+        if (buffer.get() != 0) {
+            this.previous = Generation.read(buffer, numBits);
+        }
+    }
+
+    public void add(String tokenKey) {
+        Generation generation = rotate(getCurrentTime());
+        long hash = hash(tokenKey);
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            generation.set(index(h1 + i * h2));
+        }
+    }
+
+    public boolean mightContain(String tokenKey) {
+        rotate(getCurrentTime());
+        long hash = hash(tokenKey);
+        Generation theCurrent = current;
+        Generation thePrevious = previous;
+        return mightContain(theCurrent, hash) || thePrevious != null && mightContain(thePrevious, hash);
+    }
+
+    public long getMaxTokenLifetime() {
+        return maxTokenLifetime;
+    }
+
+    public synchronized byte[] toByteArray() {
+        rotate(getCurrentTime());
+        int words = (numBits + 63) / 64;
+        ByteBuffer buffer = ByteBuffer.allocate(16 + 1 + 2 * (8 + words * 8));
+        buffer.putInt(numHashes);
+        buffer.putInt(numBits);
+        buffer.putLong(maxTokenLifetime);
+        current.write(buffer);
+        if (previous != null) {
+            buffer.put((byte)1);
+            previous.write(buffer);
+        } else {
+            buffer.put((byte)0);
+        }
+        byte[] data = new byte[buffer.position()];
+        System.arraycopy(buffer.array(), 0, data, 0, data.length);
+        return data;
+    }
+
+    /**
+     * Return the current generation, after having started a new one and dropped the expired
+     * one if the current generation is older than the maximum token lifetime.
+     */
+    private Generation rotate(long now) {
+        Generation theCurrent = current;
+        if (now - theCurrent.start < maxTokenLifetime) {
+            return theCurrent;
+        }
+        synchronized (this) {
+            theCurrent = current;
+            if (now - theCurrent.start >= 2 * maxTokenLifetime) {
+                // the tokens revoked while the current generation was started have expired too
+                previous = null;
+                current = new Generation(now, numBits);
+            } else if (now - theCurrent.start >= maxTokenLifetime) {
+                previous = theCurrent;
+                current = new Generation(theCurrent.start + maxTokenLifetime, numBits);
+            }
+            return current;
+        }
+    }
+
+    private boolean mightContain(Generation generation, long hash) {
+        int h1 = (int)hash;
+        int h2 = (int)(hash >>> 32);
+        for (int i = 1; i <= numHashes; i++) {
+            if (!generation.isSet(index(h1 + i * h2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % numBits;
+    }
+
+    /**
+     * Return the current time in seconds.
+     */
+    protected long getCurrentTime() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    private static long hash(String tokenKey) {
+        // 64-bit FNV-1a with the MurmurHash3 finalizer
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < tokenKey.length(); i++) {
+            h ^= tokenKey.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static final class Generation {
+        private final long start;
+        private final AtomicLongArray bits;
+
+        Generation(long start, int numBits) {
+            this.start = start;
+            this.bits = new AtomicLongArray((numBits + 63) / 64);
+        }
+
+        void set(int bit) {
+            long mask = 1L << bit;
+            int word = bit >>> 6;
+            long value = bits.get(word);
+            while ((value & mask) == 0 && !bits.compareAndSet(word, value, value | mask)) {
+                value = bits.get(word);
+            }
+        }
+
+        boolean isSet(int bit) {
+            return (bits.get(bit >>> 6) & (1L << bit)) != 0;
+        }
+
+        void write(ByteBuffer buffer) {
+            buffer.putLong(start);
+            for (int i = 0; i < bits.length(); i++) {
+                buffer.putLong(bits.get(i));
+            }
+        }
+
+        static Generation read(ByteBuffer buffer, int numBits) {
+            Generation generation = new Generation(buffer.getLong(), numBits);
+            for (int i = 0; i < generation.bits.length(); i++) {
+                generation.bits.set(i, buffer.getLong());
+            }
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.oauth2.tokens.jwt;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.cxf.rs.security.jose.jwa.AlgorithmUtils;
+import org.apache.cxf.rs.security.jose.jws.JwsUtils;
+import org.apache.cxf.rs.security.oauth2.common.AccessTokenRegistration;
+import org.apache.cxf.rs.security.oauth2.common.AccessTokenValidation;
+import org.apache.cxf.rs.security.oauth2.common.Client;
+import org.apache.cxf.rs.security.oauth2.common.OAuthPermission;
+import org.apache.cxf.rs.security.oauth2.common.ServerAccessToken;
+import org.apache.cxf.rs.security.oauth2.common.UserSubject;
+import org.apache.cxf.rs.security.oauth2.provider.AbstractOAuthDataProvider;
+import org.apache.cxf.rs.security.oauth2.provider.OAuthServiceException;
+import org.apache.cxf.rs.security.oauth2.tokens.refresh.RefreshToken;
+import org.apache.cxf.rs.security.oauth2.utils.OAuthConstants;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class JwtAccessTokenValidatorTest extends Assert {
+
+    private Client client = new Client("alice", "secret", true);
+    private TokenRevocationFilter filter = new TokenRevocationFilter();
+    private MemoryDataProvider dataProvider;
+    private JwtAccessTokenValidator validator;
+
+    @Before
+    public void setUp() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair keyPair = kpg.generateKeyPair();
+
+        dataProvider = new MemoryDataProvider();
+        dataProvider.setUseJwtFormatForAccessTokens(true);
+        dataProvider.setJwsSignatureProvider(
+            JwsUtils.getPrivateKeySignatureProvider(keyPair.getPrivate(), AlgorithmUtils.RS_SHA_256_ALGO));
+        dataProvider.setIssuer("https://server");
+        dataProvider.setRevocationFilter(filter);
+
+        validator = new JwtAccessTokenValidator();
+        validator.setJweVerifier(
+            JwsUtils.getPublicKeySignatureVerifier(keyPair.getPublic(), AlgorithmUtils.RS_SHA_256_ALGO));
+        validator.setIssuer("https://server");
+        validator.setRevocationFilter(filter);
+    }
+
+    @Test
+    public void testValidateAndRevoke() {
+        ServerAccessToken at = createAccessToken();
+
+        AccessTokenValidation atv = validate(at.getTokenKey());
+        assertEquals("alice", atv.getClientId());
+        assertEquals("bob", atv.getTokenSubject().getLogin());
+        assertEquals("client_credentials", atv.getTokenGrantType());
+        assertEquals(1, atv.getTokenScopes().size());
+        assertEquals("read", atv.getTokenScopes().get(0).getPermission());
+        assertEquals(at.getExpiresIn(), atv.getTokenLifetime());
+
+        dataProvider.revokeToken(client, at.getTokenKey(), null);
+        try {
+            validate(at.getTokenKey());
+            fail("Revoked token has been accepted");
+        } catch (OAuthServiceException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRemovedTokenWithDataProvider() {
+        validator.setDataProvider(dataProvider);
+        ServerAccessToken at = createAccessToken();
+        ServerAccessToken other = createAccessToken();
+
+        dataProvider.removeAccessToken(at);
+        try {
+            validate(at.getTokenKey());
+            fail("Removed token has been accepted");
+        } catch (OAuthServiceException ex) {
+            // expected
+        }
+        assertEquals("alice", validate(other.getTokenKey()).getClientId());
+    }
+
+    @Test
+    public void testInvalidIssuer() {
+        ServerAccessToken at = createAccessToken();
+        validator.setIssuer("https://other");
+        try {
+            validate(at.getTokenKey());
+            fail("Token of another issuer has been accepted");
+        } catch (OAuthServiceException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testAudience() {
+        validator.setAudience("https://resource");
+        ServerAccessToken at = createAccessToken("https://resource");
+        assertEquals("https://resource", validate(at.getTokenKey()).getAudience());
+    }
+
+    @Test
+    public void testInvalidAudience() {
+        validator.setAudience("https://resource");
+        ServerAccessToken at = createAccessToken("https://other");
+        try {
+            validate(at.getTokenKey());
+            fail("Token for another audience has been accepted");
+        } catch (OAuthServiceException ex) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testMissingAudience() {
+        validator.setAudience("https://resource");
+        ServerAccessToken at = createAccessToken();
+        try {
+            validate(at.getTokenKey());
+            fail("Token without an audience has been accepted");
+        } catch (OAuthServiceException ex) {
+            // expected
+        }
+    }
+
+    private ServerAccessToken createAccessToken() {
+        return createAccessToken(null);
+    }
+
+    private ServerAccessToken createAccessToken(String audience) {
+        AccessTokenRegistration reg = new AccessTokenRegistration();
+        reg.setClient(client);
+        reg.setAudience(audience);
+        reg.setGrantType("client_credentials");
+        reg.setApprovedScope(Collections.singletonList("read"));
+        reg.setSubject(new UserSubject("bob"));
+        return dataProvider.createAccessToken(reg);
+    }
+
+    private AccessTokenValidation validate(String tokenKey) {
+        return validator.validateAccessToken(null, OAuthConstants.BEARER_AUTHORIZATION_SCHEME, tokenKey, null);
+    }
+
+    private static class MemoryDataProvider extends AbstractOAuthDataProvider {
+        private Map<String, ServerAccessToken> accessTokens = new ConcurrentHashMap<String, ServerAccessToken>();
+
+        @Override
+        public Client getClient(String clientId) {
+            return null;
+        }
+
+        @Override
+        public ServerAccessToken getAccessToken(String accessToken) {
+            return accessTokens.get(accessToken);
+        }
+
+        @Override
+        public List<OAuthPermission> convertScopeToPermissions(Client c, List<String> requestedScope) {
+            List<OAuthPermission> perms = new LinkedList<OAuthPermission>();
+            for (String scope : requestedScope) {
+                perms.add(new OAuthPermission(scope, null));
+            }
+            return perms;
+        }
+
+        @Override
+        protected void saveAccessToken(ServerAccessToken serverToken) {
+            accessTokens.put(serverToken.getTokenKey(), serverToken);
+        }
+
+        @Override
+        protected void saveRefreshToken(ServerAccessToken at, RefreshToken refreshToken) {
+        }
+
+        @Override
+        protected boolean revokeAccessToken(String accessTokenKey) {
+            return accessTokens.remove(accessTokenKey) != null;
+        }
+
+        @Override
+        protected RefreshToken revokeRefreshToken(Client c, String refreshTokenKey) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.oauth2.tokens.jwt;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TokenRevocationFilterTest extends Assert {
+
+    @Test
+    public void testRevokedTokens() {
+        TokenRevocationFilter filter = new TokenRevocationFilter(1000, 0.01, 3600L);
+        for (int i = 0; i < 1000; i++) {
+            filter.add("revoked" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(filter.mightContain("revoked" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10000; i++) {
+            if (filter.mightContain("valid" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300);
+    }
+
+    @Test
+    public void testGenerations() {
+        TestRevocationFilter filter = new TestRevocationFilter(2L);
+        filter.add("revoked");
+        filter.time += 2L;
+        // a new generation has been started, but the token may not have expired yet
+        assertTrue(filter.mightContain("revoked"));
+        filter.add("revoked2");
+
+        filter.time += 1L;
+        assertTrue(filter.mightContain("revoked"));
+        filter.time += 1L;
+        // the generation of the first token has been dropped
+        assertFalse(filter.mightContain("revoked"));
+        assertTrue(filter.mightContain("revoked2"));
+
+        filter.time += 4L;
+        assertFalse(filter.mightContain("revoked"));
+        assertFalse(filter.mightContain("revoked2"));
+    }
+
+    @Test
+    public void testExportedFilter() {
+        TokenRevocationFilter filter = new TokenRevocationFilter(100, 0.001, 3600L);
+        filter.add("revoked");
+        TokenRevocationFilter loaded = new TokenRevocationFilter(filter.toByteArray());
+        assertTrue(loaded.mightContain("revoked"));
+        assertFalse(loaded.mightContain("valid"));
+    }
+
+    private static class TestRevocationFilter extends TokenRevocationFilter {
+        // not initialized, as the constructor of the filter reads it already
+        private long time;
+
+        TestRevocationFilter(long maxTokenLifetime) {
+            super(100, 0.001, maxTokenLifetime);
+        }
+
+        @Override
+        protected long getCurrentTime() {
+            return time;
+        }
+    }
+}
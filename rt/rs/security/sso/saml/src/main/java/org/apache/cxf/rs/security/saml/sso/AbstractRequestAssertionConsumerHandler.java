@@ -38,6 +38,7 @@ import javax.ws.rs.core.Response;
 
 import org.w3c.dom.Document;
 import org.apache.cxf.Bus;
+import org.apache.cxf.common.classloader.ClassLoaderUtils;
 import org.apache.cxf.common.i18n.BundleUtils;
 import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.common.util.Base64Exception;
@@ -87,12 +88,26 @@ public abstract class AbstractRequestAssertionConsumerHandler extends AbstractSS
     
     public TokenReplayCache<String> getReplayCache() {
         if (replayCache == null) {
-            Bus bus = (Bus)messageContext.getContextualProperty(Bus.class.getName());
-            replayCache = new EHCacheTokenReplayCache(bus);
+            if (isEhCacheInstalled()) {
+                Bus bus = (Bus)messageContext.getContextualProperty(Bus.class.getName());
+                replayCache = new EHCacheTokenReplayCache(bus);
+            } else {
+                replayCache = new BucketedTokenReplayCache();
+            }
         }
         return replayCache;
     }
     
+    private static boolean isEhCacheInstalled() {
+        try {
+            ClassLoaderUtils.loadClass("net.sf.ehcache.Ehcache", 
+                                       AbstractRequestAssertionConsumerHandler.class);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+    
     /**
      * Enforce that Assertions must be signed if the POST binding was used. The default is true.
      */
@@ -0,0 +1,84 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rs.security.saml.sso;
+
+import org.apache.cxf.rt.security.utils.BucketedReplayCache;
+
+/**
+ * An in-memory implementation of the TokenReplayCache interface, which does not need an EHCache
+ * instance. It only keeps a digest of each identifier, see BucketedReplayCache.
+ * The default TTL is 60 minutes and the max TTL is 12 hours.
+ */
+public class BucketedTokenReplayCache implements TokenReplayCache<String> {
+    
+    private final BucketedReplayCache cache = new BucketedReplayCache();
+    
+    /**
+     * Set a new (default) TTL value in seconds
+     * @param newTtl a new (default) TTL value in seconds
+     */
+    public void setTTL(long newTtl) {
+        cache.setTTL(newTtl);
+    }
+    
+    /**
+     * Get the (default) TTL value in seconds
+     * @return the (default) TTL value in seconds
+     */
+    public long getTTL() {
+        return cache.getTTL();
+    }
+    
+    /**
+     * Set the maximum number of cached identifiers
+     */
+    public void setMaxEntries(int maxEntries) {
+        cache.setMaxEntries(maxEntries);
+    }
+    
+    /**
+     * Add the given identifier to the cache. It will be cached for a default amount of time.
+     * @param id The identifier to be added
+     */
+    public void putId(String id) {
+        cache.add(id);
+    }
+    
+    /**
+     * Add the given identifier to the cache.
+     * @param id The identifier to be added
+     * @param timeToLive The length of time to cache the Identifier in seconds
+     */
+    public void putId(String id, long timeToLive) {
+        cache.add(id, timeToLive);
+    }
+    
+    /**
+     * Return the given identifier if it is contained in the cache, otherwise null.
+     * @param id The identifier to check
+     */
+    public String getId(String id) {
+        return cache.contains(id) ? id : null;
+    }
+
+    public void close() {
+        cache.clear();
+    }
+    
+}
@@ -21,7 +21,6 @@ package org.apache.cxf.rs.security.saml.sso;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.security.PrivateKey;
-import java.security.Signature;
 import java.security.cert.X509Certificate;
 import java.util.logging.Level;
 
@@ -37,6 +36,7 @@ import org.apache.cxf.jaxrs.utils.ExceptionUtils;
 import org.apache.cxf.jaxrs.utils.JAXRSUtils;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.rs.security.saml.DeflateEncoderDecoder;
+import org.apache.cxf.rt.security.crypto.CryptoUtils;
 import org.apache.wss4j.common.crypto.Crypto;
 import org.apache.wss4j.common.crypto.CryptoType;
 import org.apache.wss4j.common.ext.WSPasswordCallback;
@@ -147,16 +147,12 @@ public class SamlRedirectBindingFilter extends AbstractServiceProviderFilter {
         PrivateKey privateKey = crypto.getPrivateKey(signatureUser, password);
         
         // Sign the request
-        Signature signature = Signature.getInstance(jceSigAlgo);
-        signature.initSign(privateKey);
-       
         String requestToSign = 
             SSOConstants.SAML_REQUEST + "=" + authnRequest + "&"
             + SSOConstants.RELAY_STATE + "=" + relayState + "&"
             + SSOConstants.SIG_ALG + "=" + URLEncoder.encode(sigAlgo, "UTF-8");
 
-        signature.update(requestToSign.getBytes("UTF-8"));
-        byte[] signBytes = signature.sign();
+        byte[] signBytes = CryptoUtils.signData(requestToSign.getBytes("UTF-8"), privateKey, jceSigAlgo);
         
         String encodedSignature = Base64.encode(signBytes);
         
@@ -0,0 +1,265 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rt.security.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.Key;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.Provider;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyAgreement;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Bounded pool of the JCA Signature, Mac, Cipher and KeyAgreement instances keyed by
+ * algorithm and provider, which saves the provider lookup of getInstance on every operation.
+ * The provider is the one which has last been used with the same type of key.
+ *
+ * An initialized instance holds its key, so the instances initialized with a private or
+ * secret key are initialized again with a throwaway key of the same type when they are
+ * released, and are dropped if this fails. Only the verifiers keep their public key,
+ * they are only initialized again if the key differs.
+ *
+ * A borrowed instance is used by the calling thread for a single operation and released
+ * once the operation has succeeded. An instance whose operation has failed is in an unknown
+ * state and is simply not released. At most MAX_POOLED_INSTANCES instances of an algorithm
+ * and provider are kept, the others are dropped on release. Unlike a thread local cache,
+ * the pool is dropped together with this class, so it does not keep a redeployed
+ * application loaded.
+ */
+public final class CryptoInstancePool {
+    static final int MAX_POOLED_INSTANCES = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
+
+    private static final String SIGNER = "Signature/sign";
+    private static final String VERIFIER = "Signature/verify";
+    private static final String MAC = "Mac";
+    private static final String CIPHER = "Cipher";
+    private static final String KEY_AGREEMENT = "KeyAgreement";
+
+    private static final ConcurrentMap<String, BlockingQueue<Entry>> POOLS =
+        new ConcurrentHashMap<String, BlockingQueue<Entry>>();
+    private static final ConcurrentMap<String, String> PROVIDERS = new ConcurrentHashMap<String, String>();
+    private static final ConcurrentMap<String, Key> RESET_KEYS = new ConcurrentHashMap<String, Key>();
+
+    private CryptoInstancePool() {
+    }
+
+    public static Signature getSigner(String algo, PrivateKey key) throws GeneralSecurityException {
+        Entry entry = borrow(SIGNER, algo, key);
+        if (entry != null) {
+            Signature s = (Signature)entry.instance;
+            try {
+                s.initSign(key);
+                return s;
+            } catch (InvalidKeyException ex) {
+                // the key needs another provider
+            }
+        }
+        Signature s = Signature.getInstance(algo);
+        s.initSign(key);
+        return s;
+    }
+
+    public static void releaseSigner(String algo, PrivateKey key, Signature s) {
+        Provider provider = s.getProvider();
+        try {
+            s.initSign((PrivateKey)getResetKey(key));
+        } catch (GeneralSecurityException ex) {
+            return;
+        } catch (RuntimeException ex) {
+            return;
+        }
+        release(SIGNER, algo, key, provider, new Entry(s, null));
+    }
+
+    public static Signature getVerifier(String algo, PublicKey key) throws GeneralSecurityException {
+        Entry entry = borrow(VERIFIER, algo, key);
+        if (entry != null) {
+            Signature s = (Signature)entry.instance;
+            if (entry.key == key) {
+                return s;
+            }
+            try {
+                s.initVerify(key);
+                return s;
+            } catch (InvalidKeyException ex) {
+                // the key needs another provider
+            }
+        }
+        Signature s = Signature.getInstance(algo);
+        s.initVerify(key);
+        return s;
+    }
+
+    public static void releaseVerifier(String algo, PublicKey key, Signature s) {
+        release(VERIFIER, algo, key, s.getProvider(), new Entry(s, key));
+    }
+
+    public static Mac getMac(String algo, Key key) throws GeneralSecurityException {
+        Entry entry = borrow(MAC, algo, key);
+        if (entry != null) {
+            Mac mac = (Mac)entry.instance;
+            try {
+                mac.init(key);
+                return mac;
+            } catch (InvalidKeyException ex) {
+                // the key needs another provider
+            }
+        }
+        Mac mac = Mac.getInstance(algo);
+        mac.init(key);
+        return mac;
+    }
+
+    public static void releaseMac(String algo, Key key, Mac mac) {
+        Provider provider = mac.getProvider();
+        try {
+            mac.init(getResetKey(key));
+        } catch (GeneralSecurityException ex) {
+            return;
+        } catch (RuntimeException ex) {
+            return;
+        }
+        release(MAC, algo, key, provider, new Entry(mac, null));
+    }
+
+    /**
+     * Return a Cipher to be initialized by the caller with the given key.
+     */
+    public static Cipher getCipher(String algo, Key key) throws GeneralSecurityException {
+        Entry entry = borrow(CIPHER, algo, key);
+        return entry == null ? Cipher.getInstance(algo) : (Cipher)entry.instance;
+    }
+
+    public static void releaseCipher(String algo, Key key, Cipher c) {
+        Provider provider = c.getProvider();
+        if (!(key instanceof PublicKey)) {
+            try {
+                c.init(key instanceof PrivateKey ? Cipher.UNWRAP_MODE : Cipher.WRAP_MODE, getResetKey(key));
+            } catch (GeneralSecurityException ex) {
+                return;
+            } catch (RuntimeException ex) {
+                return;
+            }
+        }
+        release(CIPHER, algo, key, provider, new Entry(c, null));
+    }
+
+    /**
+     * Return a KeyAgreement to be initialized by the caller with the given private key.
+     */
+    public static KeyAgreement getKeyAgreement(String algo, PrivateKey key) throws GeneralSecurityException {
+        Entry entry = borrow(KEY_AGREEMENT, algo, key);
+        return entry == null ? KeyAgreement.getInstance(algo) : (KeyAgreement)entry.instance;
+    }
+
+    public static void releaseKeyAgreement(String algo, PrivateKey key, KeyAgreement ka) {
+        Provider provider = ka.getProvider();
+        try {
+            ka.init(getResetKey(key));
+        } catch (GeneralSecurityException ex) {
+            return;
+        } catch (RuntimeException ex) {
+            return;
+        }
+        release(KEY_AGREEMENT, algo, key, provider, new Entry(ka, null));
+    }
+
+    /**
+     * Drop all of the pooled instances.
+     */
+    public static void clear() {
+        POOLS.clear();
+        PROVIDERS.clear();
+    }
+
+    private static Entry borrow(String type, String algo, Key key) {
+        String provider = PROVIDERS.get(getProviderId(type, algo, key));
+        if (provider == null) {
+            return null;
+        }
+        BlockingQueue<Entry> pool = POOLS.get(type + "/" + algo + "/" + provider);
+        return pool == null ? null : pool.poll();
+    }
+
+    private static void release(String type, String algo, Key key, Provider provider, Entry entry) {
+        PROVIDERS.put(getProviderId(type, algo, key), provider.getName());
+        String id = type + "/" + algo + "/" + provider.getName();
+        BlockingQueue<Entry> pool = POOLS.get(id);
+        if (pool == null) {
+            BlockingQueue<Entry> newPool = new ArrayBlockingQueue<Entry>(MAX_POOLED_INSTANCES);
+            pool = POOLS.putIfAbsent(id, newPool);
+            if (pool == null) {
+                pool = newPool;
+            }
+        }
+        pool.offer(entry);
+    }
+
+    private static String getProviderId(String type, String algo, Key key) {
+        return type + "/" + algo + "/" + key.getClass().getName();
+    }
+
+    /**
+     * Returns a key of the same type as the given private or secret key, which the released
+     * instances are initialized with so that they do not keep the key reachable.
+     */
+    private static Key getResetKey(Key key) throws GeneralSecurityException {
+        byte[] encoded = key instanceof PrivateKey ? null : key.getEncoded();
+        if (!(key instanceof PrivateKey) && encoded == null) {
+            throw new InvalidKeyException("The key can not be replaced");
+        }
+        String id = key.getClass().getName() + "/" + key.getAlgorithm()
+            + (encoded == null ? "" : "/" + encoded.length);
+        Key resetKey = RESET_KEYS.get(id);
+        if (resetKey == null) {
+            if (key instanceof PrivateKey) {
+                resetKey = KeyPairGenerator.getInstance(key.getAlgorithm()).generateKeyPair().getPrivate();
+            } else {
+                resetKey = new SecretKeySpec(new byte[encoded.length], key.getAlgorithm());
+            }
+            Key existing = RESET_KEYS.putIfAbsent(id, resetKey);
+            if (existing != null) {
+                resetKey = existing;
+            }
+        }
+        return resetKey;
+    }
+
+    private static final class Entry {
+        private final Object instance;
+        // the public key a verifier has been initialized with
+        private final Key key;
+
+        Entry(Object instance, Key key) {
+            this.instance = instance;
+            this.key = key;
+        }
+    }
+}
@@ -306,6 +306,17 @@ public final class CryptoUtils {
     
     public static byte[] signData(byte[] data, PrivateKey key, String signAlgo, SecureRandom random,
                            AlgorithmParameterSpec params) {
+        if (random == null && params == null) {
+            try {
+                Signature s = CryptoInstancePool.getSigner(signAlgo, key);
+                s.update(data);
+                byte[] signature = s.sign();
+                CryptoInstancePool.releaseSigner(signAlgo, key, s);
+                return signature;
+            } catch (Exception ex) {
+                throw new SecurityException(ex);
+            }
+        }
         try {
             Signature s = getSignature(key, signAlgo, random, params);
             s.update(data);
@@ -339,12 +350,21 @@ public final class CryptoUtils {
     
     public static boolean verifySignature(byte[] data, byte[] signature, PublicKey key, String signAlgo, 
                                 AlgorithmParameterSpec params) {
+        if (params == null) {
+            try {
+                Signature s = CryptoInstancePool.getVerifier(signAlgo, key);
+                s.update(data);
+                boolean verified = s.verify(signature);
+                CryptoInstancePool.releaseVerifier(signAlgo, key, s);
+                return verified;
+            } catch (Exception ex) {
+                throw new SecurityException(ex);
+            }
+        }
         try {
             Signature s = Signature.getInstance(signAlgo);
             s.initVerify(key);
-            if (params != null) {
-                s.setParameter(params);
-            }
+            s.setParameter(params);
             s.update(data);
             return s.verify(signature);
         } catch (Exception ex) {
@@ -468,8 +488,11 @@ public final class CryptoUtils {
                                        Key wrapperKey,
                                        KeyProperties keyProps)  throws SecurityException {
         try {
-            Cipher c = initCipher(wrapperKey, keyProps, Cipher.WRAP_MODE);
-            return c.wrap(secretKey);
+            Cipher c = initCipher(getCachedCipher(wrapperKey, keyProps), wrapperKey, keyProps, 
+                                  Cipher.WRAP_MODE);
+            byte[] wrapped = c.wrap(secretKey);
+            releaseCachedCipher(c, wrapperKey, keyProps);
+            return wrapped;
         } catch (Exception ex) {
             throw new SecurityException(ex);
         }    
@@ -496,8 +519,11 @@ public final class CryptoUtils {
                                             KeyProperties keyProps,
                                             int wrappedKeyType)  throws SecurityException {
         try {
-            Cipher c = initCipher(unwrapperKey, keyProps, Cipher.UNWRAP_MODE);
-            return c.unwrap(wrappedBytes, wrappedKeyAlgo, wrappedKeyType);
+            Cipher c = initCipher(getCachedCipher(unwrapperKey, keyProps), unwrapperKey, keyProps, 
+                                  Cipher.UNWRAP_MODE);
+            Key key = c.unwrap(wrappedBytes, wrappedKeyAlgo, wrappedKeyType);
+            releaseCachedCipher(c, unwrapperKey, keyProps);
+            return key;
         } catch (Exception ex) {
             throw new SecurityException(ex);
         }    
@@ -545,9 +571,39 @@ public final class CryptoUtils {
     
     public static Cipher initCipher(Key secretKey, KeyProperties keyProps, int mode)  throws SecurityException {
         try {
-            String algorithm = keyProps != null && keyProps.getKeyAlgo() != null 
-                ? keyProps.getKeyAlgo() : secretKey.getAlgorithm();
-            Cipher c = Cipher.getInstance(algorithm);
+            return initCipher(Cipher.getInstance(getCipherAlgorithm(secretKey, keyProps)), 
+                              secretKey, keyProps, mode);
+        } catch (SecurityException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new SecurityException(ex);
+        }
+    }
+    
+    private static String getCipherAlgorithm(Key secretKey, KeyProperties keyProps) {
+        return keyProps != null && keyProps.getKeyAlgo() != null 
+            ? keyProps.getKeyAlgo() : secretKey.getAlgorithm();
+    }
+    
+    // The key wrapping ciphers are initialized on every use, so they can be pooled
+    // unless the parameters are specific to the operation (e.g. the GCM IV)
+    private static Cipher getCachedCipher(Key secretKey, KeyProperties keyProps) throws Exception {
+        String algorithm = getCipherAlgorithm(secretKey, keyProps);
+        if (keyProps != null && keyProps.getAlgoSpec() != null) {
+            return Cipher.getInstance(algorithm);
+        }
+        return CryptoInstancePool.getCipher(algorithm, secretKey);
+    }
+    
+    private static void releaseCachedCipher(Cipher c, Key secretKey, KeyProperties keyProps) {
+        if (keyProps == null || keyProps.getAlgoSpec() == null) {
+            CryptoInstancePool.releaseCipher(getCipherAlgorithm(secretKey, keyProps), secretKey, c);
+        }
+    }
+    
+    private static Cipher initCipher(Cipher c, Key secretKey, KeyProperties keyProps, int mode) 
+        throws SecurityException {
+        try {
             if (keyProps == null || keyProps.getAlgoSpec() == null && keyProps.getSecureRandom() == null) {
                 c.init(mode, secretKey);
             } else {
@@ -19,6 +19,7 @@
 package org.apache.cxf.rt.security.crypto;
 
 import java.io.UnsupportedEncodingException;
+import java.security.GeneralSecurityException;
 import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.Key;
@@ -72,8 +73,11 @@ public final class HmacUtils {
     }
     
     public static byte[] computeHmac(String key, String macAlgoJavaName, String data) {
-        Mac mac = getMac(macAlgoJavaName);
-        return computeHmac(key, mac, data);
+        try {
+            return computeHmac(key.getBytes("UTF-8"), macAlgoJavaName, data);
+        } catch (UnsupportedEncodingException e) {
+            throw new SecurityException(e);
+        }
     }
     
     public static byte[] computeHmac(byte[] key, String macAlgoJavaName, String data) {
@@ -81,6 +85,17 @@ public final class HmacUtils {
     }
     public static byte[] computeHmac(byte[] key, String macAlgoJavaName, AlgorithmParameterSpec spec, 
                                      String data) {
+        if (spec == null) {
+            try {
+                SecretKeySpec secretKey = new SecretKeySpec(key, macAlgoJavaName);
+                Mac mac = CryptoInstancePool.getMac(macAlgoJavaName, secretKey);
+                byte[] hmac = mac.doFinal(data.getBytes());
+                CryptoInstancePool.releaseMac(macAlgoJavaName, secretKey, mac);
+                return hmac;
+            } catch (GeneralSecurityException e) {
+                throw new SecurityException(e);
+            }
+        }
         Mac mac = getMac(macAlgoJavaName);
         return computeHmac(new SecretKeySpec(key, mac.getAlgorithm()), mac, spec, data);
     }
@@ -0,0 +1,250 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rt.security.utils;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.logging.Logger;
+
+import org.apache.cxf.common.logging.LogUtils;
+
+/**
+ * An in-memory replay cache of identifiers such as nonces, timestamps or token ids, which
+ * only keeps a 64-bit keyed digest of each identifier. A lookup is a single get on a
+ * concurrent index of the digests and their expiry slots. The digests are also listed in
+ * buckets of the expiry times, and a bucket is dropped as a whole once all of its entries
+ * have expired, removing its digests from the index, so there are no per-entry timers.
+ * An entry may be kept for up to one bucket duration longer than its time to live.
+ *
+ * The cache holds at most maxEntries digests. When it is full, the bucket expiring first
+ * is dropped early, which shortens the replay window rather than growing without bounds.
+ */
+public class BucketedReplayCache {
+    public static final long DEFAULT_TTL = 3600L;
+    public static final long MAX_TTL = DEFAULT_TTL * 12L;
+    public static final long DEFAULT_BUCKET_DURATION = 60L;
+    public static final int DEFAULT_MAX_ENTRIES = 1000000;
+
+    private static final Logger LOG = LogUtils.getL7dLogger(BucketedReplayCache.class);
+    private static final int INITIAL_BUCKET_CAPACITY = 64;
+
+    private final ConcurrentMap<Long, Long> index = new ConcurrentHashMap<Long, Long>();
+    private final ConcurrentNavigableMap<Long, Bucket> buckets = new ConcurrentSkipListMap<Long, Bucket>();
+    private final long seed = new SecureRandom().nextLong();
+    private long ttl = DEFAULT_TTL;
+    private long bucketDuration = DEFAULT_BUCKET_DURATION;
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    /**
+     * Add the given identifier to the cache. It will be cached for a default amount of time.
+     */
+    public void add(String id) {
+        add(id, ttl);
+    }
+
+    /**
+     * Add the given identifier to the cache, to be cached for the given time in seconds.
+     */
+    public void add(String id, long timeToLive) {
+        if (id == null || "".equals(id)) {
+            return;
+        }
+        if (timeToLive <= 0 || timeToLive > MAX_TTL) {
+            timeToLive = ttl;
+        }
+        long now = getCurrentTime();
+        purge(now);
+        Long slot = (now + timeToLive) / bucketDuration;
+        Long digest = digest(id);
+        if (!updateIndex(digest, slot, now / bucketDuration)) {
+            return;
+        }
+        while (true) {
+            Bucket bucket = buckets.get(slot);
+            if (bucket == null) {
+                Bucket newBucket = new Bucket();
+                bucket = buckets.putIfAbsent(slot, newBucket);
+                if (bucket == null) {
+                    bucket = newBucket;
+                }
+            }
+            if (bucket.add(digest)) {
+                break;
+            }
+            // the bucket has been dropped in the meantime
+        }
+        if (index.size() > maxEntries) {
+            evict(slot);
+        }
+    }
+
+    /**
+     * Return whether the given identifier is contained in the cache.
+     */
+    public boolean contains(String id) {
+        if (id == null || "".equals(id)) {
+            return false;
+        }
+        Long slot = index.get(digest(id));
+        return slot != null && slot >= getCurrentTime() / bucketDuration;
+    }
+
+    public void clear() {
+        buckets.clear();
+        index.clear();
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getTTL() {
+        return ttl;
+    }
+
+    /**
+     * Set a new (default) TTL value in seconds
+     */
+    public void setTTL(long ttl) {
+        this.ttl = ttl;
+    }
+
+    public long getBucketDuration() {
+        return bucketDuration;
+    }
+
+    /**
+     * Set the time span in seconds of the expiry times of the entries of a bucket.
+     */
+    public void setBucketDuration(long bucketDuration) {
+        if (bucketDuration <= 0) {
+            throw new IllegalArgumentException("Non-positive bucket duration.");
+        }
+        this.bucketDuration = bucketDuration;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Return the current time in seconds.
+     */
+    protected long getCurrentTime() {
+        return System.currentTimeMillis() / 1000L;
+    }
+
+    /**
+     * Record the expiry slot of the digest, return false if it was already present
+     * and expires no earlier.
+     */
+    private boolean updateIndex(Long digest, Long slot, long currentSlot) {
+        while (true) {
+            Long previous = index.putIfAbsent(digest, slot);
+            if (previous == null) {
+                return true;
+            }
+            if (previous >= slot && previous >= currentSlot) {
+                return false;
+            }
+            if (index.replace(digest, previous, slot)) {
+                return true;
+            }
+        }
+    }
+
+    private void purge(long now) {
+        // a bucket has expired once the end of its time span is over
+        Long slot = now / bucketDuration;
+        Map.Entry<Long, Bucket> first = buckets.firstEntry();
+        while (first != null && first.getKey() < slot) {
+            remove(first);
+            first = buckets.firstEntry();
+        }
+    }
+
+    private void evict(Long currentSlot) {
+        LOG.warning("Replay cache is full, the entries expiring first are dropped");
+        Map.Entry<Long, Bucket> first = buckets.firstEntry();
+        // the bucket of the new entry is kept
+        if (first != null && !first.getKey().equals(currentSlot)) {
+            remove(first);
+        }
+    }
+
+    private void remove(Map.Entry<Long, Bucket> entry) {
+        if (buckets.remove(entry.getKey(), entry.getValue())) {
+            // the digests which have been added again with a later expiry are kept
+            for (Long digest : entry.getValue().drop()) {
+                index.remove(digest, entry.getKey());
+            }
+        }
+    }
+
+    private long digest(String id) {
+        long h = seed;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * The digests expiring in the time span of a bucket
+     */
+    private static final class Bucket {
+        private List<Long> digests = new ArrayList<Long>(INITIAL_BUCKET_CAPACITY);
+        private boolean dropped;
+
+        /**
+         * Return false if the bucket has been dropped.
+         */
+        synchronized boolean add(Long digest) {
+            if (dropped) {
+                return false;
+            }
+            digests.add(digest);
+            return true;
+        }
+
+        synchronized List<Long> drop() {
+            dropped = true;
+            List<Long> result = digests;
+            digests = Collections.emptyList();
+            return result;
+        }
+    }
+}
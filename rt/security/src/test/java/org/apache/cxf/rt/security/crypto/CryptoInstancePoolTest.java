@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rt.security.crypto;
+
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CryptoInstancePoolTest extends Assert {
+
+    @After
+    public void tearDown() {
+        CryptoInstancePool.clear();
+    }
+
+    @Test
+    public void testSignature() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(1024);
+        KeyPair pair1 = kpg.generateKeyPair();
+        KeyPair pair2 = kpg.generateKeyPair();
+        byte[] data = "data".getBytes("UTF-8");
+
+        Signature signer = CryptoInstancePool.getSigner("SHA256withRSA", pair1.getPrivate());
+        CryptoInstancePool.releaseSigner("SHA256withRSA", pair1.getPrivate(), signer);
+        assertSame(signer, CryptoInstancePool.getSigner("SHA256withRSA", pair2.getPrivate()));
+        // not released, so a new instance is borrowed
+        assertNotSame(signer, CryptoInstancePool.getSigner("SHA256withRSA", pair2.getPrivate()));
+
+        byte[] signature1 = CryptoUtils.signData(data, pair1.getPrivate(), "SHA256withRSA");
+        byte[] signature2 = CryptoUtils.signData(data, pair2.getPrivate(), "SHA256withRSA");
+        for (int i = 0; i < 2; i++) {
+            assertTrue(CryptoUtils.verifySignature(data, signature1, pair1.getPublic(), "SHA256withRSA"));
+            assertFalse(CryptoUtils.verifySignature(data, signature1, pair2.getPublic(), "SHA256withRSA"));
+            assertTrue(CryptoUtils.verifySignature(data, signature2, pair2.getPublic(), "SHA256withRSA"));
+        }
+    }
+
+    @Test
+    public void testMac() throws Exception {
+        byte[] key1 = "key1".getBytes("UTF-8");
+        byte[] key2 = "key2".getBytes("UTF-8");
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(key2, "HmacSHA256"));
+        byte[] expected = mac.doFinal("data".getBytes());
+
+        HmacUtils.computeHmac(key1, "HmacSHA256", "data");
+        assertArrayEquals(expected, HmacUtils.computeHmac(key2, "HmacSHA256", "data"));
+        assertArrayEquals(expected, HmacUtils.computeHmac(key2, "HmacSHA256", "data"));
+    }
+
+    @Test
+    public void testPoolIsBounded() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(new byte[16], "AES");
+        Cipher[] ciphers = new Cipher[CryptoInstancePool.MAX_POOLED_INSTANCES + 1];
+        for (int i = 0; i < ciphers.length; i++) {
+            ciphers[i] = CryptoInstancePool.getCipher("AES", key);
+        }
+        for (Cipher c : ciphers) {
+            CryptoInstancePool.releaseCipher("AES", key, c);
+        }
+        Set<Cipher> pooled = Collections.newSetFromMap(new IdentityHashMap<Cipher, Boolean>());
+        for (int i = 0; i < ciphers.length; i++) {
+            pooled.add(CryptoInstancePool.getCipher("AES", key));
+        }
+        // the instance which did not fit into the pool has been dropped
+        assertTrue(pooled.contains(ciphers[0]));
+        assertFalse(pooled.contains(ciphers[ciphers.length - 1]));
+    }
+
+    @Test
+    public void testReleasedSignerDropsKey() throws Exception {
+        KeyPairGenerator kpg = KeyPairGenerator.getInstance("RSA");
+        kpg.initialize(2048);
+        KeyPair pair = kpg.generateKeyPair();
+        byte[] data = "data".getBytes("UTF-8");
+
+        Signature signer = CryptoInstancePool.getSigner("SHA256withRSA", pair.getPrivate());
+        signer.update(data);
+        assertTrue(CryptoUtils.verifySignature(data, signer.sign(), pair.getPublic(), "SHA256withRSA"));
+        CryptoInstancePool.releaseSigner("SHA256withRSA", pair.getPrivate(), signer);
+        // the pooled instance no longer signs with the private key
+        signer.update(data);
+        assertFalse(CryptoUtils.verifySignature(data, signer.sign(), pair.getPublic(), "SHA256withRSA"));
+    }
+
+    @Test
+    public void testReleasedCipherDropsKey() throws Exception {
+        SecretKeySpec key = new SecretKeySpec("0123456789abcdef".getBytes("UTF-8"), "AES");
+        SecretKeySpec wrapped = new SecretKeySpec("fedcba9876543210".getBytes("UTF-8"), "AES");
+
+        Cipher c = CryptoInstancePool.getCipher("AES", key);
+        c.init(Cipher.WRAP_MODE, key);
+        byte[] expected = c.wrap(wrapped);
+        CryptoInstancePool.releaseCipher("AES", key, c);
+        assertFalse(Arrays.equals(expected, c.wrap(wrapped)));
+        assertArrayEquals(expected, CryptoUtils.wrapSecretKey(wrapped, key, null));
+    }
+
+    @Test
+    public void testReleasedMacDropsKey() throws Exception {
+        SecretKeySpec key = new SecretKeySpec("key".getBytes("UTF-8"), "HmacSHA256");
+        Mac mac = CryptoInstancePool.getMac("HmacSHA256", key);
+        byte[] expected = mac.doFinal("data".getBytes());
+        CryptoInstancePool.releaseMac("HmacSHA256", key, mac);
+        assertFalse(Arrays.equals(expected, mac.doFinal("data".getBytes())));
+        assertSame(mac, CryptoInstancePool.getMac("HmacSHA256", key));
+        assertArrayEquals(expected, mac.doFinal("data".getBytes()));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.rt.security.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class BucketedReplayCacheTest extends Assert {
+
+    @Test
+    public void testAddAndContains() {
+        BucketedReplayCache cache = new BucketedReplayCache();
+        for (int i = 0; i < 10000; i++) {
+            cache.add("nonce" + i, 300L);
+        }
+        assertEquals(10000, cache.size());
+        for (int i = 0; i < 10000; i++) {
+            assertTrue(cache.contains("nonce" + i));
+        }
+        assertFalse(cache.contains("nonce10000"));
+        assertFalse(cache.contains(null));
+
+        cache.add("nonce0", 300L);
+        assertEquals(10000, cache.size());
+    }
+
+    @Test
+    public void testExpiry() {
+        TestReplayCache cache = new TestReplayCache();
+        cache.setBucketDuration(1L);
+        cache.add("nonce", 1L);
+        assertTrue(cache.contains("nonce"));
+
+        cache.time += 1L;
+        assertTrue(cache.contains("nonce"));
+        cache.time += 1L;
+        assertFalse(cache.contains("nonce"));
+
+        // the expired bucket is dropped on the next add
+        cache.add("other", 10L);
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testAddAgainExtendsExpiry() {
+        TestReplayCache cache = new TestReplayCache();
+        cache.setBucketDuration(1L);
+        cache.add("nonce", 2L);
+        cache.add("nonce", 10L);
+        // a shorter time to live does not shorten the expiry
+        cache.add("nonce", 1L);
+        assertEquals(1, cache.size());
+
+        cache.time += 5L;
+        cache.add("other", 10L);
+        assertTrue(cache.contains("nonce"));
+        assertEquals(2, cache.size());
+
+        cache.time += 6L;
+        assertFalse(cache.contains("nonce"));
+    }
+
+    @Test
+    public void testAddAgainAfterExpiry() {
+        TestReplayCache cache = new TestReplayCache();
+        cache.setBucketDuration(1L);
+        cache.add("nonce", 1L);
+        cache.time += 2L;
+        assertFalse(cache.contains("nonce"));
+
+        cache.add("nonce", 5L);
+        assertTrue(cache.contains("nonce"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testMaxEntries() {
+        TestReplayCache cache = new TestReplayCache();
+        cache.setBucketDuration(1L);
+        cache.setMaxEntries(100);
+        for (int i = 0; i < 100; i++) {
+            cache.add("old" + i, 10L);
+        }
+        cache.add("new", 100L);
+        // the bucket expiring first has been dropped
+        assertEquals(1, cache.size());
+        assertTrue(cache.contains("new"));
+        assertFalse(cache.contains("old0"));
+    }
+
+    private static class TestReplayCache extends BucketedReplayCache {
+        private long time = 1000000L;
+
+        @Override
+        protected long getCurrentTime() {
+            return time;
+        }
+    }
+}
@@ -26,6 +26,14 @@ import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -40,15 +48,22 @@ import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.BusFactory;
+import org.apache.cxf.binding.soap.Soap11;
 import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapHeader;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
 import org.apache.cxf.binding.soap.interceptor.AbstractSoapInterceptor;
 import org.apache.cxf.binding.soap.interceptor.SoapActionInInterceptor;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.jaxb.JAXBUtils;
 import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.common.util.PropertyUtils;
 import org.apache.cxf.common.util.StringUtils;
+import org.apache.cxf.endpoint.ClientImpl;
 import org.apache.cxf.headers.Header;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.helpers.DOMUtils;
@@ -56,8 +71,12 @@ import org.apache.cxf.interceptor.Interceptor;
 import org.apache.cxf.jaxb.JAXBDataBinding;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
+import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.Phase;
+import org.apache.cxf.transport.MessageObserver;
+import org.apache.cxf.workqueue.AutomaticWorkQueue;
+import org.apache.cxf.workqueue.WorkQueueManager;
 import org.apache.cxf.ws.addressing.AddressingProperties;
 import org.apache.cxf.ws.addressing.AttributedURIType;
 import org.apache.cxf.ws.addressing.ContextUtils;
@@ -83,6 +102,32 @@ public class MAPCodec extends AbstractSoapInterceptor {
     private static final String DECOUPLED_FAULT_SUPPORT = 
         "org.apache.cxf.ws.addressing.decoupled_fault_support";
     
+    /**
+     * Time in milliseconds after which an exchange still waiting for a decoupled
+     * response is no longer correlated, and is completed with a fault. Unset or 0 means
+     * the exchanges do not expire, unless MAX_UNCORRELATED_EXCHANGES is set.
+     */
+    public static final String CORRELATION_TIMEOUT =
+        "org.apache.cxf.ws.addressing.correlationTimeout";
+
+    /**
+     * Maximum number of exchanges waiting for a decoupled response. Once it is reached,
+     * new requests are rejected with a fault until the pending exchanges are correlated
+     * or expire. Unset or 0 means no limit. If it is set without CORRELATION_TIMEOUT,
+     * the exchanges expire after DEFAULT_CORRELATION_TIMEOUT.
+     */
+    public static final String MAX_UNCORRELATED_EXCHANGES =
+        "org.apache.cxf.ws.addressing.maxUncorrelatedExchanges";
+
+    /**
+     * The correlation timeout of the exchanges when only their maximum number is set,
+     * which is the default synchronous timeout of the client.
+     */
+    public static final long DEFAULT_CORRELATION_TIMEOUT = 60000L;
+
+    private static final String CORRELATION_EXPIRY = MAPCodec.class.getName() + ".correlationExpiry";
+    private static final String EXPIRY_TIMER = MAPCodec.class.getName() + ".expiryTimer";
+
     /**
      * REVISIT: map usage that the *same* interceptor instance 
      * is used in all chains.
@@ -90,6 +135,9 @@ public class MAPCodec extends AbstractSoapInterceptor {
     protected final Map<String, Exchange> uncorrelatedExchanges 
         = new ConcurrentHashMap<String, Exchange>();
 
+    private final AtomicLong expiredExchanges = new AtomicLong();
+    private final AtomicLong uncorrelatedResponses = new AtomicLong();
+
     private VersionTransformer transformer;
     private HeaderFactory headerFactory;
     
@@ -104,6 +152,21 @@ public class MAPCodec extends AbstractSoapInterceptor {
     public Map<String, Exchange> getUncorrelatedExchanges() {
         return uncorrelatedExchanges;
     }
+
+    /**
+     * @return the number of exchanges which expired before their response was correlated
+     */
+    public long getExpiredExchangeCount() {
+        return expiredExchanges.get();
+    }
+
+    /**
+     * @return the number of responses which could not be correlated, including
+     * the late responses to the expired exchanges
+     */
+    public long getUncorrelatedResponseCount() {
+        return uncorrelatedResponses.get();
+    }
     
     /**
      * @return the set of SOAP headers understood by this handler 
@@ -132,7 +195,7 @@ public class MAPCodec extends AbstractSoapInterceptor {
             if (ContextUtils.isRequestor(message)
                 && maps != null) {
                 //fault occurred trying to send the message, remove it
-                uncorrelatedExchanges.remove(maps.getMessageID().getValue());
+                removeExchange(maps.getMessageID().getValue());
             } else if (!ContextUtils.isRequestor(message) 
                 && maps == null
                 && !message.containsKey(MAPAggregator.class.getName())) {
@@ -801,9 +864,180 @@ public class MAPCodec extends AbstractSoapInterceptor {
      */
     private void cacheExchange(SoapMessage message, AddressingProperties maps) {
         if (ContextUtils.isRequestor(message) && !message.getExchange().isOneWay()) {
-            uncorrelatedExchanges.put(maps.getMessageID().getValue(),
-                                      message.getExchange());
+            Integer max = PropertyUtils.getInteger(message, MAX_UNCORRELATED_EXCHANGES);
+            Long timeout = PropertyUtils.getLong(message, CORRELATION_TIMEOUT);
+            if (max != null && max > 0) {
+                if (timeout == null || timeout <= 0) {
+                    // the exchanges whose response is lost must not fill up the store for good
+                    timeout = DEFAULT_CORRELATION_TIMEOUT;
+                }
+                if (uncorrelatedExchanges.size() >= max) {
+                    throw new SoapFault(new org.apache.cxf.common.i18n.Message(
+                                            "TOO_MANY_UNCORRELATED_EXCHANGES_MSG", LOG, max),
+                                        message.getVersion().getSender());
+                }
+            }
+            final String messageID = maps.getMessageID().getValue();
+            final Exchange exchange = message.getExchange();
+            uncorrelatedExchanges.put(messageID, exchange);
+            if (timeout != null && timeout > 0) {
+                try {
+                    ScheduledFuture<?> expiry = getExpiryTimer(exchange).schedule(new Runnable() {
+                        public void run() {
+                            expireExchange(messageID, exchange);
+                        }
+                    }, timeout, TimeUnit.MILLISECONDS);
+                    exchange.put(CORRELATION_EXPIRY, expiry);
+                } catch (RejectedExecutionException ex) {
+                    // the bus is shutting down
+                    LOG.fine("Correlation expiry of message " + messageID + " not scheduled");
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the exchange waiting for the response to the given message and cancels
+     * its expiry.
+     * 
+     * @param messageID the message ID
+     * @return the removed exchange, if any
+     */
+    private Exchange removeExchange(String messageID) {
+        Exchange exchange = uncorrelatedExchanges.remove(messageID);
+        if (exchange != null) {
+            ScheduledFuture<?> expiry = (ScheduledFuture<?>)exchange.remove(CORRELATION_EXPIRY);
+            if (expiry != null) {
+                expiry.cancel(false);
+            }
         }
+        return exchange;
+    }
+
+    /**
+     * Completes the exchange with a fault if it is still waiting for the response to
+     * the given message, so that the synchronous caller or the callback of the
+     * asynchronous invocation is notified right away.
+     * 
+     * @param messageID the message ID
+     * @param exchange the exchange
+     */
+    private void expireExchange(String messageID, final Exchange exchange) {
+        if (!uncorrelatedExchanges.remove(messageID, exchange)) {
+            return;
+        }
+        exchange.remove(CORRELATION_EXPIRY);
+        expiredExchanges.incrementAndGet();
+        if (LOG.isLoggable(Level.FINE)) {
+            LOG.fine("Correlation of the exchange for message " + messageID + " expired");
+        }
+        Message outMessage = exchange.getOutMessage();
+        SoapVersion version = outMessage instanceof SoapMessage
+            ? ((SoapMessage)outMessage).getVersion() : Soap11.getInstance();
+        SoapFault fault = new SoapFault(new org.apache.cxf.common.i18n.Message(
+                                            "CORRELATION_TIMEOUT_MSG", LOG, messageID),
+                                        version.getReceiver());
+        final Message faultMessage = new MessageImpl();
+        faultMessage.setExchange(exchange);
+        faultMessage.put(Message.INBOUND_MESSAGE, Boolean.TRUE);
+        faultMessage.setContent(Exception.class, fault);
+        // the callback of an asynchronous invocation is not run on the shared timer thread
+        Runnable notification = new Runnable() {
+            public void run() {
+                notifyExpiry(exchange, faultMessage);
+            }
+        };
+        try {
+            getExecutor(exchange).execute(notification);
+        } catch (RejectedExecutionException ex) {
+            notification.run();
+        }
+    }
+
+    /**
+     * Completes the expired exchange with the given fault.
+     * 
+     * @param exchange the exchange
+     * @param faultMessage the fault message
+     */
+    private static void notifyExpiry(Exchange exchange, Message faultMessage) {
+        Exception fault = faultMessage.getContent(Exception.class);
+        exchange.setInFaultMessage(faultMessage);
+        Message outMessage = exchange.getOutMessage();
+        if (outMessage != null && outMessage.getInterceptorChain() != null) {
+            // notifies the callback of an asynchronous invocation, like a failed transport
+            MessageObserver mo = outMessage.getInterceptorChain().getFaultObserver();
+            if (mo != null) {
+                outMessage.setContent(Exception.class, fault);
+                mo.onMessage(outMessage);
+            }
+        }
+        synchronized (exchange) {
+            exchange.put(ClientImpl.FINISHED, Boolean.TRUE);
+            exchange.notifyAll();
+        }
+    }
+
+    private static Bus getBus(Exchange exchange) {
+        Bus bus = exchange.getBus();
+        return bus != null ? bus : BusFactory.getThreadDefaultBus();
+    }
+
+    /**
+     * Returns the executor of the exchange, or the default work queue of the bus.
+     */
+    private static Executor getExecutor(Exchange exchange) {
+        Executor executor = exchange.get(Executor.class);
+        if (executor == null) {
+            WorkQueueManager manager = getBus(exchange).getExtension(WorkQueueManager.class);
+            AutomaticWorkQueue queue = manager != null ? manager.getAutomaticWorkQueue() : null;
+            if (queue == null) {
+                throw new RejectedExecutionException();
+            }
+            executor = queue;
+        }
+        return executor;
+    }
+
+    /**
+     * Returns the timer of the bus of the exchange, which is shut down with the bus.
+     */
+    private static ScheduledExecutorService getExpiryTimer(Exchange exchange) {
+        Bus bus = getBus(exchange);
+        synchronized (bus) {
+            ScheduledExecutorService timer = (ScheduledExecutorService)bus.getProperty(EXPIRY_TIMER);
+            if (timer == null) {
+                final ScheduledThreadPoolExecutor newTimer = createExpiryTimer();
+                BusLifeCycleManager manager = bus.getExtension(BusLifeCycleManager.class);
+                if (manager != null) {
+                    manager.registerLifeCycleListener(new BusLifeCycleListener() {
+                        public void initComplete() {
+                        }
+                        public void preShutdown() {
+                        }
+                        public void postShutdown() {
+                            newTimer.shutdownNow();
+                        }
+                    });
+                }
+                bus.setProperty(EXPIRY_TIMER, newTimer);
+                timer = newTimer;
+            }
+            return timer;
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor createExpiryTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "ws-addressing-correlation-expiry");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        // the correlated exchanges are not kept until their timeout
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
     }
     
     /**
@@ -817,13 +1051,13 @@ public class MAPCodec extends AbstractSoapInterceptor {
             && maps.getRelatesTo() != null
             && !Names.WSA_UNSPECIFIED_RELATIONSHIP.equals(maps.getRelatesTo().getValue())
             && isRelationshipReply(maps.getRelatesTo())) { 
-            Exchange correlatedExchange =
-                uncorrelatedExchanges.remove(maps.getRelatesTo().getValue());
+            Exchange correlatedExchange = removeExchange(maps.getRelatesTo().getValue());
             if (correlatedExchange != null) {
                 synchronized (correlatedExchange) {
                     message.setExchange(correlatedExchange);
                 }
             } else if (ContextUtils.isRequestor(message) && !message.getExchange().isOneWay()) {
+                uncorrelatedResponses.incrementAndGet();
                 if (ContextUtils.retrieveDeferUncorrelatedMessageAbort(message)) {
                     LOG.fine("deferring uncorrelated message abort");
                     ContextUtils.storeDeferredUncorrelatedMessageAbort(message);
@@ -847,7 +1081,7 @@ public class MAPCodec extends AbstractSoapInterceptor {
             if (maps != null) {
                 Exchange ex = uncorrelatedExchanges.get(maps.getMessageID().getValue());
                 if (ex == message.getExchange()) {
-                    uncorrelatedExchanges.remove(maps.getMessageID().getValue());
+                    removeExchange(maps.getMessageID().getValue());
                     LOG.log(Level.WARNING, "RESPONSE_NOT_USING_WSADDRESSING");
                 }
             }
@@ -24,6 +24,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBElement;
@@ -32,10 +36,13 @@ import javax.xml.namespace.QName;
 
 import org.w3c.dom.Element;
 
+import org.apache.cxf.Bus;
 import org.apache.cxf.binding.soap.SoapBindingConstants;
 import org.apache.cxf.binding.soap.SoapFault;
 import org.apache.cxf.binding.soap.SoapMessage;
 import org.apache.cxf.binding.soap.SoapVersion;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.endpoint.ClientImpl;
 import org.apache.cxf.headers.Header;
 import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.ExchangeImpl;
@@ -75,6 +82,7 @@ public class MAPCodecTest extends Assert {
     private boolean expectRelatesTo;
     private String nonReplyRelationship;
     private boolean expectFaultTo;
+    private Bus bus;
     
     @Before
     public void setUp() {
@@ -91,6 +99,10 @@ public class MAPCodecTest extends Assert {
         correlatedExchange = null;
         ContextUtils.setJAXBContext(null);
         nonReplyRelationship = null;
+        if (bus != null) {
+            bus.shutdown(true);
+            bus = null;
+        }
     }
 
     @Test
@@ -270,6 +282,86 @@ public class MAPCodecTest extends Assert {
         verifyMessage(message, true, false, false);
     }
 
+    @Test
+    public void testRequestorOutboundCorrelationExpiry() throws Exception {
+        SoapMessage message = setUpMessage(true, true);
+        message.put(MAPCodec.CORRELATION_TIMEOUT, "1");
+        Exchange exchange = message.getExchange();
+        exchange.put(Bus.class, getBus());
+        final CountDownLatch notified = new CountDownLatch(1);
+        // the timer hands the notification of the expiry over to the executor of the exchange
+        exchange.put(Executor.class, new Executor() {
+            public void execute(Runnable command) {
+                command.run();
+                notified.countDown();
+            }
+        });
+        codec.handleMessage(message);
+        assertTrue(notified.await(5, TimeUnit.SECONDS));
+        assertEquals(Boolean.TRUE, exchange.get(ClientImpl.FINISHED));
+        assertEquals(1, codec.getExpiredExchangeCount());
+        assertEquals(0, codec.getUncorrelatedExchanges().size());
+        assertTrue(exchange.getInFaultMessage().getContent(Exception.class) instanceof SoapFault);
+    }
+
+    @Test
+    public void testRequestorOutboundFaultCancelsExpiry() throws Exception {
+        SoapMessage message = setUpMessage(true, true);
+        message.put(MAPCodec.CORRELATION_TIMEOUT, 60000L);
+        message.put(MAPCodec.MAX_UNCORRELATED_EXCHANGES, 10);
+        message.getExchange().put(Bus.class, getBus());
+        codec.handleMessage(message);
+        assertEquals(1, codec.getUncorrelatedExchanges().size());
+        ScheduledThreadPoolExecutor timer = getExpiryTimer();
+        assertEquals(1, timer.getQueue().size());
+
+        codec.handleFault(message);
+        assertEquals(0, codec.getUncorrelatedExchanges().size());
+        // the cancelled expiry has been removed from the timer
+        assertEquals(0, timer.getQueue().size());
+        assertEquals(0, codec.getExpiredExchangeCount());
+        assertNull(message.getExchange().getInFaultMessage());
+        assertNull(message.getExchange().get(ClientImpl.FINISHED));
+    }
+
+    @Test
+    public void testExpiryTimerShutdownWithBus() throws Exception {
+        SoapMessage message = setUpMessage(true, true);
+        message.put(MAPCodec.CORRELATION_TIMEOUT, 60000L);
+        message.getExchange().put(Bus.class, getBus());
+        codec.handleMessage(message);
+        ScheduledThreadPoolExecutor timer = getExpiryTimer();
+        assertFalse(timer.isShutdown());
+
+        bus.shutdown(true);
+        bus = null;
+        assertTrue(timer.isShutdown());
+    }
+
+    @Test
+    public void testRequestorOutboundTooManyUncorrelatedExchanges() throws Exception {
+        codec.getUncorrelatedExchanges().put("urn:uuid:pending", new ExchangeImpl());
+        SoapMessage message = setUpMessage(true, true);
+        message.put(MAPCodec.MAX_UNCORRELATED_EXCHANGES, 1);
+        try {
+            codec.handleMessage(message);
+            fail("Expected SoapFault");
+        } catch (SoapFault ex) {
+            assertEquals(1, codec.getUncorrelatedExchanges().size());
+        }
+    }
+
+    private Bus getBus() {
+        if (bus == null) {
+            bus = new ExtensionManagerBus();
+        }
+        return bus;
+    }
+
+    private ScheduledThreadPoolExecutor getExpiryTimer() {
+        return (ScheduledThreadPoolExecutor)bus.getProperty(MAPCodec.class.getName() + ".expiryTimer");
+    }
+
     private SoapMessage setUpMessage(boolean requestor, boolean outbound) throws Exception {
         return setUpMessage(requestor, outbound, false);
     }
@@ -56,6 +56,11 @@ public class AssertionInfoMap extends HashMap<QName, Collection<AssertionInfo>>
         }
     }
 
+    AssertionInfoMap(AssertionInfoMapTemplate template) {
+        super(template.getCapacity());
+        template.populate(this);
+    }
+
     private void putAssertionInfo(Assertion a) {
         if (a instanceof PolicyContainingAssertion) {
             Policy p = ((PolicyContainingAssertion)a).getPolicy();
@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.cxf.ws.policy;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import javax.xml.namespace.QName;
+
+import org.apache.neethi.Assertion;
+import org.apache.neethi.Policy;
+
+/**
+ * Immutable layout of the {@link AssertionInfoMap} created for a given policy
+ * or collection of assertions. The nested policies are expanded and the duplicate
+ * assertions are eliminated only once when the template is created, the maps created
+ * from the template only need to allocate the per-message {@link AssertionInfo} state.
+ */
+public final class AssertionInfoMapTemplate {
+    private final Object source;
+    private final QName[] names;
+    private final Assertion[][] assertions;
+    private final int capacity;
+
+    public AssertionInfoMapTemplate(Policy policy) {
+        this(policy, new AssertionInfoMap(policy));
+    }
+
+    public AssertionInfoMapTemplate(Collection<? extends Assertion> assertions) {
+        this(assertions, new AssertionInfoMap(assertions));
+    }
+
+    private AssertionInfoMapTemplate(Object source, AssertionInfoMap map) {
+        this.source = source;
+        names = new QName[map.size()];
+        assertions = new Assertion[map.size()][];
+        int slot = 0;
+        for (Map.Entry<QName, Collection<AssertionInfo>> entry : map.entrySet()) {
+            names[slot] = entry.getKey();
+            Collection<AssertionInfo> ais = entry.getValue();
+            assertions[slot] = new Assertion[ais.size()];
+            int i = 0;
+            for (AssertionInfo ai : ais) {
+                assertions[slot][i++] = ai.getAssertion();
+            }
+            slot++;
+        }
+        capacity = (int)(names.length / 0.75f) + 1;
+    }
+
+    /**
+     * Checks if this template has been created from the given policy or assertions
+     */
+    public boolean isCreatedFrom(Object policyOrAssertions) {
+        return source == policyOrAssertions;
+    }
+
+    public AssertionInfoMap createAssertionInfoMap() {
+        return new AssertionInfoMap(this);
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    void populate(AssertionInfoMap map) {
+        for (int slot = 0; slot < names.length; slot++) {
+            Assertion[] slotAssertions = assertions[slot];
+            List<AssertionInfo> ais = new ArrayList<AssertionInfo>(slotAssertions.length);
+            for (Assertion a : slotAssertions) {
+                ais.add(new AssertionInfo(a));
+            }
+            map.put(names[slot], ais);
+        }
+    }
+}
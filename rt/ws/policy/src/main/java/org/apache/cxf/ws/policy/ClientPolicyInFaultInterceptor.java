@@ -78,6 +78,7 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
         List<Interceptor<? extends Message>> faultInterceptors = 
             new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        EndpointPolicy vocabularyPolicy = null;
         
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -100,6 +101,7 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
             if (ep != null) {
                 faultInterceptors.addAll(ep.getFaultInterceptors(msg));
                 assertions.addAll(ep.getFaultVocabulary(msg));
+                vocabularyPolicy = ep;
             }
         }
         
@@ -112,7 +114,10 @@ public class ClientPolicyInFaultInterceptor extends AbstractPolicyInterceptor {
         
         // insert assertions of endpoint's fault vocabulary into message        
         if (!assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            msg.put(AssertionInfoMap.class, vocabularyPolicy instanceof EndpointPolicyImpl
+                ? ((EndpointPolicyImpl)vocabularyPolicy).getFaultVocabularyTemplate(msg)
+                    .createAssertionInfoMap()
+                : new AssertionInfoMap(assertions));
         }
     }
 }
@@ -57,6 +57,9 @@ public class EffectivePolicyImpl implements EffectivePolicy {
     protected Collection<Assertion> chosenAlternative;
     protected List<Interceptor<? extends org.apache.cxf.message.Message>> interceptors;
     
+    private volatile AssertionInfoMapTemplate policyTemplate;
+    private volatile AssertionInfoMapTemplate chosenAlternativeTemplate;
+    
     public EffectivePolicyImpl() {
     }
     
@@ -72,6 +75,24 @@ public class EffectivePolicyImpl implements EffectivePolicy {
         return chosenAlternative;
     }
     
+    public AssertionInfoMapTemplate getPolicyTemplate() {
+        AssertionInfoMapTemplate t = policyTemplate;
+        if (t == null || !t.isCreatedFrom(policy)) {
+            t = new AssertionInfoMapTemplate(policy);
+            policyTemplate = t;
+        }
+        return t;
+    }
+    
+    public AssertionInfoMapTemplate getChosenAlternativeTemplate() {
+        AssertionInfoMapTemplate t = chosenAlternativeTemplate;
+        if (t == null || !t.isCreatedFrom(chosenAlternative)) {
+            t = new AssertionInfoMapTemplate(chosenAlternative);
+            chosenAlternativeTemplate = t;
+        }
+        return t;
+    }
+    
     public void initialise(EndpointPolicy epi, PolicyEngine engine, boolean inbound, Message m) {
         initialise(epi, engine, inbound, false, m);
     }
@@ -55,6 +55,8 @@ public class EndpointPolicyImpl implements EndpointPolicy {
     private Collection<Assertion> faultVocabulary;
     private volatile List<Interceptor<? extends Message>> interceptors;
     private List<Interceptor<? extends Message>> faultInterceptors;
+    private volatile AssertionInfoMapTemplate vocabularyTemplate;
+    private volatile AssertionInfoMapTemplate faultVocabularyTemplate;
     
     private EndpointInfo ei;
     private PolicyEngineImpl engine;
@@ -122,6 +124,26 @@ public class EndpointPolicyImpl implements EndpointPolicy {
         return faultVocabulary;
     }    
     
+    public AssertionInfoMapTemplate getVocabularyTemplate(Message m) {
+        Collection<Assertion> v = getVocabulary(m);
+        AssertionInfoMapTemplate t = vocabularyTemplate;
+        if (t == null || !t.isCreatedFrom(v)) {
+            t = new AssertionInfoMapTemplate(v);
+            vocabularyTemplate = t;
+        }
+        return t;
+    }
+    
+    public AssertionInfoMapTemplate getFaultVocabularyTemplate(Message m) {
+        Collection<Assertion> v = getFaultVocabulary(m);
+        AssertionInfoMapTemplate t = faultVocabularyTemplate;
+        if (t == null || !t.isCreatedFrom(v)) {
+            t = new AssertionInfoMapTemplate(v);
+            faultVocabularyTemplate = t;
+        }
+        return t;
+    }
+    
     public List<Interceptor<? extends Message>> getInterceptors(Message m) {
         if (interceptors == null) {
             initializeInterceptors(m);
@@ -69,6 +69,7 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
 
         List<Interceptor<? extends Message>> interceptors = new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        EndpointPolicy vocabularyPolicy = null;
         
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -101,7 +102,9 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
                     interceptors.addAll(ep.getInterceptors());
                     // insert assertions of endpoint's vocabulary into message
                     if (ep.getPolicy() != null) {
-                        msg.put(AssertionInfoMap.class, new AssertionInfoMap(ep.getPolicy()));
+                        msg.put(AssertionInfoMap.class, ep instanceof EffectivePolicyImpl
+                            ? ((EffectivePolicyImpl)ep).getPolicyTemplate().createAssertionInfoMap()
+                            : new AssertionInfoMap(ep.getPolicy()));
                         msg.getInterceptorChain().add(PolicyVerificationInInterceptor.INSTANCE);
                     }
                 }
@@ -117,6 +120,7 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
             if (ep != null) {
                 interceptors.addAll(ep.getInterceptors(msg));
                 assertions.addAll(ep.getVocabulary(msg));
+                vocabularyPolicy = ep;
             }
         }
         
@@ -127,7 +131,9 @@ public class PolicyInInterceptor extends AbstractPolicyInterceptor {
         
         // Insert assertions of endpoint's vocabulary into message
         if (!assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            msg.put(AssertionInfoMap.class, vocabularyPolicy instanceof EndpointPolicyImpl
+                ? ((EndpointPolicyImpl)vocabularyPolicy).getVocabularyTemplate(msg).createAssertionInfoMap()
+                : new AssertionInfoMap(assertions));
             msg.getInterceptorChain().add(PolicyVerificationInInterceptor.INSTANCE);
         }
         
@@ -77,6 +77,7 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
         }
 
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        EffectivePolicy chosenPolicy = null;
 
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -103,6 +104,7 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
                 );
                 addInterceptors(effectivePolicy.getInterceptors(), msg);
                 assertions.addAll(effectivePolicy.getChosenAlternative());
+                chosenPolicy = effectivePolicy;
             }
         } else {
             // 3. Process server policy
@@ -118,6 +120,7 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
                 );
                 addInterceptors(effectivePolicy.getInterceptors(), msg);
                 assertions.addAll(effectivePolicy.getChosenAlternative());
+                chosenPolicy = effectivePolicy;
             }
         }
         
@@ -133,10 +136,13 @@ public class PolicyOutInterceptor extends AbstractPolicyInterceptor {
                 }
                 LOG.finest(buf.toString());
             }
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            msg.put(AssertionInfoMap.class, chosenPolicy instanceof EffectivePolicyImpl
+                ? ((EffectivePolicyImpl)chosenPolicy).getChosenAlternativeTemplate().createAssertionInfoMap()
+                : new AssertionInfoMap(assertions));
             msg.getInterceptorChain().add(PolicyVerificationOutInterceptor.INSTANCE);
         }
     }
+
     
     private static void addInterceptors(List<Interceptor<? extends Message>> interceptors, Message msg) {
         for (Interceptor<? extends Message> oi : interceptors) {
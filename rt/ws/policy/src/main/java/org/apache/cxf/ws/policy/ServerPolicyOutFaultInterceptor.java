@@ -87,6 +87,7 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
         List<Interceptor<? extends Message>> faultInterceptors = 
             new ArrayList<Interceptor<? extends Message>>();
         Collection<Assertion> assertions = new ArrayList<Assertion>();
+        EffectivePolicy chosenPolicy = null;
 
         // 1. Check overridden policy
         Policy p = (Policy)msg.getContextualProperty(PolicyConstants.POLICY_OVERRIDE);
@@ -113,6 +114,7 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
             if (effectivePolicy != null) {
                 faultInterceptors.addAll(effectivePolicy.getInterceptors());
                 assertions.addAll(effectivePolicy.getChosenAlternative());            
+                chosenPolicy = effectivePolicy;
             }
         }
         
@@ -124,7 +126,9 @@ public class ServerPolicyOutFaultInterceptor extends AbstractPolicyInterceptor {
         
         // insert assertions of the chosen alternative into the message
         if (null != assertions && !assertions.isEmpty()) {
-            msg.put(AssertionInfoMap.class, new AssertionInfoMap(assertions));
+            msg.put(AssertionInfoMap.class, chosenPolicy instanceof EffectivePolicyImpl
+                ? ((EffectivePolicyImpl)chosenPolicy).getChosenAlternativeTemplate().createAssertionInfoMap()
+                : new AssertionInfoMap(assertions));
         }
     }
 }
@@ -103,6 +103,38 @@ public class AssertionInfoMapTest extends Assert {
         control.verify();     
     }  
     
+    @Test
+    public void testTemplate() {
+        QName aqn = new QName("http://x.y.z", "a");
+        Assertion a1 = new PrimitiveAssertion(aqn);
+        Assertion a2 = new PrimitiveAssertion(aqn);
+        QName bqn = new QName("http://x.y.z", "b");
+        Assertion b = new PrimitiveAssertion(bqn);
+        List<Assertion> assertions = new ArrayList<Assertion>();
+        assertions.add(a1);
+        assertions.add(a2);
+        assertions.add(b);
+        assertions.add(a1);
+        
+        AssertionInfoMapTemplate template = new AssertionInfoMapTemplate(assertions);
+        assertTrue(template.isCreatedFrom(assertions));
+        assertFalse(template.isCreatedFrom(new ArrayList<Assertion>(assertions)));
+        
+        AssertionInfoMap aim1 = template.createAssertionInfoMap();
+        assertEquals(new AssertionInfoMap(assertions).keySet(), aim1.keySet());
+        assertEquals(2, aim1.getAssertionInfo(aqn).size());
+        assertEquals(1, aim1.getAssertionInfo(bqn).size());
+        
+        AssertionInfo ai = aim1.getAssertionInfo(bqn).iterator().next();
+        assertSame(b, ai.getAssertion());
+        ai.setAsserted(true);
+        
+        AssertionInfoMap aim2 = template.createAssertionInfoMap();
+        AssertionInfo ai2 = aim2.getAssertionInfo(bqn).iterator().next();
+        assertNotSame(ai, ai2);
+        assertFalse(ai2.isAsserted());
+    }
+    
     @Test
     public void testCheckEffectivePolicy() { 
         Policy p = new Policy();
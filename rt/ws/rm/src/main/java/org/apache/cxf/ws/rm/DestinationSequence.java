@@ -432,11 +432,11 @@ public class DestinationSequence extends AbstractSequence {
         long now = System.currentTimeMillis();
         long expectedExecutionTime = now + delay;
         for (DeferredAcknowledgment da : deferredAcknowledgments) {
-            if (da.scheduledExecutionTime() <= expectedExecutionTime) {
+            if (da.executionTime <= expectedExecutionTime) {
                 return;
             }
         }
-        DeferredAcknowledgment da = new DeferredAcknowledgment();
+        DeferredAcknowledgment da = new DeferredAcknowledgment(expectedExecutionTime);
         deferredAcknowledgments.add(da);
         destination.getManager().getTimer().schedule(da, delay);
         LOG.fine("Scheduled acknowledgment to be sent in " + delay + " ms");
@@ -459,6 +459,12 @@ public class DestinationSequence extends AbstractSequence {
     }
 
     final class DeferredAcknowledgment extends TimerTask {
+        // kept here, as the timer may not report it before the task is due
+        private final long executionTime;
+
+        DeferredAcknowledgment(long executionTime) {
+            this.executionTime = executionTime;
+        }
 
         public void run() {
             LOG.fine("timer task: send acknowledgment.");
@@ -0,0 +1,211 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Timer keeping the one-shot tasks in a hashed wheel of slots instead of the binary heap
+ * of java.util.Timer, so that scheduling many tasks, such as the resends of the
+ * unacknowledged messages, is constant time and only locks the slot of the task.
+ *
+ * On each tick the tasks falling due before the end of the next tick are handed to the
+ * underlying Timer at their deadline, so that they run on time and report their deadline as
+ * their scheduledExecutionTime when they run. The tasks cancelled in the meantime are
+ * rejected by the Timer and dropped. As scheduledExecutionTime is only set by the Timer, a
+ * task still waiting in the wheel reports 0, the usual TimerTask semantics are kept otherwise.
+ *
+ * As the cancellation of a TimerTask can only be seen by the Timer it has been scheduled
+ * with, purge hands all of the waiting tasks over to the underlying Timer, which drops the
+ * cancelled ones and keeps the others at their deadline. It is meant to be called rarely,
+ * such as after shutting down an endpoint.
+ *
+ * The repeated schedule methods are passed to the underlying Timer as is.
+ */
+public class HashedWheelTimer extends Timer {
+
+    public static final long DEFAULT_TICK_DURATION = 20L;
+    public static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    private final long tickDuration;
+    private final Slot[] wheel;
+    private final int mask;
+    private volatile long lastTick;
+    private volatile boolean cancelled;
+
+    public HashedWheelTimer(String name) {
+        this(name, DEFAULT_TICK_DURATION, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    public HashedWheelTimer(String name, long tickDuration, int ticksPerWheel) {
+        super(name, true);
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("Non-positive tick duration.");
+        }
+        this.tickDuration = tickDuration;
+        int size = 1;
+        while (size < ticksPerWheel) {
+            size <<= 1;
+        }
+        wheel = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Slot();
+        }
+        mask = size - 1;
+        lastTick = System.currentTimeMillis() / tickDuration;
+        super.scheduleAtFixedRate(new TimerTask() {
+            public void run() {
+                expireTimeouts();
+            }
+        }, tickDuration, tickDuration);
+    }
+
+    @Override
+    public void schedule(TimerTask task, long delay) {
+        if (delay < 0) {
+            throw new IllegalArgumentException("Negative delay.");
+        }
+        add(task, System.currentTimeMillis() + delay);
+    }
+
+    @Override
+    public void schedule(TimerTask task, Date time) {
+        add(task, time.getTime());
+    }
+
+    @Override
+    public void cancel() {
+        cancelled = true;
+        super.cancel();
+        for (Slot slot : wheel) {
+            synchronized (slot) {
+                slot.tasks.clear();
+            }
+        }
+    }
+
+    /**
+     * Removes the cancelled tasks waiting in the wheel or in the underlying Timer.
+     * Returns the number of the tasks removed.
+     */
+    @Override
+    public int purge() {
+        int removed = 0;
+        for (Slot slot : wheel) {
+            List<Timeout> timeouts;
+            synchronized (slot) {
+                if (slot.tasks.isEmpty()) {
+                    continue;
+                }
+                timeouts = new ArrayList<Timeout>(slot.tasks);
+                slot.tasks.clear();
+            }
+            for (Timeout timeout : timeouts) {
+                try {
+                    super.schedule(timeout.task, new Date(timeout.deadline));
+                } catch (IllegalStateException ex) {
+                    // cancelled
+                    removed++;
+                }
+            }
+        }
+        return removed + super.purge();
+    }
+
+    /**
+     * Returns the number of the tasks waiting in the wheel, including the cancelled ones.
+     */
+    public int size() {
+        int size = 0;
+        for (Slot slot : wheel) {
+            synchronized (slot) {
+                size += slot.tasks.size();
+            }
+        }
+        return size;
+    }
+
+    private void add(TimerTask task, long deadline) {
+        if (cancelled) {
+            throw new IllegalStateException("Timer already cancelled.");
+        }
+        long tick = deadline / tickDuration;
+        Slot slot = wheel[(int)(tick & mask)];
+        synchronized (slot) {
+            if (tick > lastTick) {
+                slot.tasks.add(new Timeout(task, deadline));
+                return;
+            }
+        }
+        // the slot has already been expired
+        super.schedule(task, new Date(deadline));
+    }
+
+    private void expireTimeouts() {
+        long now = System.currentTimeMillis() / tickDuration;
+        List<Timeout> expired = null;
+        // the slots up to the next tick are expired ahead of time
+        for (long tick = lastTick + 1; tick <= now + 1; tick++) {
+            Slot slot = wheel[(int)(tick & mask)];
+            synchronized (slot) {
+                for (Iterator<Timeout> it = slot.tasks.iterator(); it.hasNext();) {
+                    Timeout timeout = it.next();
+                    if (timeout.deadline / tickDuration <= tick) {
+                        it.remove();
+                        if (expired == null) {
+                            expired = new ArrayList<Timeout>();
+                        }
+                        expired.add(timeout);
+                    }
+                }
+                lastTick = tick;
+            }
+        }
+        if (expired != null) {
+            for (Timeout timeout : expired) {
+                try {
+                    super.schedule(timeout.task, new Date(timeout.deadline));
+                } catch (IllegalStateException ex) {
+                    // cancelled
+                }
+            }
+        }
+    }
+
+    private static final class Slot {
+        final List<Timeout> tasks = new LinkedList<Timeout>();
+    }
+
+    private static final class Timeout {
+        final TimerTask task;
+        final long deadline;
+
+        Timeout(TimerTask task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -195,7 +195,7 @@ public class RMManager {
     private Timer getTimer(boolean create) {
         Timer ret = timer.get();
         if (ret == null && create) {
-            Timer newt = new Timer("RMManager-Timer-" + System.identityHashCode(this), true);
+            Timer newt = new HashedWheelTimer("RMManager-Timer-" + System.identityHashCode(this));
             if (!timer.compareAndSet(null, newt)) {
                 newt.cancel();
             }
@@ -0,0 +1,1012 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+import org.apache.cxf.common.i18n.Message;
+import org.apache.cxf.common.injection.NoJSR250Annotations;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.ws.rm.DestinationSequence;
+import org.apache.cxf.ws.rm.ProtocolVariation;
+import org.apache.cxf.ws.rm.RMUtils;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.PersistenceUtils;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.persistence.RMStore;
+import org.apache.cxf.ws.rm.persistence.RMStoreException;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
+
+/**
+ * RMStore keeping the sequences and the messages in an append-only log of memory-mapped
+ * segment files. Each record carries its length and a CRC32 checksum, on init the segments
+ * are replayed in order to rebuild the in-memory index and the replay of a segment stops
+ * at the first truncated or corrupted record.
+ *
+ * Once the superseded and removed records make up more than the configured ratio of the
+ * log, the live records are copied into new segments by a background thread and the old
+ * segments are deleted. The store is only locked while the segments to compact are sealed
+ * and while the locations of the copied records are swapped in, not while they are copied.
+ *
+ * The mapped writes survive the crash of the process, syncWrites has to be set
+ * to survive the crash of the operating system.
+ */
+@NoJSR250Annotations
+public class RMFileStore implements RMStore {
+
+    public static final String DEFAULT_DIRECTORY = "rmstore";
+
+    private static final Logger LOG = LogUtils.getL7dLogger(RMFileStore.class);
+
+    private static final String SEGMENT_PREFIX = "rm-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    // the record length and the checksum
+    private static final int HEADER_LENGTH = 8;
+
+    private static final byte CREATE_SRC_SEQUENCE = 1;
+    private static final byte CREATE_DEST_SEQUENCE = 2;
+    private static final byte UPDATE_SRC_SEQUENCE = 3;
+    private static final byte UPDATE_DEST_SEQUENCE = 4;
+    private static final byte REMOVE_SRC_SEQUENCE = 5;
+    private static final byte REMOVE_DEST_SEQUENCE = 6;
+    private static final byte STORE_MESSAGE = 7;
+    private static final byte REMOVE_MESSAGE = 8;
+
+    private String directory = DEFAULT_DIRECTORY;
+    private int segmentSize = 16 * 1024 * 1024;
+    private boolean syncWrites;
+    private double compactionRatio = 0.5;
+
+    private final List<Segment> segments = new ArrayList<Segment>();
+    private Segment active;
+    private long nextSegmentId;
+
+    private final Map<String, SourceState> sourceSequences = new HashMap<String, SourceState>();
+    private final Map<String, DestinationState> destinationSequences =
+        new HashMap<String, DestinationState>();
+    private final Map<String, SortedMap<Long, Location>> outboundMessages =
+        new HashMap<String, SortedMap<Long, Location>>();
+    private final Map<String, SortedMap<Long, Location>> inboundMessages =
+        new HashMap<String, SortedMap<Long, Location>>();
+
+    // the size of all the records and of the records still needed
+    private long totalBytes;
+    private long liveBytes;
+    private boolean compactionScheduled;
+    private boolean compacting;
+    private boolean initialized;
+
+    public RMFileStore() {
+    }
+
+    // configuration
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public int getSegmentSize() {
+        return segmentSize;
+    }
+
+    /**
+     * Sets the size in bytes of the segment files, a larger segment is created for
+     * a record which does not fit in a segment.
+     */
+    public void setSegmentSize(int segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    /**
+     * If set to true, the segment is forced to the disk after each write.
+     */
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    public double getCompactionRatio() {
+        return compactionRatio;
+    }
+
+    /**
+     * Sets the ratio of the unused records in the log above which the log is compacted.
+     */
+    public void setCompactionRatio(double compactionRatio) {
+        this.compactionRatio = compactionRatio;
+    }
+
+    // lifecycle
+
+    public synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        File dir = new File(directory);
+        if (!dir.exists() && !dir.mkdirs()) {
+            throw new RMStoreException(new Message("CREATE_DIRECTORY_FAILED_MSG", LOG, dir));
+        }
+        try {
+            recover(dir);
+        } catch (IOException ex) {
+            LogUtils.log(LOG, Level.SEVERE, "RECOVERY_FAILED_MSG", ex);
+            closeSegments();
+            throw new RMStoreException(ex);
+        }
+        initialized = true;
+    }
+
+    public synchronized void destroy() {
+        boolean interrupted = false;
+        while (compacting) {
+            // the compaction is still reading the sealed segments
+            try {
+                wait();
+            } catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        closeSegments();
+        sourceSequences.clear();
+        destinationSequences.clear();
+        outboundMessages.clear();
+        inboundMessages.clear();
+        totalBytes = 0;
+        liveBytes = 0;
+        initialized = false;
+    }
+
+    // RMStore interface
+
+    public synchronized void createSourceSequence(SourceSequence seq) {
+        SourceState state = new SourceState();
+        Date expiry = seq.getExpires();
+        state.expiry = expiry == null ? 0 : expiry.getTime();
+        Identifier osid = seq.getOfferingSequenceIdentifier();
+        state.offeringId = osid == null ? null : osid.getValue();
+        state.endpointId = seq.getEndpointIdentifier();
+        state.protocol = seq.getProtocol();
+        String sid = seq.getIdentifier().getValue();
+        try {
+            state.createLength = append(newCreateRecord(sid, state)).length;
+            removeSource(sid);
+            sourceSequences.put(sid, state);
+            liveBytes += state.createLength;
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized void createDestinationSequence(DestinationSequence seq) {
+        DestinationState state = new DestinationState();
+        state.acksTo = seq.getAcksTo().getAddress().getValue();
+        state.endpointId = seq.getEndpointIdentifier();
+        state.protocol = seq.getProtocol();
+        String sid = seq.getIdentifier().getValue();
+        try {
+            state.createLength = append(newCreateRecord(sid, state)).length;
+            removeDestination(sid);
+            destinationSequences.put(sid, state);
+            liveBytes += state.createLength;
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized SourceSequence getSourceSequence(Identifier sid) {
+        SourceState state = sourceSequences.get(sid.getValue());
+        return state == null ? null : state.toSequence(sid);
+    }
+
+    public synchronized DestinationSequence getDestinationSequence(Identifier sid) {
+        DestinationState state = destinationSequences.get(sid.getValue());
+        return state == null ? null : state.toSequence(sid);
+    }
+
+    public synchronized void removeSourceSequence(Identifier sid) {
+        try {
+            append(newRecord(REMOVE_SRC_SEQUENCE, sid.getValue()));
+            removeSource(sid.getValue());
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized void removeDestinationSequence(Identifier sid) {
+        try {
+            append(newRecord(REMOVE_DEST_SEQUENCE, sid.getValue()));
+            removeDestination(sid.getValue());
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized Collection<SourceSequence> getSourceSequences(String endpointIdentifier) {
+        Collection<SourceSequence> seqs = new ArrayList<SourceSequence>();
+        for (Map.Entry<String, SourceState> entry : sourceSequences.entrySet()) {
+            if (endpointIdentifier.equals(entry.getValue().endpointId)) {
+                seqs.add(entry.getValue().toSequence(createIdentifier(entry.getKey())));
+            }
+        }
+        return seqs;
+    }
+
+    public synchronized Collection<DestinationSequence> getDestinationSequences(String endpointIdentifier) {
+        Collection<DestinationSequence> seqs = new ArrayList<DestinationSequence>();
+        for (Map.Entry<String, DestinationState> entry : destinationSequences.entrySet()) {
+            if (endpointIdentifier.equals(entry.getValue().endpointId)) {
+                seqs.add(entry.getValue().toSequence(createIdentifier(entry.getKey())));
+            }
+        }
+        return seqs;
+    }
+
+    public synchronized Collection<RMMessage> getMessages(Identifier sid, boolean outbound) {
+        SortedMap<Long, Location> locations = getMessageLocations(outbound).get(sid.getValue());
+        if (locations == null) {
+            return Collections.emptyList();
+        }
+        Collection<RMMessage> msgs = new ArrayList<RMMessage>();
+        try {
+            for (Location location : locations.values()) {
+                DataInputStream in = location.readRecord();
+                in.readByte();
+                in.readUTF();
+                in.readBoolean();
+                RMMessage msg = new RMMessage();
+                msg.setMessageNumber(in.readLong());
+                msg.setTo(readString(in));
+                msg.setContent(new ByteArrayInputStream(readBytes(in)));
+                int count = in.readInt();
+                List<InputStream> attachments = new ArrayList<InputStream>(count);
+                for (int i = 0; i < count; i++) {
+                    attachments.add(new ByteArrayInputStream(readBytes(in)));
+                }
+                msg.setAttachments(attachments);
+                msgs.add(msg);
+            }
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+        return msgs;
+    }
+
+    public synchronized void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        String sid = seq.getIdentifier().getValue();
+        try {
+            storeMessage(sid, msg, true);
+            SourceState state = sourceSequences.get(sid);
+            if (state != null) {
+                state.currentMessageNr = seq.getCurrentMessageNr();
+                state.lastMessage = seq.isLastMessage();
+                liveBytes -= state.updateLength;
+                state.updateLength = append(newUpdateRecord(sid, state)).length;
+                liveBytes += state.updateLength;
+            }
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized void persistIncoming(DestinationSequence seq, RMMessage msg) {
+        String sid = seq.getIdentifier().getValue();
+        try {
+            storeMessage(sid, msg, false);
+            DestinationState state = destinationSequences.get(sid);
+            if (state != null) {
+                state.lastMessageNr = seq.getLastMessageNumber();
+                state.acknowledgement =
+                    IOUtils.readBytesFromStream(PersistenceUtils.getInstance()
+                                                .serialiseAcknowledgment(seq.getAcknowledgment()));
+                liveBytes -= state.updateLength;
+                state.updateLength = append(newUpdateRecord(sid, state)).length;
+                liveBytes += state.updateLength;
+            }
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    public synchronized void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
+        SortedMap<Long, Location> locations = getMessageLocations(outbound).get(sid.getValue());
+        if (locations == null) {
+            return;
+        }
+        try {
+            for (Long messageNr : messageNrs) {
+                if (locations.containsKey(messageNr)) {
+                    Record out = newRecord(REMOVE_MESSAGE, sid.getValue());
+                    out.writeBoolean(outbound);
+                    out.writeLong(messageNr);
+                    append(out);
+                    liveBytes -= locations.remove(messageNr).length;
+                }
+            }
+            if (locations.isEmpty()) {
+                getMessageLocations(outbound).remove(sid.getValue());
+            }
+            written();
+        } catch (IOException ex) {
+            throw new RMStoreException(ex);
+        }
+    }
+
+    // compaction
+
+    /**
+     * Copies the live records into new segments and deletes the old segments.
+     */
+    void compact() throws IOException {
+        Compaction compaction;
+        synchronized (this) {
+            compactionScheduled = false;
+            if (!initialized || compacting || segments.isEmpty()) {
+                return;
+            }
+            compaction = seal();
+            compacting = true;
+        }
+        try {
+            compaction.copy();
+        } catch (IOException ex) {
+            compaction.discard();
+            synchronized (this) {
+                compacting = false;
+                notifyAll();
+            }
+            throw ex;
+        }
+        synchronized (this) {
+            try {
+                swap(compaction);
+            } finally {
+                compacting = false;
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Seals the current segments, the new records are appended to new segments from now on,
+     * and collects the live records of the sealed segments.
+     */
+    private Compaction seal() throws IOException {
+        // the copies are replayed after the sealed segments and before the new segments,
+        // there can not be more copies than twice the sealed segments
+        Compaction compaction = new Compaction(nextSegmentId, nextSegmentId + 2L * segments.size() + 2);
+        nextSegmentId = compaction.lastCopyId;
+        compaction.sealed.addAll(segments);
+        active = null;
+        for (Map.Entry<String, SourceState> entry : sourceSequences.entrySet()) {
+            SourceState state = entry.getValue();
+            compaction.records.add(newCreateRecord(entry.getKey(), state).toRecord());
+            if (state.updateLength > 0) {
+                compaction.records.add(newUpdateRecord(entry.getKey(), state).toRecord());
+            }
+        }
+        for (Map.Entry<String, DestinationState> entry : destinationSequences.entrySet()) {
+            DestinationState state = entry.getValue();
+            compaction.records.add(newCreateRecord(entry.getKey(), state).toRecord());
+            if (state.updateLength > 0) {
+                compaction.records.add(newUpdateRecord(entry.getKey(), state).toRecord());
+            }
+        }
+        compaction.addMessages(outboundMessages, true);
+        compaction.addMessages(inboundMessages, false);
+        return compaction;
+    }
+
+    /**
+     * Points the index to the copies of the records which have not been removed or replaced
+     * in the meantime, and deletes the sealed segments.
+     */
+    private void swap(Compaction compaction) {
+        if (!initialized) {
+            compaction.discard();
+            return;
+        }
+        for (MessageCopy copy : compaction.messages) {
+            SortedMap<Long, Location> locations = getMessageLocations(copy.outbound).get(copy.sid);
+            if (locations != null && locations.get(copy.messageNr) == copy.source) {
+                locations.put(copy.messageNr, copy.copy);
+            }
+        }
+        // the copies have the same length as the records they replace, only the garbage is gone
+        segments.addAll(0, compaction.copies);
+        for (Segment segment : compaction.copies) {
+            totalBytes += segment.position;
+        }
+        for (Segment segment : compaction.sealed) {
+            totalBytes -= segment.position;
+            segments.remove(segment);
+            segment.close();
+            if (!segment.file.delete()) {
+                LogUtils.log(LOG, Level.WARNING, "DELETE_SEGMENT_FAILED_MSG", segment.file);
+            }
+        }
+    }
+
+    private void scheduleCompaction() {
+        if (compactionScheduled || totalBytes <= segmentSize
+            || totalBytes - liveBytes <= compactionRatio * totalBytes) {
+            return;
+        }
+        compactionScheduled = true;
+        Thread compactor = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    compact();
+                } catch (IOException ex) {
+                    LogUtils.log(LOG, Level.SEVERE, "COMPACTION_FAILED_MSG", ex);
+                }
+            }
+        }, "RMFileStore compaction");
+        compactor.setDaemon(true);
+        compactor.start();
+    }
+
+    // recovery
+
+    private void recover(File dir) throws IOException {
+        File[] files = dir.listFiles();
+        SortedMap<Long, File> ordered = new TreeMap<Long, File>();
+        if (files != null) {
+            for (File f : files) {
+                String name = f.getName();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    try {
+                        ordered.put(Long.valueOf(name.substring(SEGMENT_PREFIX.length(),
+                                                                name.length() - SEGMENT_SUFFIX.length())), f);
+                    } catch (NumberFormatException ex) {
+                        // not a segment
+                    }
+                }
+            }
+        }
+        for (Map.Entry<Long, File> entry : ordered.entrySet()) {
+            Segment segment = new Segment(entry.getValue(), 0);
+            segments.add(segment);
+            replay(segment);
+            active = segment;
+            nextSegmentId = entry.getKey() + 1;
+        }
+        if (active != null) {
+            // clear what is left of a partially written record so that it is not
+            // mistaken for a record following the next one
+            ByteBuffer buffer = active.buffer;
+            for (int i = active.position; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte)0);
+            }
+        }
+    }
+
+    private void replay(Segment segment) throws IOException {
+        ByteBuffer buffer = segment.buffer;
+        int position = 0;
+        CRC32 crc = new CRC32();
+        while (position + HEADER_LENGTH <= buffer.capacity()) {
+            int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER_LENGTH + length > buffer.capacity()) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            ByteBuffer dup = buffer.duplicate();
+            dup.position(position + HEADER_LENGTH);
+            dup.get(payload);
+            crc.reset();
+            crc.update(payload, 0, length);
+            if ((int)crc.getValue() != buffer.getInt(position + 4)) {
+                LogUtils.log(LOG, Level.WARNING, "CORRUPTED_RECORD_MSG",
+                             new Object[] {segment.file, position});
+                break;
+            }
+            Location location = new Location(segment, position, HEADER_LENGTH + length);
+            apply(new DataInputStream(new ByteArrayInputStream(payload)), location);
+            totalBytes += location.length;
+            position += location.length;
+        }
+        segment.position = position;
+    }
+
+    private void apply(DataInputStream in, Location location) throws IOException {
+        byte type = in.readByte();
+        String sid = in.readUTF();
+        switch (type) {
+        case CREATE_SRC_SEQUENCE: {
+            SourceState state = new SourceState();
+            state.expiry = in.readLong();
+            state.offeringId = readString(in);
+            state.endpointId = readString(in);
+            state.protocol = ProtocolVariation.findVariant(readString(in), readString(in));
+            state.createLength = location.length;
+            removeSource(sid);
+            sourceSequences.put(sid, state);
+            liveBytes += state.createLength;
+            break;
+        }
+        case CREATE_DEST_SEQUENCE: {
+            DestinationState state = new DestinationState();
+            state.acksTo = readString(in);
+            state.endpointId = readString(in);
+            state.protocol = ProtocolVariation.findVariant(readString(in), readString(in));
+            state.createLength = location.length;
+            removeDestination(sid);
+            destinationSequences.put(sid, state);
+            liveBytes += state.createLength;
+            break;
+        }
+        case UPDATE_SRC_SEQUENCE: {
+            SourceState state = sourceSequences.get(sid);
+            if (state != null) {
+                state.currentMessageNr = in.readLong();
+                state.lastMessage = in.readBoolean();
+                liveBytes += location.length - state.updateLength;
+                state.updateLength = location.length;
+            }
+            break;
+        }
+        case UPDATE_DEST_SEQUENCE: {
+            DestinationState state = destinationSequences.get(sid);
+            if (state != null) {
+                state.lastMessageNr = in.readLong();
+                state.acknowledgement = readBytes(in);
+                liveBytes += location.length - state.updateLength;
+                state.updateLength = location.length;
+            }
+            break;
+        }
+        case REMOVE_SRC_SEQUENCE:
+            removeSource(sid);
+            break;
+        case REMOVE_DEST_SEQUENCE:
+            removeDestination(sid);
+            break;
+        case STORE_MESSAGE: {
+            Map<String, SortedMap<Long, Location>> messages = getMessageLocations(in.readBoolean());
+            Location previous = getLocations(messages, sid).put(in.readLong(), location);
+            liveBytes += location.length - (previous == null ? 0 : previous.length);
+            break;
+        }
+        case REMOVE_MESSAGE: {
+            Map<String, SortedMap<Long, Location>> messages = getMessageLocations(in.readBoolean());
+            SortedMap<Long, Location> locations = messages.get(sid);
+            if (locations != null) {
+                Location removed = locations.remove(in.readLong());
+                if (removed != null) {
+                    liveBytes -= removed.length;
+                }
+                if (locations.isEmpty()) {
+                    messages.remove(sid);
+                }
+            }
+            break;
+        }
+        default:
+            throw new IOException("Unknown record type " + type + " in " + location.segment.file);
+        }
+    }
+
+    // helpers
+
+    private void storeMessage(String sid, RMMessage msg, boolean outbound) throws IOException {
+        if (msg == null || msg.getContent() == null) {
+            return;
+        }
+        Record out = newRecord(STORE_MESSAGE, sid);
+        out.writeBoolean(outbound);
+        out.writeLong(msg.getMessageNumber());
+        writeString(out, msg.getTo());
+        writeBytes(out, IOUtils.readBytesFromStream(msg.getContent()));
+        List<InputStream> attachments = msg.getAttachments();
+        out.writeInt(attachments.size());
+        for (InputStream attachment : attachments) {
+            writeBytes(out, IOUtils.readBytesFromStream(attachment));
+        }
+        Location location = append(out);
+        Location previous = getLocations(getMessageLocations(outbound), sid)
+            .put(msg.getMessageNumber(), location);
+        liveBytes += location.length - (previous == null ? 0 : previous.length);
+    }
+
+    private void removeSource(String sid) {
+        SourceState state = sourceSequences.remove(sid);
+        if (state != null) {
+            liveBytes -= state.createLength + state.updateLength;
+        }
+    }
+
+    private void removeDestination(String sid) {
+        DestinationState state = destinationSequences.remove(sid);
+        if (state != null) {
+            liveBytes -= state.createLength + state.updateLength;
+        }
+    }
+
+    private Map<String, SortedMap<Long, Location>> getMessageLocations(boolean outbound) {
+        return outbound ? outboundMessages : inboundMessages;
+    }
+
+    private static SortedMap<Long, Location> getLocations(Map<String, SortedMap<Long, Location>> messages,
+                                                          String sid) {
+        SortedMap<Long, Location> locations = messages.get(sid);
+        if (locations == null) {
+            locations = new TreeMap<Long, Location>();
+            messages.put(sid, locations);
+        }
+        return locations;
+    }
+
+    private void written() {
+        if (syncWrites && active != null) {
+            active.buffer.force();
+        }
+        scheduleCompaction();
+    }
+
+    private static Record newRecord(byte type, String sid) throws IOException {
+        Record out = new Record();
+        out.writeByte(type);
+        out.writeUTF(sid);
+        return out;
+    }
+
+    private static Record newCreateRecord(String sid, SourceState state) throws IOException {
+        Record out = newRecord(CREATE_SRC_SEQUENCE, sid);
+        out.writeLong(state.expiry);
+        writeString(out, state.offeringId);
+        writeString(out, state.endpointId);
+        writeString(out, state.protocol.getWSRMNamespace());
+        writeString(out, state.protocol.getWSANamespace());
+        return out;
+    }
+
+    private static Record newUpdateRecord(String sid, SourceState state) throws IOException {
+        Record out = newRecord(UPDATE_SRC_SEQUENCE, sid);
+        out.writeLong(state.currentMessageNr);
+        out.writeBoolean(state.lastMessage);
+        return out;
+    }
+
+    private static Record newCreateRecord(String sid, DestinationState state) throws IOException {
+        Record out = newRecord(CREATE_DEST_SEQUENCE, sid);
+        writeString(out, state.acksTo);
+        writeString(out, state.endpointId);
+        writeString(out, state.protocol.getWSRMNamespace());
+        writeString(out, state.protocol.getWSANamespace());
+        return out;
+    }
+
+    private static Record newUpdateRecord(String sid, DestinationState state) throws IOException {
+        Record out = newRecord(UPDATE_DEST_SEQUENCE, sid);
+        out.writeLong(state.lastMessageNr);
+        writeBytes(out, state.acknowledgement);
+        return out;
+    }
+
+    private Location append(Record out) throws IOException {
+        return appendRecord(out.toRecord());
+    }
+
+    private Location appendRecord(byte[] record) throws IOException {
+        if (!initialized) {
+            throw new RMStoreException(new Message("NOT_INITIALIZED_MSG", LOG));
+        }
+        if (active == null || active.position + record.length > active.buffer.capacity()) {
+            active = newSegment(nextSegmentId, record);
+            nextSegmentId++;
+            segments.add(active);
+        }
+        totalBytes += record.length;
+        return writeRecord(active, record);
+    }
+
+    private Segment newSegment(long id, byte[] record) throws IOException {
+        return new Segment(new File(directory, SEGMENT_PREFIX + id + SEGMENT_SUFFIX),
+                           Math.max(segmentSize, record.length + HEADER_LENGTH));
+    }
+
+    private static Location writeRecord(Segment segment, byte[] record) {
+        ByteBuffer dup = segment.buffer.duplicate();
+        // write the payload before the header so that the header is never followed by a partial payload
+        dup.position(segment.position + HEADER_LENGTH);
+        dup.put(record, HEADER_LENGTH, record.length - HEADER_LENGTH);
+        dup.putInt(segment.position + 4, ByteBuffer.wrap(record).getInt(4));
+        dup.putInt(segment.position, record.length - HEADER_LENGTH);
+        Location location = new Location(segment, segment.position, record.length);
+        segment.position += record.length;
+        return location;
+    }
+
+    private void closeSegments() {
+        for (Segment segment : segments) {
+            segment.close();
+        }
+        segments.clear();
+        active = null;
+    }
+
+    private static Identifier createIdentifier(String value) {
+        Identifier sid = RMUtils.getWSRMFactory().createIdentifier();
+        sid.setValue(value);
+        return sid;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(value.length);
+            out.write(value);
+        }
+    }
+
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        in.readFully(value);
+        return value;
+    }
+
+    /**
+     * Collects a record, the header is filled in by toRecord.
+     */
+    private static final class Record extends DataOutputStream {
+        Record() throws IOException {
+            super(new RecordOutputStream());
+            // reserve the header
+            writeLong(0L);
+        }
+
+        byte[] toRecord() throws IOException {
+            flush();
+            return ((RecordOutputStream)out).toRecord();
+        }
+    }
+
+    private static final class RecordOutputStream extends ByteArrayOutputStream {
+        byte[] toRecord() {
+            CRC32 crc = new CRC32();
+            crc.update(buf, HEADER_LENGTH, count - HEADER_LENGTH);
+            ByteBuffer header = ByteBuffer.wrap(buf, 0, HEADER_LENGTH);
+            header.putInt(count - HEADER_LENGTH);
+            header.putInt((int)crc.getValue());
+            return toByteArray();
+        }
+    }
+
+    /**
+     * The live records of the sealed segments and their copies. The copies are written
+     * without holding the lock of the store, the sealed segments are no longer written to.
+     */
+    private final class Compaction {
+        final List<Segment> sealed = new ArrayList<Segment>();
+        final List<byte[]> records = new ArrayList<byte[]>();
+        final List<MessageCopy> messages = new ArrayList<MessageCopy>();
+        final List<Segment> copies = new ArrayList<Segment>();
+        final long lastCopyId;
+        long nextCopyId;
+
+        Compaction(long firstCopyId, long lastCopyId) {
+            this.nextCopyId = firstCopyId;
+            this.lastCopyId = lastCopyId;
+        }
+
+        void addMessages(Map<String, SortedMap<Long, Location>> locations, boolean outbound) {
+            for (Map.Entry<String, SortedMap<Long, Location>> entry : locations.entrySet()) {
+                for (Map.Entry<Long, Location> location : entry.getValue().entrySet()) {
+                    messages.add(new MessageCopy(outbound, entry.getKey(), location.getKey(),
+                                                 location.getValue()));
+                }
+            }
+        }
+
+        void copy() throws IOException {
+            for (byte[] record : records) {
+                write(record);
+            }
+            for (MessageCopy message : messages) {
+                message.copy = write(message.source.read());
+            }
+            for (Segment segment : copies) {
+                segment.buffer.force();
+            }
+        }
+
+        void discard() {
+            for (Segment segment : copies) {
+                segment.close();
+                if (!segment.file.delete()) {
+                    LogUtils.log(LOG, Level.WARNING, "DELETE_SEGMENT_FAILED_MSG", segment.file);
+                }
+            }
+            copies.clear();
+        }
+
+        private Location write(byte[] record) throws IOException {
+            Segment segment = copies.isEmpty() ? null : copies.get(copies.size() - 1);
+            if (segment == null || segment.position + record.length > segment.buffer.capacity()) {
+                if (nextCopyId >= lastCopyId) {
+                    throw new IOException("No segment left for the compacted records");
+                }
+                segment = newSegment(nextCopyId++, record);
+                copies.add(segment);
+            }
+            return writeRecord(segment, record);
+        }
+    }
+
+    private static final class MessageCopy {
+        final boolean outbound;
+        final String sid;
+        final Long messageNr;
+        final Location source;
+        Location copy;
+
+        MessageCopy(boolean outbound, String sid, Long messageNr, Location source) {
+            this.outbound = outbound;
+            this.sid = sid;
+            this.messageNr = messageNr;
+            this.source = source;
+        }
+    }
+
+    private static final class Segment {
+        final File file;
+        final FileChannel channel;
+        final MappedByteBuffer buffer;
+        int position;
+
+        Segment(File file, int size) throws IOException {
+            this.file = file;
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                channel = raf.getChannel();
+                buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, raf.length()));
+            } catch (IOException ex) {
+                raf.close();
+                throw ex;
+            }
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                // ignore
+            }
+        }
+    }
+
+    private static final class Location {
+        final Segment segment;
+        final int offset;
+        final int length;
+
+        Location(Segment segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        byte[] read() {
+            byte[] record = new byte[length];
+            ByteBuffer dup = segment.buffer.duplicate();
+            dup.position(offset);
+            dup.get(record);
+            return record;
+        }
+
+        DataInputStream readRecord() {
+            return new DataInputStream(new ByteArrayInputStream(read(), HEADER_LENGTH,
+                                                                length - HEADER_LENGTH));
+        }
+    }
+
+    private static final class SourceState {
+        long expiry;
+        String offeringId;
+        String endpointId;
+        ProtocolVariation protocol;
+        long currentMessageNr = 1;
+        boolean lastMessage;
+        int createLength;
+        int updateLength;
+
+        SourceSequence toSequence(Identifier sid) {
+            Identifier oi = offeringId == null ? null : createIdentifier(offeringId);
+            return new SourceSequence(sid, expiry == 0 ? null : new Date(expiry), oi,
+                                      currentMessageNr, lastMessage, protocol);
+        }
+    }
+
+    private static final class DestinationState {
+        String acksTo;
+        String endpointId;
+        ProtocolVariation protocol;
+        long lastMessageNr;
+        byte[] acknowledgement;
+        int createLength;
+        int updateLength;
+
+        DestinationSequence toSequence(Identifier sid) {
+            SequenceAcknowledgement ack = null;
+            if (acknowledgement != null) {
+                ack = PersistenceUtils.getInstance()
+                    .deserialiseAcknowledgment(new ByteArrayInputStream(acknowledgement));
+            }
+            return new DestinationSequence(sid, RMUtils.createReference(acksTo), lastMessageNr,
+                                           ack, protocol);
+        }
+    }
+}
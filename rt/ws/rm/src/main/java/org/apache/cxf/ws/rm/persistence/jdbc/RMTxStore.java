@@ -36,9 +36,14 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -193,6 +198,9 @@ public class RMTxStore implements RMStore {
     private static final String DERBY_TABLE_EXISTS_STATE = "X0Y32";
     private static final int ORACLE_TABLE_EXISTS_CODE = 955;
     
+    // the interval in ms at which a queued write checks that the group commit writer is alive
+    private static final long WRITER_CHECK_INTERVAL = 1000L;
+    
     private static final Logger LOG = LogUtils.getL7dLogger(RMTxStore.class);
     
     // the connection and statements are cached only if 
@@ -221,10 +229,24 @@ public class RMTxStore implements RMStore {
     private String tableExistsState = DERBY_TABLE_EXISTS_STATE;
     private int tableExistsCode = ORACLE_TABLE_EXISTS_CODE;
     
+    // the persist calls are queued and committed together if group commit is enabled
+    private boolean groupCommit;
+    private int groupCommitBatchSize = 100;
+    private long groupCommitInterval = 5L;
+    private BlockingQueue<PendingWrite> pendingWrites;
+    private Thread groupCommitWriter;
+    private volatile boolean destroyed;
+    
     public RMTxStore() {
     }
     
     public void destroy() {
+        destroyed = true;
+        stopGroupCommitWriter();
+        closeConnection();
+    }
+    
+    private void closeConnection() {
         if (connection != null && createdConnection) {
             try {
                 connection.close();
@@ -314,6 +336,43 @@ public class RMTxStore implements RMStore {
         this.keepConnection = keepConnection;
     }
 
+    public boolean isGroupCommit() {
+        return groupCommit;
+    }
+
+    /**
+     * If set to true, the concurrent persistIncoming and persistOutgoing calls are 
+     * queued and written by a single writer in one transaction, each call returns 
+     * after the transaction holding its write is committed. This is only effective 
+     * when the connection is kept.
+     */
+    public void setGroupCommit(boolean groupCommit) {
+        this.groupCommit = groupCommit;
+    }
+
+    public int getGroupCommitBatchSize() {
+        return groupCommitBatchSize;
+    }
+
+    /**
+     * Sets the maximum number of the queued writes committed in one transaction.
+     */
+    public void setGroupCommitBatchSize(int groupCommitBatchSize) {
+        this.groupCommitBatchSize = groupCommitBatchSize;
+    }
+
+    public long getGroupCommitInterval() {
+        return groupCommitInterval;
+    }
+
+    /**
+     * Sets the time in milliseconds the writer waits for more writes before 
+     * committing a batch which is not full.
+     */
+    public void setGroupCommitInterval(long groupCommitInterval) {
+        this.groupCommitInterval = groupCommitInterval;
+    }
+
     public long getInitialReconnectDelay() {
         return initialReconnectDelay;
     }
@@ -657,6 +716,14 @@ public class RMTxStore implements RMStore {
     }
     
     public void persistIncoming(DestinationSequence seq, RMMessage msg) {        
+        if (isGroupCommitted()) {
+            writeGrouped(new PendingWrite(null, seq, msg));
+        } else {
+            persistIncomingNow(seq, msg);
+        }
+    }
+
+    private void persistIncomingNow(DestinationSequence seq, RMMessage msg) {
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -682,6 +749,14 @@ public class RMTxStore implements RMStore {
         }
     }
     public void persistOutgoing(SourceSequence seq, RMMessage msg) {
+        if (isGroupCommitted()) {
+            writeGrouped(new PendingWrite(seq, null, msg));
+        } else {
+            persistOutgoingNow(seq, msg);
+        }
+    }
+
+    private void persistOutgoingNow(SourceSequence seq, RMMessage msg) {
         Connection con = verifyConnection();
         SQLException conex = null;
         try {
@@ -707,6 +782,146 @@ public class RMTxStore implements RMStore {
         }        
     }
     
+    // group commit
+    //
+
+    private boolean isGroupCommitted() {
+        if (!groupCommit) {
+            return false;
+        }
+        if (destroyed) {
+            throw new RMStoreException(new Message("STORE_DESTROYED_EXC", LOG));
+        }
+        return connection != null;
+    }
+
+    private void writeGrouped(PendingWrite write) {
+        Thread writer;
+        synchronized (this) {
+            if (destroyed) {
+                throw new RMStoreException(new Message("STORE_DESTROYED_EXC", LOG));
+            }
+            if (groupCommitWriter == null) {
+                pendingWrites = new LinkedBlockingQueue<PendingWrite>();
+                groupCommitWriter = new Thread(new GroupCommitWriter(pendingWrites), 
+                                               "RMTxStore group commit writer");
+                groupCommitWriter.setDaemon(true);
+                groupCommitWriter.start();
+            }
+            // queued under the lock so that a stopping writer can not miss the write
+            writer = groupCommitWriter;
+            pendingWrites.add(write);
+        }
+        try {
+            while (!write.done.await(WRITER_CHECK_INTERVAL, TimeUnit.MILLISECONDS)) {
+                if (!writer.isAlive() && write.done.getCount() > 0) {
+                    throw new RMStoreException(new Message("GROUP_COMMIT_WRITER_STOPPED_EXC", LOG));
+                }
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new RMStoreException(ex);
+        }
+        if (write.failure != null) {
+            throw new RMStoreException(write.failure);
+        }
+    }
+
+    private void stopGroupCommitWriter() {
+        Thread writer;
+        BlockingQueue<PendingWrite> queue;
+        synchronized (this) {
+            writer = groupCommitWriter;
+            queue = pendingWrites;
+            groupCommitWriter = null;
+            pendingWrites = null;
+        }
+        if (writer != null) {
+            queue.add(PendingWrite.STOP);
+            try {
+                writer.join();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Fails the writes left in the queue of a writer which has stopped. 
+     */
+    private void releasePendingWrites(BlockingQueue<PendingWrite> queue, Throwable failure) {
+        synchronized (this) {
+            if (pendingWrites == queue) {
+                groupCommitWriter = null;
+                pendingWrites = null;
+            }
+        }
+        List<PendingWrite> left = new ArrayList<PendingWrite>();
+        queue.drainTo(left);
+        left.remove(PendingWrite.STOP);
+        if (failure == null) {
+            failure = new RMStoreException(new Message("STORE_DESTROYED_EXC", LOG));
+        }
+        for (PendingWrite write : left) {
+            write.failure = failure;
+            write.done.countDown();
+        }
+    }
+
+    /**
+     * Writes the batch in one transaction. The messages are stored in their arrival order
+     * and each sequence is updated once with its latest state. 
+     */
+    private void flush(List<PendingWrite> batch) {
+        Connection con = null;
+        SQLException conex = null;
+        Throwable failure = null;
+        try {
+            con = verifyConnection();
+            beginTransaction();
+
+            Map<String, PendingWrite> updates = new LinkedHashMap<String, PendingWrite>();
+            for (PendingWrite write : batch) {
+                Identifier sid = write.getIdentifier();
+                if (write.msg != null && write.msg.getContent() != null) {
+                    storeMessage(con, sid, write.msg, write.isOutbound());
+                }
+                updates.put((write.isOutbound() ? "out:" : "in:") + sid.getValue(), write);
+            }
+            for (PendingWrite write : updates.values()) {
+                if (write.isOutbound()) {
+                    updateSourceSequence(con, write.source);
+                } else {
+                    updateDestinationSequence(con, write.destination);
+                }
+            }
+
+            commit(con);
+
+        } catch (SQLException ex) {
+            conex = ex;
+            failure = ex;
+            abort(con);
+        } catch (Throwable ex) {
+            failure = ex;
+            if (con != null) {
+                abort(con);
+            }
+        } finally {
+            try {
+                if (con != null) {
+                    updateConnectionState(con, conex);
+                }
+            } finally {
+                // the message streams are consumed, so the writes of a failed batch are not retried
+                for (PendingWrite write : batch) {
+                    write.failure = failure;
+                    write.done.countDown();
+                }
+            }
+        }
+    }
+
     public void removeMessages(Identifier sid, Collection<Long> messageNrs, boolean outbound) {
         Connection con = verifyConnection();
         PreparedStatement stmt1 = null;
@@ -1217,8 +1432,8 @@ public class RMTxStore implements RMStore {
                 if (createdConnection && nextReconnectAttempt > 0
                     && (maxReconnectAttempts < 0 || maxReconnectAttempts > reconnectAttempts)) {
                     if (System.currentTimeMillis() > nextReconnectAttempt) {
-                        // destroy the broken connection
-                        destroy();
+                        // close the broken connection
+                        closeConnection();
                         // try to reconnect
                         reconnectAttempts++;
                         init();
@@ -1357,4 +1572,82 @@ public class RMTxStore implements RMStore {
         // check for a transient or non-transient connection exception
         return ex.getSQLState() != null && ex.getSQLState().startsWith("08");
     }
+
+    private static final class PendingWrite {
+        static final PendingWrite STOP = new PendingWrite(null, null, null);
+
+        final SourceSequence source;
+        final DestinationSequence destination;
+        final RMMessage msg;
+        final CountDownLatch done = new CountDownLatch(1);
+        volatile Throwable failure;
+
+        PendingWrite(SourceSequence source, DestinationSequence destination, RMMessage msg) {
+            this.source = source;
+            this.destination = destination;
+            this.msg = msg;
+        }
+
+        boolean isOutbound() {
+            return source != null;
+        }
+
+        Identifier getIdentifier() {
+            return source != null ? source.getIdentifier() : destination.getIdentifier();
+        }
+    }
+
+    private final class GroupCommitWriter implements Runnable {
+        private final BlockingQueue<PendingWrite> queue;
+
+        GroupCommitWriter(BlockingQueue<PendingWrite> queue) {
+            this.queue = queue;
+        }
+
+        public void run() {
+            Throwable failure = null;
+            try {
+                process();
+            } catch (Throwable ex) {
+                failure = ex;
+                LogUtils.log(LOG, Level.SEVERE, "GROUP_COMMIT_WRITER_FAILED_MSG", ex);
+            } finally {
+                releasePendingWrites(queue, failure);
+            }
+        }
+
+        private void process() {
+            List<PendingWrite> batch = new ArrayList<PendingWrite>();
+            boolean stopped = false;
+            while (!stopped) {
+                try {
+                    PendingWrite write = queue.take();
+                    long deadline = System.currentTimeMillis() + groupCommitInterval;
+                    while (write != null) {
+                        if (write == PendingWrite.STOP) {
+                            stopped = true;
+                            break;
+                        }
+                        batch.add(write);
+                        if (batch.size() >= groupCommitBatchSize) {
+                            break;
+                        }
+                        long wait = deadline - System.currentTimeMillis();
+                        write = wait > 0 ? queue.poll(wait, TimeUnit.MILLISECONDS) : queue.poll();
+                    }
+                } catch (InterruptedException ex) {
+                    stopped = true;
+                }
+                if (stopped) {
+                    // release the writes queued before the store was destroyed
+                    queue.drainTo(batch);
+                    batch.remove(PendingWrite.STOP);
+                }
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                    batch.clear();
+                }
+            }
+        }
+    }
 }
@@ -29,8 +29,11 @@ import java.util.ListIterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -99,23 +102,34 @@ import org.apache.cxf.ws.rm.v200702.SequenceType;
 import org.apache.cxf.ws.rmp.v200502.RMAssertion;
 
 /**
- * 
+ * Keeps the unacknowledged messages of the source sequences and resends them.
+ *
+ * The candidates of a sequence are guarded by one of a fixed set of locks picked by the
+ * sequence identifier, so that the sequences sharing the queue do not contend with each
+ * other. The resends falling due at the same time for the same destination are coalesced
+ * into a single pass on the executor of the endpoint, which resends them one after the other.
  */
 public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     private static final Logger LOG = LogUtils.getL7dLogger(RetransmissionQueueImpl.class);
+    private static final int LOCK_STRIPES = 16;
 
     private Map<String, List<ResendCandidate>> candidates = 
-        new HashMap<String, List<ResendCandidate>>();
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
     private Map<String, List<ResendCandidate>> suspendedCandidates = 
-        new HashMap<String, List<ResendCandidate>>();
+        new ConcurrentHashMap<String, List<ResendCandidate>>();
+    private final ConcurrentMap<String, ResendPass> passes = new ConcurrentHashMap<String, ResendPass>();
+    private final Object[] locks = new Object[LOCK_STRIPES];
     private Resender resender;
     private RMManager manager;
 
-    private int unacknowledgedCount;
+    private final AtomicInteger unacknowledgedCount = new AtomicInteger();
     
     public RetransmissionQueueImpl(RMManager m) {
         manager = m;
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
     }
 
     public RMManager getManager() {
@@ -134,13 +148,15 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * @param seq the sequence under consideration
      * @return the number of unacknowledged messages for that sequence
      */
-    public synchronized int countUnacknowledged(SourceSequence seq) {
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        return sequenceCandidates == null ? 0 : sequenceCandidates.size();
+    public int countUnacknowledged(SourceSequence seq) {
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            return sequenceCandidates == null ? 0 : sequenceCandidates.size();
+        }
     }
 
     public int countUnacknowledged() {
-        return unacknowledgedCount;
+        return unacknowledgedCount.get();
     }
 
     /**
@@ -174,7 +190,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         Collection<Long> purged = new ArrayList<Long>();
         Collection<ResendCandidate> resends = new ArrayList<ResendCandidate>();
         Identifier sid = seq.getIdentifier();
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             LOG.fine("Start purging resend candidates.");
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
             if (null != sequenceCandidates) {
@@ -184,7 +200,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                     if (any || seq.isAcknowledged(m)) {
                         sequenceCandidates.remove(i);
                         candidate.resolved();
-                        unacknowledgedCount--;
+                        unacknowledgedCount.decrementAndGet();
                         purged.add(m);
                         resends.add(candidate);
                     }
@@ -209,23 +225,27 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
 
     public List<Long> getUnacknowledgedMessageNumbers(SourceSequence seq) {
         List<Long> unacknowledged = new ArrayList<Long>();
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                unacknowledged.add(candidate.getNumber());
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    unacknowledged.add(candidate.getNumber());
+                }
             }
         }
         return unacknowledged;
     }
     
     public RetryStatus getRetransmissionStatus(SourceSequence seq, long num) {
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                if (num == candidate.getNumber()) {
-                    return candidate;
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    if (num == candidate.getNumber()) {
+                        return candidate;
+                    }
                 }
             }
         }
@@ -234,11 +254,13 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     
     public Map<Long, RetryStatus> getRetransmissionStatuses(SourceSequence seq) {
         Map<Long, RetryStatus> cp = new HashMap<Long, RetryStatus>();
-        List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
-        if (null != sequenceCandidates) {
-            for (int i = 0; i < sequenceCandidates.size(); i++) {
-                ResendCandidate candidate = sequenceCandidates.get(i);
-                cp.put(candidate.getNumber(), candidate);
+        synchronized (getLock(seq)) {
+            List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
+            if (null != sequenceCandidates) {
+                for (int i = 0; i < sequenceCandidates.size(); i++) {
+                    ResendCandidate candidate = sequenceCandidates.get(i);
+                    cp.put(candidate.getNumber(), candidate);
+                }
             }
         }
         return cp;
@@ -262,7 +284,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
      * Stops resending messages for the specified source sequence.
      */
     public void stop(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(seq);
             if (null != sequenceCandidates) {
                 for (int i = sequenceCandidates.size() - 1; i >= 0; i--) {
@@ -279,7 +301,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     }
     
     public void suspend(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             String key = seq.getIdentifier().getValue();
             List<ResendCandidate> sequenceCandidates = candidates.remove(key);
             if (null != sequenceCandidates) {
@@ -294,7 +316,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     }
     
     public void resume(SourceSequence seq) {
-        synchronized (this) {
+        synchronized (getLock(seq)) {
             String key = seq.getIdentifier().getValue();
             List<ResendCandidate> sequenceCandidates = suspendedCandidates.remove(key);
             if (null != sequenceCandidates) {
@@ -337,7 +359,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         
         ResendCandidate candidate = null;
         
-        synchronized (this) {
+        synchronized (getLock(key)) {
             List<ResendCandidate> sequenceCandidates = getSequenceCandidates(key);
             if (null == sequenceCandidates) {
                 sequenceCandidates = new ArrayList<ResendCandidate>();
@@ -348,7 +370,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 candidate.suspend();
             }
             sequenceCandidates.add(candidate);
-            unacknowledgedCount++;
+            unacknowledgedCount.incrementAndGet();
         }
         LOG.fine("Cached unacknowledged message.");
         try {
@@ -371,7 +393,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param seq the sequence under consideration
      * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected List<ResendCandidate> getSequenceCandidates(SourceSequence seq) {
         return getSequenceCandidates(seq.getIdentifier().getValue());
@@ -380,7 +402,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param key the sequence identifier under consideration
      * @return the list of resend candidates for that sequence
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected List<ResendCandidate> getSequenceCandidates(String key) {
         List<ResendCandidate> sc = candidates.get(key);
@@ -393,17 +415,114 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
     /**
      * @param key the sequence identifier under consideration
      * @return true if the sequence is currently suspended; false otherwise
-     * @pre called with mutex held
+     * @pre called with the lock of the sequence held
      */
     protected boolean isSequenceSuspended(String key) {
         return suspendedCandidates.containsKey(key);
     }
 
+    /**
+     * @param seq the sequence under consideration
+     * @return the lock guarding the resend candidates of that sequence
+     */
+    protected Object getLock(SourceSequence seq) {
+        return getLock(seq.getIdentifier().getValue());
+    }
+
+    /**
+     * @param key the sequence identifier under consideration
+     * @return the lock guarding the resend candidates of that sequence
+     */
+    protected Object getLock(String key) {
+        return locks[(key.hashCode() & Integer.MAX_VALUE) % locks.length];
+    }
+
+    /**
+     * Hands a due resend over to the pass of its destination, starting the pass on the
+     * executor unless it is already running.
+     */
+    private void enqueueResend(ResendCandidate candidate, Executor executor) {
+        while (true) {
+            ResendPass pass = passes.get(candidate.destination);
+            if (null == pass) {
+                pass = new ResendPass(candidate.destination);
+                ResendPass existing = passes.putIfAbsent(candidate.destination, pass);
+                if (null != existing) {
+                    pass = existing;
+                }
+            }
+            if (pass.add(candidate, executor)) {
+                return;
+            }
+            // the pass has just completed, start another one
+        }
+    }
+
+    /**
+     * Resends the due candidates of a destination one after the other, including the ones
+     * falling due while the pass is running.
+     */
+    private final class ResendPass implements Runnable {
+        private final String destination;
+        private final List<ResendCandidate> due = new ArrayList<ResendCandidate>();
+        private boolean running;
+        private boolean completed;
+
+        ResendPass(String destination) {
+            this.destination = destination;
+        }
+
+        boolean add(ResendCandidate candidate, Executor executor) {
+            synchronized (this) {
+                if (completed) {
+                    return false;
+                }
+                due.add(candidate);
+                if (running) {
+                    return true;
+                }
+                running = true;
+            }
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException ex) {
+                LOG.log(Level.SEVERE, "RESEND_INITIATION_FAILED_MSG", ex);
+                synchronized (this) {
+                    due.clear();
+                    running = false;
+                }
+            }
+            return true;
+        }
+
+        public void run() {
+            while (true) {
+                List<ResendCandidate> batch;
+                synchronized (this) {
+                    if (due.isEmpty()) {
+                        running = false;
+                        completed = true;
+                        passes.remove(destination, this);
+                        return;
+                    }
+                    batch = new ArrayList<ResendCandidate>(due);
+                    due.clear();
+                }
+                LOG.log(Level.FINE, "Resending {0} messages to {1}",
+                        new Object[] {batch.size(), destination});
+                for (ResendCandidate candidate : batch) {
+                    candidate.run();
+                }
+            }
+        }
+    }
+
     /**
      * Represents a candidate for resend, i.e. an unacked outgoing message.
      */
     protected class ResendCandidate implements Runnable, RetryStatus {
         private Message message;
+        private String destination = "";
         private long number;
         private Date next;
         private TimerTask nextTask;
@@ -440,6 +559,9 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 LOG.log(Level.INFO, "Cannot resend to anonymous target.  Not scheduling a resend.");
                 return;
             }
+            if (to != null && null != to.getValue()) {
+                destination = to.getValue();
+            }
             RMProperties rmprops = RMContextUtils.retrieveRMProperties(message, true);
             if (null != rmprops) {
                 number = rmprops.getSequence().getMessageNumber();
@@ -450,7 +572,8 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
         }
 
         /**
-         * Initiate resend asynchronsly.
+         * Initiate resend asynchronsly, together with the other resends to the same
+         * destination which are due.
          * 
          * @param requestAcknowledge true if a AckRequest header is to be sent
          *            with resend
@@ -471,11 +594,7 @@ public class RetransmissionQueueImpl implements RetransmissionQueue {
                 LOG.log(Level.FINE, "Using endpoint executor {0}", executor.getClass().getName());
             }
             
-            try {
-                executor.execute(this);
-            } catch (RejectedExecutionException ex) {
-                LOG.log(Level.SEVERE, "RESEND_INITIATION_FAILED_MSG", ex);
-            }
+            enqueueResend(this, executor);
         }
 
         public void run() {
@@ -0,0 +1,143 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm;
+
+import java.util.Date;
+import java.util.TimerTask;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class HashedWheelTimerTest extends Assert {
+
+    private HashedWheelTimer timer;
+
+    @After
+    public void tearDown() {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    @Test
+    public void testSchedule() throws Exception {
+        timer = new HashedWheelTimer("test", 10L, 4);
+        CountDownLatch latch = new CountDownLatch(3);
+        long start = System.currentTimeMillis();
+        RecordingTask immediate = new RecordingTask(latch);
+        RecordingTask delayed = new RecordingTask(latch);
+        // more than one revolution of the wheel
+        RecordingTask later = new RecordingTask(latch);
+        timer.schedule(immediate, 0L);
+        timer.schedule(delayed, 25L);
+        timer.schedule(later, new Date(start + 200L));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(delayed.time - start >= 25L);
+        assertTrue(later.time - start >= 200L);
+        assertEquals(0, timer.size());
+    }
+
+    @Test
+    public void testScheduledExecutionTime() throws Exception {
+        timer = new HashedWheelTimer("test", 10L, 4);
+        CountDownLatch latch = new CountDownLatch(2);
+        long deadline = System.currentTimeMillis() + 55L;
+        RecordingTask task = new RecordingTask(latch);
+        // past the current revolution of the wheel
+        RecordingTask later = new RecordingTask(latch);
+        timer.schedule(task, new Date(deadline));
+        timer.schedule(later, new Date(deadline + 100L));
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(deadline, task.scheduled);
+        assertTrue(task.time >= deadline);
+        assertEquals(deadline + 100L, later.scheduled);
+        assertTrue(later.time >= deadline + 100L);
+    }
+
+    @Test
+    public void testCancelledTask() throws Exception {
+        timer = new HashedWheelTimer("test", 10L, 4);
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingTask cancelled = new RecordingTask(new CountDownLatch(1));
+        timer.schedule(cancelled, 20L);
+        timer.schedule(new RecordingTask(latch), 50L);
+        assertEquals(2, timer.size());
+        cancelled.cancel();
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(0L, cancelled.time);
+        assertEquals(0, timer.size());
+    }
+
+    @Test
+    public void testPurge() throws Exception {
+        timer = new HashedWheelTimer("test", 10L, 4);
+        CountDownLatch latch = new CountDownLatch(1);
+        RecordingTask cancelled = new RecordingTask(new CountDownLatch(1));
+        RecordingTask kept = new RecordingTask(latch);
+        long start = System.currentTimeMillis();
+        timer.schedule(cancelled, 5000L);
+        timer.schedule(kept, 100L);
+        cancelled.cancel();
+
+        assertEquals(1, timer.purge());
+        assertEquals(0, timer.size());
+        assertTrue(kept.scheduledExecutionTime() >= start + 100L);
+        assertTrue(kept.scheduledExecutionTime() <= System.currentTimeMillis() + 100L);
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(kept.time - start >= 100L);
+        assertEquals(0L, cancelled.time);
+    }
+
+    @Test
+    public void testCancelledTimer() throws Exception {
+        timer = new HashedWheelTimer("test");
+        timer.schedule(new RecordingTask(new CountDownLatch(1)), 5000L);
+        timer.cancel();
+        assertEquals(0, timer.size());
+        try {
+            timer.schedule(new RecordingTask(new CountDownLatch(1)), 5000L);
+            fail("Timer has not been cancelled.");
+        } catch (IllegalStateException ex) {
+            // expected
+        }
+    }
+
+    private static class RecordingTask extends TimerTask {
+        private final CountDownLatch latch;
+        private volatile long time;
+        private volatile long scheduled;
+
+        RecordingTask(CountDownLatch latch) {
+            this.latch = latch;
+        }
+
+        public void run() {
+            scheduled = scheduledExecutionTime();
+            time = System.currentTimeMillis();
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,302 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.rm.persistence.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.cxf.helpers.FileUtils;
+import org.apache.cxf.helpers.IOUtils;
+import org.apache.cxf.ws.rm.DestinationSequence;
+import org.apache.cxf.ws.rm.ProtocolVariation;
+import org.apache.cxf.ws.rm.RMUtils;
+import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
+import org.apache.cxf.ws.rm.v200702.Identifier;
+import org.apache.cxf.ws.rm.v200702.SequenceAcknowledgement;
+import org.easymock.EasyMock;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RMFileStoreTest extends Assert {
+    private static final String CLIENT_ENDPOINT_ID =
+        "{http://apache.org/greeter_control}GreeterService/GreeterPort";
+    private static final String SERVER_ENDPOINT_ID =
+        "{http://apache.org/greeter_control}GreeterService";
+
+    private File dir;
+    private List<RMFileStore> stores = new ArrayList<RMFileStore>();
+
+    @Before
+    public void setUp() {
+        dir = FileUtils.createTmpDir();
+    }
+
+    @After
+    public void tearDown() {
+        for (RMFileStore store : stores) {
+            store.destroy();
+        }
+        FileUtils.removeDir(dir);
+    }
+
+    @Test
+    public void testRecovery() throws Exception {
+        RMFileStore store = createStore(1024 * 1024);
+        Identifier sid1 = createIdentifier("sequence1");
+        SourceSequence src = createSourceSequence(sid1, 3L);
+        store.createSourceSequence(src);
+        for (long i = 1; i <= 3; i++) {
+            store.persistOutgoing(src, createMessage(i, 100));
+        }
+        store.removeMessages(sid1, Collections.singleton(2L), true);
+
+        Identifier sid2 = createIdentifier("sequence2");
+        DestinationSequence dest = createDestinationSequence(sid2);
+        store.createDestinationSequence(dest);
+        store.persistIncoming(dest, createMessage(1L, 100));
+
+        // the first store is not destroyed, as if the process had been killed
+        RMFileStore recovered = createStore(1024 * 1024);
+        SourceSequence rsrc = recovered.getSourceSequence(sid1);
+        assertNotNull(rsrc);
+        assertEquals(3, rsrc.getCurrentMessageNr());
+        assertEquals(1, recovered.getSourceSequences(CLIENT_ENDPOINT_ID).size());
+
+        Collection<RMMessage> out = recovered.getMessages(sid1, true);
+        assertEquals(2, out.size());
+        Iterator<RMMessage> it = out.iterator();
+        checkMessage(it.next(), 1L, 100);
+        checkMessage(it.next(), 3L, 100);
+
+        DestinationSequence rdest = recovered.getDestinationSequence(sid2);
+        assertNotNull(rdest);
+        assertTrue(rdest.isAcknowledged(1));
+        assertFalse(rdest.isAcknowledged(2));
+        assertEquals(1, recovered.getDestinationSequences(SERVER_ENDPOINT_ID).size());
+        assertEquals(1, recovered.getMessages(sid2, false).size());
+
+        recovered.removeDestinationSequence(sid2);
+        assertNull(createStore(1024 * 1024).getDestinationSequence(sid2));
+    }
+
+    @Test
+    public void testCorruptedRecord() throws Exception {
+        RMFileStore store = createStore(1024 * 1024);
+        Identifier sid1 = createIdentifier("sequence1");
+        SourceSequence src = createSourceSequence(sid1, 2L);
+        store.createSourceSequence(src);
+        store.persistOutgoing(src, createMessage(1L, 100));
+        store.persistOutgoing(src, createMessage(2L, 100));
+
+        // corrupt the record of the second message
+        File[] segments = dir.listFiles();
+        assertEquals(1, segments.length);
+        RandomAccessFile raf = new RandomAccessFile(segments[0], "rw");
+        try {
+            List<Long> positions = new ArrayList<Long>();
+            long position = 0;
+            while (true) {
+                raf.seek(position);
+                int length = raf.readInt();
+                if (length == 0) {
+                    break;
+                }
+                positions.add(position);
+                position += 8 + length;
+            }
+            // create, message 1, update, message 2, update
+            assertEquals(5, positions.size());
+            raf.seek(positions.get(3) + 12);
+            int b = raf.read();
+            raf.seek(positions.get(3) + 12);
+            raf.write(b ^ 0xff);
+        } finally {
+            raf.close();
+        }
+
+        RMFileStore recovered = createStore(1024 * 1024);
+        Collection<RMMessage> out = recovered.getMessages(sid1, true);
+        assertEquals(1, out.size());
+        checkMessage(out.iterator().next(), 1L, 100);
+
+        // the corrupted records are overwritten by the next ones
+        recovered.persistOutgoing(src, createMessage(3L, 100));
+        out = createStore(1024 * 1024).getMessages(sid1, true);
+        assertEquals(2, out.size());
+        Iterator<RMMessage> it = out.iterator();
+        checkMessage(it.next(), 1L, 100);
+        checkMessage(it.next(), 3L, 100);
+    }
+
+    @Test
+    public void testCompaction() throws Exception {
+        RMFileStore store = createStore(4096);
+        store.setCompactionRatio(1.0);
+        Identifier sid1 = createIdentifier("sequence1");
+        SourceSequence src = createSourceSequence(sid1, 40L);
+        store.createSourceSequence(src);
+        List<Long> acknowledged = new ArrayList<Long>();
+        for (long i = 1; i <= 40; i++) {
+            store.persistOutgoing(src, createMessage(i, 500));
+            if (i != 20) {
+                acknowledged.add(i);
+            }
+        }
+        store.removeMessages(sid1, acknowledged, true);
+        int before = dir.listFiles().length;
+        assertTrue(before > 1);
+
+        store.compact();
+        assertEquals(1, dir.listFiles().length);
+        Collection<RMMessage> out = store.getMessages(sid1, true);
+        assertEquals(1, out.size());
+        checkMessage(out.iterator().next(), 20L, 500);
+
+        RMFileStore recovered = createStore(4096);
+        out = recovered.getMessages(sid1, true);
+        assertEquals(1, out.size());
+        checkMessage(out.iterator().next(), 20L, 500);
+        assertEquals(40, recovered.getSourceSequence(sid1).getCurrentMessageNr());
+    }
+
+    @Test
+    public void testWritesDuringCompaction() throws Exception {
+        final RMFileStore store = createStore(4096);
+        store.setCompactionRatio(1.0);
+        Identifier sid1 = createIdentifier("sequence1");
+        SourceSequence src = createSourceSequence(sid1, 80L);
+        store.createSourceSequence(src);
+        List<Long> acknowledged = new ArrayList<Long>();
+        for (long i = 1; i <= 40; i++) {
+            store.persistOutgoing(src, createMessage(i, 500));
+            if (i != 20 && i != 30) {
+                acknowledged.add(i);
+            }
+        }
+        store.removeMessages(sid1, acknowledged, true);
+
+        final Exception[] failure = new Exception[1];
+        Thread compactor = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    store.compact();
+                } catch (Exception ex) {
+                    failure[0] = ex;
+                }
+            }
+        });
+        compactor.start();
+        for (long i = 41; i <= 80; i++) {
+            store.persistOutgoing(src, createMessage(i, 500));
+        }
+        store.removeMessages(sid1, Collections.singletonList(30L), true);
+        compactor.join();
+        assertNull(failure[0]);
+
+        List<Long> expected = new ArrayList<Long>();
+        expected.add(20L);
+        for (long i = 41; i <= 80; i++) {
+            expected.add(i);
+        }
+        checkMessages(store.getMessages(sid1, true), expected);
+        checkMessages(createStore(4096).getMessages(sid1, true), expected);
+    }
+
+    private static void checkMessages(Collection<RMMessage> msgs, List<Long> expected) throws Exception {
+        assertEquals(expected.size(), msgs.size());
+        Iterator<RMMessage> it = msgs.iterator();
+        for (Long nr : expected) {
+            checkMessage(it.next(), nr, 500);
+        }
+    }
+
+    private RMFileStore createStore(int segmentSize) {
+        RMFileStore store = new RMFileStore();
+        store.setDirectory(dir.getAbsolutePath());
+        store.setSegmentSize(segmentSize);
+        store.init();
+        stores.add(store);
+        return store;
+    }
+
+    private static Identifier createIdentifier(String value) {
+        Identifier sid = RMUtils.getWSRMFactory().createIdentifier();
+        sid.setValue(value);
+        return sid;
+    }
+
+    private static SourceSequence createSourceSequence(Identifier sid, long currentMessageNr) {
+        SourceSequence seq = EasyMock.createMock(SourceSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+        EasyMock.expect(seq.getExpires()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getOfferingSequenceIdentifier()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        EasyMock.expect(seq.getCurrentMessageNr()).andReturn(currentMessageNr).anyTimes();
+        EasyMock.expect(seq.isLastMessage()).andReturn(false).anyTimes();
+        EasyMock.replay(seq);
+        return seq;
+    }
+
+    private static DestinationSequence createDestinationSequence(Identifier sid) {
+        SequenceAcknowledgement ack = new SequenceAcknowledgement();
+        SequenceAcknowledgement.AcknowledgementRange range =
+            new SequenceAcknowledgement.AcknowledgementRange();
+        range.setLower(1L);
+        range.setUpper(1L);
+        ack.getAcknowledgementRange().add(range);
+
+        DestinationSequence seq = EasyMock.createMock(DestinationSequence.class);
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid).anyTimes();
+        EasyMock.expect(seq.getAcksTo()).andReturn(RMUtils.createAnonymousReference()).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(SERVER_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        EasyMock.expect(seq.getLastMessageNumber()).andReturn(0L).anyTimes();
+        EasyMock.expect(seq.getAcknowledgment()).andReturn(ack).anyTimes();
+        EasyMock.replay(seq);
+        return seq;
+    }
+
+    private static RMMessage createMessage(long nr, int size) {
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(nr);
+        byte[] content = new byte[size];
+        content[0] = (byte)nr;
+        msg.setContent(new ByteArrayInputStream(content));
+        return msg;
+    }
+
+    private static void checkMessage(RMMessage msg, long nr, int size) throws Exception {
+        assertEquals(nr, msg.getMessageNumber());
+        byte[] content = IOUtils.readBytesFromStream(msg.getContent());
+        assertEquals(size, content.length);
+        assertEquals((byte)nr, content[0]);
+    }
+}
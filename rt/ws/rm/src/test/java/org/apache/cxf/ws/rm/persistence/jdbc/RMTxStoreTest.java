@@ -19,11 +19,24 @@
 
 package org.apache.cxf.ws.rm.persistence.jdbc;
 
+import java.io.ByteArrayInputStream;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.cxf.ws.rm.ProtocolVariation;
 import org.apache.cxf.ws.rm.RMUtils;
 import org.apache.cxf.ws.rm.SourceSequence;
+import org.apache.cxf.ws.rm.persistence.RMMessage;
 import org.apache.cxf.ws.rm.persistence.RMStoreException;
 import org.apache.cxf.ws.rm.v200702.Identifier;
 import org.easymock.EasyMock;
@@ -112,6 +125,119 @@ public class RMTxStoreTest extends RMTxStoreTestBase {
         store.removeSourceSequence(sid1);
     }
 
+    @Test
+    public void testGroupCommit() throws Exception {
+        final SourceSequence seq = EasyMock.createMock(SourceSequence.class);
+        Identifier sid1 = RMUtils.getWSRMFactory().createIdentifier();
+        sid1.setValue("sequence1");
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid1).anyTimes();
+        EasyMock.expect(seq.getExpires()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getOfferingSequenceIdentifier()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        EasyMock.expect(seq.getCurrentMessageNr()).andReturn(10L).anyTimes();
+        EasyMock.expect(seq.isLastMessage()).andReturn(false).anyTimes();
+        EasyMock.replay(seq);
+
+        store.setGroupCommit(true);
+        store.createSourceSequence(seq);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        Collection<Long> msgNrs = new ArrayList<Long>();
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>();
+            for (long i = 1; i <= 10; i++) {
+                final RMMessage msg = new RMMessage();
+                msg.setMessageNumber(i);
+                msg.setContent(new ByteArrayInputStream(("Message " + i).getBytes()));
+                msgNrs.add(i);
+                results.add(executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        store.persistOutgoing(seq, msg);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> result : results) {
+                result.get();
+            }
+            // each call returns only after its message is committed
+            assertEquals(10, store.getMessages(sid1, true).size());
+            assertEquals(10, store.getSourceSequence(sid1).getCurrentMessageNr());
+        } finally {
+            executor.shutdown();
+            store.setGroupCommit(false);
+            store.removeMessages(sid1, msgNrs, true);
+            store.removeSourceSequence(sid1);
+        }
+    }
+
+    @Test
+    public void testGroupCommitConnectionFailure() throws Exception {
+        final SourceSequence seq = EasyMock.createMock(SourceSequence.class);
+        Identifier sid1 = RMUtils.getWSRMFactory().createIdentifier();
+        sid1.setValue("sequence2");
+        EasyMock.expect(seq.getIdentifier()).andReturn(sid1).anyTimes();
+        EasyMock.expect(seq.getExpires()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getOfferingSequenceIdentifier()).andReturn(null).anyTimes();
+        EasyMock.expect(seq.getEndpointIdentifier()).andReturn(CLIENT_ENDPOINT_ID).anyTimes();
+        EasyMock.expect(seq.getProtocol()).andReturn(ProtocolVariation.RM10WSA200408).anyTimes();
+        EasyMock.expect(seq.getCurrentMessageNr()).andReturn(1L).anyTimes();
+        EasyMock.expect(seq.isLastMessage()).andReturn(false).anyTimes();
+        EasyMock.replay(seq);
+
+        final FailingRMTxStore failingStore = new FailingRMTxStore();
+        failingStore.setDriverClassName("org.apache.derby.jdbc.EmbeddedDriver");
+        failingStore.init();
+        failingStore.setGroupCommit(true);
+        failingStore.createSourceSequence(seq);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            failingStore.failing = true;
+            Future<Object> result = executor.submit(new Callable<Object>() {
+                public Object call() {
+                    failingStore.persistOutgoing(seq, createMessage(1));
+                    return null;
+                }
+            });
+            try {
+                // the write fails rather than waiting for a writer which has died
+                result.get(10, TimeUnit.SECONDS);
+                fail("Expected RMStoreException was not thrown.");
+            } catch (ExecutionException ex) {
+                assertTrue(ex.getCause() instanceof RMStoreException);
+            }
+
+            // the writer has survived the failed batch
+            failingStore.failing = false;
+            executor.submit(new Callable<Object>() {
+                public Object call() {
+                    failingStore.persistOutgoing(seq, createMessage(2));
+                    return null;
+                }
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals(1, failingStore.getMessages(sid1, true).size());
+
+            failingStore.removeMessages(sid1, Collections.singletonList(2L), true);
+            failingStore.removeSourceSequence(sid1);
+        } finally {
+            executor.shutdown();
+            failingStore.destroy();
+        }
+        try {
+            failingStore.persistOutgoing(seq, createMessage(3));
+            fail("Expected RMStoreException was not thrown.");
+        } catch (RMStoreException ex) {
+            // expected
+        }
+    }
+
+    private static RMMessage createMessage(long nr) {
+        RMMessage msg = new RMMessage();
+        msg.setMessageNumber(nr);
+        msg.setContent(new ByteArrayInputStream(("Message " + nr).getBytes()));
+        return msg;
+    }
+
     @Override
     protected Connection getConnection() {
         return store.verifyConnection();
@@ -121,4 +247,17 @@ public class RMTxStoreTest extends RMTxStoreTestBase {
     protected void releaseConnection(Connection con) {
         // the connection is held in the store, so not close it until the store is disposed.
     }
+
+    private static class FailingRMTxStore extends RMTxStore {
+        private volatile boolean failing;
+
+        @Override
+        protected Connection verifyConnection() {
+            if (failing) {
+                // a failed reconnect reports the SQLException of init
+                throw new RMStoreException(new SQLException("Connection refused", "08001"));
+            }
+            return super.verifyConnection();
+        }
+    }
 }
\ No newline at end of file
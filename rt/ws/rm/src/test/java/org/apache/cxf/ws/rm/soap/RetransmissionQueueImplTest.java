@@ -26,6 +26,8 @@ import java.util.List;
 import java.util.concurrent.Executor;
 
 import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.endpoint.Endpoint;
+import org.apache.cxf.message.Exchange;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.ws.rm.RMConfiguration;
 import org.apache.cxf.ws.rm.RMEndpoint;
@@ -351,6 +353,44 @@ public class RetransmissionQueueImplTest extends Assert {
                      queue.countUnacknowledged(sequence));
     }
     
+    @Test
+    public void testResendsCoalescedPerDestination() {
+        SoapMessage message1 = createMock(SoapMessage.class);
+        setupMessagePolicies(message1);
+        SoapMessage message2 = createMock(SoapMessage.class);
+        setupMessagePolicies(message2);
+        RecordingExecutor passes = new RecordingExecutor();
+        setupExecutor(message1, passes);
+        setupExecutor(message2, passes);
+        ready(true);
+
+        RetransmissionQueueImpl.ResendCandidate candidate1 = queue.createResendCandidate(message1);
+        RetransmissionQueueImpl.ResendCandidate candidate2 = queue.createResendCandidate(message2);
+        candidate1.initiate(false);
+        candidate2.initiate(true);
+        assertEquals("expected a single pass", 1, passes.tasks.size());
+        assertTrue(candidate1.isPending());
+        assertTrue(candidate2.isPending());
+        assertTrue(resender.resent.isEmpty());
+
+        passes.tasks.get(0).run();
+        assertEquals(2, resender.resent.size());
+        assertSame(message1, resender.resent.get(0));
+        assertSame(message2, resender.resent.get(1));
+        assertTrue(resender.includeAckRequested);
+        assertFalse(candidate1.isPending());
+        assertFalse(candidate2.isPending());
+        assertEquals(1, candidate1.getRetries());
+        assertEquals(1, candidate2.getRetries());
+
+        // the completed pass is not reused
+        candidate1.initiate(false);
+        assertEquals(2, passes.tasks.size());
+        passes.tasks.get(1).run();
+        assertEquals(3, resender.resent.size());
+        assertEquals(2, candidate1.getRetries());
+    }
+
     @Test
     public void testStartStop() {
         control.replay();
@@ -378,6 +418,14 @@ public class RetransmissionQueueImplTest extends Assert {
         cfg.setExponentialBackoff(true);
     }
     
+    private void setupExecutor(Message message, Executor ex) {
+        Exchange exchange = createMock(Exchange.class);
+        EasyMock.expect(message.getExchange()).andReturn(exchange).anyTimes();
+        Endpoint ep = createMock(Endpoint.class);
+        EasyMock.expect(exchange.getEndpoint()).andReturn(ep).anyTimes();
+        EasyMock.expect(ep.getExecutor()).andReturn(ex).anyTimes();
+    }
+
     private void setupRetryPolicy(Message message) {
 
         SourcePolicyType spt = control.createMock(SourcePolicyType.class);
@@ -463,15 +511,26 @@ public class RetransmissionQueueImplTest extends Assert {
     static class TestResender implements RetransmissionQueueImpl.Resender {
         Message message;
         boolean includeAckRequested;
+        List<Message> resent = new ArrayList<Message>();
         
         public void resend(Message ctx, boolean requestAcknowledge) {
             message = ctx;
             includeAckRequested = requestAcknowledge;
+            resent.add(ctx);
         }
         
         void clear() {
             message = null;
             includeAckRequested = false;            
+            resent.clear();
         }
     };
+
+    static class RecordingExecutor implements Executor {
+        List<Runnable> tasks = new ArrayList<Runnable>();
+
+        public void execute(Runnable task) {
+            tasks.add(task);
+        }
+    }
 }
@@ -87,10 +87,22 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
     /**
      * Whether to enable streaming WS-Security. If set to false (the default), the old DOM
      * implementation is used. If set to true, the new streaming (StAX) implementation is used.
+     * If set to "auto", the streaming implementation is used for the messages for which it
+     * supports all of the applicable WS-SecurityPolicy assertions, and the DOM implementation
+     * for the others. This only selects the implementation, it does not extend the coverage
+     * of the streaming implementation: the secure conversation and SPNEGO bootstrap, the
+     * endorsing supporting tokens and the XPath based element protection are still only
+     * enforced by the DOM implementation.
      */
     public static final String ENABLE_STREAMING_SECURITY = 
         "ws-security.enable.streaming";
     
+    /**
+     * The value of the ENABLE_STREAMING_SECURITY property to select the implementation
+     * depending on the security policy of the message.
+     */
+    public static final String STREAMING_SECURITY_AUTO = "auto";
+    
     /**
      * Whether to return the security error message to the client, and not the default error message.
      * The "real" security errors should not be returned to the client in a deployment scenario,
@@ -179,6 +191,19 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
     public static final String CACHE_CONFIG_FILE = 
         "ws-security.cache.config.file";
     
+    /**
+     * Set this property to "memory" to use the built-in replay cache for the nonce, timestamp and
+     * SAML OneTimeUse caches instead of EHCache. It only keeps a digest of each cached identifier,
+     * in buckets which are dropped as a whole once they expire. It is also the default if EHCache
+     * is not available.
+     */
+    public static final String REPLAY_CACHE_TYPE = "ws-security.replay.cache.type";
+    
+    /**
+     * The value of the REPLAY_CACHE_TYPE property to select the built-in replay cache.
+     */
+    public static final String REPLAY_CACHE_TYPE_MEMORY = "memory";
+    
     /**
      * The TokenStore instance to use to cache security tokens. By default this uses the
      * EHCacheTokenStore if EhCache is available. Otherwise it uses the MemoryTokenStore.
@@ -509,7 +534,7 @@ public final class SecurityConstants extends org.apache.cxf.rt.security.Security
             CACHE_IDENTIFIER, CACHE_ISSUED_TOKEN_IN_ENDPOINT, PREFER_WSMEX_OVER_STS_CLIENT_CONFIG,
             DELEGATED_CREDENTIAL, KERBEROS_USE_CREDENTIAL_DELEGATION, 
             KERBEROS_IS_USERNAME_IN_SERVICENAME_FORM, STS_TOKEN_IMMINENT_EXPIRY_VALUE,
-            KERBEROS_REQUEST_CREDENTIAL_DELEGATION, POLICY_VALIDATOR_MAP
+            KERBEROS_REQUEST_CREDENTIAL_DELEGATION, POLICY_VALIDATOR_MAP, REPLAY_CACHE_TYPE
         }));
         for (String commonProperty : COMMON_PROPERTIES) {
             s.add(commonProperty);
@@ -33,7 +33,6 @@ import org.apache.cxf.common.logging.LogUtils;
 import org.apache.cxf.helpers.CastUtils;
 import org.apache.cxf.interceptor.Fault;
 import org.apache.cxf.message.Message;
-import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.phase.AbstractPhaseInterceptor;
 import org.apache.cxf.phase.Phase;
 import org.apache.cxf.ws.policy.AbstractPolicyInterceptorProvider;
@@ -51,6 +50,7 @@ import org.apache.cxf.ws.security.wss4j.PolicyBasedWSS4JStaxInInterceptor;
 import org.apache.cxf.ws.security.wss4j.PolicyBasedWSS4JStaxOutInterceptor;
 import org.apache.cxf.ws.security.wss4j.StaxSecurityContextInInterceptor;
 import org.apache.cxf.ws.security.wss4j.WSS4JInInterceptor;
+import org.apache.cxf.ws.security.wss4j.WSS4JUtils;
 import org.apache.cxf.ws.security.wss4j.policyvalidators.PolicyValidatorParameters;
 import org.apache.cxf.ws.security.wss4j.policyvalidators.SecurityPolicyValidator;
 import org.apache.wss4j.common.ext.WSSecurityException;
@@ -161,8 +161,7 @@ public class KerberosTokenInterceptorProvider extends AbstractPolicyInterceptorP
             AssertionInfoMap aim = message.get(AssertionInfoMap.class);
             // extract Assertion information
             
-            boolean enableStax = 
-                MessageUtils.isTrue(message.getContextualProperty(SecurityConstants.ENABLE_STREAMING_SECURITY));
+            boolean enableStax = WSS4JUtils.isStreamingSecurityEnabled(message);
             if (aim != null && !enableStax) {
                 Collection<AssertionInfo> ais = 
                     PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.KERBEROS_TOKEN);
@@ -223,8 +222,7 @@ public class KerberosTokenInterceptorProvider extends AbstractPolicyInterceptorP
             AssertionInfoMap aim = message.get(AssertionInfoMap.class);
             // extract Assertion information
             
-            boolean enableStax = 
-                MessageUtils.isTrue(message.getContextualProperty(SecurityConstants.ENABLE_STREAMING_SECURITY));
+            boolean enableStax = WSS4JUtils.isStreamingSecurityEnabled(message);
             if (aim != null && enableStax) {
                 Collection<AssertionInfo> ais = 
                     PolicyUtils.getAllAssertionsByLocalname(aim, SPConstants.KERBEROS_TOKEN);
@@ -0,0 +1,93 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.tokenstore;
+
+import java.lang.ref.WeakReference;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.management.ManagedComponent;
+import org.apache.cxf.management.ManagementConstants;
+import org.apache.cxf.management.annotation.ManagedAttribute;
+import org.apache.cxf.management.annotation.ManagedResource;
+
+/**
+ * Exposes the counters of a MemoryTokenStore. The store is only held weakly, so that the
+ * registered bean does not keep it from being evicted, and it is unregistered once the
+ * store has been closed or garbage collected.
+ */
+@ManagedResource(componentName = "TokenStore", 
+                 description = "The in-memory token store")
+public class ManagedMemoryTokenStore implements ManagedComponent {
+    private static final String TYPE_VALUE = "TokenStore";
+    
+    private final WeakReference<MemoryTokenStore> store;
+    private final int storeId;
+    private final String key;
+    private final Bus bus;
+    
+    public ManagedMemoryTokenStore(MemoryTokenStore store, String key, Bus bus) {
+        this.store = new WeakReference<MemoryTokenStore>(store);
+        this.storeId = store.hashCode();
+        this.key = key;
+        this.bus = bus;
+    }
+    
+    @ManagedAttribute(description = "The number of tokens")
+    public int getSize() {
+        MemoryTokenStore s = store.get();
+        return s == null ? 0 : s.size();
+    }
+    
+    @ManagedAttribute(description = "The maximum number of tokens")
+    public int getMaxSize() {
+        MemoryTokenStore s = store.get();
+        return s == null ? 0 : s.getMaxSize();
+    }
+    
+    @ManagedAttribute(description = "The number of tokens found")
+    public long getHitCount() {
+        MemoryTokenStore s = store.get();
+        return s == null ? 0 : s.getHitCount();
+    }
+    
+    @ManagedAttribute(description = "The number of tokens not found or expired")
+    public long getMissCount() {
+        MemoryTokenStore s = store.get();
+        return s == null ? 0 : s.getMissCount();
+    }
+    
+    @ManagedAttribute(description = "The number of tokens evicted as expired or least recently used")
+    public long getEvictionCount() {
+        MemoryTokenStore s = store.get();
+        return s == null ? 0 : s.getEvictionCount();
+    }
+    
+    public ObjectName getObjectName() throws JMException {
+        String busId = bus == null ? Bus.DEFAULT_BUS_ID : bus.getId();
+        return new ObjectName(ManagementConstants.DEFAULT_DOMAIN_NAME + ':'
+                              + ManagementConstants.BUS_ID_PROP + '=' + busId + ','
+                              + ManagementConstants.TYPE_PROP + '=' + TYPE_VALUE + ','
+                              + ManagementConstants.NAME_PROP + '=' + ObjectName.quote(key) + ','
+                              + ManagementConstants.INSTANCE_ID_PROP + '=' + storeId);
+    }
+}
@@ -19,29 +19,89 @@
 
 package org.apache.cxf.ws.security.tokenstore;
 
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.buslifecycle.BusLifeCycleListener;
+import org.apache.cxf.buslifecycle.BusLifeCycleManager;
 import org.apache.cxf.common.util.StringUtils;
 
 /**
  * A simple HashMap-based TokenStore. The default TTL is 5 minutes and the max TTL is 1 hour.
+ * A token whose own expiry is later than the default TTL is kept until it expires, up to
+ * the max TTL.
+ * 
+ * The tokens are indexed by the second they expire in, the expired seconds are evicted
+ * in the background and by getTokenIdentifiers, and an expired token is never returned
+ * by getToken. Once the store holds more than the max size tokens, the least recently
+ * used one is evicted.
+ * 
+ * The background eviction of all of the stores shares one thread, which is stopped once
+ * the last store has been closed or garbage collected. A store created with a bus is
+ * closed when the bus shuts down.
  */
-public class MemoryTokenStore implements TokenStore {
+public class MemoryTokenStore implements TokenStore, Closeable {
     public static final long DEFAULT_TTL = 60L * 5L;
     public static final long MAX_TTL = DEFAULT_TTL * 12L;
+    public static final int DEFAULT_MAX_SIZE = 10000;
     
-    private Map<String, CacheEntry> tokens = new ConcurrentHashMap<>();
+    private static final long BUCKET_MILLIS = 1000L;
+    private static final long EVICTION_INTERVAL = 5000L;
+    private static ScheduledThreadPoolExecutor evictionExecutor;
+    private static int openStores;
+    
+    // the tokens in access order, guarded by themselves together with the expiry index
+    private final Map<String, CacheEntry> tokens = new LinkedHashMap<String, CacheEntry>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CacheEntry> eldest) {
+            if (size() > maxSize) {
+                unindex(eldest.getKey(), eldest.getValue());
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+    private final NavigableMap<Long, Set<String>> expiryIndex = new TreeMap<Long, Set<String>>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final EvictionTask evictionTask;
     private long ttl = DEFAULT_TTL;
+    private volatile int maxSize = DEFAULT_MAX_SIZE;
+    
+    public MemoryTokenStore() {
+        this(null);
+    }
+    
+    public MemoryTokenStore(Bus bus) {
+        evictionTask = new EvictionTask(this, bus);
+    }
     
     public void add(SecurityToken token) {
         if (token != null && !StringUtils.isEmpty(token.getId())) {
-            CacheEntry cacheEntry = createCacheEntry(token);
-            if (cacheEntry != null) {
-                tokens.put(token.getId(), cacheEntry);
-            }
+            add(token.getId(), token);
         }
     }
     
@@ -49,7 +109,13 @@ public class MemoryTokenStore implements TokenStore {
         if (token != null && !StringUtils.isEmpty(identifier)) {
             CacheEntry cacheEntry = createCacheEntry(token);
             if (cacheEntry != null) {
-                tokens.put(identifier, cacheEntry);
+                synchronized (tokens) {
+                    CacheEntry oldEntry = tokens.put(identifier, cacheEntry);
+                    if (oldEntry != null) {
+                        unindex(identifier, oldEntry);
+                    }
+                    index(identifier, cacheEntry);
+                }
             }
         }
     }
@@ -62,43 +128,244 @@ public class MemoryTokenStore implements TokenStore {
         ttl = newTtl;
     }
     
+    /**
+     * Set the maximum number of tokens, the least recently used tokens are evicted
+     * once the store holds more tokens
+     * @param newMaxSize the maximum number of tokens
+     */
+    public void setMaxSize(int newMaxSize) {
+        maxSize = newMaxSize;
+    }
+    
+    public int getMaxSize() {
+        return maxSize;
+    }
+    
     public void remove(String identifier) {
-        if (!StringUtils.isEmpty(identifier) && tokens.containsKey(identifier)) {
-            tokens.remove(identifier);
+        if (!StringUtils.isEmpty(identifier)) {
+            synchronized (tokens) {
+                CacheEntry cacheEntry = tokens.remove(identifier);
+                if (cacheEntry != null) {
+                    unindex(identifier, cacheEntry);
+                }
+            }
         }
     }
 
     public Collection<String> getTokenIdentifiers() {
         processTokenExpiry();
-        return tokens.keySet();
+        synchronized (tokens) {
+            return new ArrayList<String>(tokens.keySet());
+        }
     }
     
     public SecurityToken getToken(String id) {
-        processTokenExpiry();
-        
-        CacheEntry cacheEntry = tokens.get(id);
-        if (cacheEntry != null) {
-            return cacheEntry.getSecurityToken();
+        if (id != null) {
+            synchronized (tokens) {
+                CacheEntry cacheEntry = tokens.get(id);
+                if (cacheEntry != null) {
+                    if (cacheEntry.getExpiry().getTime() > System.currentTimeMillis()) {
+                        hits.incrementAndGet();
+                        return cacheEntry.getSecurityToken();
+                    }
+                    tokens.remove(id);
+                    unindex(id, cacheEntry);
+                    evictions.incrementAndGet();
+                }
+            }
         }
+        misses.incrementAndGet();
         return null;
     }
     
+    public int size() {
+        synchronized (tokens) {
+            return tokens.size();
+        }
+    }
+    
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+    
+    /**
+     * Removes all of the tokens and stops the background eviction of this store.
+     */
+    public void close() {
+        evictionTask.stop();
+        synchronized (tokens) {
+            tokens.clear();
+            expiryIndex.clear();
+        }
+    }
+    
+    /**
+     * Run the given task once this store has been closed or garbage collected. The task
+     * must not refer to the store.
+     */
+    void runOnClose(Runnable task) {
+        evictionTask.closeTasks.add(task);
+    }
+    
+    /**
+     * Returns the number of the identifiers in the expiry index.
+     */
+    int getIndexedCount() {
+        synchronized (tokens) {
+            int count = 0;
+            for (Set<String> identifiers : expiryIndex.values()) {
+                count += identifiers.size();
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Returns the number of the stores evicted in the background, 0 once the eviction
+     * thread has been stopped.
+     */
+    static synchronized int getOpenStoreCount() {
+        return evictionExecutor == null ? 0 : openStores;
+    }
+    
+    /**
+     * Evicts the tokens indexed in the seconds which are over.
+     */
     protected void processTokenExpiry() {
-        Date current = new Date();
+        long current = System.currentTimeMillis();
         synchronized (tokens) {
-            for (Map.Entry<String, CacheEntry> entry : tokens.entrySet()) {
-                if (entry.getValue().getExpiry().before(current)) {
-                    tokens.remove(entry.getKey());
+            Iterator<Map.Entry<Long, Set<String>>> buckets = 
+                expiryIndex.headMap(current / BUCKET_MILLIS).entrySet().iterator();
+            while (buckets.hasNext()) {
+                for (String identifier : buckets.next().getValue()) {
+                    if (tokens.remove(identifier) != null) {
+                        evictions.incrementAndGet();
+                    }
                 }
+                buckets.remove();
             }
         }
     }
     
+    private void index(String identifier, CacheEntry cacheEntry) {
+        Long bucket = cacheEntry.getExpiry().getTime() / BUCKET_MILLIS;
+        Set<String> identifiers = expiryIndex.get(bucket);
+        if (identifiers == null) {
+            identifiers = new HashSet<String>();
+            expiryIndex.put(bucket, identifiers);
+        }
+        identifiers.add(identifier);
+    }
+    
+    private void unindex(String identifier, CacheEntry cacheEntry) {
+        Long bucket = cacheEntry.getExpiry().getTime() / BUCKET_MILLIS;
+        Set<String> identifiers = expiryIndex.get(bucket);
+        if (identifiers != null && identifiers.remove(identifier) && identifiers.isEmpty()) {
+            expiryIndex.remove(bucket);
+        }
+    }
+    
     private CacheEntry createCacheEntry(SecurityToken token) {
-        Date expires = new Date();
-        long currentTime = expires.getTime();
-        expires.setTime(currentTime + (ttl * 1000L));
-        return new CacheEntry(token, expires);
+        long currentTime = System.currentTimeMillis();
+        long expiry = currentTime + (ttl * 1000L);
+        Date tokenExpires = token.getExpires();
+        if (tokenExpires != null && tokenExpires.getTime() > expiry) {
+            expiry = Math.min(tokenExpires.getTime(), currentTime + (MAX_TTL * 1000L));
+        }
+        return new CacheEntry(token, new Date(expiry));
+    }
+    
+    private static synchronized ScheduledFuture<?> scheduleEviction(Runnable task) {
+        if (evictionExecutor == null) {
+            evictionExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "MemoryTokenStore-eviction");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            evictionExecutor.setRemoveOnCancelPolicy(true);
+        }
+        openStores++;
+        return evictionExecutor.scheduleWithFixedDelay(task, EVICTION_INTERVAL, EVICTION_INTERVAL, 
+                                                       TimeUnit.MILLISECONDS);
+    }
+    
+    private static synchronized void cancelEviction(ScheduledFuture<?> future) {
+        future.cancel(false);
+        if (--openStores == 0) {
+            evictionExecutor.shutdown();
+            evictionExecutor = null;
+        }
+    }
+    
+    /**
+     * Evicts the expired tokens of a store in the background. The task does not keep the
+     * store from being garbage collected, and stops once the store has been closed or
+     * collected, or the bus has been shut down.
+     */
+    private static final class EvictionTask implements Runnable, BusLifeCycleListener {
+        private final WeakReference<MemoryTokenStore> store;
+        private final Bus bus;
+        private final List<Runnable> closeTasks = new CopyOnWriteArrayList<Runnable>();
+        private final AtomicBoolean stopped = new AtomicBoolean();
+        private final ScheduledFuture<?> future;
+        
+        EvictionTask(MemoryTokenStore s, Bus bus) {
+            this.store = new WeakReference<MemoryTokenStore>(s);
+            this.bus = bus;
+            BusLifeCycleManager manager = bus == null ? null : bus.getExtension(BusLifeCycleManager.class);
+            if (manager != null) {
+                manager.registerLifeCycleListener(this);
+            }
+            this.future = scheduleEviction(this);
+        }
+        
+        public void run() {
+            MemoryTokenStore s = store.get();
+            if (s == null) {
+                stop();
+            } else {
+                s.processTokenExpiry();
+            }
+        }
+        
+        void stop() {
+            if (!stopped.compareAndSet(false, true)) {
+                return;
+            }
+            cancelEviction(future);
+            BusLifeCycleManager manager = bus == null ? null : bus.getExtension(BusLifeCycleManager.class);
+            if (manager != null) {
+                manager.unregisterLifeCycleListener(this);
+            }
+            for (Runnable closeTask : closeTasks) {
+                closeTask.run();
+            }
+        }
+        
+        public void initComplete() {
+        }
+        
+        public void preShutdown() {
+            MemoryTokenStore s = store.get();
+            if (s != null) {
+                s.close();
+            } else {
+                stop();
+            }
+        }
+        
+        public void postShutdown() {
+        }
     }
     
     private static class CacheEntry {
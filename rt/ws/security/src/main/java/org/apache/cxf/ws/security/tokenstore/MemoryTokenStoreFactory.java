@@ -19,16 +19,50 @@
 
 package org.apache.cxf.ws.security.tokenstore;
 
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.management.JMException;
+
+import org.apache.cxf.Bus;
+import org.apache.cxf.common.logging.LogUtils;
+import org.apache.cxf.management.InstrumentationManager;
 import org.apache.cxf.message.Message;
 
 
 /**
- * A factory to return a MemoryTokenStore instance.
+ * A factory to return a MemoryTokenStore instance. The counters of the store are 
+ * registered with the InstrumentationManager of the bus if there is one, and unregistered
+ * once the store has been closed or garbage collected. The store is closed when the bus
+ * shuts down.
  */
 public class MemoryTokenStoreFactory extends TokenStoreFactory {
+    private static final Logger LOG = LogUtils.getLogger(MemoryTokenStoreFactory.class);
     
     public TokenStore newTokenStore(String key, Message message) {
-        return new MemoryTokenStore();
+        Bus bus = message.getExchange() == null ? null : message.getExchange().getBus();
+        MemoryTokenStore store = new MemoryTokenStore(bus);
+        InstrumentationManager manager = bus == null ? null : bus.getExtension(InstrumentationManager.class);
+        if (manager != null) {
+            final InstrumentationManager theManager = manager;
+            final ManagedMemoryTokenStore mbean = new ManagedMemoryTokenStore(store, key, bus);
+            try {
+                manager.register(mbean);
+                store.runOnClose(new Runnable() {
+                    public void run() {
+                        try {
+                            theManager.unregister(mbean);
+                        } catch (JMException ex) {
+                            // already unregistered on bus shutdown
+                            LOG.log(Level.FINE, "Unregistering ManagedMemoryTokenStore failed.", ex);
+                        }
+                    }
+                });
+            } catch (JMException ex) {
+                LOG.log(Level.WARNING, "Registering ManagedMemoryTokenStore failed.", ex);
+            }
+        }
+        return store;
     }
     
 }
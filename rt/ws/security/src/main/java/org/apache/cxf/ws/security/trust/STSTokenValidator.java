@@ -21,6 +21,7 @@ package org.apache.cxf.ws.security.trust;
 
 import java.io.IOException;
 import java.util.Arrays;
+import java.util.Date;
 import java.util.List;
 
 import javax.security.auth.callback.Callback;
@@ -50,6 +51,9 @@ import org.apache.wss4j.dom.validate.Validator;
  * credentials are used depending on the security policy of the STS endpoint (e.g. in a 
  * UsernameToken if this is what the policy requires). Setting "useOnBehalfOf" to "false" + 
  * "useIssueBinding" to "true" only works for validating UsernameTokens.
+ * 
+ * The results of the validations can be cached by setting a ValidatedTokenCache, which is
+ * not done by default.
  */
 public class STSTokenValidator implements Validator {
     private STSSamlAssertionValidator samlValidator = new STSSamlAssertionValidator();
@@ -59,6 +63,7 @@ public class STSTokenValidator implements Validator {
     private STSClient stsClient;
     private TokenStore tokenStore;
     private boolean disableCaching;
+    private ValidatedTokenCache validationCache;
     
     public STSTokenValidator() {
     }
@@ -73,7 +78,15 @@ public class STSTokenValidator implements Validator {
     
     public Credential validate(Credential credential, RequestData data) throws WSSecurityException {
         
+        String digest = getValidationCacheKey(credential);
+        if (digest != null && isValidatedInCache(credential, digest)) {
+            return credential;
+        }
+        
         if (isValidatedLocally(credential, data)) {
+            if (digest != null) {
+                validationCache.addValid(digest, getExpires(credential), null);
+            }
             return credential;
         }
         
@@ -81,6 +94,15 @@ public class STSTokenValidator implements Validator {
     }
     
     public Credential validateWithSTS(Credential credential, Message message) throws WSSecurityException {
+        String digest = getValidationCacheKey(credential);
+        if (digest != null && isValidatedInCache(credential, digest)) {
+            return credential;
+        }
+        return validateWithSTS(credential, message, digest);
+    }
+    
+    private Credential validateWithSTS(Credential credential, Message message, String digest)
+        throws WSSecurityException {
         
         try {
             SecurityToken token = new SecurityToken();
@@ -147,8 +169,16 @@ public class STSTokenValidator implements Validator {
                     c.getProperties().remove(SecurityConstants.USERNAME);
                     c.getProperties().remove(SecurityConstants.PASSWORD);
                 } else {
-                    List<SecurityToken> tokens = c.validateSecurityToken(token);
-                    returnedToken = tokens.get(0);
+                    try {
+                        List<SecurityToken> tokens = c.validateSecurityToken(token);
+                        returnedToken = tokens.get(0);
+                    } catch (TrustException ex) {
+                        // the STS has reported the token as invalid
+                        if (digest != null) {
+                            validationCache.addInvalid(digest);
+                        }
+                        throw ex;
+                    }
                 }
                 
                 if (returnedToken != token) {
@@ -161,6 +191,19 @@ public class STSTokenValidator implements Validator {
                         ts.add(Integer.toString(hash), token);
                     }
                 }
+                if (digest != null) {
+                    Date expires = getExpires(credential);
+                    Element transformedToken = null;
+                    if (returnedToken != token) {
+                        transformedToken = returnedToken.getToken();
+                        Date transformedExpires = returnedToken.getExpires();
+                        if (expires == null
+                            || transformedExpires != null && transformedExpires.before(expires)) {
+                            expires = transformedExpires;
+                        }
+                    }
+                    validationCache.addValid(digest, expires, transformedToken);
+                }
                 return credential;
             }
         } catch (RuntimeException e) {
@@ -194,6 +237,75 @@ public class STSTokenValidator implements Validator {
         return false;
     }
 
+    /**
+     * Return the key of the token of the credential in the validation cache, or null if the
+     * validation of this token is not to be cached.
+     */
+    private String getValidationCacheKey(Credential credential) {
+        if (disableCaching || validationCache == null) {
+            return null;
+        }
+        Element tokenElement = null;
+        if (credential.getSamlAssertion() != null) {
+            if (isOneTimeUse(credential.getSamlAssertion())) {
+                return null;
+            }
+            tokenElement = credential.getSamlAssertion().getElement();
+        } else if (credential.getUsernametoken() != null) {
+            tokenElement = credential.getUsernametoken().getElement();
+        } else if (credential.getBinarySecurityToken() != null) {
+            tokenElement = credential.getBinarySecurityToken().getElement();
+        } else if (credential.getSecurityContextToken() != null) {
+            tokenElement = credential.getSecurityContextToken().getElement();
+        }
+        if (tokenElement == null) {
+            return null;
+        }
+        return ValidatedTokenCache.getDigest(tokenElement);
+    }
+    
+    private boolean isValidatedInCache(Credential credential, String digest) throws WSSecurityException {
+        ValidatedTokenCache.Entry entry = validationCache.get(digest);
+        if (entry == null) {
+            return false;
+        }
+        if (!entry.isValid()) {
+            if (credential.getSamlAssertion() != null) {
+                throw new WSSecurityException(WSSecurityException.ErrorCode.FAILURE, "invalidSAMLsecurity");
+            }
+            throw new WSSecurityException(WSSecurityException.ErrorCode.FAILED_AUTHENTICATION);
+        }
+        if (entry.getTransformedToken() != null) {
+            SamlAssertionWrapper assertion = new SamlAssertionWrapper(entry.getTransformedToken());
+            credential.setPrincipal(new SAMLTokenPrincipalImpl(assertion));
+            credential.setTransformedToken(assertion);
+        }
+        return true;
+    }
+    
+    // The replay of an assertion with "OneTimeUse" set must be detected by the validation,
+    // so it is never cached
+    private static boolean isOneTimeUse(SamlAssertionWrapper assertion) {
+        return assertion.getSaml2() != null && assertion.getSaml2().getConditions() != null
+            && assertion.getSaml2().getConditions().getOneTimeUse() != null;
+    }
+    
+    private static Date getExpires(Credential credential) {
+        SamlAssertionWrapper assertion = credential.getSamlAssertion();
+        if (assertion == null) {
+            return null;
+        }
+        if (assertion.getSaml2() != null && assertion.getSaml2().getConditions() != null
+            && assertion.getSaml2().getConditions().getNotOnOrAfter() != null) {
+            return assertion.getSaml2().getConditions().getNotOnOrAfter().toDate();
+        }
+        if (assertion.getSaml1() != null && assertion.getSaml1().getConditions() != null
+            && assertion.getSaml1().getConditions().getNotOnOrAfter() != null) {
+            return assertion.getSaml1().getConditions().getNotOnOrAfter().toDate();
+        }
+        return null;
+    }
+
     private SecurityToken getTransformedToken(TokenStore ts, int hash) {
         SecurityToken recoveredToken = ts.getToken(Integer.toString(hash));
         if (recoveredToken != null && recoveredToken.getTokenHash() == hash) {
@@ -245,6 +357,22 @@ public class STSTokenValidator implements Validator {
         this.disableCaching = disableCaching;
     }
 
+    public ValidatedTokenCache getValidationCache() {
+        return validationCache;
+    }
+
+    /**
+     * Set the cache of the validation results, which may be shared with other validators with
+     * the same configuration. The results are not cached by default.
+     * 
+     * Note that the cache is not notified of the tokens revoked by the STS: a revoked token
+     * remains accepted until its cached result expires (see ValidatedTokenCache.setMaxTTL), 
+     * unless the application removes it with one of the ValidatedTokenCache.invalidate methods.
+     */
+    public void setValidationCache(ValidatedTokenCache validationCache) {
+        this.validationCache = validationCache;
+    }
+
     private static class ElementCallbackHandler implements CallbackHandler {
         
         private final Element tokenElement;
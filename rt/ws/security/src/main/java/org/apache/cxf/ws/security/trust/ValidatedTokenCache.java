@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.trust;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.w3c.dom.Element;
+
+import org.apache.cxf.common.util.Base64Utility;
+import org.apache.wss4j.common.util.DOM2Writer;
+
+/**
+ * A cache of the results of the validation of received tokens, keyed by the SHA-256 digest of
+ * the serialized token. A successful validation is cached until the token expires, but no longer
+ * than the maximum time to live, a failed validation only for a short time.
+ *
+ * The cached results are only meaningful for the validator that produced them, so a cache should
+ * only be shared between validators with the same trust configuration.
+ *
+ * The cache has no way to learn that the STS has revoked a token, so a revoked token is
+ * accepted until its entry expires. An application which is notified of revocations can
+ * remove the entries with the invalidate methods, nothing calls them otherwise.
+ */
+public class ValidatedTokenCache {
+
+    public static final long DEFAULT_MAX_TTL = 5L * 60L * 1000L;
+    public static final long DEFAULT_INVALID_TTL = 10L * 1000L;
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private long maxTTL = DEFAULT_MAX_TTL;
+    private long invalidTTL = DEFAULT_INVALID_TTL;
+    private int maxSize = DEFAULT_MAX_SIZE;
+
+    /**
+     * Return the digest identifying the given token in the cache.
+     */
+    public static String getDigest(Element tokenElement) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] bytes = DOM2Writer.nodeToString(tokenElement).getBytes(StandardCharsets.UTF_8);
+            return Base64Utility.encode(digest.digest(bytes));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Return the cached result for the given token digest, or null if there is none
+     * or it has expired.
+     */
+    public Entry get(String digest) {
+        Entry entry = entries.get(digest);
+        if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(digest, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Cache a successful validation of a token.
+     * @param digest the digest of the token
+     * @param expires the expiry of the token, or null if it is not known
+     * @param transformedToken the token which was issued in exchange of the validated one, or null
+     */
+    public void addValid(String digest, Date expires, Element transformedToken) {
+        long now = System.currentTimeMillis();
+        long expiry = now + maxTTL;
+        if (expires != null) {
+            expiry = Math.min(expiry, expires.getTime());
+        }
+        if (expiry > now) {
+            put(digest, new Entry(true, expiry, transformedToken), now);
+        }
+    }
+
+    /**
+     * Cache a failed validation of a token.
+     */
+    public void addInvalid(String digest) {
+        if (invalidTTL > 0) {
+            long now = System.currentTimeMillis();
+            put(digest, new Entry(false, now + invalidTTL, null), now);
+        }
+    }
+
+    public void invalidate(String digest) {
+        entries.remove(digest);
+    }
+
+    public void invalidate(Element tokenElement) {
+        invalidate(getDigest(tokenElement));
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public long getMaxTTL() {
+        return maxTTL;
+    }
+
+    /**
+     * Set the maximum time in milliseconds for which a successful validation is cached.
+     */
+    public void setMaxTTL(long maxTTL) {
+        this.maxTTL = maxTTL;
+    }
+
+    public long getInvalidTTL() {
+        return invalidTTL;
+    }
+
+    /**
+     * Set the time in milliseconds for which a failed validation is cached, 0 to not cache
+     * them at all.
+     */
+    public void setInvalidTTL(long invalidTTL) {
+        this.invalidTTL = invalidTTL;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    private void put(String digest, Entry entry, long now) {
+        if (entries.size() >= maxSize) {
+            purge(now);
+            if (entries.size() >= maxSize) {
+                return;
+            }
+        }
+        entries.put(digest, entry);
+    }
+
+    private void purge(long now) {
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext();) {
+            if (it.next().isExpired(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    public static final class Entry {
+        private final boolean valid;
+        private final long expiry;
+        private final Element transformedToken;
+
+        Entry(boolean valid, long expiry, Element transformedToken) {
+            this.valid = valid;
+            this.expiry = expiry;
+            this.transformedToken = transformedToken;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        public Element getTransformedToken() {
+            return transformedToken;
+        }
+
+        boolean isExpired(long now) {
+            return expiry <= now;
+        }
+    }
+}
@@ -39,8 +39,11 @@ import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageUtils;
 import org.apache.cxf.rt.security.utils.SecurityUtils;
 import org.apache.cxf.service.model.EndpointInfo;
+import org.apache.cxf.ws.policy.AssertionInfoMap;
 import org.apache.cxf.ws.security.SecurityConstants;
+import org.apache.cxf.ws.security.cache.CXFBucketedReplayCache;
 import org.apache.cxf.ws.security.cache.CXFEHCacheReplayCache;
+import org.apache.cxf.ws.security.policy.PolicyUtils;
 import org.apache.cxf.ws.security.tokenstore.SecurityToken;
 import org.apache.cxf.ws.security.tokenstore.TokenStoreUtils;
 import org.apache.wss4j.common.cache.ReplayCache;
@@ -50,6 +53,7 @@ import org.apache.wss4j.common.crypto.CryptoFactory;
 import org.apache.wss4j.common.crypto.PasswordEncryptor;
 import org.apache.wss4j.common.ext.WSSecurityException;
 import org.apache.wss4j.common.util.Loader;
+import org.apache.wss4j.policy.SPConstants;
 import org.apache.wss4j.stax.ext.WSSConstants;
 import org.apache.wss4j.stax.securityToken.WSSecurityTokenConstants;
 import org.apache.xml.security.exceptions.XMLSecurityException;
@@ -62,6 +66,25 @@ public final class WSS4JUtils {
     
     private static final Logger LOG = LogUtils.getL7dLogger(WSS4JUtils.class);
     
+    /**
+     * The WS-SecurityPolicy assertions which are not (fully) enforced by the streaming
+     * implementation: the secure conversation bootstrap, the endorsing supporting tokens
+     * and the XPath based element protection. The messages using them are secured with
+     * the DOM implementation when the implementation is selected automatically.
+     */
+    private static final String[] STREAMING_UNSUPPORTED_ASSERTIONS = {
+        SPConstants.SECURE_CONVERSATION_TOKEN,
+        SPConstants.SPNEGO_CONTEXT_TOKEN,
+        SPConstants.ENDORSING_SUPPORTING_TOKENS,
+        SPConstants.SIGNED_ENDORSING_SUPPORTING_TOKENS,
+        SPConstants.ENDORSING_ENCRYPTED_SUPPORTING_TOKENS,
+        SPConstants.SIGNED_ENDORSING_ENCRYPTED_SUPPORTING_TOKENS,
+        SPConstants.SIGNED_ELEMENTS,
+        SPConstants.ENCRYPTED_ELEMENTS,
+        SPConstants.CONTENT_ENCRYPTED_ELEMENTS,
+        SPConstants.REQUIRED_ELEMENTS,
+    };
+    
     private WSS4JUtils() {
         // complete
     }
@@ -75,7 +98,9 @@ public final class WSS4JUtils {
      * 
      * It tries to get an instance of ReplayCache via the instanceKey argument from a 
      * contextual property, and failing that the message exchange. If it can't find any, then it
-     * defaults to using an EH-Cache instance and stores that on the message exchange.
+     * defaults to using an EH-Cache instance, or the built-in replay cache if EH-Cache is not
+     * available or the REPLAY_CACHE_TYPE property is set to "memory", and stores that on the
+     * message exchange.
      */
     public static ReplayCache getReplayCache(
         SoapMessage message, String booleanKey, String instanceKey
@@ -111,15 +136,16 @@ public final class WSS4JUtils {
                             cacheKey += "-" + hashcode;
                         }
                     }
-                    URL configFile = SecurityUtils.getConfigFileURL(message, SecurityConstants.CACHE_CONFIG_FILE,
-                                                                    "cxf-ehcache.xml");
-
-                    if (ReplayCacheFactory.isEhCacheInstalled()) {
+                    Object type = message.getContextualProperty(SecurityConstants.REPLAY_CACHE_TYPE);
+                    if (SecurityConstants.REPLAY_CACHE_TYPE_MEMORY.equals(type)
+                        || !ReplayCacheFactory.isEhCacheInstalled()) {
+                        replayCache = new CXFBucketedReplayCache();
+                    } else {
+                        URL configFile = 
+                            SecurityUtils.getConfigFileURL(message, SecurityConstants.CACHE_CONFIG_FILE,
+                                                           "cxf-ehcache.xml");
                         Bus bus = message.getExchange().getBus();
                         replayCache = new CXFEHCacheReplayCache(cacheKey, bus, configFile);
-                    } else {
-                        ReplayCacheFactory replayCacheFactory = ReplayCacheFactory.newInstance();
-                        replayCache = replayCacheFactory.newReplayCache(cacheKey, configFile);
                     }
                     
                     info.setProperty(instanceKey, replayCache);
@@ -130,6 +156,36 @@ public final class WSS4JUtils {
         return null;
     }
     
+    /**
+     * Return whether the streaming (StAX) implementation is to be used to secure the message, 
+     * according to the ENABLE_STREAMING_SECURITY property. If it is set to "auto", then the
+     * streaming implementation is used if it supports all of the WS-SecurityPolicy assertions
+     * applying to the message, and the choice is stored on the message.
+     */
+    public static boolean isStreamingSecurityEnabled(Message message) {
+        Object enableStax = message.getContextualProperty(SecurityConstants.ENABLE_STREAMING_SECURITY);
+        if (SecurityConstants.STREAMING_SECURITY_AUTO.equals(enableStax)) {
+            boolean supported = isStreamingSecuritySupported(message.get(AssertionInfoMap.class));
+            message.put(SecurityConstants.ENABLE_STREAMING_SECURITY, supported);
+            return supported;
+        }
+        return MessageUtils.isTrue(enableStax);
+    }
+    
+    private static boolean isStreamingSecuritySupported(AssertionInfoMap aim) {
+        if (aim == null) {
+            return false;
+        }
+        for (String localname : STREAMING_UNSUPPORTED_ASSERTIONS) {
+            if (!PolicyUtils.getAllAssertionsByLocalname(aim, localname).isEmpty()) {
+                LOG.fine("Using the DOM WS-Security implementation as " + localname 
+                         + " is not supported by the streaming implementation");
+                return false;
+            }
+        }
+        return true;
+    }
+    
     public static String parseAndStoreStreamingSecurityToken(
         org.apache.xml.security.stax.securityToken.SecurityToken securityToken,
         Message message
@@ -19,7 +19,12 @@
 package org.apache.cxf.ws.security.tokenstore;
 
 import java.util.Date;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.cxf.Bus;
+import org.apache.cxf.bus.extension.ExtensionManagerBus;
+import org.apache.cxf.message.Exchange;
+import org.apache.cxf.message.ExchangeImpl;
 import org.apache.cxf.message.Message;
 import org.apache.cxf.message.MessageImpl;
 import org.apache.cxf.ws.security.SecurityConstants;
@@ -83,4 +88,120 @@ public class MemoryTokenStoreTest extends org.junit.Assert {
         assertFalse(token.isAboutToExpire(100L));
         assertTrue(token.isAboutToExpire((5L * 60L * 1000L) + 1L));
     }
+    
+    @org.junit.Test
+    public void testTokenTTL() {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        memoryStore.setTTL(0L);
+        memoryStore.add(new SecurityToken("expired"));
+        assertNull(memoryStore.getToken("expired"));
+        assertEquals(1L, memoryStore.getEvictionCount());
+        assertEquals(1L, memoryStore.getMissCount());
+        
+        // the token is kept until it expires
+        SecurityToken token = new SecurityToken("valid");
+        Date expires = new Date();
+        expires.setTime(expires.getTime() + (5L * 60L * 1000L));
+        token.setExpires(expires);
+        memoryStore.add(token);
+        assertEquals(token, memoryStore.getToken("valid"));
+        assertEquals(1L, memoryStore.getHitCount());
+    }
+    
+    @org.junit.Test
+    public void testLeastRecentlyUsedEviction() {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        memoryStore.setMaxSize(10);
+        for (int i = 0; i < 10; i++) {
+            memoryStore.add(new SecurityToken("token" + i));
+        }
+        assertNotNull(memoryStore.getToken("token0"));
+        memoryStore.add(new SecurityToken("token10"));
+        
+        assertEquals(10, memoryStore.size());
+        assertNotNull(memoryStore.getToken("token0"));
+        assertNull(memoryStore.getToken("token1"));
+        assertNotNull(memoryStore.getToken("token2"));
+        assertNotNull(memoryStore.getToken("token10"));
+        assertEquals(1L, memoryStore.getEvictionCount());
+        // the evicted token is no longer indexed by its expiry
+        assertEquals(10, memoryStore.getIndexedCount());
+        memoryStore.close();
+    }
+    
+    @org.junit.Test
+    public void testRemoveAndReplaceUpdateIndex() {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        memoryStore.add(new SecurityToken("token"));
+        memoryStore.add(new SecurityToken("other"));
+        assertEquals(2, memoryStore.getIndexedCount());
+        
+        SecurityToken token = new SecurityToken("token");
+        Date expires = new Date();
+        expires.setTime(expires.getTime() + (30L * 60L * 1000L));
+        token.setExpires(expires);
+        memoryStore.add(token);
+        assertEquals(2, memoryStore.getIndexedCount());
+        
+        memoryStore.remove("token");
+        memoryStore.remove("other");
+        assertEquals(0, memoryStore.size());
+        assertEquals(0, memoryStore.getIndexedCount());
+        memoryStore.close();
+    }
+    
+    @org.junit.Test
+    public void testCloseStopsEviction() {
+        int openStores = MemoryTokenStore.getOpenStoreCount();
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        final AtomicInteger closed = new AtomicInteger();
+        memoryStore.runOnClose(new Runnable() {
+            public void run() {
+                closed.incrementAndGet();
+            }
+        });
+        memoryStore.add(new SecurityToken("token"));
+        assertEquals(openStores + 1, MemoryTokenStore.getOpenStoreCount());
+        
+        memoryStore.close();
+        memoryStore.close();
+        assertEquals(1, closed.get());
+        assertEquals(0, memoryStore.size());
+        // the eviction thread is stopped with the last store
+        assertEquals(openStores, MemoryTokenStore.getOpenStoreCount());
+    }
+    
+    @org.junit.Test
+    public void testStoreClosedOnBusShutdown() {
+        int openStores = MemoryTokenStore.getOpenStoreCount();
+        Bus bus = new ExtensionManagerBus();
+        Message message = new MessageImpl();
+        Exchange exchange = new ExchangeImpl();
+        exchange.put(Bus.class, bus);
+        message.setExchange(exchange);
+        MemoryTokenStore memoryStore = (MemoryTokenStore)new MemoryTokenStoreFactory()
+            .newTokenStore(SecurityConstants.TOKEN_STORE_CACHE_INSTANCE, message);
+        memoryStore.add(new SecurityToken("token"));
+        assertEquals(openStores + 1, MemoryTokenStore.getOpenStoreCount());
+        
+        bus.shutdown(true);
+        assertEquals(0, memoryStore.size());
+        assertEquals(openStores, MemoryTokenStore.getOpenStoreCount());
+    }
+    
+    @org.junit.Test
+    public void testManagedStoreNames() throws Exception {
+        MemoryTokenStore memoryStore = new MemoryTokenStore();
+        MemoryTokenStore otherStore = new MemoryTokenStore();
+        ManagedMemoryTokenStore managed = new ManagedMemoryTokenStore(memoryStore, "key", null);
+        ManagedMemoryTokenStore other = new ManagedMemoryTokenStore(otherStore, "key", null);
+        // stores of the same key are registered under different names
+        assertFalse(managed.getObjectName().equals(other.getObjectName()));
+        
+        memoryStore.add(new SecurityToken("token"));
+        assertEquals(1, managed.getSize());
+        memoryStore.close();
+        otherStore.close();
+        assertEquals(0, managed.getSize());
+    }
 }
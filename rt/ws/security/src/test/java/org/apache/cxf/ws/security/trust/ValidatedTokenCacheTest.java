@@ -0,0 +1,97 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.trust;
+
+import java.util.Date;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+
+import org.apache.cxf.helpers.DOMUtils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ValidatedTokenCacheTest extends Assert {
+
+    @Test
+    public void testDigest() throws Exception {
+        Element token = createToken("alice");
+        String digest = ValidatedTokenCache.getDigest(token);
+        assertEquals(digest, ValidatedTokenCache.getDigest(createToken("alice")));
+        assertFalse(digest.equals(ValidatedTokenCache.getDigest(createToken("bob"))));
+    }
+
+    @Test
+    public void testExpiry() throws Exception {
+        ValidatedTokenCache cache = new ValidatedTokenCache();
+        cache.addValid("valid", null, null);
+        cache.addValid("expired", new Date(System.currentTimeMillis() - 1000L), null);
+        cache.addValid("expiring", new Date(System.currentTimeMillis() + 100L), null);
+        cache.addInvalid("invalid");
+
+        assertTrue(cache.get("valid").isValid());
+        assertNull(cache.get("expired"));
+        assertFalse(cache.get("invalid").isValid());
+        assertNotNull(cache.get("expiring"));
+        Thread.sleep(200L);
+        assertNull(cache.get("expiring"));
+
+        cache.setInvalidTTL(0L);
+        cache.addInvalid("notcached");
+        assertNull(cache.get("notcached"));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+        ValidatedTokenCache cache = new ValidatedTokenCache();
+        Element token = createToken("alice");
+        Element transformed = createToken("bob");
+        cache.addValid(ValidatedTokenCache.getDigest(token), null, transformed);
+        assertSame(transformed, cache.get(ValidatedTokenCache.getDigest(token)).getTransformedToken());
+
+        cache.invalidate(createToken("alice"));
+        assertNull(cache.get(ValidatedTokenCache.getDigest(token)));
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        ValidatedTokenCache cache = new ValidatedTokenCache();
+        cache.setMaxSize(2);
+        cache.addValid("1", null, null);
+        cache.addValid("2", new Date(System.currentTimeMillis() + 50L), null);
+        cache.addValid("3", null, null);
+        assertNull(cache.get("3"));
+
+        // the expired results make room for the new ones
+        Thread.sleep(100L);
+        cache.addValid("3", null, null);
+        assertNotNull(cache.get("3"));
+        assertEquals(2, cache.size());
+    }
+
+    private static Element createToken(String user) {
+        Document doc = DOMUtils.createDocument();
+        Element token = doc.createElementNS("urn:test", "Token");
+        token.setAttributeNS(null, "user", user);
+        doc.appendChild(token);
+        return token;
+    }
+}
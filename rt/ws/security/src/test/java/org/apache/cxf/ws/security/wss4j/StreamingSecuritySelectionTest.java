@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements. See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership. The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied. See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.apache.cxf.ws.security.wss4j;
+
+import org.apache.cxf.binding.soap.SoapMessage;
+import org.apache.cxf.message.MessageImpl;
+import org.apache.cxf.ws.policy.AssertionInfoMap;
+import org.apache.cxf.ws.security.SecurityConstants;
+import org.apache.neethi.Policy;
+import org.junit.Test;
+
+public class StreamingSecuritySelectionTest extends AbstractPolicySecurityTest {
+
+    @Test
+    public void testExplicitSelection() throws Exception {
+        SoapMessage message = createMessage("signed_elements_policy.xml", null);
+        assertFalse(WSS4JUtils.isStreamingSecurityEnabled(message));
+
+        message = createMessage("signed_elements_policy.xml", "true");
+        assertTrue(WSS4JUtils.isStreamingSecurityEnabled(message));
+    }
+
+    @Test
+    public void testAutomaticSelection() throws Exception {
+        SoapMessage message = 
+            createMessage("encrypted_parts_policy_body.xml", SecurityConstants.STREAMING_SECURITY_AUTO);
+        assertTrue(WSS4JUtils.isStreamingSecurityEnabled(message));
+        assertEquals(Boolean.TRUE, message.get(SecurityConstants.ENABLE_STREAMING_SECURITY));
+
+        // XPath based signed elements are only enforced by the DOM implementation
+        message = createMessage("signed_elements_policy.xml", SecurityConstants.STREAMING_SECURITY_AUTO);
+        assertFalse(WSS4JUtils.isStreamingSecurityEnabled(message));
+        assertEquals(Boolean.FALSE, message.get(SecurityConstants.ENABLE_STREAMING_SECURITY));
+
+        message = createMessage(null, SecurityConstants.STREAMING_SECURITY_AUTO);
+        assertFalse(WSS4JUtils.isStreamingSecurityEnabled(message));
+    }
+
+    private SoapMessage createMessage(String policyName, String enableStreaming) throws Exception {
+        SoapMessage message = new SoapMessage(new MessageImpl());
+        if (policyName != null) {
+            Policy policy = policyBuilder.getPolicy(this.getResourceAsStream(policyName));
+            message.put(AssertionInfoMap.class, new AssertionInfoMap(policy));
+        }
+        if (enableStreaming != null) {
+            message.put(SecurityConstants.ENABLE_STREAMING_SECURITY, enableStreaming);
+        }
+        return message;
+    }
+}